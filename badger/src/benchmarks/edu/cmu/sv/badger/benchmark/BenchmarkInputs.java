@@ -0,0 +1,73 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Properties;
+
+import org.apache.commons.io.FileUtils;
+
+import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.app.BadgerInput;
+import edu.cmu.sv.badger.app.BadgerInputKeys;
+
+/**
+ * Creates the Badger configuration for the benchmarks in a temporary directory, so that the benchmarks use the same
+ * construction of the components as SymExe.
+ */
+public final class BenchmarkInputs {
+
+    private BenchmarkInputs() {
+    }
+
+    public static File createDirectory() {
+        try {
+            return Files.createTempDirectory("badger-benchmark").toFile();
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to create benchmark directory", e);
+        }
+    }
+
+    public static void deleteDirectory(File dir) {
+        try {
+            FileUtils.deleteDirectory(dir);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * @param dir
+     *            - directory for the input, export, tmp and statistic files
+     * @param additionalProperties
+     *            - e.g. io.utils and io.input.sizes, which override the defaults
+     */
+    public static BadgerInput createInput(File dir, Properties additionalProperties) {
+        Properties prop = new Properties();
+        prop.setProperty(BadgerInputKeys.INITIAL_INPUT_DIR.name, new File(dir, "in").getPath());
+        prop.setProperty(BadgerInputKeys.EXPORT_DIR.name, new File(dir, "export").getPath());
+        prop.setProperty(BadgerInputKeys.TMP_DIR.name, new File(dir, "tmp").getPath());
+        prop.setProperty(BadgerInputKeys.CYCLE_WAITING_SEC.name, "0");
+        prop.setProperty(BadgerInputKeys.MAX_NUMBER_SYMEXE_ITERATIONS.name, "1");
+        prop.setProperty(BadgerInputKeys.APPLICATION_CLASSPATH.name, dir.getPath());
+        prop.setProperty(BadgerInputKeys.APPLICATION_TARGET_CLASS.name, "Synthetic");
+        prop.setProperty(BadgerInputKeys.ANALYSIS_METHOD.name, WCAAnalyzer.ID);
+        prop.setProperty(BadgerInputKeys.ANALYSIS_EXPLORATION_HEURISTIC.name, "highest-cost-highest-node");
+        prop.setProperty(BadgerInputKeys.ANALYSIS_WCA_METRIC.name, "userdefined");
+        prop.setProperty(BadgerInputKeys.IO_UTILS.name, "int-byte-array");
+        prop.setProperty(BadgerInputKeys.IO_INPUT_SIZES.name, "64");
+        prop.setProperty(BadgerInputKeys.IMPORT_STATISTICS_FILE.name, new File(dir, "import.txt").getPath());
+        prop.setProperty(BadgerInputKeys.GENERATION_STATISTICS_FILE.name, new File(dir, "generation.txt").getPath());
+        prop.setProperty(BadgerInputKeys.EXPORT_STATISTICS_FILE.name, new File(dir, "export.txt").getPath());
+        prop.setProperty(BadgerInputKeys.INTERNAL_TRIE_STATISTICS_FILE.name, new File(dir, "trie.txt").getPath());
+        prop.setProperty(BadgerInputKeys.PHASE_STATISTICS_FILE.name, new File(dir, "phases.txt").getPath());
+        prop.setProperty(BadgerInputKeys.PC_MAPPING_FILE.name, new File(dir, "pc.txt").getPath());
+        prop.putAll(additionalProperties);
+
+        BadgerInput input = new BadgerInput(prop);
+        new File(input.tmpDir).mkdirs();
+        new File(input.exportDir).mkdirs();
+        return input;
+    }
+
+}
@@ -0,0 +1,15 @@
+package edu.cmu.sv.badger.benchmark;
+
+/**
+ * Fixed seeds of the benchmarks, so that every run measures the same tries and inputs.
+ */
+public final class BenchmarkSeeds {
+
+    public static final long TRIE = 0x42616467L;
+    public static final long SELECTION = 0x65726A4DL;
+    public static final long SOLUTION = 0x534F4C56L;
+
+    private BenchmarkSeeds() {
+    }
+
+}
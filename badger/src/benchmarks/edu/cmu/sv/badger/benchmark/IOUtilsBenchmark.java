@@ -0,0 +1,120 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.sv.badger.app.BadgerInputKeys;
+import edu.cmu.sv.badger.io.ByteImageProcessorIOUtils;
+import edu.cmu.sv.badger.io.ByteTextIOUtils;
+import edu.cmu.sv.badger.io.CharArrayIOUtilsEngagement;
+import edu.cmu.sv.badger.io.DynamicCharArrayIOUtils;
+import edu.cmu.sv.badger.io.DynamicIntArrayIOUtils;
+import edu.cmu.sv.badger.io.IOUtils;
+import edu.cmu.sv.badger.io.ImageProcessorIOUtils;
+import edu.cmu.sv.badger.io.SchemaIOUtils;
+import gov.nasa.jpf.symbc.Observations;
+
+/**
+ * Generation of an input file from a solved model with every io.utils of BadgerInput, including the write of the file.
+ * The model contains values for all variables of the input.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+UseParallelGC" })
+public class IOUtilsBenchmark {
+
+    @Param({ ImageProcessorIOUtils.ID, ByteImageProcessorIOUtils.ID, SchemaIOUtils.INT_BYTE_ARRAY_ID,
+            SchemaIOUtils.CHAR_BYTE_ARRAY_ID, CharArrayIOUtilsEngagement.ID, ByteTextIOUtils.ID,
+            SchemaIOUtils.FULL_INT_BYTE_ARRAY_ID, DynamicIntArrayIOUtils.ID, SchemaIOUtils.MULTI_INT_BYTE_ARRAY_ID,
+            DynamicCharArrayIOUtils.ID, SchemaIOUtils.IMAGE_BYTE_DOUBLE_ARRAY_ID,
+            SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID, SchemaIOUtils.ID })
+    public String ioUtilsId;
+
+    private File dir;
+    private IOUtils ioUtils;
+    private Map<String, Object> solution;
+    private String outputFile;
+
+    @Setup
+    public void setup() {
+        Properties prop = new Properties();
+        prop.setProperty(BadgerInputKeys.IO_UTILS.name, ioUtilsId);
+        prop.setProperty(BadgerInputKeys.IO_INPUT_SIZES.name, getInputSizes(ioUtilsId));
+        prop.setProperty(BadgerInputKeys.IO_SCHEMA.name, "int8[16] int32[8] char16[8] int16[4][4]");
+        prop.setProperty(BadgerInputKeys.IO_SCHEMA_NAMING.name, "sym_{i}");
+        dir = BenchmarkInputs.createDirectory();
+        ioUtils = BenchmarkInputs.createInput(dir, prop).ioUtils;
+        outputFile = new File(dir, "generated").getPath();
+
+        // The dynamic inputs take their size from the last execution.
+        Observations.lastObservedInputSize = 64;
+
+        // Values for the variable names of all io.utils: sym_i, sym_i_j and sym_i_j_k.
+        solution = new HashMap<>();
+        Random random = new Random(BenchmarkSeeds.SOLUTION);
+        for (int i = 0; i < 64; i++) {
+            solution.put("sym_" + i, (long) random.nextInt(128));
+            for (int j = 0; j < 64; j++) {
+                solution.put("sym_" + i + "_" + j, (long) random.nextInt(128));
+                if (i < 8 && j < 8) {
+                    for (int k = 0; k < 3; k++) {
+                        solution.put("sym_" + i + "_" + j + "_" + k, (long) random.nextInt(128));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return io.input.sizes with the number of dimensions that the io.utils expects, 4096 variables at most
+     */
+    private static String getInputSizes(String ioUtilsId) {
+        switch (ioUtilsId) {
+        case ImageProcessorIOUtils.ID:
+        case ByteImageProcessorIOUtils.ID:
+            return "32 32";
+        case ByteTextIOUtils.ID:
+        case DynamicIntArrayIOUtils.ID:
+        case SchemaIOUtils.MULTI_INT_BYTE_ARRAY_ID:
+        case DynamicCharArrayIOUtils.ID:
+            return "8 64";
+        case SchemaIOUtils.IMAGE_BYTE_DOUBLE_ARRAY_ID:
+        case SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID:
+            return "8 8 3";
+        default:
+            return "64";
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkInputs.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public String generateInputFiles() {
+        ioUtils.generateInputFiles(null, solution, outputFile);
+        return outputFile;
+    }
+
+}
@@ -0,0 +1,80 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.io.File;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.sv.badger.io.IOUtils;
+import edu.cmu.sv.badger.io.SchemaIOUtils;
+
+/**
+ * Generation of an input file with the schema of a fixed-layout io.utils ID compared to the hand-written codec of this
+ * ID. The setup checks that both codecs generate the same bytes, see SchemaLayoutCheck. The images have o=1, because
+ * the hand-written image codecs do not support o>1.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+UseParallelGC" })
+public class SchemaIOUtilsBenchmark {
+
+    @Param({ SchemaIOUtils.INT_BYTE_ARRAY_ID, SchemaIOUtils.FULL_INT_BYTE_ARRAY_ID, SchemaIOUtils.CHAR_BYTE_ARRAY_ID,
+            SchemaIOUtils.MULTI_INT_BYTE_ARRAY_ID, SchemaIOUtils.IMAGE_BYTE_DOUBLE_ARRAY_ID,
+            SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID })
+    public String layoutId;
+
+    @Param({ "handwritten", "schema" })
+    public String codec;
+
+    /* Number of values is size*size, e.g. a 16x16 image. */
+    @Param({ "16", "64" })
+    public int size;
+
+    private File dir;
+    private IOUtils ioUtils;
+    private Map<String, Object> solution;
+    private String outputFile;
+
+    @Setup
+    public void setup() {
+        dir = BenchmarkInputs.createDirectory();
+        Integer[] sizes = SchemaLayoutCheck.getSizes(layoutId, size);
+        solution = SchemaLayoutCheck.createSolution(layoutId, new Random(BenchmarkSeeds.SOLUTION), sizes);
+        SchemaLayoutCheck.check(layoutId, solution, dir, sizes);
+
+        if (codec.equals("schema")) {
+            ioUtils = SchemaLayoutCheck.createSchemaIOUtils(layoutId, sizes);
+        } else {
+            ioUtils = SchemaLayoutCheck.createHandwrittenIOUtils(layoutId, sizes);
+        }
+        outputFile = new File(dir, "generated").getPath();
+    }
+
+    @TearDown
+    public void tearDown() {
+        BenchmarkInputs.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public String generateInputFiles() {
+        ioUtils.generateInputFiles(null, solution, outputFile);
+        return outputFile;
+    }
+
+}
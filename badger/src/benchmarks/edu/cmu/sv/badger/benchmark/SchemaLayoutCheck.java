@@ -0,0 +1,228 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import edu.cmu.sv.badger.io.CharArrayIOUtils;
+import edu.cmu.sv.badger.io.FullIntArrayIOUtils;
+import edu.cmu.sv.badger.io.IOUtils;
+import edu.cmu.sv.badger.io.ImageByteDoubleIOUtils;
+import edu.cmu.sv.badger.io.ImageDoubleDoubleIOUtils;
+import edu.cmu.sv.badger.io.IntArrayIOUtils;
+import edu.cmu.sv.badger.io.MultipleIntArrayIOUtils;
+import edu.cmu.sv.badger.io.SchemaIOUtils;
+
+/**
+ * Checks that the schemas, which BadgerInput uses for the io.utils IDs of the fixed-layout inputs, generate the same
+ * bytes as the hand-written codecs of these IDs.
+ *
+ * The hand-written image codecs allocate n*m bytes and write the value (i,j,k) to i*m+j*o+k, which is only a layout
+ * for o=1. For o>1 they fail or overwrite values, so the schema is compared with the hand-written codec for o=1 and
+ * with the row-major layout (i*m+j)*o+k, which the hand-written codec has for o=1, for o>1.
+ *
+ * Usage: SchemaLayoutCheck [number-of-random-solutions]
+ */
+public final class SchemaLayoutCheck {
+
+    public static final String[] LAYOUT_IDS = { SchemaIOUtils.INT_BYTE_ARRAY_ID, SchemaIOUtils.FULL_INT_BYTE_ARRAY_ID,
+            SchemaIOUtils.CHAR_BYTE_ARRAY_ID, SchemaIOUtils.MULTI_INT_BYTE_ARRAY_ID,
+            SchemaIOUtils.IMAGE_BYTE_DOUBLE_ARRAY_ID, SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID };
+
+    private SchemaLayoutCheck() {
+    }
+
+    /**
+     * @return schema codec for the layout, constructed like in BadgerInput
+     */
+    public static SchemaIOUtils createSchemaIOUtils(String layoutId, Integer... sizes) {
+        String type;
+        switch (layoutId) {
+        case SchemaIOUtils.FULL_INT_BYTE_ARRAY_ID:
+            type = "int32";
+            break;
+        case SchemaIOUtils.CHAR_BYTE_ARRAY_ID:
+            type = "char16";
+            break;
+        case SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID:
+            type = "unorm8";
+            break;
+        default:
+            type = "int8";
+        }
+        return new SchemaIOUtils(SchemaIOUtils.toField(type, sizes), ByteOrder.BIG_ENDIAN,
+                SchemaIOUtils.DEFAULT_NAMING_PATTERN);
+    }
+
+    /**
+     * @return hand-written codec for the layout
+     */
+    public static IOUtils createHandwrittenIOUtils(String layoutId, Integer... sizes) {
+        switch (layoutId) {
+        case SchemaIOUtils.INT_BYTE_ARRAY_ID:
+            return new IntArrayIOUtils(sizes[0]);
+        case SchemaIOUtils.FULL_INT_BYTE_ARRAY_ID:
+            return new FullIntArrayIOUtils(sizes[0]);
+        case SchemaIOUtils.CHAR_BYTE_ARRAY_ID:
+            return new CharArrayIOUtils(sizes[0]);
+        case SchemaIOUtils.MULTI_INT_BYTE_ARRAY_ID:
+            return new MultipleIntArrayIOUtils(sizes[0], sizes[1]);
+        case SchemaIOUtils.IMAGE_BYTE_DOUBLE_ARRAY_ID:
+            return new ImageByteDoubleIOUtils(sizes[0], sizes[1], sizes[2]);
+        case SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID:
+            return new ImageDoubleDoubleIOUtils(sizes[0], sizes[1], sizes[2]);
+        default:
+            throw new RuntimeException("[ERROR] Unknown fixed-layout io.utils: " + layoutId);
+        }
+    }
+
+    /**
+     * @return sizes with the number of dimensions of the layout, with o=1 for the images
+     */
+    public static Integer[] getSizes(String layoutId, int size) {
+        switch (layoutId) {
+        case SchemaIOUtils.MULTI_INT_BYTE_ARRAY_ID:
+            return new Integer[] { size, size };
+        case SchemaIOUtils.IMAGE_BYTE_DOUBLE_ARRAY_ID:
+        case SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID:
+            return new Integer[] { size, size, 1 };
+        default:
+            return new Integer[] { size * size };
+        }
+    }
+
+    /**
+     * Creates a solution with values for all variables of the layout, with the value types that the hand-written codec
+     * expects: Double in [0,1] for image-double-double-array, otherwise Long in the range of the stored type, including
+     * negative values and values that need all bytes.
+     */
+    public static Map<String, Object> createSolution(String layoutId, Random random, Integer... sizes) {
+        Map<String, Object> solution = new HashMap<>();
+        SchemaIOUtils schema = createSchemaIOUtils(layoutId, sizes);
+        int[] indices = new int[sizes.length];
+        for (int v = 0; v < schema.getNumberOfVariables(); v++) {
+            StringBuilder name = new StringBuilder("sym");
+            for (int index : indices) {
+                name.append('_').append(index);
+            }
+            Object value;
+            switch (layoutId) {
+            case SchemaIOUtils.FULL_INT_BYTE_ARRAY_ID:
+                value = (long) random.nextInt();
+                break;
+            case SchemaIOUtils.CHAR_BYTE_ARRAY_ID:
+                value = (long) random.nextInt(Character.MAX_VALUE + 1);
+                break;
+            case SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID:
+                value = random.nextDouble();
+                break;
+            default:
+                value = (long) (random.nextInt(256) - 128);
+            }
+            // Some variables are left out, the codecs write 0 for them.
+            if (random.nextInt(16) != 0) {
+                solution.put(name.toString(), value);
+            }
+            for (int d = indices.length - 1; d >= 0; d--) {
+                if (++indices[d] < sizes[d]) {
+                    break;
+                }
+                indices[d] = 0;
+            }
+        }
+        return solution;
+    }
+
+    /**
+     * Generates the file with both codecs and compares the bytes.
+     *
+     * @throws RuntimeException
+     *             if the generated files differ
+     */
+    public static void check(String layoutId, Map<String, Object> solution, File dir, Integer... sizes) {
+        byte[] expected = generate(createHandwrittenIOUtils(layoutId, sizes), solution, new File(dir, "handwritten"));
+        byte[] actual = generate(createSchemaIOUtils(layoutId, sizes), solution, new File(dir, "schema"));
+        compare(layoutId, sizes, expected, actual);
+    }
+
+    /**
+     * Compares the schema for an image with o>1 with the row-major layout (i*m+j)*o+k of the values.
+     */
+    private static void checkImageLayout(String layoutId, Map<String, Object> solution, File dir, Integer... sizes) {
+        int n = sizes[0];
+        int m = sizes[1];
+        int o = sizes[2];
+        byte[] expected = new byte[n * m * o];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < m; j++) {
+                for (int k = 0; k < o; k++) {
+                    Object value = solution.get("sym_" + i + "_" + j + "_" + k);
+                    // Same conversion as the hand-written codecs, a missing real value is 0.0, i.e. the byte -128.
+                    byte byteValue;
+                    if (layoutId.equals(SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID)) {
+                        byteValue = (byte) ((value == null ? 0.0 : (double) value) * 255 - 128);
+                    } else {
+                        byteValue = value == null ? 0 : (byte) Math.toIntExact((long) value);
+                    }
+                    expected[(i * m + j) * o + k] = byteValue;
+                }
+            }
+        }
+        byte[] actual = generate(createSchemaIOUtils(layoutId, sizes), solution, new File(dir, "schema"));
+        compare(layoutId, sizes, expected, actual);
+    }
+
+    private static byte[] generate(IOUtils ioUtils, Map<String, Object> solution, File outputFile) {
+        outputFile.delete();
+        ioUtils.generateInputFiles(null, solution, outputFile.getPath());
+        try {
+            return Files.readAllBytes(outputFile.toPath());
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] No input file generated: " + outputFile, e);
+        }
+    }
+
+    private static void compare(String layoutId, Integer[] sizes, byte[] expected, byte[] actual) {
+        if (expected.length != actual.length) {
+            throw new RuntimeException("[ERROR] " + layoutId + Arrays.toString(sizes) + ": schema generates "
+                    + actual.length + " bytes instead of " + expected.length);
+        }
+        for (int b = 0; b < expected.length; b++) {
+            if (expected[b] != actual[b]) {
+                throw new RuntimeException("[ERROR] " + layoutId + Arrays.toString(sizes) + ": byte " + b + " is "
+                        + actual[b] + " instead of " + expected[b]);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int numberOfSolutions = args.length > 0 ? Integer.parseInt(args[0]) : 100;
+        File dir = BenchmarkInputs.createDirectory();
+        Random random = new Random(BenchmarkSeeds.SOLUTION);
+        try {
+            for (String layoutId : LAYOUT_IDS) {
+                for (int size = 1; size <= 16; size++) {
+                    Integer[] sizes = getSizes(layoutId, size);
+                    for (int s = 0; s < numberOfSolutions; s++) {
+                        check(layoutId, createSolution(layoutId, random, sizes), dir, sizes);
+                    }
+                    if (sizes.length == 3) {
+                        Integer[] rgbSizes = { size, size, 3 };
+                        for (int s = 0; s < numberOfSolutions; s++) {
+                            checkImageLayout(layoutId, createSolution(layoutId, random, rgbSizes), dir, rgbSizes);
+                        }
+                    }
+                }
+                System.out.println(layoutId + ": identical");
+            }
+        } finally {
+            BenchmarkInputs.deleteDirectory(dir);
+        }
+    }
+
+}
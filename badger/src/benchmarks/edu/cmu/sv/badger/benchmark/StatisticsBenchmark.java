@@ -0,0 +1,86 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.io.File;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.analysis.WCAExplorationHeuristic;
+import edu.cmu.sv.badger.app.BadgerInput;
+import edu.cmu.sv.badger.app.BadgerInputKeys;
+import edu.cmu.sv.badger.trie.SyntheticTrieGenerator;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.util.Statistics;
+import edu.cmu.sv.badger.util.StatisticsRecord;
+
+/**
+ * Cost of the statistics on the caller thread: the creation of the records as done by SymExe and their hand-over to
+ * the StatisticsWriter, in both file formats. The files are written by the writer thread in the background.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+UseParallelGC" })
+public class StatisticsBenchmark {
+
+    @Param({ Statistics.FORMAT_CSV, Statistics.FORMAT_JSONL })
+    public String format;
+
+    private File dir;
+    private BadgerInput input;
+    private Trie trie;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        Properties prop = new Properties();
+        prop.setProperty(BadgerInputKeys.STATISTICS_FORMAT.name, format);
+        dir = BenchmarkInputs.createDirectory();
+        input = BenchmarkInputs.createInput(dir, prop);
+        Statistics.initFiles(input);
+        trie = SyntheticTrieGenerator.forShape(SyntheticTrieGenerator.SHAPE_WIDE, BenchmarkSeeds.TRIE)
+                .generate(new WCAAnalyzer(WCAExplorationHeuristic.HIGHEST_COST_HIGHEST_NODE), 1000);
+    }
+
+    @TearDown
+    public void tearDown() {
+        Statistics.close();
+        BenchmarkInputs.deleteDirectory(dir);
+    }
+
+    @Benchmark
+    public void appendImportStatistics() {
+        StatisticsRecord record = new StatisticsRecord().column("file", "id:" + String.format("%06d", next++))
+                .column("cost", 42.0).flag("score");
+        Statistics.appendImportStatistics(input, record);
+    }
+
+    @Benchmark
+    public void appendExportStatistics() {
+        String id = String.format("%06d", next++);
+        StatisticsRecord record = new StatisticsRecord().column("tmpFile", "sym_" + id)
+                .column("file", "id:" + id).flag("branch").tag("score", 42.0).tag("pc", next);
+        Statistics.appendExportStatistics(input, record);
+    }
+
+    @Benchmark
+    public void appendTrieStatistics() {
+        Statistics.appendTrieStatistics(input, trie, 8, next++);
+    }
+
+}
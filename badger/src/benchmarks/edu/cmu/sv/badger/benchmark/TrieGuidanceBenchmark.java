@@ -0,0 +1,89 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.analysis.WCAExplorationHeuristic;
+import edu.cmu.sv.badger.trie.SyntheticTrieGenerator;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieNode;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+
+/**
+ * Trie side of the replay of the TrieGuidanceListener: the paths to the selected nodes are enabled, and the replay
+ * follows the guided choice of each node, or all enabled children where the paths split, until it reaches the selected
+ * nodes. The callbacks of JPF itself are not part of the measurement, they need a running VM.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+UseParallelGC" })
+public class TrieGuidanceBenchmark {
+
+    @Param({ SyntheticTrieGenerator.SHAPE_DEEP, SyntheticTrieGenerator.SHAPE_WIDE })
+    public String shape;
+
+    @Param({ "1", "8" })
+    public int batchSize;
+
+    private WCAAnalyzer analyzer;
+    private Trie trie;
+
+    @Setup
+    public void setup() {
+        analyzer = new WCAAnalyzer(WCAExplorationHeuristic.HIGHEST_COST_HIGHEST_NODE);
+        trie = SyntheticTrieGenerator.forShape(shape, BenchmarkSeeds.TRIE).generateWithFrontier(analyzer, 10000);
+    }
+
+    @Benchmark
+    public int replay() {
+        List<TrieNode> nodes = analyzer.analyze(trie, batchSize);
+
+        int numberOfSteps = 0;
+        Deque<TrieNode> stack = new ArrayDeque<>();
+        stack.push(trie.getRoot());
+        while (!stack.isEmpty()) {
+            TrieNode cur = stack.pop();
+            numberOfSteps++;
+            if (cur.needsExploration() || TrieNodeType.UNSAT_NODE == cur.getType()) {
+                continue;
+            }
+            int guidedChoice = cur.getGuidedChoice();
+            if (guidedChoice >= 0) {
+                stack.push(cur.getChild(guidedChoice));
+            } else {
+                for (TrieNode child : cur.getChildren()) {
+                    // JPF backtracks at children that are not enabled.
+                    if (child.isEnabled()) {
+                        stack.push(child);
+                    }
+                }
+            }
+        }
+
+        // Put the nodes back, so that the frontier keeps its size.
+        for (TrieNode node : nodes) {
+            node.resetComplete();
+            analyzer.updateNode(node);
+        }
+        return numberOfSteps;
+    }
+
+}
@@ -0,0 +1,92 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.sv.badger.trie.SyntheticTrieGenerator;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieNode;
+
+/**
+ * Insertion of nodes into the trie and the lookup of children along existing paths, as done for every decision of a
+ * symcrete execution and of the replay.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+UseParallelGC" })
+public class TrieNodeBenchmark {
+
+    @Param({ SyntheticTrieGenerator.SHAPE_DEEP, SyntheticTrieGenerator.SHAPE_WIDE })
+    public String shape;
+
+    @Param({ "1000" })
+    public int numberOfPaths;
+
+    private Trie trie;
+    private List<int[]> paths;
+    private int numberOfChoices;
+
+    @Setup
+    public void setup() {
+        SyntheticTrieGenerator generator = SyntheticTrieGenerator.forShape(shape, BenchmarkSeeds.TRIE);
+        trie = generator.generate(null, numberOfPaths);
+        paths = generator.getPaths();
+        numberOfChoices = generator.getNumberOfChoices();
+    }
+
+    /**
+     * Builds the whole trie, the costs and the frontier are not computed.
+     */
+    @Benchmark
+    public Trie insert() {
+        Trie newTrie = new Trie(null);
+        TrieNode root = new TrieNode(newTrie, -1, -1, null, -1, null);
+        newTrie.setRoot(root);
+        for (int[] path : paths) {
+            TrieNode cur = root;
+            for (int d = 0; d < path.length; d++) {
+                TrieNode child = cur.getChild(path[d]);
+                if (child == null) {
+                    child = new TrieNode(newTrie, path[d], SyntheticTrieGenerator.getOffset(d),
+                            SyntheticTrieGenerator.METHOD_NAME, d, cur, SyntheticTrieGenerator.getInstructionKey(d),
+                            SyntheticTrieGenerator.BYTECODE, numberOfChoices, true, 0.0,
+                            SyntheticTrieGenerator.INPUT_SIZE);
+                }
+                cur = child;
+            }
+        }
+        return newTrie;
+    }
+
+    /**
+     * Follows all paths from the root to their leaves.
+     */
+    @Benchmark
+    public int lookup() {
+        int sum = 0;
+        for (int[] path : paths) {
+            TrieNode cur = trie.getRoot();
+            for (int choice : path) {
+                cur = cur.getChild(choice);
+            }
+            sum += cur.getId();
+        }
+        return sum;
+    }
+
+}
@@ -0,0 +1,116 @@
+package edu.cmu.sv.badger.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.analysis.WCAExplorationHeuristic;
+import edu.cmu.sv.badger.trie.SyntheticTrieGenerator;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieNode;
+
+/**
+ * Priority queue operations of the WCAAnalyzer at several frontier sizes: the update of a node after its metric value
+ * changed, as done during the backpropagation, and the selection of the next node for the exploration.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+UseParallelGC" })
+public class WCAAnalyzerBenchmark {
+
+    @Param({ "1000", "10000", "50000" })
+    public int frontierSize;
+
+    private WCAAnalyzer analyzer;
+    private Trie trie;
+    private TrieNode[] frontier;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        analyzer = new WCAAnalyzer(WCAExplorationHeuristic.HIGHEST_COST_HIGHEST_NODE);
+        trie = SyntheticTrieGenerator.forShape(SyntheticTrieGenerator.SHAPE_DEEP, BenchmarkSeeds.TRIE)
+                .generateWithFrontier(analyzer, frontierSize);
+
+        // Update the frontier nodes in a fixed random order.
+        List<TrieNode> nodes = new ArrayList<>();
+        collectFrontier(trie.getRoot(), nodes);
+        frontier = nodes.toArray(new TrieNode[nodes.size()]);
+        Random random = new Random(BenchmarkSeeds.SELECTION);
+        for (int i = frontier.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            TrieNode tmp = frontier[i];
+            frontier[i] = frontier[j];
+            frontier[j] = tmp;
+        }
+    }
+
+    private static void collectFrontier(TrieNode root, List<TrieNode> frontier) {
+        List<TrieNode> stack = new ArrayList<>();
+        stack.add(root);
+        while (!stack.isEmpty()) {
+            TrieNode node = stack.remove(stack.size() - 1);
+            if (node.hasPotentialForExploration()) {
+                frontier.add(node);
+            }
+            stack.addAll(node.getChildren());
+        }
+    }
+
+    /**
+     * Changes the metric value of one frontier node, which removes and re-adds it to the queue.
+     */
+    @Benchmark
+    public boolean updateNode() {
+        TrieNode node = frontier[next];
+        next = (next + 1) % frontier.length;
+        node.updateMetricValue(node.getMetricValue() + 1.0);
+        return analyzer.isNodeLeftforAnalysis();
+    }
+
+    /**
+     * Selects the next node and enables the path to it.
+     */
+    @Benchmark
+    public int analyze() {
+        return analyze(1);
+    }
+
+    /**
+     * Selects a batch of nodes like symexe.frontier.batch=8 and enables the paths to them.
+     */
+    @Benchmark
+    public int analyzeBatch() {
+        return analyze(8);
+    }
+
+    /**
+     * The selected nodes are put back afterwards, so that the frontier keeps its size.
+     */
+    private int analyze(int batchSize) {
+        List<TrieNode> nodes = analyzer.analyze(trie, batchSize);
+        for (TrieNode node : nodes) {
+            node.resetComplete();
+            analyzer.updateNode(node);
+        }
+        return nodes.size();
+    }
+
+}
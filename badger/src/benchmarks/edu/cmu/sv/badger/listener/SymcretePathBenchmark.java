@@ -0,0 +1,97 @@
+package edu.cmu.sv.badger.listener;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.analysis.WCAExplorationHeuristic;
+import edu.cmu.sv.badger.benchmark.BenchmarkSeeds;
+import edu.cmu.sv.badger.trie.SyntheticTrieGenerator;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieNode;
+
+/**
+ * Adds the path of a symcrete execution to the trie, which is what the ConcreteInput2TrieListener did during the
+ * execution before the paths were recorded: following the existing nodes, and the backpropagation of the cost of the
+ * leaf to the root. On a wide trie, the backpropagation averages over many siblings at each level, on a deep trie it
+ * updates the position of many nodes in the queue of the analyzer. Larger tries can be selected with -p numberOfPaths.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = { "-Xms2g", "-Xmx2g", "-XX:+UseParallelGC" })
+public class SymcretePathBenchmark {
+
+    @Param({ SyntheticTrieGenerator.SHAPE_DEEP, SyntheticTrieGenerator.SHAPE_WIDE })
+    public String shape;
+
+    @Param({ "100" })
+    public int numberOfPaths;
+
+    private Trie trie;
+    private SymcretePath[] paths;
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        SyntheticTrieGenerator generator = SyntheticTrieGenerator.forShape(shape, BenchmarkSeeds.TRIE);
+        trie = generator.generate(new WCAAnalyzer(WCAExplorationHeuristic.HIGHEST_COST_HIGHEST_NODE), numberOfPaths);
+
+        // Re-execute existing paths in a fixed random order, so that the trie keeps its size.
+        List<TrieNode> leaves = new ArrayList<>(generator.getLeaves());
+        Random random = new Random(BenchmarkSeeds.SELECTION);
+        paths = new SymcretePath[leaves.size()];
+        for (int i = 0; i < paths.length; i++) {
+            paths[i] = recordPath(leaves.remove(random.nextInt(leaves.size())), random);
+        }
+    }
+
+    /**
+     * Records the decisions from the root to the given leaf, like the listener does, with a new cost for the leaf.
+     */
+    private static SymcretePath recordPath(TrieNode leaf, Random random) {
+        Deque<TrieNode> nodes = new ArrayDeque<>();
+        for (TrieNode node = leaf; node.getParent() != null; node = node.getParent()) {
+            nodes.push(node);
+        }
+        SymcretePath path = new SymcretePath();
+        for (TrieNode node : nodes) {
+            Double cost = node == leaf ? 1000.0 * random.nextDouble() : null;
+            path.addDecision(new SymcretePath.Decision(node.getChoice(), node.getOffset(), node.getMethodName(),
+                    node.getLineNumber(), node.getInstruction(), node.getBytcode(),
+                    node.getParent().getMaximumNumberOfChildren(), true, cost, node.getInputSize()));
+        }
+        path.backtracked();
+        for (int i = 0; i < nodes.size(); i++) {
+            path.backtracked();
+        }
+        return path;
+    }
+
+    @Benchmark
+    public Double applyTo() {
+        SymcretePath path = paths[next];
+        next = (next + 1) % paths.length;
+        path.applyTo(trie);
+        return path.getObservedCostForLeafNode();
+    }
+
+}
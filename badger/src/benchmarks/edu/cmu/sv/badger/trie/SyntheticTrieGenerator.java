@@ -0,0 +1,188 @@
+package edu.cmu.sv.badger.trie;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Random;
+
+import edu.cmu.sv.badger.analysis.TrieAnalyzer;
+
+/**
+ * Generates tries like the ones SymExe builds, without JPF and without a solver, so that the benchmarks can measure
+ * the trie, the analyzers and the listeners in isolation. The trie consists of random paths from the root: each depth
+ * corresponds to one branch instruction with the given number of choices, the leaves get random costs and the inner
+ * nodes the average of their children, like after the backpropagation. The generation only depends on the seed.
+ *
+ * The shapes are:
+ * <ul>
+ * <li>deep: long paths with two choices per decision, like loops over the input.</li>
+ * <li>wide: short paths with many choices per decision, like switch statements.</li>
+ * </ul>
+ */
+public class SyntheticTrieGenerator {
+
+    public static final String SHAPE_DEEP = "deep";
+    public static final String SHAPE_WIDE = "wide";
+
+    public static final String METHOD_NAME = "Synthetic.run([B)V";
+    public static final int BYTECODE = 0x99; // ifeq
+    public static final int INPUT_SIZE = 64;
+
+    private final int depth;
+    private final int numberOfChoices;
+    private final Random random;
+
+    private final List<int[]> paths = new ArrayList<>();
+    private final List<TrieNode> leaves = new ArrayList<>();
+    private long numberOfOpenNodes = 0; // inner nodes with unexplored choices
+
+    /**
+     * @param depth
+     *            - number of decisions on each path
+     * @param numberOfChoices
+     *            - number of choices of each decision
+     * @param seed
+     *            - seed for the choices and costs
+     */
+    public SyntheticTrieGenerator(int depth, int numberOfChoices, long seed) {
+        this.depth = depth;
+        this.numberOfChoices = numberOfChoices;
+        this.random = new Random(seed);
+    }
+
+    public static SyntheticTrieGenerator forShape(String shape, long seed) {
+        switch (shape) {
+        case SHAPE_DEEP:
+            return new SyntheticTrieGenerator(200, 2, seed);
+        case SHAPE_WIDE:
+            return new SyntheticTrieGenerator(6, 16, seed);
+        default:
+            throw new RuntimeException("[ERROR] Unknown trie shape: " + shape);
+        }
+    }
+
+    /**
+     * Key of the instruction at the given depth, see {@link edu.cmu.sv.badger.util.BytecodeUtils#getInstructionKey}.
+     */
+    public static int getInstructionKey(int depth) {
+        return 31 * METHOD_NAME.hashCode() + getOffset(depth);
+    }
+
+    public static int getOffset(int depth) {
+        return 3 * depth;
+    }
+
+    /**
+     * Generates a trie with the given number of random paths. Paths that already exist are not counted.
+     *
+     * @param analyzer
+     *            - analyzer that gets attached to the generated trie, or null for a trie with only the nodes
+     */
+    public Trie generate(TrieAnalyzer analyzer, int numberOfPaths) {
+        Trie trie = createTrie();
+        while (paths.size() < numberOfPaths) {
+            addRandomPath(trie);
+        }
+        return finish(trie, analyzer);
+    }
+
+    /**
+     * Generates a trie with random paths until it has at least the given number of inner nodes with unexplored
+     * choices, i.e. until the frontier of the analyzer has about this size.
+     */
+    public Trie generateWithFrontier(TrieAnalyzer analyzer, int frontierSize) {
+        Trie trie = createTrie();
+        while (numberOfOpenNodes < frontierSize) {
+            addRandomPath(trie);
+        }
+        return finish(trie, analyzer);
+    }
+
+    private Trie createTrie() {
+        paths.clear();
+        leaves.clear();
+        numberOfOpenNodes = 0;
+        Trie trie = new Trie(null);
+        trie.setRoot(new TrieNode(trie, -1, -1, null, -1, null));
+        return trie;
+    }
+
+    private void addRandomPath(Trie trie) {
+        int[] path = new int[depth];
+        TrieNode cur = trie.getRoot();
+        boolean isNewPath = false;
+        for (int d = 0; d < depth; d++) {
+            int choice = random.nextInt(numberOfChoices);
+            path[d] = choice;
+            TrieNode child = cur.getChild(choice);
+            if (child == null) {
+                int numberOfChildren = cur.getChildren().size();
+                if (numberOfChildren == 0 && numberOfChoices > 1) {
+                    numberOfOpenNodes++;
+                } else if (numberOfChoices > 1 && numberOfChildren == numberOfChoices - 1) {
+                    numberOfOpenNodes--;
+                }
+                child = new TrieNode(trie, choice, getOffset(d), METHOD_NAME, d, cur, getInstructionKey(d), BYTECODE,
+                        numberOfChoices, true, null, INPUT_SIZE);
+                isNewPath = true;
+            }
+            cur = child;
+        }
+        if (isNewPath) {
+            cur.setType(TrieNodeType.LEAF_NODE);
+            cur.setMetricValue(1000.0 * random.nextDouble());
+            paths.add(path);
+            leaves.add(cur);
+        }
+    }
+
+    private Trie finish(Trie trie, TrieAnalyzer analyzer) {
+        // Inner nodes get the average of their children, children are finished before their parents.
+        Deque<TrieNode> stack = new ArrayDeque<>();
+        List<TrieNode> postOrder = new ArrayList<>();
+        stack.push(trie.getRoot());
+        while (!stack.isEmpty()) {
+            TrieNode node = stack.pop();
+            postOrder.add(node);
+            for (TrieNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        for (int i = postOrder.size() - 1; i >= 0; i--) {
+            TrieNode node = postOrder.get(i);
+            List<TrieNode> children = node.getChildren();
+            if (!children.isEmpty()) {
+                double sum = 0.0;
+                for (TrieNode child : children) {
+                    sum += child.getMetricValue();
+                }
+                node.setMetricValue(sum / children.size());
+            }
+        }
+
+        if (analyzer != null) {
+            trie.setAnalyzer(analyzer);
+        }
+        return trie;
+    }
+
+    public int getNumberOfChoices() {
+        return numberOfChoices;
+    }
+
+    /**
+     * @return choices of the generated paths, in the order of their generation
+     */
+    public List<int[]> getPaths() {
+        return paths;
+    }
+
+    /**
+     * @return leaves of the generated paths, in the order of their generation
+     */
+    public List<TrieNode> getLeaves() {
+        return leaves;
+    }
+
+}
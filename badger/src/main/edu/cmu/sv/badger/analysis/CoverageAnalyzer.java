@@ -1,16 +1,16 @@
 package edu.cmu.sv.badger.analysis;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
-import java.util.Map.Entry;
 
 import edu.cmu.sv.badger.trie.Trie;
 import edu.cmu.sv.badger.trie.TrieNode;
-import gov.nasa.jpf.vm.Instruction;
+import edu.cmu.sv.badger.util.BytecodeUtils;
 
 /**
  * Analyzes the trie with regards to coverage. So far only branch coverage is supported.
@@ -34,6 +34,7 @@ public class CoverageAnalyzer extends TrieAnalyzer {
      * problems.
      */
     private Map<Integer, Set<TrieNode>> instruction2NodeMapping;
+    private long numberOfMappedNodes = 0; // sum of the set sizes in instruction2NodeMapping
 
     public CoverageAnalyzer(ExplorationHeuristic heuristic) {
         this.queue = new PriorityQueue<>(heuristic);
@@ -58,7 +59,8 @@ public class CoverageAnalyzer extends TrieAnalyzer {
         return node;
     }
 
-    private TrieNode pickNextNodeForExploration() {
+    @Override
+    protected TrieNode pickNextNodeForExploration() {
         if (this.queue.isEmpty()) {
             return null;
         }
@@ -68,7 +70,10 @@ public class CoverageAnalyzer extends TrieAnalyzer {
         nodeWithHighestPriority.setCompleted();
 
         // Remove this node from the instruction2Node mapping, since this node does not need longer any update.
-        instruction2NodeMapping.get(nodeWithHighestPriority.getNextInstruction()).remove(nodeWithHighestPriority);
+        if (instruction2NodeMapping.get(nodeWithHighestPriority.getNextInstruction())
+                .remove(nodeWithHighestPriority)) {
+            numberOfMappedNodes--;
+        }
 
         return nodeWithHighestPriority;
     }
@@ -83,13 +88,20 @@ public class CoverageAnalyzer extends TrieAnalyzer {
             return false;
         }
 
+        // Nodes of other SymExe instances are explored by them.
+        if (!isInShard(node)) {
+            return false;
+        }
+
         // Update Instruction to TrieNode mapping.
         Set<TrieNode> nodes = instruction2NodeMapping.get(node.getNextInstruction());
         if (nodes == null) {
             nodes = new HashSet<>();
             instruction2NodeMapping.put(node.getNextInstruction(), nodes);
         }
-        nodes.add(node);
+        if (nodes.add(node)) {
+            numberOfMappedNodes++;
+        }
 
         /*
          * Add node to priority queue if metric value is known AND if this node has potential for exploration, i.e. if
@@ -100,13 +112,14 @@ public class CoverageAnalyzer extends TrieAnalyzer {
         return true;
     }
 
+    @Override
+    public int getQueueLength() {
+        return queue.size();
+    }
+
     @Override
     public String getStatistics() {
-        long instrCount = 0;
-        for (Entry<Integer, Set<TrieNode>> entry : instruction2NodeMapping.entrySet()) {
-            instrCount += entry.getValue().size();
-        }
-        return "" + queue.size() + "," + instrCount;
+        return "" + queue.size() + "," + numberOfMappedNodes;
     }
 
     @Override
@@ -115,31 +128,40 @@ public class CoverageAnalyzer extends TrieAnalyzer {
     }
 
     @Override
-    public boolean addObservedChoice(Instruction instr, int choice) {
+    public boolean addObservedChoice(int instructionKey, int choice) {
         boolean addedNewChoice = false;
-        if (instr != null) {
-            int instrHashCode = instr.hashCode();
-            Set<Integer> choices = observedChoices.get(instrHashCode);
+        if (instructionKey != BytecodeUtils.NO_INSTRUCTION) {
+            Set<Integer> choices = observedChoices.get(instructionKey);
             if (choices == null) {
                 choices = new HashSet<>();
-                observedChoices.put(instrHashCode, choices);
+                observedChoices.put(instructionKey, choices);
             }
             addedNewChoice = choices.add(choice);
 
             /* If new choice then update prio queue. */
             if (addedNewChoice) {
-                Set<TrieNode> correspondingNodesForInstruction = instruction2NodeMapping.get(instrHashCode);
-                /* Might be null in the beginning, then there is no node that needs any update. */
-                if (correspondingNodesForInstruction != null) {
-                    for (TrieNode node : correspondingNodesForInstruction) {
-                        updateNode(node);
-                    }
-                }
+                updateNodesForInstruction(instructionKey);
             }
         }
         return addedNewChoice;
     }
 
+    @Override
+    protected void updateNodesForInstruction(int instructionHashCode) {
+        Set<TrieNode> correspondingNodesForInstruction = instruction2NodeMapping.get(instructionHashCode);
+        /* Might be null in the beginning, then there is no node that needs any update. */
+        if (correspondingNodesForInstruction != null) {
+            for (TrieNode node : new ArrayList<>(correspondingNodesForInstruction)) {
+                updateNode(node);
+            }
+        }
+    }
+
+    @Override
+    protected Map<Integer, Set<TrieNode>> getNodesByInstruction() {
+        return instruction2NodeMapping;
+    }
+
     @Override
     public Set<Integer> getObservedChoices(int instructionHashCode) {
         Set<Integer> choices = observedChoices.get(instructionHashCode);
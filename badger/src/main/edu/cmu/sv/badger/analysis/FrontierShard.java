@@ -0,0 +1,72 @@
+package edu.cmu.sv.badger.analysis;
+
+import edu.cmu.sv.badger.trie.TrieNode;
+
+/**
+ * Deterministic partition of the trie frontier between several SymExe instances. A node belongs to the shard that is
+ * selected by the hash of the choices on its path, limited to the first prefixDepth decisions. Since every instance
+ * builds the same trie for the same inputs, all instances agree on the owner of a node without any communication, and
+ * the subtrees below the prefix depth stay with one instance. The instances only see the inputs of each other, so an
+ * instance exports every input that creates a node of another shard.
+ */
+public class FrontierShard {
+
+    private final int instanceId;
+    private final int numberOfInstances;
+    private final int prefixDepth;
+
+    /**
+     * @param instanceId
+     *            - shard of this instance, between 0 and numberOfInstances - 1
+     * @param numberOfInstances
+     *            - number of shards
+     * @param prefixDepth
+     *            - number of decisions from the root that select the shard
+     */
+    public FrontierShard(int instanceId, int numberOfInstances, int prefixDepth) {
+        if (instanceId < 0 || instanceId >= numberOfInstances) {
+            throw new RuntimeException(
+                    "[ERROR] instance id " + instanceId + " is not between 0 and " + (numberOfInstances - 1));
+        }
+        this.instanceId = instanceId;
+        this.numberOfInstances = numberOfInstances;
+        this.prefixDepth = prefixDepth;
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public int getNumberOfInstances() {
+        return numberOfInstances;
+    }
+
+    /**
+     * @return true if this instance is responsible for the exploration of the given node
+     */
+    public boolean owns(TrieNode node) {
+        if (numberOfInstances == 1) {
+            return true;
+        }
+        return Math.floorMod(hashPathPrefix(node), numberOfInstances) == instanceId;
+    }
+
+    private int hashPathPrefix(TrieNode node) {
+        TrieNode prefixEnd = node;
+        while (prefixEnd.getDepth() > prefixDepth) {
+            prefixEnd = prefixEnd.getParent();
+        }
+        int hash = prefixEnd.getDepth();
+        for (TrieNode n = prefixEnd; n.getParent() != null; n = n.getParent()) {
+            hash = 31 * hash + n.getChoice();
+        }
+        // Finalizer of MurmurHash3, so that neighboring paths are spread over the shards.
+        hash ^= hash >>> 16;
+        hash *= 0x85ebca6b;
+        hash ^= hash >>> 13;
+        hash *= 0xc2b2ae35;
+        hash ^= hash >>> 16;
+        return hash;
+    }
+
+}
@@ -1,10 +1,19 @@
 package edu.cmu.sv.badger.analysis;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
+import edu.cmu.sv.badger.io.ExchangeFile;
+import edu.cmu.sv.badger.solver.UnsatCoreIndex;
 import edu.cmu.sv.badger.trie.Trie;
 import edu.cmu.sv.badger.trie.TrieNode;
-import gov.nasa.jpf.vm.Instruction;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
 
 /**
  * Abstract class to provide a common interface for the analysis of trie data structures.
@@ -14,6 +23,99 @@ import gov.nasa.jpf.vm.Instruction;
  */
 public abstract class TrieAnalyzer { // TODO think about having only one and everything depends on the chosen heuristic
 
+    /* Stores the learned unsat cores, which are used to mark new nodes as infeasible without solving them. */
+    protected UnsatCoreIndex unsatCoreIndex = new UnsatCoreIndex();
+
+    /* Only nodes in this shard are explored, if several SymExe instances share the frontier. */
+    protected FrontierShard frontierShard = null;
+
+    public void setFrontierShard(FrontierShard frontierShard) {
+        this.frontierShard = frontierShard;
+    }
+
+    /* Branch decisions that the fuzzer covered, as of the last call of updateFuzzerCoverage. */
+    protected ExchangeFile exchangeFile = null;
+    private final BitSet fuzzerCoveredBranches = new BitSet(ExchangeFile.MAP_SIZE);
+
+    public void setExchangeFile(ExchangeFile exchangeFile) {
+        this.exchangeFile = exchangeFile;
+    }
+
+    /**
+     * Takes over the branch decisions that the fuzzer covered since the last call, and updates the queued nodes at
+     * these branches. The queue is only updated here, so that its order stays consistent while the fuzzer runs.
+     * 
+     * @return number of newly covered entries of the branch map
+     */
+    public int updateFuzzerCoverage() {
+        if (exchangeFile == null) {
+            return 0;
+        }
+        BitSet newBranches = new BitSet(ExchangeFile.MAP_SIZE);
+        int index = fuzzerCoveredBranches.nextClearBit(0);
+        while (index < ExchangeFile.MAP_SIZE) {
+            if (exchangeFile.isBranchCovered(index)) {
+                newBranches.set(index);
+            }
+            index = fuzzerCoveredBranches.nextClearBit(index + 1);
+        }
+        if (newBranches.isEmpty()) {
+            return 0;
+        }
+        fuzzerCoveredBranches.or(newBranches);
+        for (Entry<Integer, Set<TrieNode>> entry : new ArrayList<>(getNodesByInstruction().entrySet())) {
+            if (entry.getValue().isEmpty()) {
+                continue;
+            }
+            int numberOfChoices = entry.getValue().iterator().next().getMaximumNumberOfChildren();
+            for (int choice = 0; choice < numberOfChoices; choice++) {
+                if (newBranches.get(ExchangeFile.getBranchIndex(entry.getKey(), choice))) {
+                    updateNodesForInstruction(entry.getKey());
+                    break;
+                }
+            }
+        }
+        return newBranches.cardinality();
+    }
+
+    /**
+     * Checks whether all choices of the instruction were observed, either in the trie or by the fuzzer.
+     * 
+     * @param instructionHashCode
+     *            - int hashcode
+     * @param numberOfChoices
+     *            - maximum number of children of the nodes at this instruction
+     * @return true for yes, otherwise false
+     */
+    public boolean areAllChoicesCovered(int instructionHashCode, int numberOfChoices) {
+        Set<Integer> observedChoices = getObservedChoices(instructionHashCode);
+        if (observedChoices.size() >= numberOfChoices) {
+            return true;
+        }
+        if (exchangeFile == null) {
+            return false;
+        }
+        for (int choice = 0; choice < numberOfChoices; choice++) {
+            if (!observedChoices.contains(choice)
+                    && !fuzzerCoveredBranches.get(ExchangeFile.getBranchIndex(instructionHashCode, choice))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the given node belongs to the frontier of this SymExe instance. Nodes of other instances are not
+     * queued, so an input that creates such a node is exported for the owner, see SymcretePath.
+     * 
+     * @param node
+     *            - TrieNode
+     * @return true for yes, otherwise false
+     */
+    public boolean isInShard(TrieNode node) {
+        return frontierShard == null || frontierShard.owns(node);
+    }
+
     /**
      * Returns most promising node for further exploration, and enables the path to this node in the given trie.
      * 
@@ -22,6 +124,48 @@ public abstract class TrieAnalyzer { // TODO think about having only one and eve
      */
     public abstract TrieNode analyze(Trie trie);
 
+    /**
+     * Returns up to the given number of most promising nodes for further exploration, and enables the paths to all of
+     * them in the given trie, so that they can be explored in one run. The shared prefix of the paths is then only
+     * replayed once: after the exploration of one node, JPF backtracks to the common ancestor by restoring its stored
+     * state and continues with the path to the next node.
+     * 
+     * @param trie
+     * @param maximumNumberOfNodes
+     * @return list of TrieNode objects, empty if there is no node left
+     */
+    public List<TrieNode> analyze(Trie trie, int maximumNumberOfNodes) {
+        List<TrieNode> nodes = new ArrayList<>();
+        TrieNode firstNode = analyze(trie);
+        if (firstNode == null) {
+            return nodes;
+        }
+        nodes.add(firstNode);
+        while (nodes.size() < maximumNumberOfNodes) {
+            TrieNode node = pickNextNodeForExploration();
+            if (node == null) {
+                break;
+            }
+            if (node.getInputSize() != firstNode.getInputSize()) {
+                // One run can only use one input size, so put the node back for a later run.
+                node.resetComplete();
+                updateNode(node);
+                break;
+            }
+            node.setExplorationNeeded(true);
+            enablePathToNode(node, -1);
+            nodes.add(node);
+        }
+        return nodes;
+    }
+
+    /**
+     * Removes the most promising node from the queue, and marks it as completed.
+     * 
+     * @return TrieNode, or null if there is no node left
+     */
+    protected abstract TrieNode pickNextNodeForExploration();
+
     /**
      * Adds, updates or removes node in priority queue.
      * 
@@ -38,6 +182,11 @@ public abstract class TrieAnalyzer { // TODO think about having only one and eve
      */
     public abstract String getStatistics();
 
+    /**
+     * @return number of nodes in the priority queue
+     */
+    public abstract int getQueueLength();
+
     /**
      * Checks whether there is any node left that is available for exploration.
      * 
@@ -45,7 +194,18 @@ public abstract class TrieAnalyzer { // TODO think about having only one and eve
      */
     public abstract boolean isNodeLeftforAnalysis();
 
-    public abstract boolean addObservedChoice(Instruction instr, int choice);
+    /**
+     * Adds the choice to the observed choices of the instruction. Instructions with colliding keys share their observed
+     * choices.
+     * 
+     * @param instructionKey
+     *            - see {@link edu.cmu.sv.badger.util.BytecodeUtils#getInstructionKey}, or
+     *            {@link edu.cmu.sv.badger.util.BytecodeUtils#NO_INSTRUCTION}
+     * @param choice
+     *            - choice integer value
+     * @return true if the choice was new, false otherwise.
+     */
+    public abstract boolean addObservedChoice(int instructionKey, int choice);
 
     /**
      * Returns all choices observed so far for this instruction, i.e. returns which branches from this condition already
@@ -57,6 +217,94 @@ public abstract class TrieAnalyzer { // TODO think about having only one and eve
      */
     public abstract Set<Integer> getObservedChoices(int instructionHashCode);
 
+    /**
+     * Updates all nodes in the priority queue, whose next instruction corresponds to the given instruction.
+     * 
+     * @param instructionHashCode
+     *            - int hashcode
+     */
+    protected abstract void updateNodesForInstruction(int instructionHashCode);
+
+    /**
+     * @return queued nodes by their next instruction
+     */
+    protected abstract Map<Integer, Set<TrieNode>> getNodesByInstruction();
+
+    /**
+     * Rebuilds the observed choices and the priority queue from the nodes of a loaded trie, e.g. the merged trie of
+     * previous campaigns. Afterwards only the nodes with choices that no previous run covered are explored.
+     * 
+     * @param trie
+     *            - Trie with this analyzer
+     */
+    public void rebuild(Trie trie) {
+        if (trie.getRoot() == null) {
+            return;
+        }
+
+        // The observed choices need to be complete before the nodes are checked for new branches.
+        List<TrieNode> nodes = new ArrayList<>();
+        Deque<TrieNode> stack = new ArrayDeque<>();
+        stack.push(trie.getRoot());
+        while (!stack.isEmpty()) {
+            TrieNode node = stack.pop();
+            nodes.add(node);
+            if (node.getParent() != null) {
+                addObservedChoice(node.getInstruction(), node.getChoice());
+            }
+            restoreNode(node);
+            for (TrieNode child : node.getChildren()) {
+                stack.push(child);
+            }
+        }
+        for (TrieNode node : nodes) {
+            updateNode(node);
+        }
+    }
+
+    /**
+     * Called for each node of a loaded trie during {@link #rebuild(Trie)}, before any node is added to the queue.
+     * 
+     * @param node
+     *            - TrieNode
+     */
+    protected void restoreNode(TrieNode node) {
+    }
+
+    /**
+     * Adds a learned unsat core. Queued nodes are not pruned with it, because the constraints of their unexplored
+     * choices are only known after their execution.
+     * 
+     * @param steps
+     *            - steps that added the constraints of the core, see {@link UnsatCoreIndex}
+     * @param constraints
+     *            - keys of the unsatisfiable constraints, see {@link UnsatCoreIndex#getConstraintKey}
+     */
+    public void addUnsatCore(Set<Long> steps, Set<String> constraints) {
+        unsatCoreIndex.addCore(steps, constraints);
+    }
+
+    /**
+     * Checks whether the given new node is known to be infeasible because its path condition contains all constraints
+     * of a learned unsat core.
+     * 
+     * @param node
+     *            - TrieNode
+     * @param pc
+     *            - path condition of the node
+     * @return true for yes, otherwise false
+     */
+    public boolean isKnownInfeasible(TrieNode node, PathCondition pc) {
+        if (unsatCoreIndex.isEmpty() || node.getParent() == null) {
+            return false;
+        }
+        return unsatCoreIndex.isInfeasible(pc, node.getInstruction(), node.getChoice());
+    }
+
+    public int getNumberOfUnsatCores() {
+        return unsatCoreIndex.size();
+    }
+
     /**
      * Adds a new observed choice, and updates all necessary data structures.
      * 
@@ -71,13 +319,26 @@ public abstract class TrieAnalyzer { // TODO think about having only one and eve
             return;
         }
 
+        boolean wasEnabled = node.isEnabled();
         node.setEnabled();
 
-        if (nextChoice >= 0) {
-            node.setGuidedChoice(nextChoice);
+        if (node.needsExploration()) {
+            // The node itself gets explored, hence, all its choices need to be executed.
+            node.setGuidedChoice(-1);
+        } else if (nextChoice >= 0) {
+            if (!wasEnabled) {
+                node.setGuidedChoice(nextChoice);
+            } else if (node.getGuidedChoice() != nextChoice) {
+                // The paths to several selected nodes split here, so all choices are executed and the listener skips
+                // the children that are not enabled.
+                node.setGuidedChoice(-1);
+            }
         }
 
-        enablePathToNode(node.getParent(), node.getChoice());
+        // The path above an already enabled node is already enabled.
+        if (!wasEnabled) {
+            enablePathToNode(node.getParent(), node.getChoice());
+        }
     }
 
 }
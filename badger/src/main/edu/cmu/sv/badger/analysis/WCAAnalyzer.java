@@ -1,16 +1,17 @@
 package edu.cmu.sv.badger.analysis;
 
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.PriorityQueue;
 import java.util.Queue;
 import java.util.Set;
-import java.util.Map.Entry;
 
 import edu.cmu.sv.badger.trie.Trie;
 import edu.cmu.sv.badger.trie.TrieNode;
-import gov.nasa.jpf.vm.Instruction;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+import edu.cmu.sv.badger.util.BytecodeUtils;
 
 /**
  * Analyzes the trie with regards to worst case analysis.
@@ -42,6 +43,7 @@ public class WCAAnalyzer extends TrieAnalyzer {
      * problems.
      */
     private Map<Integer, Set<TrieNode>> instruction2NodeMapping;
+    private long numberOfMappedNodes = 0; // sum of the set sizes in instruction2NodeMapping
 
     public WCAAnalyzer(ExplorationHeuristic heuristic) {
 
@@ -87,7 +89,8 @@ public class WCAAnalyzer extends TrieAnalyzer {
      * 
      * @return TrieNode
      */
-    private TrieNode pickNextNodeForExploration() {
+    @Override
+    protected TrieNode pickNextNodeForExploration() {
         if (this.nTopScoreNodes.isEmpty()) {
             return null;
         }
@@ -97,7 +100,10 @@ public class WCAAnalyzer extends TrieAnalyzer {
         nodeWithHighestPriority.setCompleted();
 
         // Remove this node from the instruction2Node mapping, since this node does not need longer any update.
-        instruction2NodeMapping.get(nodeWithHighestPriority.getNextInstruction()).remove(nodeWithHighestPriority);
+        if (instruction2NodeMapping.get(nodeWithHighestPriority.getNextInstruction())
+                .remove(nodeWithHighestPriority)) {
+            numberOfMappedNodes--;
+        }
 
         return nodeWithHighestPriority;
     }
@@ -113,13 +119,20 @@ public class WCAAnalyzer extends TrieAnalyzer {
             return false;
         }
 
+        // Nodes of other SymExe instances are explored by them.
+        if (!isInShard(node)) {
+            return false;
+        }
+
         // Update Instruction to TrieNode mapping.
         Set<TrieNode> nodes = instruction2NodeMapping.get(node.getNextInstruction());
         if (nodes == null) {
             nodes = new HashSet<>();
             instruction2NodeMapping.put(node.getNextInstruction(), nodes);
         }
-        nodes.add(node);
+        if (nodes.add(node)) {
+            numberOfMappedNodes++;
+        }
 
         /*
          * Add node to priority queue if metric value is known AND if this node has potential for exploration, i.e. if
@@ -132,12 +145,24 @@ public class WCAAnalyzer extends TrieAnalyzer {
     }
 
     @Override
-    public String getStatistics() {
-        long instrCount = 0;
-        for (Entry<Integer, Set<TrieNode>> entry : instruction2NodeMapping.entrySet()) {
-            instrCount += entry.getValue().size();
+    protected void restoreNode(TrieNode node) {
+        // A new best score is only reported if it beats the leaves of the loaded trie.
+        Double cost = node.getMetricValue();
+        if (node.getType().equals(TrieNodeType.LEAF_NODE) && cost != null
+                && (currentStrategy.equals(CostStrategy.MAXIMIZE) ? cost > currentBestCostValue
+                        : cost < currentBestCostValue)) {
+            currentBestCostValue = cost;
         }
-        return "" + nTopScoreNodes.size() + "," + instrCount;
+    }
+
+    @Override
+    public int getQueueLength() {
+        return nTopScoreNodes.size();
+    }
+
+    @Override
+    public String getStatistics() {
+        return "" + nTopScoreNodes.size() + "," + numberOfMappedNodes;
     }
 
     @Override
@@ -146,31 +171,40 @@ public class WCAAnalyzer extends TrieAnalyzer {
     }
 
     @Override
-    public boolean addObservedChoice(Instruction instr, int choice) {
+    public boolean addObservedChoice(int instructionKey, int choice) {
         boolean addedNewChoice = false;
-        if (instr != null) {
-            int instrHashCode = instr.hashCode();
-            Set<Integer> choices = observedChoices.get(instrHashCode);
+        if (instructionKey != BytecodeUtils.NO_INSTRUCTION) {
+            Set<Integer> choices = observedChoices.get(instructionKey);
             if (choices == null) {
                 choices = new HashSet<>();
-                observedChoices.put(instrHashCode, choices);
+                observedChoices.put(instructionKey, choices);
             }
             addedNewChoice = choices.add(choice);
 
             /* If new choice then update prio queue. */
             if (addedNewChoice) {
-                Set<TrieNode> correspondingNodesForInstruction = instruction2NodeMapping.get(instrHashCode);
-                /* Might be null in the beginning, then there is no node that needs any update. */
-                if (correspondingNodesForInstruction != null) {
-                    for (TrieNode node : correspondingNodesForInstruction) {
-                        updateNode(node);
-                    }
-                }
+                updateNodesForInstruction(instructionKey);
             }
         }
         return addedNewChoice;
     }
 
+    @Override
+    protected void updateNodesForInstruction(int instructionHashCode) {
+        Set<TrieNode> correspondingNodesForInstruction = instruction2NodeMapping.get(instructionHashCode);
+        /* Might be null in the beginning, then there is no node that needs any update. */
+        if (correspondingNodesForInstruction != null) {
+            for (TrieNode node : new ArrayList<>(correspondingNodesForInstruction)) {
+                updateNode(node);
+            }
+        }
+    }
+
+    @Override
+    protected Map<Integer, Set<TrieNode>> getNodesByInstruction() {
+        return instruction2NodeMapping;
+    }
+
     @Override
     public Set<Integer> getObservedChoices(int instructionHashCode) {
         Set<Integer> choices = observedChoices.get(instructionHashCode);
@@ -0,0 +1,254 @@
+package edu.cmu.sv.badger.app;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.lang3.math.NumberUtils;
+
+import edu.cmu.sv.badger.fuzzer.EmbeddedFuzzer;
+import edu.cmu.sv.badger.monitor.Metrics;
+import edu.cmu.sv.badger.monitor.Metrics.ExecutionMode;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+import edu.cmu.sv.badger.util.Statistics;
+import edu.cmu.sv.badger.util.StatisticsRecord;
+
+/**
+ * End-to-end benchmark of SymExe without a fuzzer, or with the embedded fuzzer if fuzzer.dir is set. Each benchmark
+ * configuration is a Badger configuration with the additional keys below, e.g.
+ * evaluation/01_insertionsort/benchmark.properties. SymExe starts from the initial inputs and runs until the step or
+ * time budget is used, every configuration in a new JVM with the fixed heap of benchmark.jvm and the working directory
+ * of the configuration file, so that the static state of JPF, SymExe and the metrics does not leak from one run into
+ * the next.
+ *
+ * For each configuration one JSON line is appended to the results file with the JPF runs, solver calls and trie nodes
+ * per second, the time until the best cost (of SymExe or the fuzzer) reached benchmark.cost.threshold, the peak heap
+ * usage, and the executions, queue size and highscore of the fuzzer.
+ *
+ * Usage: BadgerBenchmark results-file benchmark-config...
+ */
+public class BadgerBenchmark {
+
+    public static final String STEPS = "benchmark.steps";
+    public static final String TIME_SEC = "benchmark.time.sec";
+    public static final String COST_THRESHOLD = "benchmark.cost.threshold";
+    public static final String JVM_ARGUMENTS = "benchmark.jvm";
+
+    private static final String RUN_ARGUMENT = "--run";
+    private static final long THRESHOLD_POLL_MILLIS = 10;
+
+    public static void main(String[] args) {
+        if (args.length == 3 && args[0].equals(RUN_ARGUMENT)) {
+            runBenchmark(args[1], args[2]);
+            // JPF might leave non-daemon threads of the target behind.
+            System.exit(0);
+        }
+        if (args.length < 2) {
+            System.out.println("Usage: BadgerBenchmark results-file benchmark-config...");
+            System.exit(1);
+        }
+
+        String resultsFile = new File(args[0]).getAbsolutePath();
+        for (String configFile : Arrays.copyOfRange(args, 1, args.length)) {
+            File config = new File(configFile).getAbsoluteFile();
+            System.out.println("[BENCHMARK] " + config.getParentFile().getName() + " ...");
+            int exitCode = forkBenchmark(config, resultsFile);
+            if (exitCode != 0) {
+                System.out.println("[ERROR] Benchmark failed with exit code " + exitCode + ": " + config);
+                appendResult(resultsFile, new StatisticsRecord().column("subject", config.getParentFile().getName())
+                        .column("error", "exit code " + exitCode));
+            }
+        }
+        System.out.println("[BENCHMARK] results appended to " + resultsFile);
+    }
+
+    private static int forkBenchmark(File config, String resultsFile) {
+        List<String> command = new ArrayList<>();
+        command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+        for (String argument : loadProperties(config.getPath()).getProperty(JVM_ARGUMENTS, "-Xms4g -Xmx4g")
+                .trim().split("\\s+")) {
+            if (!argument.isEmpty()) {
+                command.add(argument);
+            }
+        }
+        command.add("-cp");
+        command.add(System.getProperty("java.class.path"));
+        command.add(BadgerBenchmark.class.getName());
+        command.add(RUN_ARGUMENT);
+        command.add(config.getPath());
+        command.add(resultsFile);
+        try {
+            Process process = new ProcessBuilder(command).directory(config.getParentFile()).inheritIO().start();
+            return process.waitFor();
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to start benchmark: " + config, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return -1;
+        }
+    }
+
+    private static void runBenchmark(String configFile, String resultsFile) {
+        Properties prop = loadProperties(configFile);
+        int maximumNumberOfSteps;
+        long timeBudgetSec;
+        try {
+            maximumNumberOfSteps = NumberUtils.createInteger(prop.getProperty(STEPS, "100"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + STEPS + " is not a number!");
+        }
+        try {
+            timeBudgetSec = NumberUtils.createLong(prop.getProperty(TIME_SEC, "600"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + TIME_SEC + " is not a number!");
+        }
+        Double costThreshold;
+        try {
+            String threshold = prop.getProperty(COST_THRESHOLD);
+            costThreshold = threshold == null ? null : NumberUtils.createDouble(threshold);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + COST_THRESHOLD + " is not a number!");
+        }
+
+        BadgerInput input = BadgerInput.loadFromConfigFile(configFile);
+        BadgerRunner.ensureAndCleanOutputDirectoriesExist(input);
+        Statistics.initFiles(input);
+        SymExe symExe = new SymExe(input);
+
+        long startTime = System.nanoTime();
+        ThresholdWatcher thresholdWatcher = new ThresholdWatcher(costThreshold, startTime, symExe.getFuzzer());
+        thresholdWatcher.start();
+        int numberOfSteps = symExe.runSteps(maximumNumberOfSteps,
+                startTime + TimeUnit.SECONDS.toNanos(timeBudgetSec));
+        double seconds = (System.nanoTime() - startTime) / 1e9;
+        thresholdWatcher.interrupt();
+        try {
+            thresholdWatcher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        Statistics.close();
+
+        long jpfRuns = 0;
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            jpfRuns += Metrics.getJPFExecutions(mode).getTotal();
+        }
+        long solverCalls = Metrics.getSolverLatency().getCount();
+        long nodes = 0;
+        for (TrieNodeType type : TrieNodeType.values()) {
+            nodes += Metrics.getTrieNodeCount(type);
+        }
+        long peakHeap = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP && pool.getPeakUsage() != null) {
+                peakHeap += pool.getPeakUsage().getUsed();
+            }
+        }
+
+        String subject = new File(configFile).getAbsoluteFile().getParentFile().getName();
+        StatisticsRecord record = new StatisticsRecord().column("subject", subject).column("steps", numberOfSteps)
+                .column("seconds", round(seconds)).column("jpfRuns", jpfRuns)
+                .column("jpfRunsPerSec", round(jpfRuns / seconds)).column("solverCalls", solverCalls)
+                .column("solverCallsPerSec", round(solverCalls / seconds)).column("nodes", nodes)
+                .column("nodesPerSec", round(nodes / seconds)).column("bestCost", Metrics.getBestCost())
+                .column("costThreshold", costThreshold).column("secToThreshold", thresholdWatcher.getSeconds())
+                .column("peakHeapBytes", peakHeap);
+        EmbeddedFuzzer fuzzer = symExe.getFuzzer();
+        if (fuzzer != null) {
+            record.column("fuzzerExecs", fuzzer.getNumberOfExecutions())
+                    .column("fuzzerExecsPerSec", round(fuzzer.getNumberOfExecutions() / seconds))
+                    .column("fuzzerQueue", fuzzer.getQueueSize()).column("fuzzerHighscore", fuzzer.getHighscore());
+        }
+        appendResult(resultsFile, record);
+        System.out.println("[BENCHMARK] " + record.toJSON().trim());
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 1000.0) / 1000.0;
+    }
+
+    private static Properties loadProperties(String configFile) {
+        Properties prop = new Properties();
+        try (InputStream in = new FileInputStream(configFile)) {
+            prop.load(in);
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to read benchmark configuration: " + configFile, e);
+        }
+        return prop;
+    }
+
+    /**
+     * Appends the record as one JSON line. The results of several commits can be collected in the same file, since the
+     * lines are written at once and carry the time of the run.
+     */
+    private static void appendResult(String resultsFile, StatisticsRecord record) {
+        try {
+            Files.write(Paths.get(resultsFile), record.toJSON().getBytes(), StandardOpenOption.CREATE,
+                    StandardOpenOption.APPEND);
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to write benchmark results: " + resultsFile, e);
+        }
+    }
+
+    /**
+     * Polls the best cost of the metrics, which is updated by SymExe whenever an input shows a new highscore, and the
+     * highscore of the embedded fuzzer.
+     */
+    private static class ThresholdWatcher extends Thread {
+
+        private final Double costThreshold;
+        private final long startTime;
+        private final EmbeddedFuzzer fuzzer;
+        private volatile Double seconds = null;
+
+        ThresholdWatcher(Double costThreshold, long startTime, EmbeddedFuzzer fuzzer) {
+            super("badger-benchmark-threshold");
+            this.costThreshold = costThreshold;
+            this.startTime = startTime;
+            this.fuzzer = fuzzer;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            if (costThreshold == null) {
+                return;
+            }
+            try {
+                while (true) {
+                    Double bestCost = Metrics.getBestCost();
+                    Double highscore = fuzzer != null ? fuzzer.getHighscore() : null;
+                    if ((bestCost != null && bestCost >= costThreshold)
+                            || (highscore != null && highscore >= costThreshold)) {
+                        seconds = round((System.nanoTime() - startTime) / 1e9);
+                        return;
+                    }
+                    Thread.sleep(THRESHOLD_POLL_MILLIS);
+                }
+            } catch (InterruptedException e) {
+                // The budget is used.
+            }
+        }
+
+        /**
+         * @return seconds until the threshold was reached, or null if it was not reached
+         */
+        Double getSeconds() {
+            return seconds;
+        }
+
+    }
+
+}
@@ -1,13 +1,19 @@
 package edu.cmu.sv.badger.app;
 
+import java.awt.image.BufferedImage;
+import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteOrder;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.Random;
+
+import javax.imageio.ImageIO;
 
 import org.apache.commons.lang3.math.NumberUtils;
 
@@ -20,19 +26,24 @@ import edu.cmu.sv.badger.analysis.InstructionCountState;
 import edu.cmu.sv.badger.analysis.StateBuilderFactory;
 import edu.cmu.sv.badger.analysis.TrieAnalyzer;
 import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.fuzzer.EmbeddedFuzzer;
 import edu.cmu.sv.badger.io.ByteImageProcessorIOUtils;
 import edu.cmu.sv.badger.io.ByteTextIOUtils;
-import edu.cmu.sv.badger.io.CharArrayIOUtils;
 import edu.cmu.sv.badger.io.CharArrayIOUtilsEngagement;
 import edu.cmu.sv.badger.io.DynamicCharArrayIOUtils;
 import edu.cmu.sv.badger.io.DynamicIntArrayIOUtils;
-import edu.cmu.sv.badger.io.FullIntArrayIOUtils;
 import edu.cmu.sv.badger.io.IOUtils;
-import edu.cmu.sv.badger.io.ImageByteDoubleIOUtils;
-import edu.cmu.sv.badger.io.ImageDoubleDoubleIOUtils;
 import edu.cmu.sv.badger.io.ImageProcessorIOUtils;
-import edu.cmu.sv.badger.io.IntArrayIOUtils;
-import edu.cmu.sv.badger.io.MultipleIntArrayIOUtils;
+import edu.cmu.sv.badger.io.ImageRaster;
+import edu.cmu.sv.badger.io.SchemaIOUtils;
+import edu.cmu.sv.badger.io.SyncDirectory;
+import edu.cmu.sv.badger.io.TempFileManager;
+import edu.cmu.sv.badger.solver.LocalSearchSolver;
+import edu.cmu.sv.badger.solver.ModelEnumerator;
+import edu.cmu.sv.badger.trace.NativeTracer;
+import edu.cmu.sv.badger.trie.TrieDotExporter;
+import edu.cmu.sv.badger.util.ExecutionResultCache;
+import edu.cmu.sv.badger.util.Statistics;
 
 /**
  * Parses the configuration file of Badger and is used as input data object.
@@ -42,17 +53,39 @@ import edu.cmu.sv.badger.io.MultipleIntArrayIOUtils;
  */
 public class BadgerInput {
 
+    /* Path of the configuration file, null if the input was not loaded from a file */
+    public String configFile;
+
     /* Directories */
     public String initialInputDir;
     public Optional<String> syncInputdir;
     public String exportDir;
+    public Optional<SyncDirectory> symexeSyncDir;
     public String tmpDir;
+    public TempFileManager tempFileManager;
 
     /* Technical Parameters */
     public int cycleWaitingSec;
     public int maximumNumberOfSymExeIterations;
     public int secUntilFirstCycle;
     public int numberOfAdditionalDecisions;
+    public int maximumNumberOfNewFilesPerRun;
+    public int frontierBatchSize;
+    public int shardDepth;
+    public boolean learnUnsatCores;
+    public Optional<ModelEnumerator> modelEnumerator;
+    public Optional<LocalSearchSolver> localSearchSolver;
+    public Optional<NativeTracer> nativeTracer;
+    public long nativeMaxInstructions;
+    public long nativeTimeoutMillis;
+    public Optional<ExecutionResultCache> executionResultCache;
+    public boolean inMemoryInputs;
+    public int numberOfWorkers;
+    public String workerJvmArguments;
+    public int workerTimeoutSec;
+    public int workerRetries;
+    public Optional<String> trieSeedFile;
+    public Optional<Long> randomSeed;
 
     /* JPF */
     public String jpf_classpath;
@@ -81,6 +114,12 @@ public class BadgerInput {
     public Optional<StateBuilderFactory> stateBuilderFactory;
     public boolean useUserDefinedCost;
 
+    /* Embedded Fuzzer */
+    public Optional<String> fuzzerDir;
+    public int fuzzerSyncSec;
+    public int fuzzerMaxSize;
+    public Optional<String> fuzzerExchangeFile;
+
     /* Input Processing / Generation */
     public IOUtils ioUtils;
     public Integer[] inputSizes;
@@ -92,14 +131,33 @@ public class BadgerInput {
     public String generationStatisticsFile;
     public String exportStatisticsFile;
     public String trieStatisticsFile;
+    public String phaseStatisticsFile;
     public boolean printPC;
     public String pcMappingFile;
+    public String statisticsFormat;
+    public long statisticsFlushMillis;
+
+    /* Monitoring */
+    public boolean monitorJMX;
+    public int metricsPort;
+    public String checkpointFile;
+    public int checkpointIntervalSec;
 
     /* Print Trie As Dot Files */
     public boolean printTrieAsDot;
     public Optional<Integer> printTrieMaxDepth;
+    public String printTrieView;
+    public int printTrieTopK;
 
     public BadgerInput(Properties prop) {
+        this(prop, false);
+    }
+
+    /**
+     * @param isWorker
+     *            - true for a BadgerWorker process, which only runs JPF and does not claim the shared sync directory
+     */
+    public BadgerInput(Properties prop, boolean isWorker) {
 
         /* Check property file for missing mandatory keys. */
         List<BadgerInputKeys> missingKeys = checkForMissingMandatoryProperites(prop);
@@ -112,8 +170,58 @@ public class BadgerInput {
         /* Directories */
         this.initialInputDir = prop.getProperty(BadgerInputKeys.INITIAL_INPUT_DIR.name);
         this.syncInputdir = Optional.ofNullable(prop.getProperty(BadgerInputKeys.SYNC_INPUT_DIR.name));
+        this.fuzzerDir = Optional.ofNullable(isWorker ? null : prop.getProperty(BadgerInputKeys.FUZZER_DIR.name));
+        if (!syncInputdir.isPresent() && fuzzerDir.isPresent()) {
+            // SymExe imports the queue of the embedded fuzzer like the one of KelinciWCA.
+            this.syncInputdir = Optional.of(fuzzerDir.get() + "/" + EmbeddedFuzzer.NAME + "/queue");
+        }
         this.exportDir = prop.getProperty(BadgerInputKeys.EXPORT_DIR.name);
+        String symexeSyncDir = prop.getProperty(BadgerInputKeys.SYMEXE_SYNC_DIR.name);
+        if (symexeSyncDir != null && !isWorker) {
+            int numberOfInstances;
+            try {
+                numberOfInstances = NumberUtils
+                        .createInteger(prop.getProperty(BadgerInputKeys.SYMEXE_INSTANCES.name, "1"));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Value of " + BadgerInputKeys.SYMEXE_INSTANCES.name + " is not a number!");
+            }
+            if (numberOfInstances < 1) {
+                throw new RuntimeException("[ERROR] " + BadgerInputKeys.SYMEXE_INSTANCES.name + " must be positive");
+            }
+            Integer instanceId = null;
+            if (prop.containsKey(BadgerInputKeys.SYMEXE_INSTANCE_ID.name)) {
+                try {
+                    instanceId = NumberUtils.createInteger(prop.getProperty(BadgerInputKeys.SYMEXE_INSTANCE_ID.name));
+                } catch (NumberFormatException e) {
+                    throw new RuntimeException(
+                            "Value of " + BadgerInputKeys.SYMEXE_INSTANCE_ID.name + " is not a number!");
+                }
+                if (instanceId < 0 || instanceId >= numberOfInstances) {
+                    throw new RuntimeException("[ERROR] " + BadgerInputKeys.SYMEXE_INSTANCE_ID.name
+                            + " must be between 0 and " + (numberOfInstances - 1));
+                }
+            }
+            SyncDirectory syncDirectory = new SyncDirectory(symexeSyncDir, numberOfInstances, instanceId);
+            this.symexeSyncDir = Optional.of(syncDirectory);
+            this.exportDir = syncDirectory.getQueueDir();
+        } else {
+            this.symexeSyncDir = Optional.empty();
+            if (this.exportDir == null && !isWorker) {
+                throw new RuntimeException("Configuration misses mandatory keys: " + BadgerInputKeys.EXPORT_DIR.name
+                        + " (or " + BadgerInputKeys.SYMEXE_SYNC_DIR.name + ")");
+            }
+        }
         this.tmpDir = prop.getProperty(BadgerInputKeys.TMP_DIR.name, "./tmp");
+        if (this.symexeSyncDir.isPresent()) {
+            // The instances clean their tmp directory on start, so each gets its own.
+            this.tmpDir = this.tmpDir + "/" + SyncDirectory.INSTANCE_PREFIX + this.symexeSyncDir.get().getInstanceId();
+        }
+        try {
+            long tmpDirQuotaMB = NumberUtils.createLong(prop.getProperty(BadgerInputKeys.TMP_DIR_QUOTA.name, "-1"));
+            this.tempFileManager = new TempFileManager(tmpDir, tmpDirQuotaMB < 0 ? -1 : tmpDirQuotaMB * 1024 * 1024);
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.TMP_DIR_QUOTA.name + " is not a number!");
+        }
 
         /* Technical Parameters */
         try {
@@ -141,6 +249,61 @@ public class BadgerInput {
             throw new RuntimeException(
                     "Value of " + BadgerInputKeys.NUMBER_OF_ADDITIONAL_STEPS.name + " is not a number!");
         }
+        try {
+            this.maximumNumberOfNewFilesPerRun = NumberUtils
+                    .createInteger((prop.getProperty(BadgerInputKeys.MAX_NUMBER_OF_FILES_PER_RUN.name, "1")));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(
+                    "Value of " + BadgerInputKeys.MAX_NUMBER_OF_FILES_PER_RUN.name + " is not a number!");
+        }
+        try {
+            this.frontierBatchSize = NumberUtils
+                    .createInteger((prop.getProperty(BadgerInputKeys.FRONTIER_BATCH_SIZE.name, "1")));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.FRONTIER_BATCH_SIZE.name + " is not a number!");
+        }
+        try {
+            this.shardDepth = NumberUtils.createInteger(prop.getProperty(BadgerInputKeys.SHARD_DEPTH.name, "8"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.SHARD_DEPTH.name + " is not a number!");
+        }
+        this.learnUnsatCores = Boolean.valueOf(prop.getProperty(BadgerInputKeys.LEARN_UNSAT_CORES.name, "false"));
+        if (Boolean.valueOf(prop.getProperty(BadgerInputKeys.EXECUTION_RESULT_CACHE.name, "false"))) {
+            this.executionResultCache = Optional.of(new ExecutionResultCache());
+        } else {
+            this.executionResultCache = Optional.empty();
+        }
+        this.inMemoryInputs = Boolean.valueOf(prop.getProperty(BadgerInputKeys.IN_MEMORY_INPUTS.name, "false"));
+        try {
+            this.numberOfWorkers = NumberUtils.createInteger(prop.getProperty(BadgerInputKeys.WORKERS.name, "0"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.WORKERS.name + " is not a number!");
+        }
+        this.workerJvmArguments = prop.getProperty(BadgerInputKeys.WORKER_JVM_ARGUMENTS.name, "");
+        try {
+            this.workerTimeoutSec = NumberUtils
+                    .createInteger(prop.getProperty(BadgerInputKeys.WORKER_TIMEOUT_SEC.name, "0"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.WORKER_TIMEOUT_SEC.name + " is not a number!");
+        }
+        try {
+            this.workerRetries = NumberUtils.createInteger(prop.getProperty(BadgerInputKeys.WORKER_RETRIES.name, "1"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.WORKER_RETRIES.name + " is not a number!");
+        }
+        this.trieSeedFile = Optional.ofNullable(prop.getProperty(BadgerInputKeys.TRIE_SEED_FILE.name));
+        String randomSeedString = prop.getProperty(BadgerInputKeys.RANDOM_SEED.name);
+        try {
+            this.randomSeed = randomSeedString == null ? Optional.empty()
+                    : Optional.of(NumberUtils.createLong(randomSeedString));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.RANDOM_SEED.name + " is not a number!");
+        }
+        if (numberOfWorkers > 0 && inMemoryInputs) {
+            System.out.println("[WARNING] " + BadgerInputKeys.IN_MEMORY_INPUTS.name + " is not supported with "
+                    + BadgerInputKeys.WORKERS.name + ", the workers read files");
+            this.inMemoryInputs = false;
+        }
 
         /* JPF */
         this.jpf_classpath = prop.getProperty(BadgerInputKeys.APPLICATION_CLASSPATH.name);
@@ -148,6 +311,24 @@ public class BadgerInput {
         this.jpf_argument = prop.getProperty(BadgerInputKeys.APPLICATION_ARGUMENT.name, "@@");
         this.jpf_argument = jpf_argument.replaceAll(",", "#");
         this.jpf_argument = jpf_argument.replaceAll(" ", ",");
+        try {
+            this.nativeMaxInstructions = NumberUtils
+                    .createLong(prop.getProperty(BadgerInputKeys.NATIVE_MAX_INSTRUCTIONS.name, "1000000000"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException(
+                    "Value of " + BadgerInputKeys.NATIVE_MAX_INSTRUCTIONS.name + " is not a number!");
+        }
+        try {
+            this.nativeTimeoutMillis = NumberUtils
+                    .createLong(prop.getProperty(BadgerInputKeys.NATIVE_TIMEOUT_MS.name, "10000"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.NATIVE_TIMEOUT_MS.name + " is not a number!");
+        }
+        if (Boolean.valueOf(prop.getProperty(BadgerInputKeys.NATIVE_IMPORT_TRACER.name, "false"))) {
+            this.nativeTracer = Optional.of(createNativeTracer());
+        } else {
+            this.nativeTracer = Optional.empty();
+        }
 
         /* SPF */
         this.spf_symbolicMethod = Optional.ofNullable(prop.getProperty(BadgerInputKeys.SYMBOLIC_METHOD.name));
@@ -165,6 +346,65 @@ public class BadgerInput {
         this.symOptimizeChoices = Optional.ofNullable(prop.getProperty(BadgerInputKeys.SYM_OPTIMIZECHOICES.name));
         this.symListener = Optional.ofNullable(prop.getProperty(BadgerInputKeys.SYM_LISTENER.name));
 
+        /* Local search solver (depends on the SPF bounds) */
+        String solverFallback = prop.getProperty(BadgerInputKeys.SOLVER_FALLBACK.name, "none");
+        if (!solverFallback.equals("none") && !solverFallback.equals(LocalSearchSolver.ID)) {
+            throw new RuntimeException(
+                    "Unknown value for " + BadgerInputKeys.SOLVER_FALLBACK.name + ": " + solverFallback);
+        }
+        if (spf_dp.equals(LocalSearchSolver.ID) || solverFallback.equals(LocalSearchSolver.ID)) {
+            int localSearchEvaluations;
+            try {
+                localSearchEvaluations = NumberUtils
+                        .createInteger(prop.getProperty(BadgerInputKeys.LOCAL_SEARCH_EVALUATIONS.name, "10000"));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException(
+                        "Value of " + BadgerInputKeys.LOCAL_SEARCH_EVALUATIONS.name + " is not a number!");
+            }
+            try {
+                this.localSearchSolver = Optional.of(new LocalSearchSolver(spf_dp.equals(LocalSearchSolver.ID),
+                        localSearchEvaluations,
+                        NumberUtils.createLong(symMinInt.orElse(String.valueOf(Long.MIN_VALUE))),
+                        NumberUtils.createLong(symMaxInt.orElse(String.valueOf(Long.MAX_VALUE))),
+                        NumberUtils.createDouble(symMinDouble.orElse(String.valueOf(-Double.MAX_VALUE))),
+                        NumberUtils.createDouble(symMaxDouble.orElse(String.valueOf(Double.MAX_VALUE))),
+                        createRandom()));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Values of the symbolic bounds are no numbers!");
+            }
+        } else {
+            this.localSearchSolver = Optional.empty();
+        }
+
+        /* Model enumeration (depends on the SPF bounds) */
+        int modelsPerPC;
+        try {
+            modelsPerPC = NumberUtils.createInteger(prop.getProperty(BadgerInputKeys.MODELS_PER_PC.name, "1"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.MODELS_PER_PC.name + " is not a number!");
+        }
+        String modelsStrategy = prop.getProperty(BadgerInputKeys.MODELS_STRATEGY.name,
+                ModelEnumerator.Strategy.BLOCKING.ID);
+        ModelEnumerator.Strategy strategy = ModelEnumerator.Strategy.fromID(modelsStrategy);
+        if (strategy == null) {
+            throw new RuntimeException(
+                    "Unknown value for " + BadgerInputKeys.MODELS_STRATEGY.name + ": " + modelsStrategy);
+        }
+        if (modelsPerPC > 1) {
+            try {
+                this.modelEnumerator = Optional.of(new ModelEnumerator(modelsPerPC, strategy,
+                        NumberUtils.createLong(symMinInt.orElse(String.valueOf(Integer.MIN_VALUE))),
+                        NumberUtils.createLong(symMaxInt.orElse(String.valueOf(Integer.MAX_VALUE))),
+                        NumberUtils.createDouble(symMinDouble.orElse("0.0")),
+                        NumberUtils.createDouble(symMaxDouble.orElse("1.0")), localSearchSolver.orElse(null),
+                        createRandom()));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("Values of the symbolic bounds are no numbers!");
+            }
+        } else {
+            this.modelEnumerator = Optional.empty();
+        }
+
         /* Analysis */
         String analysisMethod = prop.getProperty(BadgerInputKeys.ANALYSIS_METHOD.name, WCAAnalyzer.ID);
         String selectedExplorationHeuristic = prop.getProperty(BadgerInputKeys.ANALYSIS_EXPLORATION_HEURISTIC.name);
@@ -244,6 +484,22 @@ public class BadgerInput {
             this.useUserDefinedCost = false;
         }
 
+        /* Embedded Fuzzer */
+        try {
+            this.fuzzerSyncSec = NumberUtils
+                    .createInteger(prop.getProperty(BadgerInputKeys.FUZZER_SYNC_SEC.name, "10"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.FUZZER_SYNC_SEC.name + " is not a number!");
+        }
+        try {
+            this.fuzzerMaxSize = NumberUtils
+                    .createInteger(prop.getProperty(BadgerInputKeys.FUZZER_MAX_SIZE.name, "1048576"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.FUZZER_MAX_SIZE.name + " is not a number!");
+        }
+        this.fuzzerExchangeFile = Optional
+                .ofNullable(isWorker ? null : prop.getProperty(BadgerInputKeys.FUZZER_EXCHANGE.name));
+
         /* Input Processing / Generation */
         String ioUtilsSelection = prop.getProperty(BadgerInputKeys.IO_UTILS.name);
         String inputSizesString = prop.getProperty(BadgerInputKeys.IO_INPUT_SIZES.name);
@@ -258,24 +514,36 @@ public class BadgerInput {
         }
         switch (ioUtilsSelection) {
         case ImageProcessorIOUtils.ID:
-            this.ioUtils = new ImageProcessorIOUtils();
+            if (inputSizes.length != 2) {
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ImageProcessorIOUtils.ID
+                        + " needs two value definitions (width height) for " + BadgerInputKeys.IO_INPUT_SIZES.name);
+            }
+            this.ioUtils = new ImageProcessorIOUtils(tempFileManager, inputSizes[0], inputSizes[1],
+                    readImageRegion(prop), readBaseImage(prop));
             break;
         case ByteImageProcessorIOUtils.ID:
-            this.ioUtils = new ByteImageProcessorIOUtils();
+            if (inputSizes.length != 2) {
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ByteImageProcessorIOUtils.ID
+                        + " needs two value definitions (width height) for " + BadgerInputKeys.IO_INPUT_SIZES.name);
+            }
+            this.ioUtils = new ByteImageProcessorIOUtils(inputSizes[0], inputSizes[1], readImageRegion(prop),
+                    readBaseImage(prop));
             break;
-        case IntArrayIOUtils.ID:
+        case SchemaIOUtils.INT_BYTE_ARRAY_ID:
             if (inputSizes.length != 1) {
-                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + IntArrayIOUtils.ID
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ioUtilsSelection
                         + " needs one value definition for " + BadgerInputKeys.IO_INPUT_SIZES.name);
             }
-            this.ioUtils = new IntArrayIOUtils(inputSizes[0]);
+            this.ioUtils = new SchemaIOUtils(SchemaIOUtils.toField("int8", inputSizes), ByteOrder.BIG_ENDIAN,
+                    SchemaIOUtils.DEFAULT_NAMING_PATTERN);
             break;
-        case CharArrayIOUtils.ID:
+        case SchemaIOUtils.CHAR_BYTE_ARRAY_ID:
             if (inputSizes.length != 1) {
-                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + CharArrayIOUtils.ID
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ioUtilsSelection
                         + " needs one value definition for " + BadgerInputKeys.IO_INPUT_SIZES.name);
             }
-            this.ioUtils = new CharArrayIOUtils(inputSizes[0]);
+            this.ioUtils = new SchemaIOUtils(SchemaIOUtils.toField("char16", inputSizes), ByteOrder.BIG_ENDIAN,
+                    SchemaIOUtils.DEFAULT_NAMING_PATTERN);
             break;
         case CharArrayIOUtilsEngagement.ID:
             if (inputSizes.length != 1) {
@@ -291,12 +559,13 @@ public class BadgerInput {
             }
             this.ioUtils = new ByteTextIOUtils(inputSizes[0], inputSizes[1]);
             break;
-        case FullIntArrayIOUtils.ID:
+        case SchemaIOUtils.FULL_INT_BYTE_ARRAY_ID:
             if (inputSizes.length != 1) {
-                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + FullIntArrayIOUtils.ID
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ioUtilsSelection
                         + " needs one value definition for " + BadgerInputKeys.IO_INPUT_SIZES.name);
             }
-            this.ioUtils = new FullIntArrayIOUtils(inputSizes[0]);
+            this.ioUtils = new SchemaIOUtils(SchemaIOUtils.toField("int32", inputSizes), ByteOrder.BIG_ENDIAN,
+                    SchemaIOUtils.DEFAULT_NAMING_PATTERN);
             break;
         case DynamicIntArrayIOUtils.ID:
             if (inputSizes.length != 2) {
@@ -305,12 +574,13 @@ public class BadgerInput {
             }
             this.ioUtils = new DynamicIntArrayIOUtils(inputSizes[0], inputSizes[1]);
             break;
-        case MultipleIntArrayIOUtils.ID:
+        case SchemaIOUtils.MULTI_INT_BYTE_ARRAY_ID:
             if (inputSizes.length != 2) {
-                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + MultipleIntArrayIOUtils.ID
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ioUtilsSelection
                         + " needs two value definitions for " + BadgerInputKeys.IO_INPUT_SIZES.name);
             }
-            this.ioUtils = new MultipleIntArrayIOUtils(inputSizes[0], inputSizes[1]);
+            this.ioUtils = new SchemaIOUtils(SchemaIOUtils.toField("int8", inputSizes), ByteOrder.BIG_ENDIAN,
+                    SchemaIOUtils.DEFAULT_NAMING_PATTERN);
             break;
         case DynamicCharArrayIOUtils.ID:
             if (inputSizes.length != 2) {
@@ -319,19 +589,40 @@ public class BadgerInput {
             }
             this.ioUtils = new DynamicCharArrayIOUtils(inputSizes[0], inputSizes[1]);
             break;
-        case ImageByteDoubleIOUtils.ID:
+        case SchemaIOUtils.IMAGE_BYTE_DOUBLE_ARRAY_ID:
             if (inputSizes.length != 3) {
-                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ImageByteDoubleIOUtils.ID
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ioUtilsSelection
                         + " needs three value definitions for " + BadgerInputKeys.IO_INPUT_SIZES.name);
             }
-            this.ioUtils = new ImageByteDoubleIOUtils(inputSizes[0], inputSizes[1], inputSizes[2]);
+            this.ioUtils = new SchemaIOUtils(SchemaIOUtils.toField("int8", inputSizes), ByteOrder.BIG_ENDIAN,
+                    SchemaIOUtils.DEFAULT_NAMING_PATTERN);
             break;
-        case ImageDoubleDoubleIOUtils.ID:
+        case SchemaIOUtils.IMAGE_DOUBLE_DOUBLE_ARRAY_ID:
             if (inputSizes.length != 3) {
-                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ImageDoubleDoubleIOUtils.ID
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + ioUtilsSelection
                         + " needs three value definitions for " + BadgerInputKeys.IO_INPUT_SIZES.name);
             }
-            this.ioUtils = new ImageDoubleDoubleIOUtils(inputSizes[0], inputSizes[1], inputSizes[2]);
+            this.ioUtils = new SchemaIOUtils(SchemaIOUtils.toField("unorm8", inputSizes), ByteOrder.BIG_ENDIAN,
+                    SchemaIOUtils.DEFAULT_NAMING_PATTERN);
+            break;
+        case SchemaIOUtils.ID:
+            String schema = prop.getProperty(BadgerInputKeys.IO_SCHEMA.name);
+            if (schema == null || schema.trim().isEmpty()) {
+                throw new RuntimeException(BadgerInputKeys.IO_UTILS.name + "=" + SchemaIOUtils.ID
+                        + " needs a value for " + BadgerInputKeys.IO_SCHEMA.name);
+            }
+            String endian = prop.getProperty(BadgerInputKeys.IO_SCHEMA_ENDIAN.name, "big");
+            ByteOrder byteOrder;
+            if (endian.equals("big")) {
+                byteOrder = ByteOrder.BIG_ENDIAN;
+            } else if (endian.equals("little")) {
+                byteOrder = ByteOrder.LITTLE_ENDIAN;
+            } else {
+                throw new RuntimeException(
+                        "Unknown value for " + BadgerInputKeys.IO_SCHEMA_ENDIAN.name + ": " + endian);
+            }
+            this.ioUtils = new SchemaIOUtils(schema, byteOrder, prop.getProperty(
+                    BadgerInputKeys.IO_SCHEMA_NAMING.name, SchemaIOUtils.DEFAULT_NAMING_PATTERN));
             break;
             
         default:
@@ -353,13 +644,53 @@ public class BadgerInput {
                 "export-statistic.txt");
         this.trieStatisticsFile = prop.getProperty(BadgerInputKeys.INTERNAL_TRIE_STATISTICS_FILE.name,
                 "trie-statistic.txt");
-        this.printStatistics = Boolean
-                .valueOf(prop.getProperty(BadgerInputKeys.PRINT_PC_INFO.name, String.valueOf(this.printStatistics)));
+        this.phaseStatisticsFile = prop.getProperty(BadgerInputKeys.PHASE_STATISTICS_FILE.name,
+                "phase-statistic.txt");
+        this.printPC = Boolean.valueOf(prop.getProperty(BadgerInputKeys.PRINT_PC_INFO.name, "false"));
         this.pcMappingFile = prop.getProperty(BadgerInputKeys.PC_MAPPING_FILE.name, "pcMap.txt");
+        this.statisticsFormat = prop.getProperty(BadgerInputKeys.STATISTICS_FORMAT.name, Statistics.FORMAT_CSV);
+        if (!statisticsFormat.equals(Statistics.FORMAT_CSV) && !statisticsFormat.equals(Statistics.FORMAT_JSONL)) {
+            throw new RuntimeException(
+                    "Unknown value for " + BadgerInputKeys.STATISTICS_FORMAT.name + ": " + statisticsFormat);
+        }
+        try {
+            this.statisticsFlushMillis = NumberUtils
+                    .createLong(prop.getProperty(BadgerInputKeys.STATISTICS_FLUSH_MILLIS.name, "1000"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.STATISTICS_FLUSH_MILLIS.name + " is not a number!");
+        }
+
+        /* Monitoring */
+        this.monitorJMX = Boolean.valueOf(prop.getProperty(BadgerInputKeys.MONITOR_JMX.name, "false"));
+        try {
+            this.metricsPort = NumberUtils
+                    .createInteger(prop.getProperty(BadgerInputKeys.MONITOR_METRICS_PORT.name, "-1"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.MONITOR_METRICS_PORT.name + " is not a number!");
+        }
+        this.checkpointFile = prop.getProperty(BadgerInputKeys.MONITOR_CHECKPOINT_FILE.name, "badger-checkpoint.trie");
+        try {
+            this.checkpointIntervalSec = NumberUtils
+                    .createInteger(prop.getProperty(BadgerInputKeys.MONITOR_CHECKPOINT_SEC.name, "0"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.MONITOR_CHECKPOINT_SEC.name + " is not a number!");
+        }
 
         /* Print Trie As Dot Files */
         this.printTrieAsDot = Boolean.valueOf(prop.getProperty(BadgerInputKeys.PRINT_TRIE.name));
         this.printTrieMaxDepth = Optional.ofNullable(NumberUtils.createInteger(prop.getProperty(BadgerInputKeys.PRINT_TRIE_MAX_DEPTH.name)));
+        this.printTrieView = prop.getProperty(BadgerInputKeys.PRINT_TRIE_VIEW.name, TrieDotExporter.VIEW_DEPTH);
+        if (!printTrieView.equals(TrieDotExporter.VIEW_DEPTH) && !printTrieView.equals(TrieDotExporter.VIEW_TOP_K)
+                && !printTrieView.equals(TrieDotExporter.VIEW_DIFF)) {
+            throw new RuntimeException(
+                    "Unknown value for " + BadgerInputKeys.PRINT_TRIE_VIEW.name + ": " + printTrieView);
+        }
+        try {
+            this.printTrieTopK = NumberUtils
+                    .createInteger(prop.getProperty(BadgerInputKeys.PRINT_TRIE_TOP_K.name, "10"));
+        } catch (NumberFormatException e) {
+            throw new RuntimeException("Value of " + BadgerInputKeys.PRINT_TRIE_TOP_K.name + " is not a number!");
+        }
     }
 
     private List<BadgerInputKeys> checkForMissingMandatoryProperites(Properties prop) {
@@ -372,13 +703,66 @@ public class BadgerInput {
         return missingKeys;
     }
 
+    /**
+     * @return symbolic pixels of the image, by default all pixels of the image with the size of io.input.sizes
+     */
+    private ImageRaster.Region readImageRegion(Properties prop) {
+        String region = prop.getProperty(BadgerInputKeys.IO_IMAGE_REGION.name);
+        if (region == null) {
+            return new ImageRaster.Region(0, 0, inputSizes[0], inputSizes[1]);
+        }
+        return ImageRaster.Region.parse(region);
+    }
+
+    /**
+     * @return image with the concrete pixels outside of the symbolic region, or null if not specified
+     */
+    private BufferedImage readBaseImage(Properties prop) {
+        String baseImageFile = prop.getProperty(BadgerInputKeys.IO_IMAGE_BASE.name);
+        if (baseImageFile == null) {
+            return null;
+        }
+        try {
+            BufferedImage baseImage = ImageIO.read(new File(baseImageFile));
+            if (baseImage == null) {
+                throw new RuntimeException("[ERROR] Base image has an unknown format: " + baseImageFile);
+            }
+            return baseImage;
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to read base image: " + baseImageFile, e);
+        }
+    }
+
+    /**
+     * @return random generator for the solver components and the embedded fuzzer, which is seeded if
+     *         symexe.random.seed is set
+     */
+    public Random createRandom() {
+        return randomSeed.isPresent() ? new Random(randomSeed.get()) : new Random();
+    }
+
+    /**
+     * @return native tracer of jpf.target with the budget of symexe.native.max.instructions and
+     *         symexe.native.timeout.ms per execution
+     */
+    public NativeTracer createNativeTracer() {
+        return new NativeTracer(jpf_classpath.split("[,;:]"), jpf_targetClass, nativeMaxInstructions,
+                nativeTimeoutMillis);
+    }
+
     public static BadgerInput loadFromConfigFile(String configFilePath) {
+        return loadFromConfigFile(configFilePath, false);
+    }
+
+    public static BadgerInput loadFromConfigFile(String configFilePath, boolean isWorker) {
         Properties prop = new Properties();
         InputStream input = null;
         try {
             input = new FileInputStream(configFilePath);
             prop.load(input);
-            return new BadgerInput(prop);
+            BadgerInput badgerInput = new BadgerInput(prop, isWorker);
+            badgerInput.configFile = configFilePath;
+            return badgerInput;
         } catch (FileNotFoundException e) {
             throw new RuntimeException("[ERROR] Configuration file not found", e);
         } catch (IOException e) {
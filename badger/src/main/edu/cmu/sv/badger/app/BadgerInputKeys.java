@@ -15,14 +15,37 @@ public enum BadgerInputKeys {
     /* Directories */
     INITIAL_INPUT_DIR               ("dir.initial.input",       true),
     SYNC_INPUT_DIR                  ("dir.sync.input",          false),
-    EXPORT_DIR                      ("dir.export",              true),
+    EXPORT_DIR                      ("dir.export",              false),
+    SYMEXE_SYNC_DIR                 ("dir.sync.symexe",         false),
     TMP_DIR                         ("dir.tmp",                 false),
+    TMP_DIR_QUOTA                   ("dir.tmp.quota",           false),
     
     /* Technical Parameters */
     CYCLE_WAITING_SEC               ("symexe.wait.sec",         true),
     MAX_NUMBER_SYMEXE_ITERATIONS    ("symexe.iterations",       true),
     SEC_UNTIL_FIRST_CYCLE           ("symexe.delay.sec",        false),
     NUMBER_OF_ADDITIONAL_STEPS      ("symexe.bse.steps",        false),
+    MAX_NUMBER_OF_FILES_PER_RUN     ("symexe.bse.files",        false),
+    FRONTIER_BATCH_SIZE             ("symexe.frontier.batch",   false),
+    SYMEXE_INSTANCES                ("symexe.instances",        false),
+    SYMEXE_INSTANCE_ID              ("symexe.instance.id",      false),
+    SHARD_DEPTH                     ("symexe.shard.depth",      false),
+    LEARN_UNSAT_CORES               ("symexe.unsatcore",        false),
+    MODELS_PER_PC                   ("symexe.models.per.pc",    false),
+    MODELS_STRATEGY                 ("symexe.models.strategy",  false),
+    SOLVER_FALLBACK                 ("symexe.solver.fallback",  false),
+    LOCAL_SEARCH_EVALUATIONS        ("symexe.localsearch.evals",false),
+    NATIVE_IMPORT_TRACER            ("symexe.import.native",    false),
+    NATIVE_MAX_INSTRUCTIONS         ("symexe.native.max.instructions",false),
+    NATIVE_TIMEOUT_MS               ("symexe.native.timeout.ms",false),
+    EXECUTION_RESULT_CACHE          ("symexe.cache",            false),
+    IN_MEMORY_INPUTS                ("symexe.input.memory",     false),
+    WORKERS                         ("symexe.workers",          false),
+    WORKER_JVM_ARGUMENTS            ("symexe.workers.jvm",      false),
+    WORKER_TIMEOUT_SEC              ("symexe.workers.timeout.sec",false),
+    WORKER_RETRIES                  ("symexe.workers.retries",  false),
+    TRIE_SEED_FILE                  ("symexe.trie.seed",        false),
+    RANDOM_SEED                     ("symexe.random.seed",      false),
     
     /* JPF */
     APPLICATION_CLASSPATH           ("jpf.classpath",           true),
@@ -51,9 +74,20 @@ public enum BadgerInputKeys {
     ANALYSIS_WCA_METRIC             ("analysis.wca.metric",     false),
     ANALYSIS_COV_METRIC             ("analysis.cov.metric",     false),
 
+    /* Embedded Fuzzer */
+    FUZZER_DIR                      ("fuzzer.dir",              false),
+    FUZZER_SYNC_SEC                 ("fuzzer.sync.sec",         false),
+    FUZZER_MAX_SIZE                 ("fuzzer.max.size",         false),
+    FUZZER_EXCHANGE                 ("fuzzer.exchange",         false),
+
     /* Input Processing / Generation */
     IO_UTILS                        ("io.utils",                true),
     IO_INPUT_SIZES                  ("io.input.sizes",          true),
+    IO_SCHEMA                       ("io.schema",               false),
+    IO_SCHEMA_ENDIAN                ("io.schema.endian",        false),
+    IO_SCHEMA_NAMING                ("io.schema.naming",        false),
+    IO_IMAGE_REGION                 ("io.image.roi",            false),
+    IO_IMAGE_BASE                   ("io.image.base",           false),
     IO_INITIAL_ID                   ("io.initial.id",           false),
 
     /* Statistics */
@@ -62,12 +96,23 @@ public enum BadgerInputKeys {
     GENERATION_STATISTICS_FILE      ("stat.file.generation",    false),
     EXPORT_STATISTICS_FILE          ("stat.file.export",        false),
     INTERNAL_TRIE_STATISTICS_FILE   ("stat.file.trie",          false),
+    PHASE_STATISTICS_FILE           ("stat.file.phases",        false),
     PRINT_PC_INFO                   ("stat.print.pc",           false),
     PC_MAPPING_FILE                 ("stat.file.pc.mapping",    false),
+    STATISTICS_FORMAT               ("stat.format",             false),
+    STATISTICS_FLUSH_MILLIS         ("stat.flush.ms",           false),
+
+    /* Monitoring */
+    MONITOR_JMX                     ("monitor.jmx",             false),
+    MONITOR_METRICS_PORT            ("monitor.metrics.port",    false),
+    MONITOR_CHECKPOINT_FILE         ("monitor.checkpoint.file", false),
+    MONITOR_CHECKPOINT_SEC          ("monitor.checkpoint.sec",  false),
 
     /* Print Trie As Dot Files */
     PRINT_TRIE                      ("trie.print",              false),
-    PRINT_TRIE_MAX_DEPTH            ("trie.print.maxdepth",     false);
+    PRINT_TRIE_MAX_DEPTH            ("trie.print.maxdepth",     false),
+    PRINT_TRIE_VIEW                 ("trie.print.view",         false),
+    PRINT_TRIE_TOP_K                ("trie.print.topk",         false);
     
     public String name;
     public boolean isMandatory;
@@ -2,9 +2,11 @@ package edu.cmu.sv.badger.app;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.Files;
 
 import org.apache.commons.io.FileUtils;
 
+import edu.cmu.sv.badger.fuzzer.EmbeddedFuzzer;
 import edu.cmu.sv.badger.util.Statistics;
 
 /**
@@ -24,10 +26,11 @@ public class BadgerRunner {
 
         SymExe symExe = new SymExe(input);
         symExe.run();
+        Statistics.close();
 
     }
 
-    private static void ensureAndCleanOutputDirectoriesExist(BadgerInput input) {
+    static void ensureAndCleanOutputDirectoriesExist(BadgerInput input) {
 
         File tmpDir = new File(input.tmpDir);
         try {
@@ -40,10 +43,34 @@ public class BadgerRunner {
         File exportDir = new File(input.exportDir);
         try {
             FileUtils.forceMkdir(exportDir);
-            FileUtils.cleanDirectory(exportDir);
+            // The queue of a SymExe instance in a shared sync directory is continued, since the others imported it.
+            if (!input.symexeSyncDir.isPresent()) {
+                FileUtils.cleanDirectory(exportDir);
+            }
         } catch (IOException e) {
             throw new RuntimeException("[ERROR] Unable to create tmp directory: " + input.exportDir, e);
         }
+
+        if (input.fuzzerDir.isPresent()) {
+            File fuzzerOutputDir = new File(input.fuzzerDir.get(), EmbeddedFuzzer.NAME);
+            try {
+                FileUtils.forceMkdir(fuzzerOutputDir);
+                FileUtils.cleanDirectory(fuzzerOutputDir);
+            } catch (IOException e) {
+                throw new RuntimeException("[ERROR] Unable to create fuzzer directory: " + fuzzerOutputDir, e);
+            }
+        }
+
+        if (input.fuzzerExchangeFile.isPresent()) {
+            // The coverage and costs of a previous run must not be taken over, a running fuzzer keeps its old mapping.
+            File exchangeFile = new File(input.fuzzerExchangeFile.get());
+            try {
+                FileUtils.forceMkdir(exchangeFile.getAbsoluteFile().getParentFile());
+                Files.deleteIfExists(exchangeFile.toPath());
+            } catch (IOException e) {
+                throw new RuntimeException("[ERROR] Unable to reset exchange file: " + exchangeFile, e);
+            }
+        }
     }
 
 }
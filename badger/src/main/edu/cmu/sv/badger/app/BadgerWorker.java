@@ -0,0 +1,54 @@
+package edu.cmu.sv.badger.app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+import edu.cmu.sv.badger.listener.SymcretePath;
+import edu.cmu.sv.badger.worker.WorkerProtocol;
+
+/**
+ * Main class of a worker process, which is started by the WorkerPool of SymExe. It connects to the given port on the
+ * loopback address and runs the symcrete executions it receives, see {@link WorkerProtocol}.
+ *
+ * Usage: BadgerWorker config-file port
+ */
+public class BadgerWorker {
+
+    public static void main(String[] args) {
+
+        String configFilePath = args[0];
+        int port = Integer.parseInt(args[1]);
+        BadgerInput input = BadgerInput.loadFromConfigFile(configFilePath, true);
+        SymcreteExecutor executor = new SymcreteExecutor(input);
+
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            WorkerProtocol.writeHello(out);
+
+            WorkerProtocol.Task task;
+            while ((task = WorkerProtocol.readTask(in)) != null) {
+                System.out.println("Run JPF with argument: " + task.targetArgument);
+                long startTime = System.nanoTime();
+                SymcretePath path = executor.execute(task.targetArgument, false);
+                WorkerProtocol.writeResult(out, task.id, System.nanoTime() - startTime, path,
+                        path == null ? "JPF failed, see worker log" : null);
+            }
+        } catch (EOFException e) {
+            // SymExe is gone.
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // JPF might leave non-daemon threads of the target behind.
+        System.exit(0);
+    }
+
+}
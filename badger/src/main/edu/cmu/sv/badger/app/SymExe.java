@@ -1,22 +1,58 @@
 package edu.cmu.sv.badger.app;
 
 import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
 
-import edu.cmu.sv.badger.analysis.StateBuilder;
-import edu.cmu.sv.badger.listener.ConcreteInput2TrieListener;
-import edu.cmu.sv.badger.listener.MetricListener;
+import edu.cmu.sv.badger.analysis.BranchCountState;
+import edu.cmu.sv.badger.analysis.FrontierShard;
+import edu.cmu.sv.badger.analysis.InstructionCountState;
+import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.analysis.WCAAnalyzer.CostStrategy;
+import edu.cmu.sv.badger.fuzzer.EmbeddedFuzzer;
+import edu.cmu.sv.badger.io.ExchangeFile;
+import edu.cmu.sv.badger.io.ExchangeFile.Side;
+import edu.cmu.sv.badger.io.InMemoryInputs;
+import edu.cmu.sv.badger.io.SyncDirectory;
 import edu.cmu.sv.badger.listener.SymCreteCostListener;
+import edu.cmu.sv.badger.listener.SymcretePath;
 import edu.cmu.sv.badger.listener.TrieGuidanceListener;
+import edu.cmu.sv.badger.monitor.BadgerMonitor;
+import edu.cmu.sv.badger.monitor.CampaignControl;
+import edu.cmu.sv.badger.monitor.Metrics;
+import edu.cmu.sv.badger.monitor.Metrics.ExecutionMode;
+import edu.cmu.sv.badger.monitor.PhaseProfiler;
+import edu.cmu.sv.badger.monitor.PhaseProfiler.Phase;
+import edu.cmu.sv.badger.monitor.PrometheusEndpoint;
+import edu.cmu.sv.badger.solver.LocalSearchSolver;
+import edu.cmu.sv.badger.trace.BranchTrace;
+import edu.cmu.sv.badger.trace.NativeTracer;
+import edu.cmu.sv.badger.trace.PathHashIndex;
 import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieDotExporter;
 import edu.cmu.sv.badger.trie.TrieNode;
+import edu.cmu.sv.badger.util.ExecutionResultCache;
 import edu.cmu.sv.badger.util.Statistics;
+import edu.cmu.sv.badger.util.StatisticsRecord;
+import edu.cmu.sv.badger.worker.WorkerPool;
 import gov.nasa.jpf.Config;
 import gov.nasa.jpf.JPF;
 import gov.nasa.jpf.JPF.ExitException;
@@ -39,7 +75,17 @@ public class SymExe {
     private BlockingQueue<Pair<PathCondition, Map<String, Object>>> pcAndSolutionQueue;
     public static AtomicInteger lastId = new AtomicInteger(-1);
     private static AtomicInteger lastTempFileId = new AtomicInteger(-1);
+    private static AtomicInteger lastPCId = new AtomicInteger(-1);
+    private Map<String, Integer> tmpFile2PCId = new HashMap<>(); // attributes generated files to their source pc
     List<String> alreadyReadInputFiles = new ArrayList<>();
+    private PathHashIndex pathHashIndex; // paths of natively traced imports, only used with the native tracer
+    private CampaignControl control; // pause, iterations and checkpoint requests via JMX
+    private TrieDotExporter dotExporter; // only used with trie.print
+    private SymcreteExecutor symcreteExecutor;
+    private WorkerPool workerPool; // only used with symexe.workers
+    private EmbeddedFuzzer fuzzer; // only used with fuzzer.dir
+    private ExchangeFile exchangeFile; // only used with fuzzer.exchange
+    private long lastCheckpointTime = System.nanoTime();
 
     public static enum ConcreteSPFMode {
         IMPORT, EXPORT;
@@ -50,9 +96,76 @@ public class SymExe {
         this.trie = new Trie(input.trieAnalysisMethod);
         lastId.set(input.initialId);
         this.pcAndSolutionQueue = new ArrayBlockingQueue<>(1000);
+        this.pathHashIndex = new PathHashIndex(!(input.trieAnalysisMethod instanceof WCAAnalyzer)
+                || ((WCAAnalyzer) input.trieAnalysisMethod).getCostStrategy().equals(CostStrategy.MAXIMIZE));
+        this.control = new CampaignControl(input.maximumNumberOfSymExeIterations);
+        if (input.symexeSyncDir.isPresent()) {
+            SyncDirectory syncDir = input.symexeSyncDir.get();
+            input.trieAnalysisMethod.setFrontierShard(
+                    new FrontierShard(syncDir.getInstanceId(), syncDir.getNumberOfInstances(), input.shardDepth));
+            lastId.set(Math.max(input.initialId, syncDir.getHighestQueueId()));
+            System.out.println("[SPF] SymExe instance " + syncDir.getInstanceId() + " of "
+                    + syncDir.getNumberOfInstances() + ", export to " + input.exportDir);
+        }
+        if (input.trieSeedFile.isPresent()) {
+            seedTrie(input.trieSeedFile.get());
+        }
+        Metrics.setSolutionQueue(pcAndSolutionQueue::size);
+        this.symcreteExecutor = new SymcreteExecutor(input);
+        if (input.numberOfWorkers > 0) {
+            if (input.configFile == null) {
+                throw new RuntimeException(
+                        "[ERROR] " + BadgerInputKeys.WORKERS.name + " requires to load the configuration from a file");
+            }
+            this.workerPool = new WorkerPool(input.numberOfWorkers, input.configFile, input.workerJvmArguments,
+                    input.workerTimeoutSec, input.workerRetries, input.tmpDir);
+            // SymExe runs until it gets killed or until the budget of runSteps is used, so the workers are stopped on
+            // exit.
+            Runtime.getRuntime().addShutdownHook(new Thread(workerPool::close, "badger-worker-shutdown"));
+        }
+        if (input.fuzzerExchangeFile.isPresent()) {
+            this.exchangeFile = new ExchangeFile(input.fuzzerExchangeFile.get());
+            input.trieAnalysisMethod.setExchangeFile(exchangeFile);
+        }
+        if (input.fuzzerDir.isPresent()) {
+            // Only one thread can record a native trace at a time, so the fuzzer shares the tracer of the imports.
+            NativeTracer tracer = input.nativeTracer.orElseGet(input::createNativeTracer);
+            this.fuzzer = new EmbeddedFuzzer(input, tracer, exchangeFile);
+        }
+        if (input.printTrieAsDot) {
+            this.dotExporter = new TrieDotExporter(trie, input.printTrieView, input.printTrieMaxDepth.orElse(null),
+                    input.printTrieTopK);
+        }
+    }
+
+    /**
+     * Continues the exploration of a stored trie, e.g. the merged trie of previous campaigns, so that only the choices
+     * get explored that no previous campaign covered.
+     */
+    private void seedTrie(String trieFile) {
+        Trie seed = Trie.loadTrie(trieFile);
+        if (seed == null) {
+            throw new RuntimeException("[ERROR] Unable to load trie: " + trieFile);
+        }
+        seed.setAnalyzer(input.trieAnalysisMethod);
+        this.trie = seed;
+        System.out.println("[SPF] trie seeded from " + trieFile + ": " + trie.getCounters().getNumberOfNodes()
+                + " nodes, " + input.trieAnalysisMethod.getQueueLength() + " nodes to explore");
     }
 
     public void run() {
+        if (input.monitorJMX) {
+            new BadgerMonitor(control).register();
+        }
+        if (input.metricsPort >= 0) {
+            new PrometheusEndpoint(input.metricsPort, control).start();
+        }
+
+        // The fuzzer starts first, like AFL in runBadger.sh, and keeps running until SymExe gets killed.
+        if (fuzzer != null) {
+            fuzzer.start();
+        }
+
         if (input.secUntilFirstCycle > 0) {
             try {
                 Thread.sleep(input.secUntilFirstCycle * 1000);
@@ -64,15 +177,11 @@ public class SymExe {
         boolean firstStep = true;
         while (true) {
 
+            processControlRequests();
+
             // Read input.
-            List<String> newInputfiles;
-            if (firstStep) {
-                firstStep = false;
-                newInputfiles = analyzeInputFiles(input.initialInputDir);
-            } else {
-                newInputfiles = analyzeInputFiles(
-                        input.syncInputdir.isPresent() ? input.syncInputdir.get() : input.initialInputDir);
-            }
+            List<String> newInputfiles = readNewInputFiles(firstStep);
+            firstStep = false;
 
             // Run one step.
             boolean needsABreak = runStep(newInputfiles);
@@ -90,6 +199,65 @@ public class SymExe {
         }
     }
 
+    /**
+     * Runs SymExe with a fixed budget and without waiting for new inputs, e.g. for a benchmark. Stops after the given
+     * number of steps, after the deadline, or as soon as there is nothing left to process. With the embedded fuzzer,
+     * SymExe waits for new fuzzer inputs instead, and the fuzzer is stopped at the end of the budget.
+     * 
+     * @param maximumNumberOfSteps
+     *            - each step imports the new inputs and runs symexe.iterations iterations
+     * @param deadlineNanos
+     *            - value of System.nanoTime after which no new step is started
+     * @return number of steps that did process something
+     */
+    public int runSteps(int maximumNumberOfSteps, long deadlineNanos) {
+        if (fuzzer != null) {
+            fuzzer.start();
+        }
+        int numberOfSteps = 0;
+        boolean firstStep = true;
+        while (numberOfSteps < maximumNumberOfSteps && System.nanoTime() - deadlineNanos < 0) {
+            processControlRequests();
+            List<String> newInputfiles = readNewInputFiles(firstStep);
+            firstStep = false;
+            if (!runStep(newInputfiles)) {
+                numberOfSteps++;
+            } else if (fuzzer == null) {
+                break;
+            } else {
+                long waitingNanos = Math.min(TimeUnit.SECONDS.toNanos(Math.max(input.cycleWaitingSec, 1)),
+                        deadlineNanos - System.nanoTime());
+                try {
+                    TimeUnit.NANOSECONDS.sleep(waitingNanos);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+        if (fuzzer != null) {
+            fuzzer.stopFuzzing();
+        }
+        return numberOfSteps;
+    }
+
+    private List<String> readNewInputFiles(boolean firstStep) {
+        List<String> newInputfiles;
+        if (firstStep) {
+            newInputfiles = analyzeInputFiles(input.initialInputDir);
+        } else {
+            newInputfiles = analyzeInputFiles(
+                    input.syncInputdir.isPresent() ? input.syncInputdir.get() : input.initialInputDir);
+        }
+        if (input.symexeSyncDir.isPresent()) {
+            // Findings of the other SymExe instances are imported, but not exported again.
+            for (String peerQueueDir : input.symexeSyncDir.get().getPeerQueueDirs()) {
+                newInputfiles.addAll(analyzeInputFiles(peerQueueDir));
+            }
+        }
+        return newInputfiles;
+    }
+
     /**
      * @return Returns True if we need a small break.
      */
@@ -102,87 +270,281 @@ public class SymExe {
             return true; // there is currently no sense in running further, waiting for fuzzer makes more sense.
         }
 
-        Map<String, String> processedNewInputs = input.ioUtils.processInput(newInputFiles);
+        PhaseProfiler.beginIteration();
+        Map<String, String> processedNewInputs = processInput(newInputFiles);
 
         // Extend trie for new input.
         if (!processedNewInputs.isEmpty()) {
             buildTrieFromProcessedInput(processedNewInputs, ConcreteSPFMode.IMPORT);
-            Statistics.appendTrieStatistics(input, trie.getStatistics(), pcAndSolutionQueue.size(),
-                    alreadyReadInputFiles.size());
+            appendTrieStatistics();
+            Statistics.appendPhaseStatistics(input, "import", PhaseProfiler.endIteration());
         }
 
         /*
          * Explore new nodes according to the settings. The reason for making a loop here is that we only can select one
          * execution path as guidance, because the choice generator does not support a multi-selection.
          */
-        for (int i = 0; i < input.maximumNumberOfSymExeIterations; i++) {
+        for (int i = 0; i < control.getIterations(); i++) {
 
-            // Analyze trie: pick next node and mark path in trie for efficient replay.
-            TrieNode identifiedNode = input.trieAnalysisMethod.analyze(trie);
+            if (i > 0) {
+                processControlRequests();
+            }
+            PhaseProfiler.beginIteration();
+
+            // Analyze trie: pick next nodes and mark paths in trie for efficient replay.
+            long analyzeStartTime = PhaseProfiler.start();
+            int numberOfFuzzerBranches = input.trieAnalysisMethod.updateFuzzerCoverage();
+            if (numberOfFuzzerBranches > 0) {
+                System.out.println("[SPF] fuzzer covered " + numberOfFuzzerBranches + " new branches");
+            }
+            List<TrieNode> identifiedNodes = input.trieAnalysisMethod.analyze(trie, input.frontierBatchSize);
+            PhaseProfiler.stop(Phase.ANALYZE, analyzeStartTime);
 
             if (input.printTrieAsDot) {
-                Trie.storeTrieAsDot(trie, "trie-analyzed.dot", input.printTrieMaxDepth.orElse(null));
+                dotExporter.export("trie-analyzed.dot");
             }
 
             // Break the loop if no new node was identified.
-            if (identifiedNode == null) {
+            if (identifiedNodes.isEmpty()) {
                 break;
             }
+            List<Integer> numberOfChildrenBeforeRun = new ArrayList<>();
+            identifiedNodes.forEach(node -> numberOfChildrenBeforeRun.add(node.getChildren().size()));
+
+            // In streaming mode the inputs are generated while BSE still explores the remaining siblings.
+            GenerationBatch generationBatch = new GenerationBatch();
+            AtomicBoolean isJPFRunning = new AtomicBoolean(true);
+            Thread streamingGenerator = null;
+            if (input.maximumNumberOfNewFilesPerRun != 1) {
+                streamingGenerator = startStreamingGeneration(generationBatch, isJPFRunning);
+            }
 
             // Replay trie for enabled nodes and extract path conditions for new explored nodes.
-            runJPFReplayAndBSE(trie, input.numberOfAdditionalDecisions, identifiedNode.getInputSize());
+            runJPFReplayAndBSE(trie, input.numberOfAdditionalDecisions, identifiedNodes.get(0).getInputSize());
+
+            // Batched nodes that were not reached, e.g. because the run was stopped earlier, need to be explored later.
+            // The first node is handled as before, i.e. it is not put back, to not select an unreachable node forever.
+            for (int j = 1; j < identifiedNodes.size(); j++) {
+                TrieNode node = identifiedNodes.get(j);
+                if (node.getChildren().size() == numberOfChildrenBeforeRun.get(j)) {
+                    node.resetComplete();
+                    input.trieAnalysisMethod.updateNode(node);
+                }
+            }
+
+            if (streamingGenerator != null) {
+                isJPFRunning.set(false);
+                try {
+                    streamingGenerator.join();
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                }
+            }
 
-            Statistics.appendTrieStatistics(input, trie.getStatistics(), pcAndSolutionQueue.size(),
-                    alreadyReadInputFiles.size());
+            appendTrieStatistics();
 
             if (input.printTrieAsDot) {
-                Trie.storeTrieAsDot(trie, "trie-explored.dot", input.printTrieMaxDepth.orElse(null));
+                dotExporter.export("trie-explored.dot");
             }
 
-            // Generate input.
-            List<String> generatedTmpFiles = generateTmpInputFiles();
+            // Generate input (for the remaining path conditions in streaming mode).
+            List<String> generatedTmpFiles = generateTmpInputFiles(generationBatch);
 
             // Read new input files, updated trie, and extract relevant inputs for fuzzer.
-            Map<String, String> processedGeneratedTmpFiles = input.ioUtils.processInput(generatedTmpFiles);
+            Map<String, String> processedGeneratedTmpFiles = processInput(generatedTmpFiles);
             if (!processedGeneratedTmpFiles.isEmpty()) {
                 buildTrieFromProcessedInput(processedGeneratedTmpFiles, ConcreteSPFMode.EXPORT);
             }
 
+            // Generated files that could not be processed are released as well.
+            generatedTmpFiles.forEach(this::releaseInput);
+
             if (input.printTrieAsDot) {
-                Trie.storeTrieAsDot(trie, "trie-extended.dot", input.printTrieMaxDepth.orElse(null));
+                dotExporter.export("trie-extended.dot");
             }
 
-            Statistics.appendTrieStatistics(input, trie.getStatistics(), pcAndSolutionQueue.size(),
-                    alreadyReadInputFiles.size());
+            appendTrieStatistics();
+            Statistics.appendPhaseStatistics(input, "iteration", PhaseProfiler.endIteration());
         }
 
         return false;
     }
 
-    private List<String> generateTmpInputFiles() {
+    private Map<String, String> processInput(List<String> inputFiles) {
+        long startTime = PhaseProfiler.start();
+        Map<String, String> processedInputs = input.ioUtils.processInput(inputFiles);
+        PhaseProfiler.stop(Phase.PROCESS, startTime);
+        return processedInputs;
+    }
+
+    private void appendTrieStatistics() {
+        Statistics.appendTrieStatistics(input, trie, pcAndSolutionQueue.size(), alreadyReadInputFiles.size());
+        Metrics.updateTrie(trie);
+    }
+
+    /**
+     * Processes the checkpoint requests and blocks as long as SymExe is paused. Only called between iterations, when
+     * the trie is not modified.
+     */
+    private void processControlRequests() {
+        try {
+            while (true) {
+                if (control.takeCheckpointRequest() || isCheckpointDue()) {
+                    storeCheckpoint();
+                }
+                if (!control.isPaused()) {
+                    return;
+                }
+                System.out.println("[SPF] paused ...");
+                control.awaitRequest();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private boolean isCheckpointDue() {
+        return input.checkpointIntervalSec > 0
+                && System.nanoTime() - lastCheckpointTime >= TimeUnit.SECONDS.toNanos(input.checkpointIntervalSec);
+    }
+
+    /**
+     * Stores the trie nodes to the checkpoint file and flushes the statistics. The file is replaced atomically, so it
+     * always contains a complete trie.
+     */
+    private void storeCheckpoint() {
+        lastCheckpointTime = System.nanoTime();
+        String tmpFile = input.checkpointFile + ".tmp";
+        if (!Trie.storeTrie(trie, tmpFile)) {
+            System.out.println("[ERROR] Unable to store checkpoint: " + input.checkpointFile);
+            return;
+        }
+        try {
+            Files.move(Paths.get(tmpFile), Paths.get(input.checkpointFile), StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.out.println("[ERROR] Unable to store checkpoint: " + input.checkpointFile);
+            e.printStackTrace();
+            return;
+        }
+        Statistics.flush();
+        System.out.println("[SPF] checkpoint stored: " + input.checkpointFile);
+    }
+
+    /**
+     * Stores the generated files of one iteration and the information that is necessary to deduplicate them and to
+     * attribute them to their path conditions.
+     */
+    private static class GenerationBatch {
         List<String> generatedTmpFiles = new ArrayList<>();
+        Set<ByteBuffer> generatedContents = new HashSet<>();
+        PathCondition lastPC = null;
+        int pcId = -1;
+    }
+
+    private List<String> generateTmpInputFiles(GenerationBatch generationBatch) {
         while (!pcAndSolutionQueue.isEmpty()) {
             try {
 
                 Pair<PathCondition, Map<String, Object>> pcAndSolution = pcAndSolutionQueue.take();
-
-                String outputfile = generateTmpInputfile(pcAndSolution);
-                generatedTmpFiles.add(outputfile);
+                generateTmpInputfile(pcAndSolution, generationBatch);
 
             } catch (InterruptedException e) {
                 e.printStackTrace();
                 break;
             }
         }
-        return generatedTmpFiles;
+        return generationBatch.generatedTmpFiles;
+    }
+
+    /**
+     * Starts a thread that generates the input files for the solved path conditions while JPF is still running, so
+     * that the generation overlaps with the exploration and the queue does not run full.
+     */
+    private Thread startStreamingGeneration(GenerationBatch generationBatch, AtomicBoolean isJPFRunning) {
+        Thread streamingGenerator = new Thread(() -> {
+            while (isJPFRunning.get()) {
+                try {
+                    Pair<PathCondition, Map<String, Object>> pcAndSolution = pcAndSolutionQueue.poll(100,
+                            TimeUnit.MILLISECONDS);
+                    if (pcAndSolution != null) {
+                        generateTmpInputfile(pcAndSolution, generationBatch);
+                    }
+                } catch (InterruptedException e) {
+                    e.printStackTrace();
+                    break;
+                }
+            }
+        });
+        streamingGenerator.setDaemon(true);
+        streamingGenerator.start();
+        return streamingGenerator;
     }
 
-    private String generateTmpInputfile(Pair<PathCondition, Map<String, Object>> pcAndSolution) {
-        String outputfile = input.tmpDir + "/" + String.valueOf(lastTempFileId.incrementAndGet());
-        input.ioUtils.generateInputFiles(pcAndSolution._1, pcAndSolution._2, outputfile);
+    private void generateTmpInputfile(Pair<PathCondition, Map<String, Object>> pcAndSolution,
+            GenerationBatch generationBatch) {
+        // Multiple models for the same path condition are queued with the same pc object.
+        if (pcAndSolution._1 != generationBatch.lastPC) {
+            generationBatch.lastPC = pcAndSolution._1;
+            generationBatch.pcId = lastPCId.incrementAndGet();
+        }
 
-        Statistics.appendGenerationStatistics(input, outputfile);
-        Statistics.appendPCMapping(input, outputfile, pcAndSolution._1.toString());
+        long startTime = PhaseProfiler.start();
+        String outputfile = generateTmpInputfile(pcAndSolution, generationBatch.pcId,
+                generationBatch.generatedContents);
+        PhaseProfiler.stop(Phase.GENERATE, startTime);
+        if (outputfile != null) {
+            generationBatch.generatedTmpFiles.add(outputfile);
+        }
+    }
+
+    /**
+     * Generates the input file for the given model.
+     * 
+     * @param pcAndSolution
+     *            - path condition and its model
+     * @param pcId
+     *            - id of the path condition, used to attribute the generated file
+     * @param generatedContents
+     *            - contents of the already generated files for deduplication, null if no deduplication is necessary
+     * @return file name, or null if the same content was already generated
+     */
+    private String generateTmpInputfile(Pair<PathCondition, Map<String, Object>> pcAndSolution, int pcId,
+            Set<ByteBuffer> generatedContents) {
+        // In-memory inputs only get a virtual path, they are written as files only when they are exported.
+        byte[] content = input.inMemoryInputs ? input.ioUtils.generateInput(pcAndSolution._1, pcAndSolution._2) : null;
+        String outputfile;
+        if (content != null) {
+            if (generatedContents != null && !generatedContents.add(ByteBuffer.wrap(content))) {
+                return null;
+            }
+            outputfile = InMemoryInputs.add(content);
+        } else {
+            if (!input.tempFileManager.hasCapacity()) {
+                System.out.println("[WARNING] Quota for tmp directory exceeded ("
+                        + input.tempFileManager.getUsedBytes() + " bytes), skip input generation for pc " + pcId);
+                return null;
+            }
+            outputfile = input.tmpDir + "/" + String.valueOf(lastTempFileId.incrementAndGet());
+            input.ioUtils.generateInputFiles(pcAndSolution._1, pcAndSolution._2, outputfile);
+            input.tempFileManager.track(outputfile);
+
+            if (generatedContents != null) {
+                try {
+                    if (!generatedContents.add(ByteBuffer.wrap(Files.readAllBytes(Paths.get(outputfile))))) {
+                        // Another model led to the same input, e.g. because they only differ in unused variables.
+                        input.tempFileManager.release(outputfile);
+                        return null;
+                    }
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+        tmpFile2PCId.put(outputfile, pcId);
+
+        Statistics.appendGenerationStatistics(input, outputfile, pcId);
+        Statistics.appendPCMapping(input, outputfile, pcAndSolution._1);
 
         return (outputfile);
     }
@@ -198,7 +560,13 @@ public class SymExe {
 
         List<String> newInputFiles = new ArrayList<>();
 
-        for (File inputFile : aflQueueFolder.listFiles()) {
+        File[] inputFiles = aflQueueFolder.listFiles();
+        if (inputFiles == null) {
+            return newInputFiles; // e.g. the queue of another SymExe instance that did not start yet
+        }
+        // The order of listFiles is not specified, the ids in the queue names give the order of their creation.
+        Arrays.sort(inputFiles, Comparator.comparing(File::getName));
+        for (File inputFile : inputFiles) {
             if (!inputFile.isHidden()) {
                 String fileName = inputFile.getAbsolutePath();
                 if (alreadyReadInputFiles.contains(fileName)) {
@@ -212,8 +580,22 @@ public class SymExe {
         return newInputFiles;
     }
 
-    private Pair<Double, Boolean> runJPFSymCrete(String targetArgument, String originalFileName, Trie trie,
-            ConcreteSPFMode spfMode) {
+    /**
+     * Runs symcrete execution for the given input and extends the trie with its path.
+     * 
+     * @param targetArgument
+     *            - processed input file
+     * @param originalFileName
+     *            - input file
+     * @param spfMode
+     *            - IMPORT or EXPORT
+     * @param optimizeUserDefinedCost
+     *            - if true, the path condition is solved with the optimizing decision procedure in the same run, the
+     *            leaf gets the optimized cost and the optimized input is exported instead of the original one
+     * @return observed cost and whether it was a new best score
+     */
+    private Pair<Double, Boolean> runJPFSymCrete(String targetArgument, String originalFileName,
+            ConcreteSPFMode spfMode, boolean optimizeUserDefinedCost) {
 
         if (targetArgument == null) {
             return null;
@@ -221,87 +603,158 @@ public class SymExe {
 
         System.out.println("Run JPF with argument: " + targetArgument);
 
-        try {
-            Config conf = initSPFConfig();
-
-            /*
-             * Collect constraints = true, i.e. choice generators will only have ONE choice, exactly as the concrete
-             * input determines
-             */
-            conf.setProperty("symbolic.collect_constraints", "true");
-
-            /* Disable solving because we only follow one path, which is determined by the concrete input. */
-            conf.setProperty("symbolic.dp", "no_solver"); // symcrete execution, no solver
-
-            conf.setProperty("target.args", input.jpf_argument.replace("@@", targetArgument));
-
-            JPF jpf = new JPF(conf);
-
-            SymbolicListener symbolicListener = new SymbolicListener(conf, jpf);
-            jpf.addListener(symbolicListener);
+        long jpfStartTime = PhaseProfiler.start();
+        SymcretePath path = symcreteExecutor.execute(targetArgument, optimizeUserDefinedCost);
+        PhaseProfiler.stop(Phase.SYMCRETE, jpfStartTime);
+        if (path == null) {
+            return null;
+        }
+        return processSymcretePath(path, symcreteExecutor.getCostListener(), targetArgument, originalFileName,
+                spfMode);
+    }
 
-            StateBuilder stateBuilder = null;
-            if (input.stateBuilderFactory.isPresent()) {
-                stateBuilder = input.stateBuilderFactory.get().createStateBuilder();
-                MetricListener metricListener = new MetricListener(conf, jpf, stateBuilder);
-                jpf.addListener(metricListener);
+    /**
+     * Extends the trie with the recorded path of a symcrete execution, and exports the input if it exposed a new
+     * behavior.
+     * 
+     * @param path
+     *            - recorded path
+     * @param costListener
+     *            - listener of the optimizing execution, or null
+     * @param targetArgument
+     *            - processed input file
+     * @param originalFileName
+     *            - input file
+     * @param spfMode
+     *            - IMPORT or EXPORT
+     * @return observed cost and whether it was a new best score
+     */
+    private Pair<Double, Boolean> processSymcretePath(SymcretePath path, SymCreteCostListener costListener,
+            String targetArgument, String originalFileName, ConcreteSPFMode spfMode) {
+        path.applyTo(trie);
+        Metrics.recordJPFExecution(
+                spfMode.equals(ConcreteSPFMode.IMPORT) ? ExecutionMode.IMPORT : ExecutionMode.EXPORT);
+        if (path.didObserveBetterScore()) {
+            Metrics.recordBestCost(path.getObservedCostForLeafNode());
+            if (exchangeFile != null && path.getObservedCostForLeafNode() != null) {
+                exchangeFile.setBestCost(Side.SYMEXE, path.getObservedCostForLeafNode());
             }
+        }
 
-            // reset last observed cost before each execution.
-            Observations.reset();
-
-            ConcreteInput2TrieListener trieListener = new ConcreteInput2TrieListener(conf, jpf, trie, stateBuilder,
-                    originalFileName, input.useUserDefinedCost);
-            jpf.addListener(trieListener);
-
-            jpf.run();
+        if (path.getNumberOfErrors() > 0) {
+            System.out.println("#FOUND ERRORS = " + path.getNumberOfErrors());
+        }
 
-            if (jpf.foundErrors()) {
-                System.out.println("#FOUND ERRORS = " + jpf.getSearchErrors().size());
+        Integer pcId = tmpFile2PCId.remove(originalFileName);
+
+        // Generate the optimized input directly from the model, its path is the same as for the original input.
+        String optimizedInputFile = null;
+        int optimizedPCId = -1;
+        if (costListener != null) {
+            if (costListener.getOptimizedCost() != null) {
+                optimizedPCId = lastPCId.incrementAndGet();
+                optimizedInputFile = generateTmpInputfile(new Pair<>(costListener.getObservedPathCondition(),
+                        costListener.getObservedPCSolution()), optimizedPCId, null);
+                tmpFile2PCId.remove(optimizedInputFile);
+            } else {
+                // Likely an exception or an unsupported cost expression, the trie is extended nevertheless.
+                System.out.println("No optimized input for: " + originalFileName);
             }
+        }
 
-            if (spfMode.equals(ConcreteSPFMode.EXPORT)) {
-
-                if (input.explorationHeuristic.didObserveNewBehavior(trieListener)) {
-                    String outputfile = input.exportDir + "/id:" + String.format("%06d", lastId.incrementAndGet());
-
-                    File tmpFile = new File(originalFileName);
-                    File newFile = new File(outputfile);
-                    tmpFile.renameTo(newFile);
+        if (spfMode.equals(ConcreteSPFMode.EXPORT)) {
+
+            // The owner of a new node in another shard only queues it after importing the input.
+            boolean isNeededByOtherShard = path.didCreateNodeOfOtherShard();
+            if (input.explorationHeuristic.didObserveNewBehavior(path) && !path.didExposeNewBranch()
+                    && !isNeededByOtherShard && isBeatenByFuzzer(path.getObservedCostForLeafNode())) {
+                System.out.println("Fuzzer highscore is not beaten, skip export: " + originalFileName);
+            } else if (input.explorationHeuristic.didObserveNewBehavior(path) || isNeededByOtherShard) {
+                int queueId = lastId.incrementAndGet();
+                String outputfile = input.exportDir + "/id:" + String.format("%06d", queueId);
+
+                // The leaf has the optimized cost, so we export the optimized input if available.
+                String exportedFileName = originalFileName;
+                if (optimizedInputFile != null) {
+                    exportedFileName = optimizedInputFile;
+                    pcId = optimizedPCId;
+                }
+                exportInput(exportedFileName, outputfile);
 
-                    String statistics = (System.currentTimeMillis() / 1000L) + "," + originalFileName + "," + outputfile
-                            + (trieListener.didExposeNewBranch() ? ",branch" : "")
-                            + (trieListener.didObserveBetterScore()
-                                    ? ",score," + trieListener.getObservedCostForLeafNode()
-                                    : "")
-                            + "\n";
-                    Statistics.appendExportStatistics(input, statistics);
+                StatisticsRecord statistics = new StatisticsRecord().column("tmpFile", exportedFileName)
+                        .column("file", outputfile);
+                if (path.didExposeNewBranch()) {
+                    statistics.flag("branch");
+                }
+                if (path.didObserveBetterScore()) {
+                    statistics.tag("score", path.getObservedCostForLeafNode());
+                }
+                if (isNeededByOtherShard) {
+                    statistics.flag("shard");
+                }
+                if (pcId != null) {
+                    statistics.tag("pc", pcId);
+                }
+                Statistics.appendExportStatistics(input, statistics);
+                if (exchangeFile != null) {
+                    exchangeFile.annotate(Side.SYMEXE, queueId, path.getObservedCostForLeafNode(),
+                            (path.didExposeNewBranch() ? ExchangeFile.FLAG_NEW_COVERAGE : 0)
+                                    | (path.didObserveBetterScore() ? ExchangeFile.FLAG_HIGHSCORE : 0));
                 }
             }
-            if (spfMode.equals(ConcreteSPFMode.IMPORT)) {
-                String statistic = (System.currentTimeMillis() / 1000L) + "," + originalFileName + ","
-                        + trieListener.getObservedCostForLeafNode()
-                        + (trieListener.didObserveBetterScore() ? ",score" : "") + "\n";
-                Statistics.appendImportStatistics(input, statistic);
+        }
+        if (spfMode.equals(ConcreteSPFMode.IMPORT)) {
+            StatisticsRecord statistic = new StatisticsRecord().column("file", originalFileName).column("cost",
+                    path.getObservedCostForLeafNode());
+            if (path.didObserveBetterScore()) {
+                statistic.flag("score");
             }
+            Statistics.appendImportStatistics(input, statistic);
+
+            // If we import files from AFL, we may want to directly export an optimized version if it is also a new
+            // highscore.
+            if (optimizedInputFile != null && path.didObserveBetterScore()
+                    && costListener.getObservedFinalCost() != null
+                    && costListener.getOptimizedCost() > costListener.getObservedFinalCost()
+                    && !isBeatenByFuzzer(costListener.getOptimizedCost())) {
+                int queueId = lastId.incrementAndGet();
+                String outputfile = input.exportDir + "/id:" + String.format("%06d", queueId);
+
+                exportInput(optimizedInputFile, outputfile);
+
+                StatisticsRecord statistics = new StatisticsRecord().column("tmpFile", optimizedInputFile)
+                        .column("file", outputfile).flag("highscore")
+                        .tag("maximized", costListener.getOptimizedCost()).tag("pc", optimizedPCId);
+                Statistics.appendExportStatistics(input, statistics);
+                if (exchangeFile != null) {
+                    exchangeFile.annotate(Side.SYMEXE, queueId, costListener.getOptimizedCost(),
+                            ExchangeFile.FLAG_HIGHSCORE);
+                }
+            }
+        }
 
-            this.trie = trieListener.getResultingTrie();
-
-            return new Pair<>(trieListener.getObservedCostForLeafNode(), trieListener.didObserveBetterScore());
-
-        } catch (JPFConfigException cx) {
-            cx.printStackTrace();
-        } catch (JPFException jx) {
-            jx.printStackTrace();
+        // Remember the result for the processed content, a repeated execution would follow the same trie path.
+        if (input.executionResultCache.isPresent() && path.getObservedLeafNode() != null) {
+            byte[] processedContent = readProcessedInput(targetArgument);
+            if (processedContent != null) {
+                input.executionResultCache.get().put(processedContent,
+                        new ExecutionResultCache.Entry(path.getObservedLeafNode().getId(),
+                                path.getObservedCostForLeafNode(), path.didExposeNewBranch(),
+                                path.didObserveBetterScore()));
+            }
         }
 
-        return null;
+        // The optimized input is not needed anymore if it was not exported.
+        releaseInput(optimizedInputFile);
+
+        return new Pair<>(path.getObservedCostForLeafNode(), path.didObserveBetterScore());
     }
 
     private void runJPFReplayAndBSE(Trie trie, int additionalDecisions, int inputSize) {
         TrieGuidanceListener trieBuilderListener = null;
+        long jpfStartTime = -1;
         try {
-            Config conf = initSPFConfig();
+            Config conf = initSPFConfig(input);
 
             /*
              * Here we don not want to use symcrete execution, instead we will start with guided trie execution and
@@ -319,7 +772,9 @@ public class SymExe {
             SymbolicListener symbolicListener = new SymbolicListener(conf, jpf);
             jpf.addListener(symbolicListener);
 
-            trieBuilderListener = new TrieGuidanceListener(conf, jpf, trie, additionalDecisions, pcAndSolutionQueue);
+            trieBuilderListener = new TrieGuidanceListener(conf, jpf, trie, additionalDecisions,
+                    input.maximumNumberOfNewFilesPerRun, pcAndSolutionQueue, input.learnUnsatCores,
+                    input.modelEnumerator.orElse(null), input.localSearchSolver.orElse(null));
             jpf.addListener(trieBuilderListener);
 
             // reset last observed cost before each execution.
@@ -332,99 +787,54 @@ public class SymExe {
                 Observations.lastObservedInputSize = input.inputSizes[0]; // set maximum
             }
 
+            jpfStartTime = PhaseProfiler.start();
             jpf.run();
 
             if (jpf.foundErrors()) {
                 System.out.println("#FOUND ERRORS = " + jpf.getSearchErrors().size());
             }
         } catch (JPFConfigException cx) {
+            // Every other run would fail in the same way.
             cx.printStackTrace();
             System.exit(1);
         } catch (JPFException jx) {
             if (jx.getCause() instanceof ExitException) {
                 if (((ExitException) jx.getCause()).shouldReport()) {
                     jx.printStackTrace();
-                    System.exit(1);
+                    System.out.println("[ERROR] JPF crashed in replay and BSE, skip the selected nodes");
                 }
             } else {
                 jx.printStackTrace();
-                System.exit(1);
+                System.out.println("[ERROR] JPF crashed in replay and BSE, skip the selected nodes");
             }
-        } catch (Exception e) {
+        } catch (Exception | OutOfMemoryError | StackOverflowError e) {
+            // The state of the crashed JPF run is garbage now, only the selected nodes are lost.
             e.printStackTrace();
-            System.exit(1);
-        }
-
-    }
-
-    private Pair<Pair<PathCondition, Map<String, Object>>, Double> runJPF_NoTrieModificationButOptimize(
-            String targetArgument, String originalFileName, ConcreteSPFMode spfMode) {
-
-        if (targetArgument == null) {
-            return null;
-        }
-
-        System.out.println("Run JPF with argument: " + targetArgument);
-
-        try {
-            Config conf = initSPFConfig();
-
-            /*
-             * Collect constraints = true, i.e. choice generators will only have ONE choice, exactly as the concrete
-             * input determines
-             */
-            conf.setProperty("symbolic.collect_constraints", "true");
-
-            /*
-             * Here we do *not* want to disable solving because we want to optimize the cost for the current input. We
-             * need this optimization because the user-defined cost might depend on symbolic values which are not
-             * represented in decisions, hence, we first want to make sure that we use an input that really provides the
-             * maximum user-defined cost before adding this input to the trie.
-             */
-            // conf.setProperty("symbolic.dp", "no_solver");
-
-            conf.setProperty("target.args", input.jpf_argument.replace("@@", targetArgument));
-
-            JPF jpf = new JPF(conf);
-
-            SymbolicListener symbolicListener = new SymbolicListener(conf, jpf);
-            jpf.addListener(symbolicListener);
-
-            // reset last observed cost before each execution.
-            Observations.lastObservedCost = 0.0;
-            Observations.lastObservedSymbolicExpression = null;
-
-            SymCreteCostListener symcreteListener = new SymCreteCostListener(conf, jpf);
-            jpf.addListener(symcreteListener);
-
-            jpf.run();
-
-            if (jpf.foundErrors()) {
-                System.out.println("#FOUND ERRORS = " + jpf.getSearchErrors().size());
+            System.out.println("[ERROR] JPF crashed in replay and BSE, skip the selected nodes");
+        } finally {
+            // Also runs that were stopped after enough solved path conditions are recorded.
+            if (jpfStartTime >= 0) {
+                long jpfTime = System.nanoTime() - jpfStartTime;
+                long bseTime = trieBuilderListener.getBSETime();
+                PhaseProfiler.record(Phase.BSE, bseTime);
+                PhaseProfiler.record(Phase.REPLAY, jpfTime - bseTime - trieBuilderListener.getSolverTime());
+                Metrics.recordJPFExecution(ExecutionMode.BSE);
             }
-
-            Double observedCost = symcreteListener.getObservedFinalCost();
-            PathCondition observedPC = symcreteListener.getObservedPathCondition();
-            Map<String, Object> observedSolution = symcreteListener.getObservedPCSolution();
-
-            return new Pair<>(new Pair<>(observedPC, observedSolution), observedCost);
-
-        } catch (JPFConfigException cx) {
-            cx.printStackTrace();
-        } catch (JPFException jx) {
-            jx.printStackTrace();
         }
 
-        return null;
     }
 
-    private Config initSPFConfig() {
+    /**
+     * Creates the SPF configuration for the settings of the given input, also used by the BadgerWorker processes.
+     */
+    static Config initSPFConfig(BadgerInput input) {
         Config conf = JPF.createConfig(new String[0]);
         conf.setProperty("classpath", input.jpf_classpath);
         conf.setProperty("target", input.jpf_targetClass);
         conf.setProperty("jvm.insn_factory.class", "gov.nasa.jpf.symbc.SymbolicInstructionFactory");
         conf.setProperty("vm.storage.class", "nil");
-        conf.setProperty("symbolic.dp", input.spf_dp);
+        // SPF does not know the local search solver, so SPF runs without solver and Badger solves the leaves.
+        conf.setProperty("symbolic.dp", input.spf_dp.equals(LocalSearchSolver.ID) ? "no_solver" : input.spf_dp);
         input.spf_symbolicMethod.ifPresent(value -> conf.setProperty("symbolic.method", value));
         input.symMaxInt.ifPresent(value -> conf.setProperty("symbolic.max_int", value));
         input.symMinInt.ifPresent(value -> conf.setProperty("symbolic.min_int", value));
@@ -437,71 +847,313 @@ public class SymExe {
         input.symPrintDebug.ifPresent(value -> conf.setProperty("symbolic.debug", value));
         input.symDefaultValue.ifPresent(value -> conf.setProperty("symbolic.undefined", value));
         input.symOptimizeChoices.ifPresent(value -> conf.setProperty("symbolic.optimizechoices", value));
+        if (input.inMemoryInputs) {
+            // Our FileDescriptor peer serves the in-memory inputs, so it needs to be found before the default one.
+            conf.setProperty("peer_packages", "edu.cmu.sv.badger.peer," + conf.getString("peer_packages", ""));
+        }
         return conf;
     }
 
+    /**
+     * @return content of the processed input file, or null if it cannot be read
+     */
+    private byte[] readProcessedInput(String processedFileName) {
+        if (InMemoryInputs.isVirtualPath(processedFileName)) {
+            return InMemoryInputs.get(processedFileName);
+        }
+        try {
+            return Files.readAllBytes(Paths.get(processedFileName.replaceAll("#", ",")));
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Moves the input to the export directory. In-memory inputs are written to the file and removed from memory.
+     */
+    private void exportInput(String fileName, String outputfile) {
+        Metrics.recordExport();
+        long startTime = PhaseProfiler.start();
+        if (InMemoryInputs.isVirtualPath(fileName)) {
+            // Write a hidden file first, so that the fuzzer and other SymExe instances never read a partial input.
+            Path file = Paths.get(outputfile);
+            Path hiddenFile = file.resolveSibling("." + file.getFileName());
+            try {
+                Files.write(hiddenFile, InMemoryInputs.remove(fileName));
+                Files.move(hiddenFile, file, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        } else {
+            input.tempFileManager.untrack(fileName);
+            new File(fileName).renameTo(new File(outputfile));
+        }
+        PhaseProfiler.stop(Phase.EXPORT, startTime);
+    }
+
+    /**
+     * Frees the memory or deletes the file of the input after the decision about its import or export was made.
+     * Files that were not created by Badger, e.g. imported files, are kept.
+     */
+    private void releaseInput(String fileName) {
+        InMemoryInputs.remove(fileName);
+        input.tempFileManager.release(fileName);
+    }
+
+    /**
+     * Checks whether the same processed content was already executed. Since the trie only grows, a repeated execution
+     * would neither expose a new branch nor a better score, so only the bookkeeping is done: imports are recorded in
+     * the import statistics and nothing is exported.
+     * 
+     * @return true if the execution can be skipped
+     */
+    private boolean isCachedExecution(byte[] processedContent, String originalFileName, ConcreteSPFMode spfMode) {
+        ExecutionResultCache.Entry entry = input.executionResultCache.get().get(processedContent);
+        if (entry == null) {
+            return false;
+        }
+        System.out.println("Same content was already executed (leaf node " + entry.leafNodeId + ", new branch: "
+                + entry.exposedNewBranch + ", better score: " + entry.observedBetterScore
+                + "), skip symcrete execution.");
+        tmpFile2PCId.remove(originalFileName);
+        if (spfMode.equals(ConcreteSPFMode.IMPORT)) {
+            StatisticsRecord statistic = new StatisticsRecord().column("file", originalFileName)
+                    .column("cost", entry.cost).flag("cached");
+            Statistics.appendImportStatistics(input, statistic);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the fuzzer already kept an input with at least the given cost, according to the exchange file.
+     * An input that would only be exported for its cost does not help the fuzzer then. The fuzzer maximizes its
+     * highscore, so this is only checked for a maximizing analysis.
+     * 
+     * @return true for yes, otherwise false
+     */
+    private boolean isBeatenByFuzzer(Double cost) {
+        if (exchangeFile == null || cost == null || !(input.trieAnalysisMethod instanceof WCAAnalyzer)
+                || !((WCAAnalyzer) input.trieAnalysisMethod).getCostStrategy().equals(CostStrategy.MAXIMIZE)) {
+            return false;
+        }
+        Double fuzzerBestCost = exchangeFile.getBestCost(Side.FUZZER);
+        return fuzzerBestCost != null && cost <= fuzzerBestCost;
+    }
+
+    /**
+     * @return the embedded fuzzer, or null if fuzzer.dir is not set
+     */
+    public EmbeddedFuzzer getFuzzer() {
+        return fuzzer;
+    }
+
+    /**
+     * Checks whether the natively executed input is already represented in the trie: first by its path hash, which
+     * is enough if the path was already imported and the input does not have a better cost, and otherwise by following
+     * its trace in the trie until a leaf. The leaf is not enough for the WCAAnalyzer, because only the symcrete
+     * execution gives the cost of the input, which may be higher than the cost of the leaf, so the first input on a
+     * path is always executed and its path hash is added after the execution.
+     * 
+     * @return true if the input is already covered by the trie, then it is recorded in the import statistics
+     */
+    private boolean isCoveredByNativeTrace(BranchTrace trace, String originalFileName) {
+        long pathHash = trace.getPathHash();
+        Double nativeCost = getNativeCost(input, trace);
+        String reason;
+        Double trieCost;
+        if (pathHashIndex.contains(pathHash)) {
+            if (!pathHashIndex.isCovered(pathHash, nativeCost)) {
+                System.out.println("Input follows known path with potentially better cost: " + nativeCost);
+                return false;
+            }
+            reason = "duplicate";
+            trieCost = pathHashIndex.getTrieCost(pathHash);
+        } else {
+            if (input.trieAnalysisMethod instanceof WCAAnalyzer) {
+                return false;
+            }
+            TrieNode leaf = NativeTracer.findLeafNode(this.trie, trace);
+            if (leaf == null) {
+                return false;
+            }
+            reason = "native";
+            trieCost = leaf.getMetricValue();
+            pathHashIndex.add(pathHash, nativeCost, trieCost);
+        }
+        System.out.println("Input follows existing trie path (" + reason + "), skip symcrete execution.");
+        tmpFile2PCId.remove(originalFileName);
+        StatisticsRecord statistic = new StatisticsRecord().column("file", originalFileName).column("cost", trieCost)
+                .flag(reason);
+        Statistics.appendImportStatistics(input, statistic);
+        return true;
+    }
+
+    /**
+     * @return native cost for the configured metric, or null if there is no cost metric
+     */
+    public static Double getNativeCost(BadgerInput input, BranchTrace trace) {
+        if (!(input.trieAnalysisMethod instanceof WCAAnalyzer)) {
+            return null;
+        }
+        if (input.useUserDefinedCost) {
+            return trace.getUserDefinedCost();
+        }
+        if (input.stateBuilderFactory.isPresent()) {
+            if (input.stateBuilderFactory.get() instanceof BranchCountState.BranchBuilderFactory) {
+                return (double) trace.getNumberOfJumps();
+            } else if (input.stateBuilderFactory.get() instanceof InstructionCountState.InstructionBuilderFactory) {
+                return (double) trace.getNumberOfInstructions();
+            }
+        }
+        return null;
+    }
+
     private void buildTrieFromProcessedInput(Map<String, String> parseInputs, ConcreteSPFMode spfMode) {
         if (parseInputs != null) {
+            // The optimized model refers to the path condition, so optimizing runs stay in this process.
+            if (workerPool != null && !isOptimizingUserDefinedCost()) {
+                buildTrieFromProcessedInputInWorkers(parseInputs, spfMode);
+                return;
+            }
             for (Entry<String, String> inputEntry : parseInputs.entrySet()) {
-                String originalFileName = inputEntry.getKey();
-                String processedFileName = inputEntry.getValue().replaceAll(",", "#");
-
-                // If the optimization parameter is enabled, then first try to optimize the current file. This makes
-                // only sense if we use a user-defined cost metric because only there we might have a
-                if (input.spf_dp.endsWith("optimize") && input.useUserDefinedCost) {
-
-                    // Make a dry (without changing anything from the trie).
-                    Pair<Pair<PathCondition, Map<String, Object>>, Double> resultOriginalInput = runJPF_NoTrieModificationButOptimize(
-                            processedFileName, originalFileName, spfMode);
-                    Pair<PathCondition, Map<String, Object>> observedPcAndSolution = resultOriginalInput._1;
-                    Double observedCostOriginalInput = resultOriginalInput._2;
-
-                    if (observedPcAndSolution._1 == null || observedPcAndSolution._2 == null
-                            || observedPcAndSolution._2.isEmpty()) {
-                        // run is not complete, likely because of an exeption, i.e. there is nothing to optimize.
-                        System.out.println(); // TODO YN in general, how should we handle exception, also if it is not
-                                              // in userdefined mode?, for now I disabled this in the application code
-                        throw new RuntimeException("incomplete run");
-                    }
+                buildTrieFromProcessedInput(inputEntry.getKey(), inputEntry.getValue().replaceAll(",", "#"), spfMode);
 
-                    // Generate input for maximized cost.
-                    String maximizedInputFile = generateTmpInputfile(observedPcAndSolution);
-                    List<String> listToMatchAPI = new ArrayList<>();
-                    listToMatchAPI.add(maximizedInputFile);
-                    Map<String, String> processedVersionOfMaximizedInputFile = input.ioUtils
-                            .processInput(listToMatchAPI);
-                    String processedMaximizedInputFile = processedVersionOfMaximizedInputFile.get(maximizedInputFile);
-
-                    // Perform real run with trie.
-                    Pair<Double, Boolean> resultMaximizedInput = runJPFSymCrete(processedMaximizedInputFile,
-                            maximizedInputFile, this.trie, spfMode);
-                    Double observedCostMaximizedInput = resultMaximizedInput._1;
-                    Boolean maximizedCostTriggeredNewHighscore = resultMaximizedInput._2;
-
-                    if (spfMode.equals(ConcreteSPFMode.IMPORT)) {
-                        // If we import files from AFL, we may want to directly export a maximized version if it is also
-                        // a new highscore.
-                        if (observedCostMaximizedInput > observedCostOriginalInput
-                                && maximizedCostTriggeredNewHighscore) {
-                            String outputfile = input.exportDir + "/id:"
-                                    + String.format("%06d", lastId.incrementAndGet());
-
-                            File tmpFile = new File(maximizedInputFile);
-                            File newFile = new File(outputfile);
-                            tmpFile.renameTo(newFile);
-
-                            String statistics = (System.currentTimeMillis() / 1000L) + "," + maximizedInputFile + ","
-                                    + outputfile + ",highscore,maximized," + observedCostMaximizedInput + "\n";
-                            Statistics.appendExportStatistics(input, statistics);
-                        }
-                    }
+                // The decision about import or export was made, so the temporary files are not needed anymore.
+                releaseInput(inputEntry.getKey());
+                releaseInput(inputEntry.getValue());
+            }
+        }
+    }
+
+    private void buildTrieFromProcessedInput(String originalFileName, String processedFileName,
+            ConcreteSPFMode spfMode) {
+        SymcreteInput symcreteInput = prepareSymcreteExecution(originalFileName, processedFileName, spfMode);
+        if (symcreteInput == null) {
+            return;
+        }
+        Pair<Double, Boolean> result = runJPFSymCrete(processedFileName, originalFileName, spfMode,
+                isOptimizingUserDefinedCost());
+        addNativeTrace(symcreteInput, result);
+    }
+
+    /**
+     * Runs the symcrete executions in the worker processes in parallel, and then extends the trie with the recorded
+     * paths in the order of the inputs, like the sequential executions would do.
+     */
+    private void buildTrieFromProcessedInputInWorkers(Map<String, String> parseInputs, ConcreteSPFMode spfMode) {
+        List<SymcreteInput> symcreteInputs = new ArrayList<>();
+        List<String> targetArguments = new ArrayList<>();
+        for (Entry<String, String> inputEntry : parseInputs.entrySet()) {
+            String processedFileName = inputEntry.getValue().replaceAll(",", "#");
+            SymcreteInput symcreteInput = prepareSymcreteExecution(inputEntry.getKey(), processedFileName, spfMode);
+            if (symcreteInput != null) {
+                symcreteInputs.add(symcreteInput);
+                targetArguments.add(processedFileName);
+                System.out.println("Run JPF with argument: " + processedFileName);
+            }
+        }
+
+        List<WorkerPool.Result> results = workerPool.execute(targetArguments);
+        for (int i = 0; i < symcreteInputs.size(); i++) {
+            SymcreteInput symcreteInput = symcreteInputs.get(i);
+            WorkerPool.Result result = results.get(i);
+            Pair<Double, Boolean> pathResult = null;
+            if (result != null) {
+                PhaseProfiler.record(Phase.SYMCRETE, result.getNanos());
+                if (result.getPath() != null) {
+                    pathResult = processSymcretePath(result.getPath(), null, symcreteInput.processedFileName,
+                            symcreteInput.originalFileName, spfMode);
+                } else if (result.isQuarantined()) {
+                    quarantineInput(symcreteInput.originalFileName, spfMode, result.getError());
                 } else {
-                    // If we do not maximize any terms, then this represents the normal run.
-                    runJPFSymCrete(processedFileName, originalFileName, this.trie, spfMode);
+                    System.out.println("[WARNING] " + result.getError() + ": " + symcreteInput.originalFileName);
                 }
+            }
+            addNativeTrace(symcreteInput, pathResult);
+        }
+
+        // The decision about import or export was made, so the temporary files are not needed anymore.
+        for (Entry<String, String> inputEntry : parseInputs.entrySet()) {
+            releaseInput(inputEntry.getKey());
+            releaseInput(inputEntry.getValue());
+        }
+    }
+
+    /**
+     * If the optimization parameter is enabled, then the current file also gets optimized. This makes only sense if we
+     * use a user-defined cost metric because only there we might have a symbolic cost expression. Both is done in the
+     * same run that extends the trie.
+     */
+    private boolean isOptimizingUserDefinedCost() {
+        return input.spf_dp.endsWith("optimize") && input.useUserDefinedCost;
+    }
+
+    /**
+     * Input that needs a symcrete execution, with its native trace if the native tracer is used.
+     */
+    private static class SymcreteInput {
+        final String originalFileName;
+        final String processedFileName;
+        final BranchTrace trace;
+
+        SymcreteInput(String originalFileName, String processedFileName, BranchTrace trace) {
+            this.originalFileName = originalFileName;
+            this.processedFileName = processedFileName;
+            this.trace = trace;
+        }
+    }
+
+    /**
+     * @return the input for the symcrete execution, or null if the execution can be skipped because the input would
+     *         not change the trie
+     */
+    private SymcreteInput prepareSymcreteExecution(String originalFileName, String processedFileName,
+            ConcreteSPFMode spfMode) {
+        // Inputs with already executed content would not change the trie.
+        if (input.executionResultCache.isPresent()) {
+            byte[] processedContent = readProcessedInput(processedFileName);
+            if (processedContent != null && isCachedExecution(processedContent, originalFileName, spfMode)) {
+                return null;
+            }
+        }
 
+        // Imported inputs that follow an existing trie path would not change the trie, so skip JPF for them.
+        BranchTrace trace = null;
+        if (spfMode.equals(ConcreteSPFMode.IMPORT) && input.nativeTracer.isPresent()) {
+            System.out.println("Run native tracer with argument: " + processedFileName);
+            trace = input.nativeTracer.get().trace(input.jpf_argument.replace("@@", processedFileName).split(","));
+            if (trace != null && trace.hasExceededBudget()) {
+                // The incomplete trace cannot be matched with the trie, so JPF decides.
+                System.out.println("[WARNING] Native execution stopped, " + trace.getBudgetExceededReason() + ": "
+                        + originalFileName);
+                trace = null;
+            }
+            if (trace != null && isCoveredByNativeTrace(trace, originalFileName)) {
+                return null;
             }
         }
+
+        return new SymcreteInput(originalFileName, processedFileName, trace);
+    }
+
+    private void addNativeTrace(SymcreteInput symcreteInput, Pair<Double, Boolean> result) {
+        BranchTrace trace = symcreteInput.trace;
+        if (trace != null) {
+            pathHashIndex.add(trace.getPathHash(), getNativeCost(input, trace), result != null ? result._1 : null);
+        }
+    }
+
+    /**
+     * Records an input whose worker crashed or timed out in every attempt. The input is not executed again.
+     */
+    private void quarantineInput(String originalFileName, ConcreteSPFMode spfMode, String reason) {
+        System.out.println("[WARNING] Quarantine input " + originalFileName + ": " + reason);
+        tmpFile2PCId.remove(originalFileName);
+        if (spfMode.equals(ConcreteSPFMode.IMPORT)) {
+            StatisticsRecord statistic = new StatisticsRecord().column("file", originalFileName).column("cost", null)
+                    .flag("quarantined");
+            Statistics.appendImportStatistics(input, statistic);
+        }
     }
 
 }
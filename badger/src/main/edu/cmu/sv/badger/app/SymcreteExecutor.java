@@ -0,0 +1,108 @@
+package edu.cmu.sv.badger.app;
+
+import edu.cmu.sv.badger.analysis.StateBuilder;
+import edu.cmu.sv.badger.listener.ConcreteInput2TrieListener;
+import edu.cmu.sv.badger.listener.MetricListener;
+import edu.cmu.sv.badger.listener.SymCreteCostListener;
+import edu.cmu.sv.badger.listener.SymcretePath;
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.JPF;
+import gov.nasa.jpf.JPFConfigException;
+import gov.nasa.jpf.JPFException;
+import gov.nasa.jpf.symbc.Observations;
+import gov.nasa.jpf.symbc.SymbolicListener;
+
+/**
+ * Runs JPF along the path of one concrete input (symcrete execution) and records the path. The trie is not touched
+ * during the execution, so that it can also run in a BadgerWorker process.
+ */
+class SymcreteExecutor {
+
+    private final BadgerInput input;
+    private SymCreteCostListener costListener = null;
+
+    SymcreteExecutor(BadgerInput input) {
+        this.input = input;
+    }
+
+    /**
+     * @param targetArgument
+     *            - processed input file
+     * @param optimizeUserDefinedCost
+     *            - if true, the path condition is solved with the optimizing decision procedure in the same run
+     * @return recorded path, or null if JPF failed
+     */
+    SymcretePath execute(String targetArgument, boolean optimizeUserDefinedCost) {
+        costListener = null;
+        try {
+            Config conf = SymExe.initSPFConfig(input);
+
+            /*
+             * Collect constraints = true, i.e. choice generators will only have ONE choice, exactly as the concrete
+             * input determines
+             */
+            conf.setProperty("symbolic.collect_constraints", "true");
+
+            /*
+             * Disable solving because we only follow one path, which is determined by the concrete input. Only if we
+             * want to optimize the user-defined cost, then we need the solver to get the optimized model for this path.
+             */
+            if (!optimizeUserDefinedCost) {
+                conf.setProperty("symbolic.dp", "no_solver"); // symcrete execution, no solver
+            }
+
+            conf.setProperty("target.args", input.jpf_argument.replace("@@", targetArgument));
+
+            JPF jpf = new JPF(conf);
+
+            SymbolicListener symbolicListener = new SymbolicListener(conf, jpf);
+            jpf.addListener(symbolicListener);
+
+            StateBuilder stateBuilder = null;
+            if (input.stateBuilderFactory.isPresent()) {
+                stateBuilder = input.stateBuilderFactory.get().createStateBuilder();
+                MetricListener metricListener = new MetricListener(conf, jpf, stateBuilder);
+                jpf.addListener(metricListener);
+            }
+
+            // reset last observed cost before each execution.
+            Observations.reset();
+            Observations.lastObservedSymbolicExpression = null;
+
+            if (optimizeUserDefinedCost) {
+                costListener = new SymCreteCostListener(conf, jpf);
+                jpf.addListener(costListener);
+            }
+
+            ConcreteInput2TrieListener trieListener = new ConcreteInput2TrieListener(conf, jpf, stateBuilder,
+                    targetArgument, input.useUserDefinedCost);
+            jpf.addListener(trieListener);
+
+            jpf.run();
+
+            SymcretePath path = trieListener.getPath();
+            if (jpf.foundErrors()) {
+                path.setNumberOfErrors(jpf.getSearchErrors().size());
+            }
+            if (costListener != null) {
+                path.setOptimizedCost(costListener.getOptimizedCost());
+            }
+            return path;
+
+        } catch (JPFConfigException cx) {
+            cx.printStackTrace();
+        } catch (JPFException jx) {
+            jx.printStackTrace();
+        }
+
+        return null;
+    }
+
+    /**
+     * @return cost listener of the last execution, null if it was not optimized
+     */
+    SymCreteCostListener getCostListener() {
+        return costListener;
+    }
+
+}
@@ -0,0 +1,126 @@
+package edu.cmu.sv.badger.fuzzer;
+
+import java.util.Arrays;
+
+import edu.cmu.sv.badger.trace.BranchTrace;
+
+/**
+ * Edge coverage of native executions like the shared memory bitmap of AFL: each pair of consecutive branch decisions
+ * is hashed to one of 64K counters, the hit counts are put into buckets (1, 2, 3, 4-7, 8-15, 16-31, 32-127, 128+), and
+ * an execution is interesting if it hits a bucket that no previous execution hit. A branch decision is the branch site
+ * together with its choice, so both directions of a branch are different locations.
+ */
+public class CoverageBitmap {
+
+    public static final int MAP_SIZE = 1 << 16;
+
+    private static final byte[] COUNT_CLASS = new byte[256];
+    static {
+        for (int count = 1; count < 256; count++) {
+            int bucket;
+            if (count <= 2) {
+                bucket = count;
+            } else if (count == 3) {
+                bucket = 4;
+            } else if (count <= 7) {
+                bucket = 8;
+            } else if (count <= 15) {
+                bucket = 16;
+            } else if (count <= 31) {
+                bucket = 32;
+            } else if (count <= 127) {
+                bucket = 64;
+            } else {
+                bucket = 128;
+            }
+            COUNT_CLASS[count] = (byte) bucket;
+        }
+    }
+
+    /* Bits of the buckets that were not hit yet, like the virgin_bits of AFL. */
+    private final byte[] virginBits = new byte[MAP_SIZE];
+    private final byte[] traceBits = new byte[MAP_SIZE];
+    /* Edges that the last trace hit, so that only these need to be reset and compared. */
+    private final int[] traceEdges = new int[MAP_SIZE];
+    private int numberOfTraceEdges = 0;
+    private int numberOfCoveredEdges = 0;
+
+    public CoverageBitmap() {
+        Arrays.fill(virginBits, (byte) 0xff);
+    }
+
+    /**
+     * Adds the edges of the trace to the bitmap.
+     *
+     * @return 2 if the trace covers a new edge, 1 if it only hits a new bucket of a known edge, otherwise 0
+     */
+    public int update(BranchTrace trace) {
+        for (int i = 0; i < numberOfTraceEdges; i++) {
+            traceBits[traceEdges[i]] = 0;
+        }
+        numberOfTraceEdges = 0;
+        int previousLocation = 0;
+        for (int i = 0; i < trace.size(); i++) {
+            int location = getLocation(trace.getSite(i).getId(), trace.getChoice(i));
+            int edge = location ^ previousLocation;
+            if (traceBits[edge] == 0) {
+                traceEdges[numberOfTraceEdges++] = edge;
+            }
+            if (traceBits[edge] != (byte) 0xff) {
+                traceBits[edge]++;
+            }
+            previousLocation = location >>> 1;
+        }
+
+        int result = 0;
+        for (int e = 0; e < numberOfTraceEdges; e++) {
+            int i = traceEdges[e];
+            byte bucket = COUNT_CLASS[traceBits[i] & 0xff];
+            if ((bucket & virginBits[i]) != 0) {
+                if (virginBits[i] == (byte) 0xff) {
+                    numberOfCoveredEdges++;
+                    result = 2;
+                } else if (result == 0) {
+                    result = 1;
+                }
+                virginBits[i] &= ~bucket;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return 16-bit location of the branch decision, spread over the bitmap with a multiplicative hash
+     */
+    private static int getLocation(int siteId, int choice) {
+        return ((siteId * 31 + choice) * 0x9e3779b1) >>> 16;
+    }
+
+    /**
+     * @return hit count buckets of the edge that any execution hit so far
+     */
+    public byte getCoveredBuckets(int edge) {
+        return (byte) ~virginBits[edge];
+    }
+
+    /**
+     * @return number of different edges that the last trace hit
+     */
+    public int getNumberOfTraceEdges() {
+        return numberOfTraceEdges;
+    }
+
+    /**
+     * @param index
+     *            - index between 0 and {@link #getNumberOfTraceEdges()}
+     * @return edge that the last trace hit
+     */
+    public int getTraceEdge(int index) {
+        return traceEdges[index];
+    }
+
+    public int getNumberOfCoveredEdges() {
+        return numberOfCoveredEdges;
+    }
+
+}
@@ -0,0 +1,454 @@
+package edu.cmu.sv.badger.fuzzer;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import edu.cmu.sv.badger.app.BadgerInput;
+import edu.cmu.sv.badger.app.SymExe;
+import edu.cmu.sv.badger.io.ExchangeFile;
+import edu.cmu.sv.badger.io.ExchangeFile.Side;
+import edu.cmu.sv.badger.trace.BranchTrace;
+import edu.cmu.sv.badger.trace.NativeTracer;
+
+/**
+ * Mutational fuzzer that runs as a thread next to SymExe, as a local stand-in for AFL with KelinciWCA. It executes the
+ * target natively with the NativeTracer, i.e. with the driver of jpf.target and the processed input like an imported
+ * input, and keeps an input if it covers a new edge (see CoverageBitmap) or if its cost is a new highscore. The cost
+ * is measured for analysis.wca.metric like for the native import (jumps, instructions or Debug.addCost). Executions
+ * that exceed the budget of symexe.native.max.instructions or symexe.native.timeout.ms are stopped and counted as
+ * hangs.
+ *
+ * The fuzzer writes the layout of an AFL secondary fuzzer named "afl" into the sync directory fuzzer.dir: the queue
+ * with AFL file names (id:NNNNNN,...), fuzzer_stats and plot_data with the highscore in column 12, so that SymExe and
+ * the evaluation scripts can use it like KelinciWCA. Every fuzzer.sync.sec seconds it imports the new files of the
+ * other queues in the sync directory, e.g. the export directory of SymExe, if they are interesting for it.
+ *
+ * With an ExchangeFile, the fuzzer stands in for a KelinciWCA that shares its coverage with SymExe: it publishes its
+ * edge bitmap, the branch decisions of its kept inputs, its highscore, and the cost and flags of its queue entries.
+ */
+public class EmbeddedFuzzer extends Thread {
+
+    /* Name of the fuzzer in the sync directory, like AFL in runBadger.sh (-S afl). */
+    public static final String NAME = "afl";
+
+    private static final int HAVOC_CYCLES = 256;
+    private static final int SPLICE_CYCLES = 15;
+    private static final int SPLICE_HAVOC = 32;
+    private static final long STATS_INTERVAL_MILLIS = 5000;
+
+    private final BadgerInput input;
+    private final NativeTracer tracer;
+    private final Path outputDir;
+    private final Path queueDir;
+    private final Path currentInputFile;
+    private final long syncIntervalMillis;
+    private final Random random;
+    private final Mutator mutator;
+    private final CoverageBitmap bitmap = new CoverageBitmap();
+    private final ExchangeFile exchangeFile; // null without fuzzer.exchange
+
+    /* Only accessed by the fuzzer thread. */
+    private final List<QueueEntry> queue = new ArrayList<>();
+    private final Map<String, Set<String>> syncedFiles = new HashMap<>();
+    private int currentEntry = 0;
+    private int cyclesDone = 0;
+    private int maximumDepth = 1;
+    private int numberOfFuzzedEntries = 0;
+    private int numberOfImportedPaths = 0;
+    private long numberOfCrashes = 0;
+    private long numberOfHangs = 0;
+    private long lastSyncTime;
+    private long lastStatsTime;
+
+    private volatile boolean isStopped = false;
+    private volatile long startTime;
+    private volatile long numberOfExecutions = 0;
+    private volatile int queueSize = 0;
+    private volatile Double highscore = null;
+
+    /**
+     * @param input
+     *            - BadgerInput with fuzzer.dir
+     * @param tracer
+     *            - NativeTracer of the target, which has to be the one of SymExe if SymExe traces its imports, because
+     *            only one thread at a time can record a trace
+     * @param exchangeFile
+     *            - file to publish the coverage and the highscore, or null
+     */
+    public EmbeddedFuzzer(BadgerInput input, NativeTracer tracer, ExchangeFile exchangeFile) {
+        super("badger-fuzzer");
+        this.input = input;
+        this.tracer = tracer;
+        this.exchangeFile = exchangeFile;
+        this.outputDir = Paths.get(input.fuzzerDir.get(), NAME);
+        this.queueDir = outputDir.resolve("queue");
+        this.currentInputFile = outputDir.resolve(".cur_input");
+        this.syncIntervalMillis = input.fuzzerSyncSec * 1000L;
+        this.random = input.createRandom();
+        this.mutator = new Mutator(random, input.fuzzerMaxSize);
+        setDaemon(true);
+    }
+
+    @Override
+    public void run() {
+        startTime = System.currentTimeMillis();
+        lastSyncTime = startTime;
+        try {
+            Files.createDirectories(queueDir);
+            Files.write(outputDir.resolve("plot_data"), ("# unix_time, cycles_done, cur_path, paths_total, "
+                    + "pending_total, pending_favs, map_size, unique_crashes, unique_hangs, max_depth, execs_per_sec, "
+                    + "execs_done, highscore\n").getBytes());
+            writeStatistics();
+
+            loadSeeds();
+            if (queue.isEmpty()) {
+                System.out.println("[ERROR] No seed input could be executed by the fuzzer: " + input.initialInputDir);
+                return;
+            }
+            System.out.println("[FUZZER] started with " + queue.size() + " seeds, queue " + queueDir);
+
+            while (!isStopped) {
+                for (currentEntry = 0; currentEntry < queue.size() && !isStopped; currentEntry++) {
+                    QueueEntry entry = queue.get(currentEntry);
+                    fuzzOne(entry);
+                    if (!entry.wasFuzzed) {
+                        entry.wasFuzzed = true;
+                        numberOfFuzzedEntries++;
+                    }
+                }
+                cyclesDone++;
+            }
+        } catch (IOException e) {
+            System.out.println("[ERROR] Fuzzer stopped: " + e);
+        } finally {
+            try {
+                writeStatistics();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Stops the fuzzer after its current execution and waits until the statistics are written.
+     */
+    public void stopFuzzing() {
+        isStopped = true;
+        try {
+            join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void loadSeeds() throws IOException {
+        File[] seedFiles = new File(input.initialInputDir).listFiles();
+        if (seedFiles == null) {
+            return;
+        }
+        Arrays.sort(seedFiles, Comparator.comparing(File::getName));
+        for (File seedFile : seedFiles) {
+            if (seedFile.isFile() && !seedFile.isHidden()) {
+                byte[] data = Files.readAllBytes(seedFile.toPath());
+                BranchTrace trace = execute(data);
+                if (trace != null) {
+                    // Like AFL, all seeds are kept, also if they do not cover something new.
+                    int newBits = updateCoverage(trace);
+                    addToQueue(data, "orig:" + seedFile.getName(), 1, getCost(trace), newBits == 2);
+                    publishBranches(trace);
+                }
+            }
+        }
+    }
+
+    private void fuzzOne(QueueEntry entry) throws IOException {
+        String source = "src:" + getId(entry.fileName);
+        for (int i = 0; i < HAVOC_CYCLES && !isStopped; i++) {
+            runAndSave(mutator.havoc(entry.data), source + ",op:havoc", entry.depth + 1);
+        }
+        if (queue.size() < 2) {
+            return;
+        }
+        for (int i = 0; i < SPLICE_CYCLES && !isStopped; i++) {
+            QueueEntry other = queue.get(random.nextInt(queue.size()));
+            byte[] spliced = other == entry ? null : mutator.splice(entry.data, other.data);
+            if (spliced == null) {
+                continue;
+            }
+            String spliceSource = source + "+" + getId(other.fileName) + ",op:splice";
+            for (int j = 0; j < SPLICE_HAVOC && !isStopped; j++) {
+                runAndSave(mutator.havoc(spliced), spliceSource, entry.depth + 1);
+            }
+        }
+    }
+
+    private void runAndSave(byte[] data, String description, int depth) throws IOException {
+        BranchTrace trace = execute(data);
+        if (trace != null) {
+            saveIfInteresting(data, trace, description, depth);
+        }
+
+        long now = System.currentTimeMillis();
+        if (now - lastSyncTime >= syncIntervalMillis) {
+            lastSyncTime = now;
+            syncFuzzers();
+        }
+        if (now - lastStatsTime >= STATS_INTERVAL_MILLIS) {
+            writeStatistics();
+        }
+    }
+
+    /**
+     * @return true if the input was added to the queue
+     */
+    private boolean saveIfInteresting(byte[] data, BranchTrace trace, String description, int depth)
+            throws IOException {
+        int newBits = updateCoverage(trace);
+        Double cost = getCost(trace);
+        boolean isHighscore = cost != null && (highscore == null || cost > highscore);
+        if (newBits == 0 && !isHighscore) {
+            return false;
+        }
+        addToQueue(data, description + (newBits == 2 ? ",+cov" : "") + (isHighscore ? ",+highscore" : ""), depth,
+                cost, newBits == 2);
+        publishBranches(trace);
+        return true;
+    }
+
+    /**
+     * Adds the trace to the bitmap, and publishes the new buckets in the exchange file. Only the edges of the trace can
+     * have new buckets, so only these are written.
+     *
+     * @return see {@link CoverageBitmap#update(BranchTrace)}
+     */
+    private int updateCoverage(BranchTrace trace) {
+        int newBits = bitmap.update(trace);
+        if (exchangeFile != null && newBits > 0) {
+            for (int i = 0; i < bitmap.getNumberOfTraceEdges(); i++) {
+                int edge = bitmap.getTraceEdge(i);
+                exchangeFile.setEdgeBuckets(edge, bitmap.getCoveredBuckets(edge));
+            }
+        }
+        return newBits;
+    }
+
+    /**
+     * Publishes the branch decisions of a kept input in the exchange file, also if it was only kept for its cost.
+     */
+    private void publishBranches(BranchTrace trace) {
+        if (exchangeFile != null) {
+            for (int i = 0; i < trace.size(); i++) {
+                exchangeFile.setBranchCovered(trace.getSite(i).getInstructionKey(), trace.getChoice(i));
+            }
+        }
+    }
+
+    private void addToQueue(byte[] data, String description, int depth, Double cost, boolean hasNewCoverage)
+            throws IOException {
+        String fileName = String.format("id:%06d,%s", queue.size(), description);
+        // Write a hidden file first, so that SymExe never reads a partial input.
+        Path file = queueDir.resolve(fileName);
+        Path hiddenFile = queueDir.resolve("." + fileName);
+        Files.write(hiddenFile, data);
+        Files.move(hiddenFile, file, StandardCopyOption.ATOMIC_MOVE);
+
+        boolean isHighscore = cost != null && (highscore == null || cost > highscore);
+        if (exchangeFile != null) {
+            exchangeFile.annotate(Side.FUZZER, queue.size(), cost,
+                    (hasNewCoverage ? ExchangeFile.FLAG_NEW_COVERAGE : 0)
+                            | (isHighscore ? ExchangeFile.FLAG_HIGHSCORE : 0));
+        }
+        queue.add(new QueueEntry(fileName, data, depth));
+        queueSize = queue.size();
+        maximumDepth = Math.max(maximumDepth, depth);
+        if (isHighscore) {
+            highscore = cost;
+            if (exchangeFile != null) {
+                exchangeFile.setBestCost(Side.FUZZER, cost);
+            }
+            System.out.println("[FUZZER] new highscore " + cost + ": " + fileName);
+            // The plot shows when the highscore changed, also between the regular updates.
+            writeStatistics();
+        }
+    }
+
+    /**
+     * Executes the new files in the queues of the other fuzzers in the sync directory, like AFL does for its -M/-S
+     * instances, and adds the interesting ones to the own queue.
+     */
+    private void syncFuzzers() throws IOException {
+        File[] fuzzerDirs = outputDir.getParent().toFile().listFiles();
+        if (fuzzerDirs == null) {
+            return;
+        }
+        Arrays.sort(fuzzerDirs, Comparator.comparing(File::getName));
+        for (File fuzzerDir : fuzzerDirs) {
+            File[] queueFiles = new File(fuzzerDir, "queue").listFiles();
+            if (fuzzerDir.getName().equals(NAME) || fuzzerDir.isHidden() || queueFiles == null) {
+                continue;
+            }
+            Set<String> synced = syncedFiles.computeIfAbsent(fuzzerDir.getName(), name -> new HashSet<>());
+            Arrays.sort(queueFiles, Comparator.comparing(File::getName));
+            for (File queueFile : queueFiles) {
+                if (isStopped) {
+                    return;
+                }
+                if (!queueFile.isFile() || queueFile.isHidden() || !synced.add(queueFile.getName())) {
+                    continue;
+                }
+                byte[] data = Files.readAllBytes(queueFile.toPath());
+                BranchTrace trace = execute(data);
+                if (trace != null && saveIfInteresting(data, trace,
+                        "sync:" + fuzzerDir.getName() + ",src:" + getId(queueFile.getName()), 1)) {
+                    numberOfImportedPaths++;
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs the target natively on the input, after it is processed by io.utils like an imported input.
+     *
+     * @return recorded trace, or null if the input could not be processed, the execution failed or exceeded its budget
+     */
+    private BranchTrace execute(byte[] data) throws IOException {
+        Files.write(currentInputFile, data);
+        String currentInput = currentInputFile.toString();
+        String processedInput = input.ioUtils.processInput(Collections.singletonList(currentInput)).get(currentInput);
+        numberOfExecutions++;
+        if (processedInput == null) {
+            return null;
+        }
+        try {
+            BranchTrace trace = tracer
+                    .trace(input.jpf_argument.replace("@@", processedInput.replaceAll(",", "#")).split(","));
+            if (trace == null) {
+                numberOfCrashes++;
+            } else if (trace.hasExceededBudget()) {
+                // Like a hang of AFL, the input is not kept.
+                numberOfHangs++;
+                return null;
+            }
+            return trace;
+        } finally {
+            if (!processedInput.equals(currentInput)) {
+                input.tempFileManager.release(processedInput);
+            }
+        }
+    }
+
+    private Double getCost(BranchTrace trace) {
+        return SymExe.getNativeCost(input, trace);
+    }
+
+    /**
+     * Rewrites fuzzer_stats, whose first line is the start time like in AFL, and appends a line to plot_data.
+     */
+    private void writeStatistics() throws IOException {
+        long now = System.currentTimeMillis();
+        lastStatsTime = now;
+        double execsPerSec = numberOfExecutions / Math.max((now - startTime) / 1000.0, 0.001);
+        String mapSize = String.format(Locale.ROOT, "%.2f%%",
+                100.0 * bitmap.getNumberOfCoveredEdges() / CoverageBitmap.MAP_SIZE);
+        long highscoreValue = highscore == null ? 0 : highscore.longValue();
+        int pendingTotal = queue.size() - numberOfFuzzedEntries;
+
+        StringBuilder stats = new StringBuilder();
+        stats.append("start_time        : ").append(startTime / 1000).append('\n');
+        stats.append("last_update       : ").append(now / 1000).append('\n');
+        stats.append("fuzzer_pid        : ").append(ManagementFactory.getRuntimeMXBean().getName().split("@")[0])
+                .append('\n');
+        stats.append("cycles_done       : ").append(cyclesDone).append('\n');
+        stats.append("execs_done        : ").append(numberOfExecutions).append('\n');
+        stats.append("execs_per_sec     : ").append(String.format(Locale.ROOT, "%.2f", execsPerSec)).append('\n');
+        stats.append("paths_total       : ").append(queue.size()).append('\n');
+        stats.append("paths_imported    : ").append(numberOfImportedPaths).append('\n');
+        stats.append("max_depth         : ").append(maximumDepth).append('\n');
+        stats.append("cur_path          : ").append(currentEntry).append('\n');
+        stats.append("pending_total     : ").append(pendingTotal).append('\n');
+        stats.append("bitmap_cvg        : ").append(mapSize).append('\n');
+        stats.append("unique_crashes    : ").append(numberOfCrashes).append('\n');
+        stats.append("unique_hangs      : ").append(numberOfHangs).append('\n');
+        stats.append("highscore         : ").append(highscoreValue).append('\n');
+        Double symexeBestCost = exchangeFile == null ? null : exchangeFile.getBestCost(Side.SYMEXE);
+        if (symexeBestCost != null) {
+            stats.append("symexe_highscore  : ").append(symexeBestCost.longValue()).append('\n');
+        }
+        stats.append("afl_banner        : ").append(NAME).append('\n');
+        stats.append("afl_version       : badger-embedded\n");
+        Path statsFile = outputDir.resolve("fuzzer_stats");
+        Path hiddenStatsFile = outputDir.resolve(".fuzzer_stats");
+        Files.write(hiddenStatsFile, stats.toString().getBytes());
+        Files.move(hiddenStatsFile, statsFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+
+        String plot = String.format(Locale.ROOT, "%d, %d, %d, %d, %d, 0, %s, %d, %d, %d, %.2f, %d, %d\n",
+                now / 1000, cyclesDone, currentEntry, queue.size(), pendingTotal, mapSize, numberOfCrashes,
+                numberOfHangs, maximumDepth, execsPerSec, numberOfExecutions, highscoreValue);
+        Files.write(outputDir.resolve("plot_data"), plot.getBytes(), StandardOpenOption.APPEND);
+    }
+
+    /**
+     * @return id of an AFL queue file name, e.g. 000042 for id:000042,src:000001,op:havoc, or the whole name
+     */
+    private static String getId(String fileName) {
+        if (!fileName.startsWith("id:")) {
+            return fileName;
+        }
+        int end = fileName.indexOf(',');
+        return end < 0 ? fileName.substring(3) : fileName.substring(3, end);
+    }
+
+    public long getNumberOfExecutions() {
+        return numberOfExecutions;
+    }
+
+    /**
+     * @return number of executions per second since the start of the fuzzer
+     */
+    public double getExecutionsPerSecond() {
+        long elapsedMillis = System.currentTimeMillis() - startTime;
+        return startTime == 0 || elapsedMillis == 0 ? 0.0 : numberOfExecutions * 1000.0 / elapsedMillis;
+    }
+
+    public int getQueueSize() {
+        return queueSize;
+    }
+
+    /**
+     * @return highest cost of the kept inputs, or null if there is no cost metric or no input yet
+     */
+    public Double getHighscore() {
+        return highscore;
+    }
+
+    private static class QueueEntry {
+        final String fileName;
+        final byte[] data;
+        final int depth;
+        boolean wasFuzzed = false;
+
+        QueueEntry(String fileName, byte[] data, int depth) {
+            this.fileName = fileName;
+            this.data = data;
+            this.depth = depth;
+        }
+    }
+
+}
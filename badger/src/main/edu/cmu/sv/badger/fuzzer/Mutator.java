@@ -0,0 +1,237 @@
+package edu.cmu.sv.badger.fuzzer;
+
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Havoc and splice mutations of AFL. Havoc stacks 2 to 128 random mutations, e.g. bit flips, interesting values,
+ * arithmetics, random bytes, and deletion, insertion or overwriting of blocks. Splice combines the head of one input
+ * with the tail of another one. The deterministic stages of AFL are left out, havoc finds most of their results and
+ * the embedded fuzzer is meant to produce inputs quickly.
+ */
+public class Mutator {
+
+    private static final int HAVOC_STACK_POW2 = 7;
+    private static final int ARITH_MAX = 35;
+    private static final int HAVOC_BLOCK_SMALL = 32;
+    private static final int HAVOC_BLOCK_MEDIUM = 128;
+    private static final int HAVOC_BLOCK_LARGE = 1500;
+
+    private static final byte[] INTERESTING_8 = { -128, -1, 0, 1, 16, 32, 64, 100, 127 };
+    private static final short[] INTERESTING_16 = { -128, -1, 0, 1, 16, 32, 64, 100, 127, -32768, -129, 128, 255, 256,
+            512, 1000, 1024, 4096, 32767 };
+    private static final int[] INTERESTING_32 = { -128, -1, 0, 1, 16, 32, 64, 100, 127, -32768, -129, 128, 255, 256,
+            512, 1000, 1024, 4096, 32767, -2147483648, -100663046, -32769, 32768, 65535, 65536, 100663045,
+            2147483647 };
+
+    private final Random random;
+    private final int maximumSize;
+
+    /**
+     * @param random
+     *            - source of all random decisions, so that a seeded generator gives the same mutations
+     * @param maximumSize
+     *            - maximum number of bytes of a mutated input
+     */
+    public Mutator(Random random, int maximumSize) {
+        this.random = random;
+        this.maximumSize = maximumSize;
+    }
+
+    /**
+     * @return new input with a stack of random mutations of the given input
+     */
+    public byte[] havoc(byte[] data) {
+        byte[] out = Arrays.copyOf(data, data.length);
+        int stacking = 1 << (1 + random.nextInt(HAVOC_STACK_POW2));
+        for (int i = 0; i < stacking; i++) {
+            switch (random.nextInt(out.length < 2 ? 9 : 13)) {
+            case 0:
+                out = insertBlock(out);
+                break;
+            case 1:
+                if (out.length > 0) {
+                    int bit = random.nextInt(out.length * 8);
+                    out[bit >> 3] ^= 128 >> (bit & 7);
+                }
+                break;
+            case 2:
+                if (out.length > 0) {
+                    out[random.nextInt(out.length)] = INTERESTING_8[random.nextInt(INTERESTING_8.length)];
+                }
+                break;
+            case 3:
+                if (out.length > 0) {
+                    int position = random.nextInt(out.length);
+                    out[position] += (random.nextBoolean() ? 1 : -1) * (1 + random.nextInt(ARITH_MAX));
+                }
+                break;
+            case 4:
+                if (out.length > 0) {
+                    // Different from the original value, like AFL.
+                    out[random.nextInt(out.length)] ^= 1 + random.nextInt(255);
+                }
+                break;
+            case 5:
+                if (out.length > 1) {
+                    writeValue(out, random.nextInt(out.length - 1), 2,
+                            INTERESTING_16[random.nextInt(INTERESTING_16.length)], random.nextBoolean());
+                }
+                break;
+            case 6:
+                if (out.length > 1) {
+                    int position = random.nextInt(out.length - 1);
+                    int delta = (random.nextBoolean() ? 1 : -1) * (1 + random.nextInt(ARITH_MAX));
+                    boolean isBigEndian = random.nextBoolean();
+                    writeValue(out, position, 2, readValue(out, position, 2, isBigEndian) + delta, isBigEndian);
+                }
+                break;
+            case 7:
+                if (out.length > 3) {
+                    writeValue(out, random.nextInt(out.length - 3), 4,
+                            INTERESTING_32[random.nextInt(INTERESTING_32.length)], random.nextBoolean());
+                }
+                break;
+            case 8:
+                if (out.length > 3) {
+                    int position = random.nextInt(out.length - 3);
+                    int delta = (random.nextBoolean() ? 1 : -1) * (1 + random.nextInt(ARITH_MAX));
+                    boolean isBigEndian = random.nextBoolean();
+                    writeValue(out, position, 4, readValue(out, position, 4, isBigEndian) + delta, isBigEndian);
+                }
+                break;
+            case 9:
+            case 10:
+                // Deletion is more likely than insertion, which keeps the inputs small.
+                out = deleteBlock(out);
+                break;
+            default:
+                overwriteBlock(out);
+                break;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * Combines the head of the first input with the tail of the second input at a random position between the first
+     * and the last differing byte.
+     *
+     * @return spliced input, or null if the inputs do not differ enough
+     */
+    public byte[] splice(byte[] first, byte[] second) {
+        int length = Math.min(first.length, second.length);
+        int firstDifference = -1;
+        int lastDifference = -1;
+        for (int i = 0; i < length; i++) {
+            if (first[i] != second[i]) {
+                if (firstDifference == -1) {
+                    firstDifference = i;
+                }
+                lastDifference = i;
+            }
+        }
+        if (firstDifference < 0 || lastDifference < 2 || firstDifference == lastDifference) {
+            return null;
+        }
+        if (second.length > maximumSize) {
+            return null;
+        }
+        int splitPosition = firstDifference + random.nextInt(lastDifference - firstDifference);
+        byte[] out = Arrays.copyOf(first, second.length);
+        System.arraycopy(second, splitPosition, out, splitPosition, out.length - splitPosition);
+        return out;
+    }
+
+    private byte[] deleteBlock(byte[] data) {
+        if (data.length < 2) {
+            return data;
+        }
+        int length = chooseBlockLength(data.length - 1);
+        int position = random.nextInt(data.length - length + 1);
+        byte[] out = new byte[data.length - length];
+        System.arraycopy(data, 0, out, 0, position);
+        System.arraycopy(data, position + length, out, position, data.length - position - length);
+        return out;
+    }
+
+    /**
+     * Inserts a copy of a block of the input (75%) or a block of a constant byte (25%).
+     */
+    private byte[] insertBlock(byte[] data) {
+        if (data.length + 1 > maximumSize) {
+            return data;
+        }
+        boolean isConstant = data.length == 0 || random.nextInt(4) == 0;
+        int length = chooseBlockLength(isConstant ? HAVOC_BLOCK_LARGE : data.length);
+        length = Math.min(length, maximumSize - data.length);
+        int position = random.nextInt(data.length + 1);
+        byte[] out = new byte[data.length + length];
+        System.arraycopy(data, 0, out, 0, position);
+        if (isConstant) {
+            boolean isRandomByte = data.length == 0 || random.nextBoolean();
+            Arrays.fill(out, position, position + length,
+                    isRandomByte ? (byte) random.nextInt(256) : data[random.nextInt(data.length)]);
+        } else {
+            System.arraycopy(data, random.nextInt(data.length - length + 1), out, position, length);
+        }
+        System.arraycopy(data, position, out, position + length, data.length - position);
+        return out;
+    }
+
+    /**
+     * Overwrites a block of the input with another block of the input (75%) or with a constant byte (25%).
+     */
+    private void overwriteBlock(byte[] data) {
+        int length = chooseBlockLength(data.length - 1);
+        int position = random.nextInt(data.length - length + 1);
+        if (random.nextInt(4) == 0) {
+            Arrays.fill(data, position, position + length,
+                    random.nextBoolean() ? (byte) random.nextInt(256) : data[random.nextInt(data.length)]);
+        } else {
+            System.arraycopy(data, random.nextInt(data.length - length + 1), data, position, length);
+        }
+    }
+
+    /**
+     * @return random block length between 1 and the limit, preferring small blocks like AFL
+     */
+    private int chooseBlockLength(int limit) {
+        int maximum;
+        switch (random.nextInt(3)) {
+        case 0:
+            maximum = HAVOC_BLOCK_SMALL;
+            break;
+        case 1:
+            maximum = HAVOC_BLOCK_MEDIUM;
+            break;
+        default:
+            maximum = random.nextInt(10) == 0 ? HAVOC_BLOCK_LARGE : HAVOC_BLOCK_MEDIUM;
+            break;
+        }
+        return 1 + random.nextInt(Math.max(1, Math.min(maximum, limit)));
+    }
+
+    /**
+     * @return unsigned value of the given number of bytes at the position
+     */
+    private static int readValue(byte[] data, int position, int numberOfBytes, boolean isBigEndian) {
+        int value = 0;
+        for (int i = 0; i < numberOfBytes; i++) {
+            int shift = isBigEndian ? 8 * (numberOfBytes - 1 - i) : 8 * i;
+            value |= (data[position + i] & 0xff) << shift;
+        }
+        return value;
+    }
+
+    /**
+     * Writes the lowest bytes of the value at the position.
+     */
+    private static void writeValue(byte[] data, int position, int numberOfBytes, int value, boolean isBigEndian) {
+        for (int i = 0; i < numberOfBytes; i++) {
+            int shift = isBigEndian ? 8 * (numberOfBytes - 1 - i) : 8 * i;
+            data[position + i] = (byte) (value >> shift);
+        }
+    }
+
+}
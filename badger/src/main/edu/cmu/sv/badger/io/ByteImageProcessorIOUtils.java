@@ -1,11 +1,11 @@
 package edu.cmu.sv.badger.io;
 
+import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -18,10 +18,39 @@ public class ByteImageProcessorIOUtils extends IOUtils {
 
     public static final String ID = "byte-image";
 
+    private final int width;
+    private final int height;
+    private final ImageRaster.Region region;
+    private final int[] basePixels;
+
+    /**
+     * @param width
+     *            - image width
+     * @param height
+     *            - image height
+     * @param region
+     *            - symbolic pixels
+     * @param baseImage
+     *            - concrete pixels outside of the region, or null for 0
+     */
+    public ByteImageProcessorIOUtils(int width, int height, ImageRaster.Region region, BufferedImage baseImage) {
+        this.width = width;
+        this.height = height;
+        this.region = region;
+        if (baseImage != null) {
+            if (baseImage.getWidth() != width || baseImage.getHeight() != height) {
+                throw new RuntimeException("[ERROR] Base image must have the size " + width + "x" + height);
+            }
+            this.basePixels = ImageRaster.readPixels(baseImage);
+        } else {
+            this.basePixels = null;
+        }
+    }
+
     @Override
     public Map<String, String> processInput(List<String> inputFiles) {
         // here we don't need to process anything
-        Map<String, String> res = new HashMap<>();
+        Map<String, String> res = new LinkedHashMap<>();
         for (String inputfile : inputFiles) {
             res.put(inputfile, inputfile);
         }
@@ -30,15 +59,8 @@ public class ByteImageProcessorIOUtils extends IOUtils {
 
     @Override
     public void generateInputFiles(PathCondition pc, Map<String, Object> solution, String outputFile) {
-        generateByteImageInput(pc, solution, outputFile);
-    }
-
-    private void generateByteImageInput(PathCondition pc, Map<String, Object> solution, String outputFile) {
-        // Get data to write file.
-        byte[] data = generateByteArrayForOfImage(pc, solution, outputFile);
-
         try {
-            Files.write(Paths.get(outputFile), data);
+            Files.write(Paths.get(outputFile), generateInput(pc, solution));
         } catch (FileNotFoundException e) {
             e.printStackTrace();
         } catch (IOException e) {
@@ -46,35 +68,9 @@ public class ByteImageProcessorIOUtils extends IOUtils {
         }
     }
 
-    private byte[] generateByteArrayForOfImage(PathCondition pc, Map<String, Object> valueMapping, String outputfile) {
-        // only works for 2x2
-        int height = 2;
-        int width = 2;
-        byte[] imageInByte = new byte[height * width * Integer.BYTES];
-        int pixelCount = 0;
-        StringBuilder extractedSolution = new StringBuilder();
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                Object value = valueMapping.get("sym_" + x + "_" + y);
-                int pixelValue;
-                if (value == null) {
-                    pixelValue = 0;
-                } else {
-                    pixelValue = Math.toIntExact((long) value);
-                }
-
-                extractedSolution.append("sym_" + x + "_" + y + " = " + value + "\n");
-
-                ByteBuffer bb = ByteBuffer.allocate(Integer.BYTES);
-                bb.putInt(pixelValue);
-                byte[] byteArray = bb.array();
-                imageInByte[pixelCount++] = byteArray[0];
-                imageInByte[pixelCount++] = byteArray[1];
-                imageInByte[pixelCount++] = byteArray[2];
-                imageInByte[pixelCount++] = byteArray[3];
-            }
-        }
-        return imageInByte;
+    @Override
+    public byte[] generateInput(PathCondition pc, Map<String, Object> solution) {
+        return ImageRaster.toBytes(ImageRaster.fromSolution(solution, width, height, region, basePixels));
     }
 
 }
@@ -4,7 +4,7 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -25,7 +25,7 @@ public class ByteTextIOUtils extends IOUtils {
     @Override
     public Map<String, String> processInput(List<String> inputFiles) {
         // here we don't need to process anything
-        Map<String, String> res = new HashMap<>();
+        Map<String, String> res = new LinkedHashMap<>();
         for (String inputfile : inputFiles) {
             res.put(inputfile, inputfile);
         }
@@ -6,13 +6,17 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import gov.nasa.jpf.symbc.numeric.PathCondition;
 
+/**
+ * Hand-written codec of the layout char16[N]. BadgerInput uses the equivalent SchemaIOUtils for its ID, this class is
+ * the reference for the byte-for-byte check SchemaLayoutCheck and for SchemaIOUtilsBenchmark.
+ */
 public class CharArrayIOUtils extends IOUtils {
 
     public static final String ID = "char-byte-array";
@@ -27,7 +31,7 @@ public class CharArrayIOUtils extends IOUtils {
 
     @Override
     public Map<String, String> processInput(List<String> inputFiles) {
-        // Map<String, String> res = new HashMap<>();
+        // Map<String, String> res = new LinkedHashMap<>();
         // for (String inputfile : inputFiles) {
         // try {
         // // Read content from input file.
@@ -69,7 +73,7 @@ public class CharArrayIOUtils extends IOUtils {
         // }
         // }
 
-        Map<String, String> res = new HashMap<>();
+        Map<String, String> res = new LinkedHashMap<>();
         for (String inputfile : inputFiles) {
             res.put(inputfile, inputfile);
         }
@@ -6,7 +6,7 @@ import java.io.IOException;
 import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -27,7 +27,7 @@ public class CharArrayIOUtilsEngagement extends IOUtils {
 
     @Override
     public Map<String, String> processInput(List<String> inputFiles) {
-        Map<String, String> res = new HashMap<>();
+        Map<String, String> res = new LinkedHashMap<>();
         for (String inputfile : inputFiles) {
             res.put(inputfile, inputfile);
         }
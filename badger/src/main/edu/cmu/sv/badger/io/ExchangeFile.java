@@ -0,0 +1,252 @@
+package edu.cmu.sv.badger.io;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Memory-mapped file in the sync directory, through which SymExe and the fuzzer share their coverage and best costs
+ * without waiting for the next import of the queues. The file contains:
+ *
+ * <ul>
+ * <li>the edge bitmap of the fuzzer, with the hit count buckets of AFL that were covered so far,</li>
+ * <li>the branch map of the fuzzer, with one byte per branch decision (instruction key and choice, like the trie
+ * nodes) that the fuzzer covered,</li>
+ * <li>the best cost observed by the fuzzer and by SymExe, and</li>
+ * <li>one annotation table per side, with the cost and flags of each queue entry by its queue id.</li>
+ * </ul>
+ *
+ * Every value has only one writer, and every value is written with one aligned put, so that the readers never need a
+ * lock. The branch map is hashed like the edge bitmap, i.e. a collision can let an uncovered branch look covered.
+ */
+public class ExchangeFile {
+
+    public static enum Side {
+        FUZZER, SYMEXE;
+    }
+
+    public static final int MAP_SIZE = 1 << 16;
+    public static final int MAXIMUM_QUEUE_ID = 1 << 16;
+
+    /* Flags of the annotations. */
+    public static final int FLAG_NEW_COVERAGE = 1;
+    public static final int FLAG_HIGHSCORE = 2;
+
+    private static final int MAGIC = 0x42444758; // "BDGX"
+    private static final int VERSION = 1;
+    private static final int VALID_FLAG = 1 << 30;
+
+    private static final int HEADER_SIZE = 64;
+    private static final int FUZZER_BEST_COST_OFFSET = 16;
+    private static final int SYMEXE_BEST_COST_OFFSET = 24;
+    private static final int EDGES_OFFSET = HEADER_SIZE;
+    private static final int BRANCHES_OFFSET = EDGES_OFFSET + MAP_SIZE;
+    private static final int ANNOTATIONS_OFFSET = BRANCHES_OFFSET + MAP_SIZE;
+    private static final int ANNOTATION_SIZE = 8;
+    private static final int FILE_SIZE = ANNOTATIONS_OFFSET + 2 * MAXIMUM_QUEUE_ID * ANNOTATION_SIZE;
+
+    private final Path file;
+    private final MappedByteBuffer buffer;
+
+    /**
+     * Maps the file, and initializes it if it does not exist yet. Several processes can open the same file.
+     *
+     * @param file
+     *            - path of the exchange file
+     */
+    public ExchangeFile(String file) {
+        this.file = Paths.get(file).toAbsolutePath();
+        try (FileChannel channel = FileChannel.open(this.file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE)) {
+            // The mapping stays valid after the channel is closed.
+            FileLock lock = channel.lock();
+            try {
+                this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, FILE_SIZE);
+                if (buffer.getInt(0) != MAGIC) {
+                    buffer.putDouble(FUZZER_BEST_COST_OFFSET, Double.NaN);
+                    buffer.putDouble(SYMEXE_BEST_COST_OFFSET, Double.NaN);
+                    buffer.putInt(4, VERSION);
+                    buffer.putInt(8, MAP_SIZE);
+                    buffer.putInt(12, MAXIMUM_QUEUE_ID);
+                    buffer.putInt(0, MAGIC);
+                    buffer.force();
+                } else if (buffer.getInt(4) != VERSION || buffer.getInt(8) != MAP_SIZE
+                        || buffer.getInt(12) != MAXIMUM_QUEUE_ID) {
+                    throw new RuntimeException("[ERROR] Exchange file has an unsupported layout: " + this.file);
+                }
+            } finally {
+                lock.release();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to map exchange file: " + file, e);
+        }
+    }
+
+    /**
+     * @return index of the branch decision in the branch map, spread with the multiplicative hash of the edge bitmap
+     */
+    public static int getBranchIndex(int instructionKey, int choice) {
+        return ((instructionKey * 31 + choice) * 0x9e3779b1) >>> 16;
+    }
+
+    public void setBranchCovered(int instructionKey, int choice) {
+        int index = BRANCHES_OFFSET + getBranchIndex(instructionKey, choice);
+        // Known branches are not written again, so that the page does not get dirty.
+        if (buffer.get(index) == 0) {
+            buffer.put(index, (byte) 1);
+        }
+    }
+
+    /**
+     * @param index
+     *            - see {@link #getBranchIndex(int, int)}
+     */
+    public boolean isBranchCovered(int index) {
+        return buffer.get(BRANCHES_OFFSET + index) != 0;
+    }
+
+    /**
+     * @param buckets
+     *            - hit count buckets of the edge that were covered so far
+     */
+    public void setEdgeBuckets(int edge, byte buckets) {
+        if (buffer.get(EDGES_OFFSET + edge) != buckets) {
+            buffer.put(EDGES_OFFSET + edge, buckets);
+        }
+    }
+
+    public byte getEdgeBuckets(int edge) {
+        return buffer.get(EDGES_OFFSET + edge);
+    }
+
+    /**
+     * @return number of edges with at least one covered bucket
+     */
+    public int getNumberOfCoveredEdges() {
+        int numberOfCoveredEdges = 0;
+        for (int edge = 0; edge < MAP_SIZE; edge++) {
+            if (getEdgeBuckets(edge) != 0) {
+                numberOfCoveredEdges++;
+            }
+        }
+        return numberOfCoveredEdges;
+    }
+
+    /**
+     * @return number of branch decisions in the branch map
+     */
+    public int getNumberOfCoveredBranches() {
+        int numberOfCoveredBranches = 0;
+        for (int index = 0; index < MAP_SIZE; index++) {
+            if (isBranchCovered(index)) {
+                numberOfCoveredBranches++;
+            }
+        }
+        return numberOfCoveredBranches;
+    }
+
+    public void setBestCost(Side side, double cost) {
+        buffer.putDouble(side == Side.FUZZER ? FUZZER_BEST_COST_OFFSET : SYMEXE_BEST_COST_OFFSET, cost);
+    }
+
+    /**
+     * @return best cost of the side, or null if it did not observe any cost yet
+     */
+    public Double getBestCost(Side side) {
+        double cost = buffer.getDouble(side == Side.FUZZER ? FUZZER_BEST_COST_OFFSET : SYMEXE_BEST_COST_OFFSET);
+        return Double.isNaN(cost) ? null : cost;
+    }
+
+    /**
+     * Stores the cost and flags of a queue entry. Entries with an id beyond {@link #MAXIMUM_QUEUE_ID} are not stored.
+     *
+     * @param cost
+     *            - cost of the entry, or null if there is no cost metric
+     * @param flags
+     *            - {@link #FLAG_NEW_COVERAGE} and {@link #FLAG_HIGHSCORE}
+     */
+    public void annotate(Side side, int queueId, Double cost, int flags) {
+        if (queueId < 0 || queueId >= MAXIMUM_QUEUE_ID) {
+            return;
+        }
+        // Cost and flags share one long, so that a reader never sees a half written annotation.
+        float storedCost = cost == null ? Float.NaN : cost.floatValue();
+        long annotation = ((long) (flags | VALID_FLAG) << 32) | (Float.floatToIntBits(storedCost) & 0xffffffffL);
+        buffer.putLong(getAnnotationOffset(side, queueId), annotation);
+    }
+
+    /**
+     * @return annotation of the queue entry, or null if the entry is not annotated
+     */
+    public Annotation getAnnotation(Side side, int queueId) {
+        if (queueId < 0 || queueId >= MAXIMUM_QUEUE_ID) {
+            return null;
+        }
+        long annotation = buffer.getLong(getAnnotationOffset(side, queueId));
+        int flags = (int) (annotation >>> 32);
+        if ((flags & VALID_FLAG) == 0) {
+            return null;
+        }
+        float cost = Float.intBitsToFloat((int) annotation);
+        return new Annotation(Float.isNaN(cost) ? null : (double) cost, flags & ~VALID_FLAG);
+    }
+
+    private static int getAnnotationOffset(Side side, int queueId) {
+        return ANNOTATIONS_OFFSET + (side.ordinal() * MAXIMUM_QUEUE_ID + queueId) * ANNOTATION_SIZE;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public static class Annotation {
+        private final Double cost;
+        private final int flags;
+
+        Annotation(Double cost, int flags) {
+            this.cost = cost;
+            this.flags = flags;
+        }
+
+        /**
+         * @return cost with float precision, or null if there is no cost metric
+         */
+        public Double getCost() {
+            return cost;
+        }
+
+        public boolean hasFlag(int flag) {
+            return (flags & flag) != 0;
+        }
+    }
+
+    /**
+     * Prints the content of an exchange file, e.g. to check what the fuzzer wrote.
+     *
+     * Usage: ExchangeFile exchange-file
+     */
+    public static void main(String[] args) {
+        if (args.length != 1) {
+            System.out.println("Usage: ExchangeFile exchange-file");
+            System.exit(1);
+        }
+        ExchangeFile exchangeFile = new ExchangeFile(args[0]);
+        System.out.println("edges:    " + exchangeFile.getNumberOfCoveredEdges());
+        System.out.println("branches: " + exchangeFile.getNumberOfCoveredBranches());
+        for (Side side : Side.values()) {
+            int numberOfAnnotations = 0;
+            for (int queueId = 0; queueId < MAXIMUM_QUEUE_ID; queueId++) {
+                if (exchangeFile.getAnnotation(side, queueId) != null) {
+                    numberOfAnnotations++;
+                }
+            }
+            System.out.println(side.name().toLowerCase() + ": best cost " + exchangeFile.getBestCost(side) + ", "
+                    + numberOfAnnotations + " annotated queue entries");
+        }
+    }
+
+}
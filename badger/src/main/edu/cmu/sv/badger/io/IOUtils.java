@@ -11,7 +11,8 @@ import gov.nasa.jpf.symbc.numeric.PathCondition;
 public abstract class IOUtils {
 
     /**
-     * Preprocesses the input if necessary.
+     * Preprocesses the input if necessary. The returned map iterates in the order of the given files, so that the
+     * symcrete executions and thereby the trie do not depend on hash codes.
      * 
      * @param inputFiles
      * @return key= original, value= processed
@@ -20,4 +21,14 @@ public abstract class IOUtils {
 
     public abstract void generateInputFiles(PathCondition pc, Map<String, Object> solution, String outputFile);
 
+    /**
+     * Generates the input in memory, which is used to hand over the input to JPF without a file, see InMemoryInputs.
+     * Only possible if processInput does not change the generated inputs.
+     * 
+     * @return content of the input file, or null if only generateInputFiles is supported
+     */
+    public byte[] generateInput(PathCondition pc, Map<String, Object> solution) {
+        return null;
+    }
+
 }
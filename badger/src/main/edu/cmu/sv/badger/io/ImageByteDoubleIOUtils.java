@@ -4,12 +4,18 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import gov.nasa.jpf.symbc.numeric.PathCondition;
 
+/**
+ * Hand-written codec of the layout int8[n][m][o]. BadgerInput uses the equivalent SchemaIOUtils for its ID, this
+ * class is the reference for the byte-for-byte check SchemaLayoutCheck and for SchemaIOUtilsBenchmark.
+ *
+ * Only correct for o=1: the buffer has n*m bytes and the value (i,j,k) is written to i*m+j*o+k.
+ */
 public class ImageByteDoubleIOUtils extends IOUtils {
 
     public static final String ID = "image-byte-double-array";
@@ -27,7 +33,7 @@ public class ImageByteDoubleIOUtils extends IOUtils {
     @Override
     public Map<String, String> processInput(List<String> inputFiles) {
         // here we don't need to process anything
-        Map<String, String> res = new HashMap<>();
+        Map<String, String> res = new LinkedHashMap<>();
         for (String inputfile : inputFiles) {
             res.put(inputfile, inputfile);
         }
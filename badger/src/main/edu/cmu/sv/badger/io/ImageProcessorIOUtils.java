@@ -2,11 +2,8 @@ package edu.cmu.sv.badger.io;
 
 import java.awt.image.BufferedImage;
 import java.io.File;
-import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.nio.ByteBuffer;
-import java.nio.file.Files;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -16,38 +13,77 @@ import javax.imageio.ImageIO;
 import gov.nasa.jpf.symbc.numeric.PathCondition;
 
 /**
+ * Imported images are converted into byte images, whose file name contains the meta data for the driver:
+ * id:width:height:imageType:roiX:roiY:roiWidth:roiHeight:
+ *
  * @author Yannic Noller <nolleryc@gmail.com> - YN
  */
 public class ImageProcessorIOUtils extends IOUtils {
 
     public static final String ID = "image";
 
+    /* Image type of generated images without base image. */
+    private static final int DEFAULT_IMAGE_TYPE = BufferedImage.TYPE_3BYTE_BGR;
+
     private static AtomicInteger lastProcessedFileId = new AtomicInteger(-1);
 
+    private final TempFileManager tempFileManager;
+    private final int width;
+    private final int height;
+    private final ImageRaster.Region region;
+    private final int[] basePixels;
+    private final int imageType;
+
+    /**
+     * @param tempFileManager
+     *            - TempFileManager for the processed images
+     * @param width
+     *            - width of generated images
+     * @param height
+     *            - height of generated images
+     * @param region
+     *            - symbolic pixels
+     * @param baseImage
+     *            - concrete pixels outside of the region for generated images, or null for 0
+     */
+    public ImageProcessorIOUtils(TempFileManager tempFileManager, int width, int height, ImageRaster.Region region,
+            BufferedImage baseImage) {
+        this.tempFileManager = tempFileManager;
+        this.width = width;
+        this.height = height;
+        this.region = region;
+        if (baseImage != null) {
+            if (baseImage.getWidth() != width || baseImage.getHeight() != height) {
+                throw new RuntimeException("[ERROR] Base image must have the size " + width + "x" + height);
+            }
+            this.basePixels = ImageRaster.readPixels(baseImage);
+            this.imageType = baseImage.getType() != BufferedImage.TYPE_CUSTOM ? baseImage.getType()
+                    : DEFAULT_IMAGE_TYPE;
+        } else {
+            this.basePixels = null;
+            this.imageType = DEFAULT_IMAGE_TYPE;
+        }
+    }
+
     @Override
     public Map<String, String> processInput(List<String> inputFiles) {
-        Map<String, String> res = new HashMap<>();
+        Map<String, String> res = new LinkedHashMap<>();
         for (String filename : inputFiles) {
             try {
                 BufferedImage original = ImageIO.read(new File(filename));
-                int width = original.getWidth();
-                int height = original.getHeight();
-                int imageType = original.getType();
-
-                int[][] pixelMatrix = new int[height][width];
-                for (int y = 0; y < height; y++) {
-                    for (int x = 0; x < width; x++) {
-                        pixelMatrix[y][x] = original.getRGB(x, y);
-                    }
+                if (original == null) {
+                    System.out.println("Input is no readable image: " + filename);
+                    continue;
                 }
-                
-                String imageFilePath = generateByteImage(pixelMatrix, lastProcessedFileId.incrementAndGet() + ":" + width + ":" + height
-                        + ":" + imageType + ":");
+                String processedFileName = lastProcessedFileId.incrementAndGet() + ":" + original.getWidth() + ":"
+                        + original.getHeight() + ":" + original.getType() + ":" + region.toFileNameFormat() + ":";
+
+                // The processed file is deleted after its import, see TempFileManager.
+                String imageFilePath = tempFileManager.createFile(processedFileName,
+                        ImageRaster.toBytes(ImageRaster.readPixels(original)));
                 if (imageFilePath != null) {
                     res.put(filename, imageFilePath);
                 }
-                
-
             } catch (IOException e) {
                 e.printStackTrace();
             }
@@ -57,21 +93,8 @@ public class ImageProcessorIOUtils extends IOUtils {
 
     @Override
     public void generateInputFiles(PathCondition pc, Map<String, Object> solution, String outputFile) {
-        // only works for 2x2
-        BufferedImage image = new BufferedImage(2, 2, 5);
-        for (int y = 0; y < image.getHeight(); y++) {
-            for (int x = 0; x < image.getWidth(); x++) {
-                Object value = solution.get("sym_" + x + "_" + y);
-                int pixelValue;
-                if (value == null) {
-                    pixelValue = 0;
-                } else {
-                    pixelValue = Math.toIntExact((long) value);
-                }
-                image.setRGB(x, y, pixelValue);
-            }
-        }
-
+        int[] pixels = ImageRaster.fromSolution(solution, width, height, region, basePixels);
+        BufferedImage image = ImageRaster.toImage(pixels, width, height, imageType);
         try {
             /*
              * YN: Actually it should be a jpg but for some reason "jpg" generates a wrong
@@ -82,43 +105,6 @@ public class ImageProcessorIOUtils extends IOUtils {
         } catch (IOException e) {
             e.printStackTrace();
         }
-
-    }
-
-    private String generateByteImage(int[][] pixelMatrix, String fileName) {
-        // Get data to write file.
-        byte[] data = generateByteArrayForOfImage(pixelMatrix);
-        try {
-            File tmpFile = File.createTempFile(fileName, "");
-            tmpFile.deleteOnExit();
-            Files.write(tmpFile.toPath(), data);
-            return tmpFile.getAbsolutePath();
-        } catch (FileNotFoundException e) {
-            e.printStackTrace();
-        } catch (IOException e) {
-            e.printStackTrace();
-        }
-        return null;
-    }
-
-    private byte[] generateByteArrayForOfImage(int[][] pixelMatrix) {
-        int height = pixelMatrix.length;
-        int width = pixelMatrix[0].length;
-        byte[] imageInByte = new byte[height * width * Integer.BYTES];
-        int pixelCount = 0;
-        for (int y = 0; y < height; y++) {
-            for (int x = 0; x < width; x++) {
-                int pixelValue = pixelMatrix[y][x];
-                ByteBuffer bb = ByteBuffer.allocate(Integer.BYTES);
-                bb.putInt(pixelValue);
-                byte[] byteArray = bb.array();
-                imageInByte[pixelCount++] = byteArray[0];
-                imageInByte[pixelCount++] = byteArray[1];
-                imageInByte[pixelCount++] = byteArray[2];
-                imageInByte[pixelCount++] = byteArray[3];
-            }
-        }
-        return imageInByte;
     }
 
 }
@@ -0,0 +1,129 @@
+package edu.cmu.sv.badger.io;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+/**
+ * Bulk conversion between images, their ARGB pixels in row-major order, and the byte representation that is read by
+ * the drivers (one big-endian int per pixel). Also defines the region of interest (ROI): only the pixels inside the
+ * ROI are symbolic (sym_x_y), all others keep concrete values, which keeps the number of constraints bounded for
+ * larger images.
+ */
+public class ImageRaster {
+
+    /**
+     * Rectangle of symbolic pixels.
+     */
+    public static class Region {
+        public final int x;
+        public final int y;
+        public final int width;
+        public final int height;
+
+        public Region(int x, int y, int width, int height) {
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+        }
+
+        public boolean contains(int px, int py) {
+            return px >= x && px < x + width && py >= y && py < y + height;
+        }
+
+        /**
+         * Parses the ROI definition "x y width height".
+         */
+        public static Region parse(String definition) {
+            String[] values = definition.trim().split("\\s+");
+            if (values.length != 4) {
+                throw new RuntimeException("[ERROR] Image region needs four values (x y width height): " + definition);
+            }
+            try {
+                return new Region(Integer.parseInt(values[0]), Integer.parseInt(values[1]),
+                        Integer.parseInt(values[2]), Integer.parseInt(values[3]));
+            } catch (NumberFormatException e) {
+                throw new RuntimeException("[ERROR] Values of image region are no numbers: " + definition);
+            }
+        }
+
+        /**
+         * @return ROI in the format of the processed file names, e.g. "0:0:2:2"
+         */
+        public String toFileNameFormat() {
+            return x + ":" + y + ":" + width + ":" + height;
+        }
+    }
+
+    /**
+     * @return ARGB pixels in row-major order, read without per-pixel calls if the image is stored as ARGB ints
+     */
+    public static int[] readPixels(BufferedImage image) {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        if (image.getType() == BufferedImage.TYPE_INT_ARGB && image.getRaster().getDataBuffer() instanceof DataBufferInt
+                && image.getRaster().getParent() == null) {
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            if (data.length == width * height) {
+                return data.clone();
+            }
+        }
+        return image.getRGB(0, 0, width, height, null, 0, width);
+    }
+
+    /**
+     * @return image with the given ARGB pixels in row-major order
+     */
+    public static BufferedImage toImage(int[] pixels, int width, int height, int imageType) {
+        BufferedImage image = new BufferedImage(width, height, imageType);
+        if (imageType == BufferedImage.TYPE_INT_ARGB) {
+            int[] data = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+            System.arraycopy(pixels, 0, data, 0, width * height);
+        } else {
+            image.setRGB(0, 0, width, height, pixels, 0, width);
+        }
+        return image;
+    }
+
+    /**
+     * @return pixels as big-endian ints
+     */
+    public static byte[] toBytes(int[] pixels) {
+        byte[] data = new byte[pixels.length * Integer.BYTES];
+        ByteBuffer.wrap(data).asIntBuffer().put(pixels);
+        return data;
+    }
+
+    /**
+     * Builds the pixels for a solution: pixels inside the ROI get the value of their variable sym_x_y, all others the
+     * value of the base image.
+     *
+     * @param solution
+     *            - model for the symbolic variables
+     * @param width
+     *            - image width
+     * @param height
+     *            - image height
+     * @param region
+     *            - symbolic pixels
+     * @param basePixels
+     *            - concrete pixels of the base image, or null for 0
+     * @return ARGB pixels in row-major order
+     */
+    public static int[] fromSolution(Map<String, Object> solution, int width, int height, Region region,
+            int[] basePixels) {
+        int[] pixels = basePixels != null ? basePixels.clone() : new int[width * height];
+        int maxY = Math.min(height, region.y + region.height);
+        int maxX = Math.min(width, region.x + region.width);
+        for (int y = Math.max(0, region.y); y < maxY; y++) {
+            for (int x = Math.max(0, region.x); x < maxX; x++) {
+                Object value = solution.get("sym_" + x + "_" + y);
+                pixels[y * width + x] = value instanceof Number ? ((Number) value).intValue() : 0;
+            }
+        }
+        return pixels;
+    }
+
+}
@@ -0,0 +1,55 @@
+package edu.cmu.sv.badger.io;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Registry for inputs that are only kept in memory. Each input gets a virtual path, which is passed to the target
+ * application instead of a file path. Inside JPF, the FileDescriptor peer in edu.cmu.sv.badger.peer serves the content
+ * of virtual paths from this registry, so the driver can read them with a FileInputStream as usual. JPF runs in the
+ * same JVM as Badger, so the registry is shared like the Observations of SPF.
+ */
+public class InMemoryInputs {
+
+    public static final String PATH_PREFIX = "/badger-memory/";
+
+    private static final Map<String, byte[]> contents = new ConcurrentHashMap<>();
+    private static final AtomicInteger lastId = new AtomicInteger(-1);
+
+    /**
+     * @param content
+     *            - content of the input, not copied
+     * @return virtual path of the input
+     */
+    public static String add(byte[] content) {
+        String path = PATH_PREFIX + lastId.incrementAndGet();
+        contents.put(path, content);
+        return path;
+    }
+
+    public static boolean isVirtualPath(String path) {
+        return path != null && path.startsWith(PATH_PREFIX);
+    }
+
+    /**
+     * @return content of the virtual path, or null if there is no such input
+     */
+    public static byte[] get(String path) {
+        return path != null ? contents.get(path) : null;
+    }
+
+    /**
+     * Frees the memory for the input.
+     *
+     * @return content of the virtual path, or null if there is no such input
+     */
+    public static byte[] remove(String path) {
+        return path != null ? contents.remove(path) : null;
+    }
+
+    public static int size() {
+        return contents.size();
+    }
+
+}
@@ -4,12 +4,16 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Paths;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
 import gov.nasa.jpf.symbc.numeric.PathCondition;
 
+/**
+ * Hand-written codec of the layout int8[n][m]. BadgerInput uses the equivalent SchemaIOUtils for its ID, this class is
+ * the reference for the byte-for-byte check SchemaLayoutCheck and for SchemaIOUtilsBenchmark.
+ */
 public class MultipleIntArrayIOUtils extends IOUtils {
 
     public static final String ID = "multi-int-byte-array";
@@ -25,7 +29,7 @@ public class MultipleIntArrayIOUtils extends IOUtils {
     @Override
     public Map<String, String> processInput(List<String> inputFiles) {
         // here we don't need to process anything
-        Map<String, String> res = new HashMap<>();
+        Map<String, String> res = new LinkedHashMap<>();
         for (String inputfile : inputFiles) {
             res.put(inputfile, inputfile);
         }
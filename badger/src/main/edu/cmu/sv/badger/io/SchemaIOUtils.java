@@ -0,0 +1,241 @@
+package edu.cmu.sv.badger.io;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+
+/**
+ * Declarative input codec: the input file is a sequence of fields, each with a primitive type and fixed dimensions,
+ * e.g. "int8[64]" or "int32[2] char16[4][8]". The schema is compiled once into a table with the variable name and
+ * type of every element, so that the generation of a file only looks up the precomputed names in the solution and
+ * writes the values into a single reused buffer.
+ *
+ * The variable names are built from a pattern with the placeholders {f} (field index), {i} (element index in the
+ * whole input), {0} to {9} (index in the corresponding dimension) and {*} (all dimension indices separated by "_").
+ */
+public class SchemaIOUtils extends IOUtils {
+
+    public static final String ID = "schema";
+
+    /* Fixed-layout inputs of the hand-written IOUtils, e.g. IntArrayIOUtils, as schemas, see SchemaLayoutCheck. */
+    public static final String INT_BYTE_ARRAY_ID = "int-byte-array"; // int8[n]
+    public static final String FULL_INT_BYTE_ARRAY_ID = "full-int-byte-array"; // int32[n]
+    public static final String CHAR_BYTE_ARRAY_ID = "char-byte-array"; // char16[n]
+    public static final String MULTI_INT_BYTE_ARRAY_ID = "multi-int-byte-array"; // int8[n][m]
+    public static final String IMAGE_BYTE_DOUBLE_ARRAY_ID = "image-byte-double-array"; // int8[n][m][o]
+    public static final String IMAGE_DOUBLE_DOUBLE_ARRAY_ID = "image-double-double-array"; // unorm8[n][m][o]
+
+    public static final String DEFAULT_NAMING_PATTERN = "sym_{*}";
+
+    private static final Pattern FIELD_PATTERN = Pattern.compile("([a-z0-9]+)((\\[[0-9]+\\])+)");
+    private static final Pattern DIMENSION_PATTERN = Pattern.compile("\\[([0-9]+)\\]");
+
+    public static enum FieldType {
+        INT8("int8", 1), INT16("int16", 2), CHAR16("char16", 2), INT32("int32", 4), INT64("int64", 8),
+        FLOAT32("float32", 4), FLOAT64("float64", 8),
+
+        /* Real value in [0,1] stored as signed byte: value * 255 - 128. */
+        UNORM8("unorm8", 1);
+
+        public final String ID;
+        public final int bytes;
+
+        private FieldType(String id, int bytes) {
+            this.ID = id;
+            this.bytes = bytes;
+        }
+
+        public static FieldType fromID(String id) {
+            for (FieldType type : FieldType.values()) {
+                if (type.ID.equals(id)) {
+                    return type;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final String[] variableNames;
+    private final FieldType[] variableTypes;
+    private final byte[] data;
+    private final ByteBuffer buffer;
+
+    /**
+     * @param schema
+     *            - fields separated by spaces, e.g. "int8[2][3] int32[4]"
+     * @param byteOrder
+     *            - byte order of the multi-byte values
+     * @param namingPattern
+     *            - pattern for the names of the symbolic variables, e.g. "sym_{*}"
+     */
+    public SchemaIOUtils(String schema, ByteOrder byteOrder, String namingPattern) {
+        List<String> names = new ArrayList<>();
+        List<FieldType> types = new ArrayList<>();
+        int numberOfBytes = 0;
+        String[] fields = schema.trim().split("\\s+");
+        for (int f = 0; f < fields.length; f++) {
+            Matcher fieldMatcher = FIELD_PATTERN.matcher(fields[f]);
+            if (!fieldMatcher.matches()) {
+                throw new RuntimeException("[ERROR] Invalid field in input schema: " + fields[f]);
+            }
+            FieldType type = FieldType.fromID(fieldMatcher.group(1));
+            if (type == null) {
+                throw new RuntimeException("[ERROR] Unknown type in input schema: " + fieldMatcher.group(1));
+            }
+            List<Integer> dimensions = new ArrayList<>();
+            Matcher dimensionMatcher = DIMENSION_PATTERN.matcher(fieldMatcher.group(2));
+            while (dimensionMatcher.find()) {
+                dimensions.add(Integer.valueOf(dimensionMatcher.group(1)));
+            }
+
+            // Enumerate the elements in row-major order.
+            int[] indices = new int[dimensions.size()];
+            int numberOfElements = 1;
+            for (int size : dimensions) {
+                numberOfElements *= size;
+            }
+            for (int e = 0; e < numberOfElements; e++) {
+                int rest = e;
+                for (int d = indices.length - 1; d >= 0; d--) {
+                    indices[d] = rest % dimensions.get(d);
+                    rest /= dimensions.get(d);
+                }
+                names.add(buildVariableName(namingPattern, f, names.size(), indices));
+                types.add(type);
+                numberOfBytes += type.bytes;
+            }
+        }
+
+        Set<String> uniqueNames = new HashSet<>(names);
+        if (uniqueNames.size() != names.size()) {
+            throw new RuntimeException("[ERROR] Naming pattern " + namingPattern
+                    + " does not generate unique variable names for input schema: " + schema);
+        }
+
+        this.variableNames = names.toArray(new String[names.size()]);
+        this.variableTypes = types.toArray(new FieldType[types.size()]);
+        this.data = new byte[numberOfBytes];
+        this.buffer = ByteBuffer.wrap(data).order(byteOrder);
+    }
+
+    /**
+     * Builds a single schema field, e.g. toField("int8", 2, 3) returns "int8[2][3]".
+     */
+    public static String toField(String type, Integer... dimensions) {
+        StringBuilder field = new StringBuilder(type);
+        for (Integer size : dimensions) {
+            field.append('[').append(size).append(']');
+        }
+        return field.toString();
+    }
+
+    private static String buildVariableName(String namingPattern, int fieldIndex, int elementIndex, int[] indices) {
+        StringBuilder allIndices = new StringBuilder();
+        for (int d = 0; d < indices.length; d++) {
+            if (d > 0) {
+                allIndices.append('_');
+            }
+            allIndices.append(indices[d]);
+        }
+        String name = namingPattern.replace("{f}", String.valueOf(fieldIndex))
+                .replace("{i}", String.valueOf(elementIndex)).replace("{*}", allIndices.toString());
+        for (int d = 0; d < indices.length && d < 10; d++) {
+            name = name.replace("{" + d + "}", String.valueOf(indices[d]));
+        }
+        return name;
+    }
+
+    public int getNumberOfVariables() {
+        return variableNames.length;
+    }
+
+    public int getNumberOfBytes() {
+        return data.length;
+    }
+
+    @Override
+    public Map<String, String> processInput(List<String> inputFiles) {
+        // here we don't need to process anything
+        Map<String, String> res = new LinkedHashMap<>();
+        for (String inputfile : inputFiles) {
+            res.put(inputfile, inputfile);
+        }
+        return res;
+    }
+
+    @Override
+    public synchronized void generateInputFiles(PathCondition pc, Map<String, Object> solution, String outputFile) {
+        encode(solution);
+        try {
+            Files.write(Paths.get(outputFile), data);
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    @Override
+    public synchronized byte[] generateInput(PathCondition pc, Map<String, Object> solution) {
+        return encode(solution).clone();
+    }
+
+    /**
+     * Encodes the solution into the internal buffer. Variables without value are encoded as 0. The solution is
+     * accessed with get() for every variable, because models can assign values lazily, see ModelEnumerator.
+     *
+     * @return internal buffer, only valid until the next call
+     */
+    public synchronized byte[] encode(Map<String, Object> solution) {
+        buffer.clear();
+        for (int i = 0; i < variableNames.length; i++) {
+            Object value = solution.get(variableNames[i]);
+            switch (variableTypes[i]) {
+            case INT8:
+                buffer.put((byte) toLong(value));
+                break;
+            case INT16:
+            case CHAR16:
+                buffer.putShort((short) toLong(value));
+                break;
+            case INT32:
+                buffer.putInt((int) toLong(value));
+                break;
+            case INT64:
+                buffer.putLong(toLong(value));
+                break;
+            case FLOAT32:
+                buffer.putFloat((float) toDouble(value));
+                break;
+            case FLOAT64:
+                buffer.putDouble(toDouble(value));
+                break;
+            case UNORM8:
+                buffer.put((byte) (toDouble(value) * 255 - 128));
+                break;
+            default:
+                throw new RuntimeException("[ERROR] Unknown type in input schema: " + variableTypes[i]);
+            }
+        }
+        return data;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number ? ((Number) value).longValue() : 0L;
+    }
+
+    private static double toDouble(Object value) {
+        return value instanceof Number ? ((Number) value).doubleValue() : 0.0;
+    }
+
+}
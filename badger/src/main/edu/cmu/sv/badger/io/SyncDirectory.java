@@ -0,0 +1,140 @@
+package edu.cmu.sv.badger.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Shared directory of several SymExe instances on the same host, with the layout of an AFL sync directory: every
+ * instance exports into its own folder "symexe-ID/queue" and imports the queues of the other instances. The instance
+ * ID is claimed with an exclusive lock on the hidden file ".symexe-ID.lock", which is held until the JVM exits, so
+ * that a crashed instance can be restarted with the same ID and continues its queue.
+ */
+public class SyncDirectory {
+
+    public static final String INSTANCE_PREFIX = "symexe-";
+
+    private final String syncDir;
+    private final int numberOfInstances;
+    private final int instanceId;
+    private final FileLock lock; // keeps the claim of the instance ID
+
+    /**
+     * @param syncDir
+     *            - shared directory
+     * @param numberOfInstances
+     *            - number of instances that share the directory
+     * @param requestedId
+     *            - ID for this instance, or null to claim the first free ID
+     */
+    public SyncDirectory(String syncDir, int numberOfInstances, Integer requestedId) {
+        this.syncDir = syncDir;
+        this.numberOfInstances = numberOfInstances;
+        new File(syncDir).mkdirs();
+
+        FileLock claimedLock = null;
+        int claimedId = -1;
+        if (requestedId != null) {
+            claimedLock = tryLock(requestedId);
+            if (claimedLock == null) {
+                throw new RuntimeException("[ERROR] SymExe instance " + requestedId + " is already running in "
+                        + syncDir);
+            }
+            claimedId = requestedId;
+        } else {
+            for (int id = 0; id < numberOfInstances && claimedLock == null; id++) {
+                claimedLock = tryLock(id);
+                claimedId = id;
+            }
+            if (claimedLock == null) {
+                throw new RuntimeException(
+                        "[ERROR] all " + numberOfInstances + " SymExe instances are already running in " + syncDir);
+            }
+        }
+        this.instanceId = claimedId;
+        this.lock = claimedLock;
+        new File(getQueueDir(instanceId)).mkdirs();
+    }
+
+    private FileLock tryLock(int id) {
+        FileChannel channel = null;
+        try {
+            channel = FileChannel.open(Paths.get(syncDir, "." + INSTANCE_PREFIX + id + ".lock"),
+                    StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            FileLock fileLock = channel.tryLock();
+            if (fileLock != null) {
+                return fileLock;
+            }
+        } catch (IOException | OverlappingFileLockException e) {
+            // The ID is used by another instance, possibly in this JVM.
+        }
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return null;
+    }
+
+    public int getInstanceId() {
+        return instanceId;
+    }
+
+    public int getNumberOfInstances() {
+        return numberOfInstances;
+    }
+
+    /**
+     * @return export directory of this instance
+     */
+    public String getQueueDir() {
+        return getQueueDir(instanceId);
+    }
+
+    private String getQueueDir(int id) {
+        return Paths.get(syncDir, INSTANCE_PREFIX + id, "queue").toString();
+    }
+
+    /**
+     * @return highest ID of the files in the queue of this instance, e.g. from a previous run, or -1 if it is empty
+     */
+    public int getHighestQueueId() {
+        int highestId = -1;
+        String[] fileNames = new File(getQueueDir()).list();
+        if (fileNames == null) {
+            return highestId;
+        }
+        for (String fileName : fileNames) {
+            if (fileName.startsWith("id:") && fileName.length() >= 9) {
+                try {
+                    highestId = Math.max(highestId, Integer.parseInt(fileName.substring(3, 9)));
+                } catch (NumberFormatException e) {
+                    // Not an exported file.
+                }
+            }
+        }
+        return highestId;
+    }
+
+    /**
+     * @return export directories of the other instances, which might not exist yet
+     */
+    public List<String> getPeerQueueDirs() {
+        List<String> dirs = new ArrayList<>();
+        for (int id = 0; id < numberOfInstances; id++) {
+            if (id != instanceId) {
+                dirs.add(getQueueDir(id));
+            }
+        }
+        return dirs;
+    }
+
+}
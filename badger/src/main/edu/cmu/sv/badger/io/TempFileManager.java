@@ -0,0 +1,129 @@
+package edu.cmu.sv.badger.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps track of the temporary files that Badger creates in the tmp directory, i.e. generated and processed inputs.
+ * The pipeline releases each file as soon as the decision about its import or export is made: released files are
+ * deleted, exported files are handed over to the export directory. Files that were not created by Badger, e.g. the
+ * imported files of the fuzzer, are never touched.
+ *
+ * Optionally, the disk usage of the tracked files is limited by a quota. If the quota is exceeded, no new files are
+ * created until enough files are released.
+ */
+public class TempFileManager {
+
+    private final String tmpDir;
+    private final long quotaBytes;
+
+    private final Map<String, Long> trackedFiles = new ConcurrentHashMap<>(); // path -> size
+    private final AtomicLong usedBytes = new AtomicLong(0);
+    private final AtomicLong numberOfDeletedFiles = new AtomicLong(0);
+
+    /**
+     * @param tmpDir
+     *            - directory for the temporary files
+     * @param quotaBytes
+     *            - maximum size of all tracked files in bytes, or a negative value for no limit
+     */
+    public TempFileManager(String tmpDir, long quotaBytes) {
+        this.tmpDir = tmpDir;
+        this.quotaBytes = quotaBytes;
+    }
+
+    /**
+     * @return true if new files can be created without exceeding the quota
+     */
+    public boolean hasCapacity() {
+        return quotaBytes < 0 || usedBytes.get() < quotaBytes;
+    }
+
+    /**
+     * Writes a new tracked file to the tmp directory.
+     *
+     * @param name
+     *            - file name, must be unique
+     * @param content
+     *            - file content
+     * @return absolute path of the file, or null if the quota is exceeded
+     * @throws IOException
+     *             if the file cannot be written
+     */
+    public String createFile(String name, byte[] content) throws IOException {
+        if (!hasCapacity()) {
+            System.out.println("[WARNING] Quota for tmp directory exceeded (" + usedBytes.get() + " bytes), skip file: "
+                    + name);
+            return null;
+        }
+        File file = new File(tmpDir, name);
+        Files.write(file.toPath(), content);
+        String path = file.getAbsolutePath();
+        track(path);
+        return path;
+    }
+
+    /**
+     * Starts tracking a file that was written to the tmp directory by someone else, e.g. by an IOUtils.
+     */
+    public void track(String path) {
+        long size = new File(path).length();
+        Long previousSize = trackedFiles.put(path, size);
+        usedBytes.addAndGet(size - (previousSize != null ? previousSize : 0L));
+    }
+
+    public boolean isTracked(String path) {
+        return path != null && trackedFiles.containsKey(path);
+    }
+
+    /**
+     * Stops tracking the file without deleting it, e.g. because it was moved to the export directory.
+     */
+    public void untrack(String path) {
+        if (path == null) {
+            return;
+        }
+        Long size = trackedFiles.remove(path);
+        if (size != null) {
+            usedBytes.addAndGet(-size);
+        }
+    }
+
+    /**
+     * Deletes the file if it is tracked, otherwise nothing happens.
+     */
+    public void release(String path) {
+        if (path == null) {
+            return;
+        }
+        Long size = trackedFiles.remove(path);
+        if (size != null) {
+            usedBytes.addAndGet(-size);
+            try {
+                if (Files.deleteIfExists(Paths.get(path))) {
+                    numberOfDeletedFiles.incrementAndGet();
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public int getNumberOfTrackedFiles() {
+        return trackedFiles.size();
+    }
+
+    public long getUsedBytes() {
+        return usedBytes.get();
+    }
+
+    public long getNumberOfDeletedFiles() {
+        return numberOfDeletedFiles.get();
+    }
+
+}
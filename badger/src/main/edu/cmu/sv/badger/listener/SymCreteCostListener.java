@@ -1,12 +1,17 @@
 package edu.cmu.sv.badger.listener;
 
+import java.util.HashMap;
 import java.util.Map;
 
+import edu.cmu.sv.badger.solver.PathConditionEvaluator;
+import edu.cmu.sv.badger.solver.PathConditionEvaluator.UnsupportedConstraintException;
+
 import gov.nasa.jpf.Config;
 import gov.nasa.jpf.JPF;
 import gov.nasa.jpf.ListenerAdapter;
 import gov.nasa.jpf.search.Search;
 import gov.nasa.jpf.symbc.Observations;
+import gov.nasa.jpf.symbc.numeric.Expression;
 import gov.nasa.jpf.symbc.numeric.PCChoiceGenerator;
 import gov.nasa.jpf.symbc.numeric.PathCondition;
 import gov.nasa.jpf.vm.ChoiceGenerator;
@@ -24,6 +29,7 @@ public class SymCreteCostListener extends ListenerAdapter {
     private Double observedCost = null;
     private PathCondition observedPC = null;
     private Map<String, Object> observedSolution = null;
+    private Double optimizedCost = null;
 
     private boolean firstBacktrack = true;
 
@@ -43,6 +49,14 @@ public class SymCreteCostListener extends ListenerAdapter {
         return this.observedSolution;
     }
 
+    /**
+     * @return cost of the solution for the observed path condition, i.e. the optimized cost if the decision procedure
+     *         optimizes the symbolic cost expression, or null if there is no solution or no symbolic cost expression
+     */
+    public Double getOptimizedCost() {
+        return this.optimizedCost;
+    }
+
     @Override
     public void searchConstraintHit(Search search) {
         if (DEBUG) {
@@ -92,8 +106,36 @@ public class SymCreteCostListener extends ListenerAdapter {
                     PathCondition.setReplay(false);
                     this.observedSolution = observedPC.solveWithValuation();
                     PathCondition.setReplay(isReplay);
+                    this.optimizedCost = calculateCost(Observations.lastObservedSymbolicExpression,
+                            this.observedSolution);
                 }
             }
         }
     }
+
+    /**
+     * Evaluates the symbolic cost expression for the given solution.
+     * 
+     * @return cost, or null if the expression cannot be evaluated
+     */
+    private static Double calculateCost(Expression costExpression, Map<String, Object> solution) {
+        if (costExpression == null || solution == null || solution.isEmpty()) {
+            return null;
+        }
+        Map<String, Number> assignment = new HashMap<>();
+        for (Map.Entry<String, Object> entry : solution.entrySet()) {
+            if (entry.getValue() instanceof Number) {
+                assignment.put(entry.getKey(), (Number) entry.getValue());
+            }
+        }
+        try {
+            double cost = PathConditionEvaluator.evaluate(costExpression, assignment).doubleValue();
+            return Double.isNaN(cost) ? null : cost;
+        } catch (UnsupportedConstraintException | ArithmeticException e) {
+            if (DEBUG) {
+                System.out.println("Cannot evaluate cost expression: " + e.getMessage());
+            }
+            return null;
+        }
+    }
 }
@@ -0,0 +1,348 @@
+package edu.cmu.sv.badger.listener;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.cmu.sv.badger.analysis.WCAAnalyzer;
+import edu.cmu.sv.badger.analysis.WCAAnalyzer.CostStrategy;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieNode;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+
+/**
+ * Path of one symcrete execution as recorded by the ConcreteInput2TrieListener: the decisions with the attributes of
+ * their trie nodes, and the search events. It does not refer to any JPF object, so that the execution can run in
+ * another JVM, and the path is added to the trie after the execution.
+ */
+public class SymcretePath implements IBehavior {
+
+    /**
+     * One decision of the path.
+     */
+    public static class Decision {
+        final int choice;
+        final int offset;
+        final String methodName;
+        final int lineNumber;
+        final int instructionKey;
+        final int bytecode; // -1 if there is no instruction
+        final int numberOfChoices;
+        final boolean isSatisfiable;
+        final Double cost; // null if there is no metric
+        final int inputSize;
+
+        public Decision(int choice, int offset, String methodName, int lineNumber, int instructionKey, int bytecode,
+                int numberOfChoices, boolean isSatisfiable, Double cost, int inputSize) {
+            this.choice = choice;
+            this.offset = offset;
+            this.methodName = methodName;
+            this.lineNumber = lineNumber;
+            this.instructionKey = instructionKey;
+            this.bytecode = bytecode;
+            this.numberOfChoices = numberOfChoices;
+            this.isSatisfiable = isSatisfiable;
+            this.cost = cost;
+            this.inputSize = inputSize;
+        }
+    }
+
+    private final List<Decision> decisions = new ArrayList<>();
+    private int frontierPosition = -1; // number of decisions when the search limit was hit, -1 if it was not hit
+    private int numberOfBacktracks = 0;
+    private Double optimizedCost = null;
+    private int numberOfErrors = 0;
+
+    /* Results of applyTo. */
+    private boolean observedBetterScore = false;
+    private Double observedFinalCost = null;
+    private TrieNode observedLeafNode = null;
+    private boolean exposedNewBranch = false;
+    private boolean createdNodeOfOtherShard = false;
+
+    void addDecision(Decision decision) {
+        decisions.add(decision);
+    }
+
+    void searchConstraintHit() {
+        frontierPosition = decisions.size();
+    }
+
+    void backtracked() {
+        numberOfBacktracks++;
+    }
+
+    /**
+     * @param optimizedCost
+     *            - cost of the optimized input, which follows the same path, or null
+     */
+    public void setOptimizedCost(Double optimizedCost) {
+        this.optimizedCost = optimizedCost;
+    }
+
+    public void setNumberOfErrors(int numberOfErrors) {
+        this.numberOfErrors = numberOfErrors;
+    }
+
+    public int getNumberOfErrors() {
+        return numberOfErrors;
+    }
+
+    public int getNumberOfDecisions() {
+        return decisions.size();
+    }
+
+    /**
+     * Extends the trie with the path: new nodes are added, the search limit is marked as frontier, and the cost of the
+     * leaf is propagated to the root.
+     *
+     * @param trie
+     *            - Trie
+     */
+    public void applyTo(Trie trie) {
+        TrieNode cur = trie.getRoot();
+        int position = 0;
+        for (Decision decision : decisions) {
+            if (trie.getRoot() == null) { // create the root node
+                TrieNode root = new TrieNode(trie, -1, -1, null, -1, null);
+                trie.setRoot(root);
+                cur = root;
+            }
+            if (position++ == frontierPosition) {
+                markFrontier(cur);
+            }
+
+            TrieNode child = cur.getChild(decision.choice);
+            if (child != null) {
+                cur = child;
+
+                /*
+                 * The null value is used to initialize nodes during the symbolic exploration phase because we don't use
+                 * a metric listener there. It might be a leaf, so it is better to override this value right here, and
+                 * it might be overridden again during backpropagation.
+                 */
+                if (cur.getMetricValue() == null && decision.cost != null) {
+                    cur.updateMetricValue(decision.cost);
+                }
+            } else {
+                cur = new TrieNode(trie, decision.choice, decision.offset, decision.methodName, decision.lineNumber,
+                        cur, decision.instructionKey, decision.bytecode, decision.numberOfChoices,
+                        decision.isSatisfiable, decision.cost != null ? decision.cost : 0.0, decision.inputSize);
+                if (decision.bytecode >= 0
+                        && trie.getAnalyzer().addObservedChoice(decision.instructionKey, decision.choice)) {
+                    exposedNewBranch = true;
+                }
+                if (!trie.getAnalyzer().isInShard(cur)) {
+                    createdNodeOfOtherShard = true;
+                }
+            }
+        }
+        if (position == frontierPosition && cur != null) {
+            markFrontier(cur);
+        }
+
+        for (int i = 0; i < numberOfBacktracks && cur != null; i++) {
+            backtrack(trie, cur);
+            cur = cur.getParent();
+        }
+    }
+
+    private static void markFrontier(TrieNode node) {
+        if (node.getType().equals(TrieNodeType.REGULAR_NODE)) {
+            node.setType(TrieNodeType.FRONTIER_NODE);
+        }
+    }
+
+    private void backtrack(Trie trie, TrieNode cur) {
+        /* Save the cost for the lowest node and mark it if it is a new best score. */
+        if (cur.getChildren().isEmpty()) {
+            cur.setType(TrieNodeType.LEAF_NODE);
+            observedLeafNode = cur;
+            if (trie.getAnalyzer() instanceof WCAAnalyzer) {
+                WCAAnalyzer analyzer = (WCAAnalyzer) trie.getAnalyzer();
+
+                /* The optimized input follows the same path, so the leaf gets the better cost of both inputs. */
+                if (optimizedCost != null && (cur.getMetricValue() == null
+                        || (analyzer.getCostStrategy().equals(CostStrategy.MAXIMIZE)
+                                ? optimizedCost > cur.getMetricValue()
+                                : optimizedCost < cur.getMetricValue()))) {
+                    cur.updateMetricValue(optimizedCost);
+                }
+            }
+            observedFinalCost = cur.getMetricValue();
+            if (trie.getAnalyzer() instanceof WCAAnalyzer) {
+                WCAAnalyzer analyzer = (WCAAnalyzer) trie.getAnalyzer();
+                if (observedFinalCost != null && (analyzer.getCostStrategy().equals(CostStrategy.MAXIMIZE)
+                        ? observedFinalCost > analyzer.currentBestCostValue
+                        : observedFinalCost < analyzer.currentBestCostValue)) {
+                    analyzer.currentBestCostValue = observedFinalCost;
+                    observedBetterScore = true;
+                }
+            }
+        }
+
+        /* Backpropagate metric value */
+        if (cur.getParent() != null) {
+            int numberOfChildren = cur.getParent().getChildren().size();
+            double newMetricValueForParent;
+            if (numberOfChildren == 1) {
+                // this is the first children, then just reuse this number
+                newMetricValueForParent = cur.getMetricValue();
+            } else {
+                // if there are other children, then update the average
+                double sum = 0.0;
+                int numberOfSATChildren = 0;
+                for (TrieNode child : cur.getParent().getChildren()) {
+
+                    /* Skip unsat nodes because they do not have a metric value. */
+                    if (child.getType().equals(TrieNodeType.UNSAT_NODE)) {
+                        continue;
+                    }
+
+                    if (child.getMetricValue() == null) {
+                        continue;
+                        // TODO execution probably ended up in exception..
+                    }
+
+                    sum += child.getMetricValue();
+                    numberOfSATChildren++;
+                }
+                newMetricValueForParent = sum / numberOfSATChildren;
+            }
+            cur.getParent().updateMetricValue(newMetricValueForParent);
+        }
+    }
+
+    public Double getObservedCostForLeafNode() {
+        return this.observedFinalCost;
+    }
+
+    /**
+     * @return leaf node of the executed path, or null if the execution did not reach a leaf
+     */
+    public TrieNode getObservedLeafNode() {
+        return this.observedLeafNode;
+    }
+
+    @Override
+    public boolean didObserveBetterScore() { // can be highscore or lowscore depends on cost target
+        return this.observedBetterScore;
+    }
+
+    @Override
+    public boolean didExposeNewBranch() {
+        return this.exposedNewBranch;
+    }
+
+    /**
+     * @return true if the path created a node that another SymExe instance explores, which only knows this node if it
+     *         imports the input
+     */
+    public boolean didCreateNodeOfOtherShard() {
+        return this.createdNodeOfOtherShard;
+    }
+
+    /**
+     * Writes the recorded path in a compact binary format: integers as variable-length values and every method name
+     * only once.
+     */
+    public void write(DataOutput out) throws IOException {
+        Map<String, Integer> methodIndices = new HashMap<>();
+        List<String> methodNames = new ArrayList<>();
+        for (Decision decision : decisions) {
+            if (decision.methodName != null && !methodIndices.containsKey(decision.methodName)) {
+                methodIndices.put(decision.methodName, methodNames.size());
+                methodNames.add(decision.methodName);
+            }
+        }
+        writeVarInt(out, methodNames.size());
+        for (String methodName : methodNames) {
+            out.writeUTF(methodName);
+        }
+        writeVarInt(out, decisions.size());
+        for (Decision decision : decisions) {
+            writeSignedVarInt(out, decision.choice);
+            writeSignedVarInt(out, decision.offset);
+            writeSignedVarInt(out, decision.methodName != null ? methodIndices.get(decision.methodName) : -1);
+            writeSignedVarInt(out, decision.lineNumber);
+            out.writeInt(decision.instructionKey);
+            writeSignedVarInt(out, decision.bytecode);
+            writeSignedVarInt(out, decision.numberOfChoices);
+            out.writeByte((decision.isSatisfiable ? 1 : 0) | (decision.cost != null ? 2 : 0));
+            if (decision.cost != null) {
+                out.writeDouble(decision.cost);
+            }
+            writeSignedVarInt(out, decision.inputSize);
+        }
+        writeSignedVarInt(out, frontierPosition);
+        writeVarInt(out, numberOfBacktracks);
+        out.writeBoolean(optimizedCost != null);
+        if (optimizedCost != null) {
+            out.writeDouble(optimizedCost);
+        }
+        writeVarInt(out, numberOfErrors);
+    }
+
+    public static SymcretePath read(DataInput in) throws IOException {
+        SymcretePath path = new SymcretePath();
+        String[] methodNames = new String[readVarInt(in)];
+        for (int i = 0; i < methodNames.length; i++) {
+            methodNames[i] = in.readUTF();
+        }
+        int numberOfDecisions = readVarInt(in);
+        for (int i = 0; i < numberOfDecisions; i++) {
+            int choice = readSignedVarInt(in);
+            int offset = readSignedVarInt(in);
+            int methodIndex = readSignedVarInt(in);
+            int lineNumber = readSignedVarInt(in);
+            int instructionKey = in.readInt();
+            int bytecode = readSignedVarInt(in);
+            int numberOfChoices = readSignedVarInt(in);
+            int flags = in.readByte();
+            Double cost = (flags & 2) != 0 ? in.readDouble() : null;
+            int inputSize = readSignedVarInt(in);
+            path.addDecision(new Decision(choice, offset, methodIndex >= 0 ? methodNames[methodIndex] : null,
+                    lineNumber, instructionKey, bytecode, numberOfChoices, (flags & 1) != 0, cost, inputSize));
+        }
+        path.frontierPosition = readSignedVarInt(in);
+        path.numberOfBacktracks = readVarInt(in);
+        path.optimizedCost = in.readBoolean() ? in.readDouble() : null;
+        path.numberOfErrors = readVarInt(in);
+        return path;
+    }
+
+    private static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    private static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 32; shift += 7) {
+            int b = in.readByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed variable-length integer");
+    }
+
+    /* Zigzag encoding, so that small negative values like -1 also take one byte. */
+    private static void writeSignedVarInt(DataOutput out, int value) throws IOException {
+        writeVarInt(out, (value << 1) ^ (value >> 31));
+    }
+
+    private static int readSignedVarInt(DataInput in) throws IOException {
+        int value = readVarInt(in);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+}
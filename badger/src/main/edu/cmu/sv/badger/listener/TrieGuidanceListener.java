@@ -1,8 +1,20 @@
 package edu.cmu.sv.badger.listener;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
 
+import edu.cmu.sv.badger.monitor.Metrics;
+import edu.cmu.sv.badger.monitor.PhaseProfiler;
+import edu.cmu.sv.badger.monitor.PhaseProfiler.Phase;
+import edu.cmu.sv.badger.solver.LocalSearchSolver;
+import edu.cmu.sv.badger.solver.ModelEnumerator;
+import edu.cmu.sv.badger.solver.SolverResult;
+import edu.cmu.sv.badger.solver.UnsatCoreExtractor;
+import edu.cmu.sv.badger.solver.UnsatCoreIndex;
 import edu.cmu.sv.badger.trie.Trie;
 import edu.cmu.sv.badger.trie.TrieNode;
 import edu.cmu.sv.badger.trie.TrieNodeType;
@@ -12,6 +24,7 @@ import gov.nasa.jpf.ListenerAdapter;
 import gov.nasa.jpf.JPF.ExitException;
 import gov.nasa.jpf.search.Search;
 import gov.nasa.jpf.symbc.Observations;
+import gov.nasa.jpf.symbc.numeric.Constraint;
 import gov.nasa.jpf.symbc.numeric.PCChoiceGenerator;
 import gov.nasa.jpf.symbc.numeric.PathCondition;
 import gov.nasa.jpf.symbc.sequences.SequenceChoiceGenerator;
@@ -36,10 +49,17 @@ public class TrieGuidanceListener extends ListenerAdapter {
     public int numberOfAdditionalDecisionSteps;
     int decisionCounter = -1;
     int maximumNumberOfNewFilesPerRun;
+    int numberOfNewFiles = 0;
     boolean finishedComplete = true;
 
     boolean stayAtNode = false;
 
+    boolean learnUnsatCores;
+
+    ModelEnumerator modelEnumerator;
+
+    LocalSearchSolver localSearchSolver;
+
     BlockingQueue<Pair<PathCondition, Map<String, Object>>> pcAndSolutionQueue;
 
     /**
@@ -52,6 +72,12 @@ public class TrieGuidanceListener extends ListenerAdapter {
 
     Mode executionMode; // Stores the current execution mode.
 
+    /* Time spent in BSE mode and in the solver in nanoseconds, see getBSETime and getSolverTime. */
+    long bseStartTime;
+    long bseTime = 0;
+    long solverTime = 0;
+    long solverTimeInBSE = 0;
+
     /**
      * @param config
      *            - JPF Config
@@ -61,16 +87,31 @@ public class TrieGuidanceListener extends ListenerAdapter {
      *            - trie data structure that guides the execution
      * @param numberOfAdditionalDecisionSteps
      *            - maximum number of additional decisions after identifying new trie node
+     * @param maximumNumberOfNewFilesPerRun
+     *            - number of solved path conditions after which the run is stopped, 0 means no limit
+     * @param pcAndSolutionQueue
+     *            - queue for the solved path conditions
+     * @param learnUnsatCores
+     *            - whether unsat cores should be extracted for unsatisfiable path conditions
+     * @param modelEnumerator
+     *            - generates additional models for each solved path condition, null if only one model is needed
+     * @param localSearchSolver
+     *            - replaces or complements the decision procedure of SPF, null if only SPF should be used
      */
     public TrieGuidanceListener(Config config, JPF jpf, Trie trie, int numberOfAdditionalDecisionSteps,
-            BlockingQueue<Pair<PathCondition, Map<String, Object>>> pcAndSolutionQueue) {
+            int maximumNumberOfNewFilesPerRun, BlockingQueue<Pair<PathCondition, Map<String, Object>>> pcAndSolutionQueue, boolean learnUnsatCores,
+            ModelEnumerator modelEnumerator, LocalSearchSolver localSearchSolver) {
         if (trie != null && trie.getRoot() != null) {
             this.trie = trie;
             this.cur = trie.getRoot();
             this.executionMode = Mode.REPLAY;
             PathCondition.setReplay(true);
             this.numberOfAdditionalDecisionSteps = numberOfAdditionalDecisionSteps;
+            this.maximumNumberOfNewFilesPerRun = maximumNumberOfNewFilesPerRun;
             this.pcAndSolutionQueue = pcAndSolutionQueue;
+            this.learnUnsatCores = learnUnsatCores;
+            this.modelEnumerator = modelEnumerator;
+            this.localSearchSolver = localSearchSolver;
         }
     }
 
@@ -167,16 +208,22 @@ public class TrieGuidanceListener extends ListenerAdapter {
                     if (pc == null || search.getVM().getSystemState().isIgnored()) {
                         // unsatisfiable constraint
                         cur.setType(TrieNodeType.UNSAT_NODE);
+                    } else if (trie.getAnalyzer().isKnownInfeasible(cur, pc)) {
+                        // pc contains a learned unsat core, so there is no need to solve it again
+                        cur.setType(TrieNodeType.UNSAT_NODE);
+                        search.requestBacktrack();
+                        return;
                     }
 
                     if (numberOfAdditionalDecisionSteps > 0) {
                         executionMode = Mode.BOUNDED_SYMBOLIC_EXECUTION;
+                        bseStartTime = System.nanoTime();
                         PathCondition.setReplay(false);
                         decisionCounter = 0;
                     } else {
                         // Decision Limit is reached. Store the current PC.
                         if (cur.getType() != TrieNodeType.UNSAT_NODE) {
-                            handleNewPathCondition(pc, cur, currentPCChoiceGenerator.isDone());
+                            handleNewPathCondition(pc, cur, currentPCChoiceGenerator);
                             search.requestBacktrack();
                         }
                     }
@@ -219,8 +266,7 @@ public class TrieGuidanceListener extends ListenerAdapter {
                         // Only collect path conditions when we are in the mode SYMBOLIC_EXECUTION (i.e.
                         // we are exploring new nodes) and we backtracked from a node without children
                         // (final node) and this node is satisfiable. -> only if it is a "new" node
-                        handleNewPathCondition(currentChoiceGenerator.getCurrentPC(), cur,
-                                currentChoiceGenerator.isDone());
+                        handleNewPathCondition(currentChoiceGenerator.getCurrentPC(), cur, currentChoiceGenerator);
                     }
                 }
             }
@@ -237,6 +283,7 @@ public class TrieGuidanceListener extends ListenerAdapter {
                 decisionCounter--;
                 if (decisionCounter == -1) {
                     executionMode = Mode.REPLAY;
+                    bseTime += System.nanoTime() - bseStartTime;
                     PathCondition.setReplay(true);
                 }
             }
@@ -248,32 +295,138 @@ public class TrieGuidanceListener extends ListenerAdapter {
         }
     }
 
-    private void handleNewPathCondition(PathCondition pc, TrieNode node, boolean choiceGeneratorIsFinished) {
+    private void handleNewPathCondition(PathCondition pc, TrieNode node, PCChoiceGenerator choiceGenerator) {
+        boolean choiceGeneratorIsFinished = choiceGenerator.isDone();
+
         // Solve PC. Reset isReplay to false during satisfiability check, otherwise the
         // PathCondition will always return true.
         boolean isReplay = PathCondition.isReplay;
         PathCondition.setReplay(false);
-        Map<String, Object> solution = pc.solveWithValuation();
+        long solverStartTime = System.nanoTime();
+        SolverResult result = localSearchSolver != null ? localSearchSolver.solveWithValuation(pc)
+                : SolverResult.solveWithDecisionProcedure(pc);
+        long time = System.nanoTime() - solverStartTime;
+        Metrics.recordSolverCall(time);
+        PhaseProfiler.record(Phase.SOLVE, time);
+        solverTime += time;
+        if (Mode.BOUNDED_SYMBOLIC_EXECUTION.equals(executionMode)) {
+            solverTimeInBSE += time;
+        }
         PathCondition.setReplay(isReplay);
-        if (solution == null || solution.isEmpty()) {
+        if (result.isUnsat()) {
             node.setType(TrieNodeType.UNSAT_NODE);
+            if (learnUnsatCores) {
+                learnUnsatCore(pc, node, choiceGenerator);
+            }
+            return;
+        }
+        if (!result.isSat()) {
+            // Unknown is not unsat: the node is not pruned, and no core is learned from it.
+            System.out.println("Solver result unknown, no input for node: " + node.getId());
             return;
         }
+        Map<String, Object> solution = result.getModel();
         try {
             pcAndSolutionQueue.put(new Pair<PathCondition, Map<String, Object>>(pc, solution));
 
+            // Additional models share the same pc object, which is used to attribute the generated files to it.
+            if (modelEnumerator != null) {
+                List<Map<String, Object>> additionalSolutions = modelEnumerator.enumerateAdditionalModels(pc,
+                        solution);
+                for (Map<String, Object> additionalSolution : additionalSolutions) {
+                    // Do not block if the queue is full, the additional models are optional.
+                    if (!pcAndSolutionQueue.offer(new Pair<>(pc, additionalSolution))) {
+                        break;
+                    }
+                }
+            }
+
             /*
-             * Since for the hashtable subject the solving takes very long it is better abort jpf if something was found
-             * to directly try to export it.
+             * Since for the hashtable subject the solving takes very long it is better abort jpf if enough was found
+             * to directly try to export it. Otherwise the remaining siblings are explored in the same run and their
+             * solutions are streamed to the queue.
              */
-            // Put parent back in queue if not finished
-            if (!choiceGeneratorIsFinished) {
-                node.getParent().resetComplete();
-                JPF.exitQuietly(); // This "hard" exit is only done if the choice generator is not finished yet.
+            numberOfNewFiles++;
+            if (maximumNumberOfNewFilesPerRun > 0 && numberOfNewFiles >= maximumNumberOfNewFilesPerRun) {
+                // Put parent back in queue if not finished
+                if (!choiceGeneratorIsFinished) {
+                    node.getParent().resetComplete();
+                    JPF.exitQuietly(); // This "hard" exit is only done if the choice generator is not finished yet.
+                }
             }
 
         } catch (InterruptedException e) {
             e.printStackTrace();
         }
     }
+
+    /**
+     * @return nanoseconds spent in the bounded symbolic execution mode, without the solver
+     */
+    public long getBSETime() {
+        long time = bseTime;
+        if (Mode.BOUNDED_SYMBOLIC_EXECUTION.equals(executionMode)) {
+            // The run was stopped during BSE.
+            time += System.nanoTime() - bseStartTime;
+        }
+        return time - solverTimeInBSE;
+    }
+
+    /**
+     * @return nanoseconds spent in the solver for new path conditions
+     */
+    public long getSolverTime() {
+        return solverTime;
+    }
+
+    /**
+     * Extracts an unsat core for the given unsatisfiable path condition and reports it to the analyzer. The constraints
+     * of the path condition are mapped to the steps on the path to the given node by means of the path conditions
+     * stored in the choice generators of the current execution.
+     */
+    private void learnUnsatCore(PathCondition pc, TrieNode node, PCChoiceGenerator choiceGenerator) {
+
+        // Collect the steps and the number of constraints per step, starting with the step to the given node.
+        List<Long> steps = new ArrayList<>();
+        List<Integer> numberOfConstraintsPerStep = new ArrayList<>();
+        int numberOfConstraints = pc.count();
+        ChoiceGenerator<?> cg = choiceGenerator.getPreviousChoiceGenerator();
+        TrieNode current = node;
+        while (current.getParent() != null) {
+            steps.add(UnsatCoreIndex.getStep(current));
+
+            // Find the choice generator of the parent node.
+            int numberOfConstraintsForParent = 0;
+            if (current.getParent().getParent() != null) {
+                while (cg != null && !(cg instanceof PCChoiceGenerator && ((PCChoiceGenerator) cg).getOffset() != 0)) {
+                    cg = cg.getPreviousChoiceGenerator();
+                }
+                if (cg == null || ((PCChoiceGenerator) cg).getCurrentPC() == null) {
+                    return;
+                }
+                numberOfConstraintsForParent = ((PCChoiceGenerator) cg).getCurrentPC().count();
+                cg = cg.getPreviousChoiceGenerator();
+            }
+
+            numberOfConstraintsPerStep.add(numberOfConstraints - numberOfConstraintsForParent);
+            numberOfConstraints = numberOfConstraintsForParent;
+            current = current.getParent();
+        }
+
+        List<List<Constraint>> groups = UnsatCoreExtractor.groupConstraintsBySteps(pc, numberOfConstraintsPerStep);
+        List<Integer> coreIndices = UnsatCoreExtractor.extractCore(groups);
+        if (coreIndices == null) {
+            return;
+        }
+        // The constraints are stored with the steps, since a step in a loop adds a different constraint each time.
+        Set<Long> coreSteps = new HashSet<>();
+        Set<String> coreConstraints = new HashSet<>();
+        for (int index : coreIndices) {
+            coreSteps.add(steps.get(index));
+            for (Constraint constraint : groups.get(index)) {
+                coreConstraints.add(UnsatCoreIndex.getConstraintKey(constraint));
+            }
+        }
+        trie.getAnalyzer().addUnsatCore(coreSteps, coreConstraints);
+    }
 }
@@ -0,0 +1,162 @@
+package edu.cmu.sv.badger.monitor;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import edu.cmu.sv.badger.monitor.Metrics.ExecutionMode;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+
+/**
+ * Reports the Metrics and forwards the control operations to the CampaignControl of SymExe.
+ */
+public class BadgerMonitor implements BadgerMonitorMBean {
+
+    public static final String OBJECT_NAME = "edu.cmu.sv.badger:type=BadgerMonitor";
+
+    private final CampaignControl control;
+
+    public BadgerMonitor(CampaignControl control) {
+        this.control = control;
+    }
+
+    /**
+     * Registers the monitor at the platform MBean server.
+     */
+    public void register() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName name = new ObjectName(OBJECT_NAME);
+            if (server.isRegistered(name)) {
+                server.unregisterMBean(name);
+            }
+            server.registerMBean(this, name);
+        } catch (JMException e) {
+            throw new RuntimeException("[ERROR] Unable to register MBean: " + OBJECT_NAME, e);
+        }
+    }
+
+    @Override
+    public long getRegularNodes() {
+        return Metrics.getTrieNodeCount(TrieNodeType.REGULAR_NODE);
+    }
+
+    @Override
+    public long getFrontierNodes() {
+        return Metrics.getTrieNodeCount(TrieNodeType.FRONTIER_NODE);
+    }
+
+    @Override
+    public long getUnsatNodes() {
+        return Metrics.getTrieNodeCount(TrieNodeType.UNSAT_NODE);
+    }
+
+    @Override
+    public long getLeafNodes() {
+        return Metrics.getTrieNodeCount(TrieNodeType.LEAF_NODE);
+    }
+
+    @Override
+    public int getAnalyzerQueueLength() {
+        return Metrics.getAnalyzerQueueLength();
+    }
+
+    @Override
+    public int getSolutionQueueDepth() {
+        return Metrics.getSolutionQueueDepth();
+    }
+
+    @Override
+    public long getImportExecutions() {
+        return Metrics.getJPFExecutions(ExecutionMode.IMPORT).getTotal();
+    }
+
+    @Override
+    public long getExportExecutions() {
+        return Metrics.getJPFExecutions(ExecutionMode.EXPORT).getTotal();
+    }
+
+    @Override
+    public long getBSEExecutions() {
+        return Metrics.getJPFExecutions(ExecutionMode.BSE).getTotal();
+    }
+
+    @Override
+    public double getImportExecutionsPerSecond() {
+        return Metrics.getJPFExecutions(ExecutionMode.IMPORT).getRatePerSecond();
+    }
+
+    @Override
+    public double getExportExecutionsPerSecond() {
+        return Metrics.getJPFExecutions(ExecutionMode.EXPORT).getRatePerSecond();
+    }
+
+    @Override
+    public double getBSEExecutionsPerSecond() {
+        return Metrics.getJPFExecutions(ExecutionMode.BSE).getRatePerSecond();
+    }
+
+    @Override
+    public long getSolverCalls() {
+        return Metrics.getSolverLatency().getCount();
+    }
+
+    @Override
+    public double getSolverLatencyMeanMillis() {
+        long count = Metrics.getSolverLatency().getCount();
+        return count == 0 ? 0.0 : Metrics.getSolverLatency().getSumSeconds() * 1000 / count;
+    }
+
+    @Override
+    public double getSolverLatencyMaxMillis() {
+        return Metrics.getSolverLatency().getMaxSeconds() * 1000;
+    }
+
+    @Override
+    public Double getBestCost() {
+        return Metrics.getBestCost();
+    }
+
+    @Override
+    public long getExports() {
+        return Metrics.getExports().getTotal();
+    }
+
+    @Override
+    public double getExportsPerSecond() {
+        return Metrics.getExports().getRatePerSecond();
+    }
+
+    @Override
+    public boolean isPaused() {
+        return control.isPaused();
+    }
+
+    @Override
+    public void pause() {
+        control.pause();
+    }
+
+    @Override
+    public void resume() {
+        control.resume();
+    }
+
+    @Override
+    public int getIterations() {
+        return control.getIterations();
+    }
+
+    @Override
+    public void setIterations(int iterations) {
+        control.setIterations(iterations);
+    }
+
+    @Override
+    public void checkpoint() {
+        control.requestCheckpoint();
+    }
+
+}
@@ -0,0 +1,61 @@
+package edu.cmu.sv.badger.monitor;
+
+/**
+ * JMX interface of a running SymExe, registered as edu.cmu.sv.badger:type=BadgerMonitor.
+ */
+public interface BadgerMonitorMBean {
+
+    /* Trie */
+    long getRegularNodes();
+
+    long getFrontierNodes();
+
+    long getUnsatNodes();
+
+    long getLeafNodes();
+
+    int getAnalyzerQueueLength();
+
+    int getSolutionQueueDepth();
+
+    /* JPF executions, the rates are averaged over the last minute */
+    long getImportExecutions();
+
+    long getExportExecutions();
+
+    long getBSEExecutions();
+
+    double getImportExecutionsPerSecond();
+
+    double getExportExecutionsPerSecond();
+
+    double getBSEExecutionsPerSecond();
+
+    /* Solver */
+    long getSolverCalls();
+
+    double getSolverLatencyMeanMillis();
+
+    double getSolverLatencyMaxMillis();
+
+    /* Results */
+    Double getBestCost();
+
+    long getExports();
+
+    double getExportsPerSecond();
+
+    /* Control */
+    boolean isPaused();
+
+    void pause();
+
+    void resume();
+
+    int getIterations();
+
+    void setIterations(int iterations);
+
+    void checkpoint();
+
+}
@@ -0,0 +1,69 @@
+package edu.cmu.sv.badger.monitor;
+
+/**
+ * Control requests for a running SymExe: pause and resume, the number of iterations per step and checkpoints. The
+ * requests are set by the monitoring threads and processed by SymExe between its iterations, so that a pause never
+ * interrupts a JPF run.
+ */
+public class CampaignControl {
+
+    private boolean isPaused = false;
+    private boolean isCheckpointRequested = false;
+    private volatile int iterations;
+
+    public CampaignControl(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public synchronized void pause() {
+        isPaused = true;
+        notifyAll();
+    }
+
+    public synchronized void resume() {
+        isPaused = false;
+        notifyAll();
+    }
+
+    public synchronized boolean isPaused() {
+        return isPaused;
+    }
+
+    public synchronized void requestCheckpoint() {
+        isCheckpointRequested = true;
+        notifyAll();
+    }
+
+    /**
+     * @return true if a checkpoint was requested since the last call
+     */
+    public synchronized boolean takeCheckpointRequest() {
+        boolean res = isCheckpointRequested;
+        isCheckpointRequested = false;
+        return res;
+    }
+
+    /**
+     * Blocks while SymExe is paused and there is no checkpoint request.
+     */
+    public synchronized void awaitRequest() throws InterruptedException {
+        while (isPaused && !isCheckpointRequested) {
+            wait();
+        }
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+
+    /**
+     * Changes the number of iterations, also for the current step if it did not reach the new number yet.
+     */
+    public void setIterations(int iterations) {
+        if (iterations < 1) {
+            throw new RuntimeException("[ERROR] Number of iterations must be positive: " + iterations);
+        }
+        this.iterations = iterations;
+    }
+
+}
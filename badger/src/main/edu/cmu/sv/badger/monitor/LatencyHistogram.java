@@ -0,0 +1,112 @@
+package edu.cmu.sv.badger.monitor;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Latency histogram with fixed bucket bounds, which can be updated concurrently without locking. The counts are
+ * reported cumulative like in the Prometheus exposition format, i.e. bucket i counts all observations up to bound i.
+ * With logarithmic bounds, the percentiles have a bounded relative error like in HdrHistogram.
+ */
+public class LatencyHistogram {
+
+    /* Upper bounds of the buckets in seconds, the last bucket (+Inf) is implicit. */
+    public static final double[] DEFAULT_BOUNDS = { 0.0001, 0.0005, 0.001, 0.005, 0.01, 0.05, 0.1, 0.5, 1, 5, 10,
+            60 };
+
+    private final double[] bounds;
+    private final long[] boundsNanos;
+    private final AtomicLongArray counts;
+    private final AtomicLong sumNanos = new AtomicLong();
+    private final AtomicLong maxNanos = new AtomicLong();
+
+    public LatencyHistogram(double[] bounds) {
+        this.bounds = bounds.clone();
+        this.boundsNanos = new long[bounds.length];
+        for (int i = 0; i < bounds.length; i++) {
+            boundsNanos[i] = (long) (bounds[i] * 1e9);
+        }
+        this.counts = new AtomicLongArray(bounds.length + 1);
+    }
+
+    /**
+     * Creates a histogram with logarithmic bounds between the minimum and maximum.
+     * 
+     * @param minSeconds
+     *            - first bound
+     * @param maxSeconds
+     *            - last bound, larger values are only counted in the +Inf bucket
+     * @param bucketsPerOctave
+     *            - number of buckets per doubling, the relative error of the percentiles is 2^(1/bucketsPerOctave)-1
+     */
+    public static LatencyHistogram logarithmic(double minSeconds, double maxSeconds, int bucketsPerOctave) {
+        int n = (int) Math.ceil(Math.log(maxSeconds / minSeconds) / Math.log(2) * bucketsPerOctave) + 1;
+        double[] bounds = new double[n];
+        for (int i = 0; i < n; i++) {
+            bounds[i] = minSeconds * Math.pow(2, (double) i / bucketsPerOctave);
+        }
+        return new LatencyHistogram(bounds);
+    }
+
+    public void record(long nanos) {
+        int i = Arrays.binarySearch(boundsNanos, nanos);
+        counts.incrementAndGet(i >= 0 ? i : -i - 1);
+        sumNanos.addAndGet(nanos);
+        maxNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    public double[] getBounds() {
+        return bounds.clone();
+    }
+
+    /**
+     * @return cumulative counts for all bounds, followed by the total count (+Inf)
+     */
+    public long[] getCumulativeCounts() {
+        long[] res = new long[counts.length()];
+        long sum = 0;
+        for (int i = 0; i < res.length; i++) {
+            sum += counts.get(i);
+            res[i] = sum;
+        }
+        return res;
+    }
+
+    public long getCount() {
+        long sum = 0;
+        for (int i = 0; i < counts.length(); i++) {
+            sum += counts.get(i);
+        }
+        return sum;
+    }
+
+    public double getSumSeconds() {
+        return sumNanos.get() / 1e9;
+    }
+
+    public double getMaxSeconds() {
+        return maxNanos.get() / 1e9;
+    }
+
+    /**
+     * @param quantile
+     *            - value between 0 and 1
+     * @return upper bound of the bucket that contains the quantile (at most the maximum), 0 if there is no observation
+     */
+    public double getPercentileSeconds(double quantile) {
+        long[] cumulativeCounts = getCumulativeCounts();
+        long total = cumulativeCounts[cumulativeCounts.length - 1];
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        for (int i = 0; i < bounds.length; i++) {
+            if (cumulativeCounts[i] >= rank) {
+                return Math.min(bounds[i], getMaxSeconds());
+            }
+        }
+        return getMaxSeconds();
+    }
+
+}
@@ -0,0 +1,111 @@
+package edu.cmu.sv.badger.monitor;
+
+import java.util.function.IntSupplier;
+
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+
+/**
+ * Live metrics of the running SymExe, which are reported by the BadgerMonitor MBean and the Prometheus endpoint.
+ * Counters are updated where the events happen, the trie gauges are published by the SymExe thread between its steps,
+ * so that the reporting threads never access the trie itself.
+ */
+public class Metrics {
+
+    public static enum ExecutionMode {
+        IMPORT, EXPORT, BSE;
+    }
+
+    private static final RateCounter[] jpfExecutions = new RateCounter[ExecutionMode.values().length];
+    static {
+        for (int i = 0; i < jpfExecutions.length; i++) {
+            jpfExecutions[i] = new RateCounter();
+        }
+    }
+    private static final LatencyHistogram solverLatency = new LatencyHistogram(LatencyHistogram.DEFAULT_BOUNDS);
+    private static final RateCounter exports = new RateCounter();
+
+    private static volatile long[] trieNodeCounts = new long[TrieNodeType.values().length];
+    private static volatile int trieMaximumDepth = 0;
+    private static volatile long trieEstimatedBytes = 0;
+    private static volatile int analyzerQueueLength = 0;
+    private static volatile IntSupplier solutionQueueDepth = () -> 0;
+    private static volatile Double bestCost = null;
+
+    public static void recordJPFExecution(ExecutionMode mode) {
+        jpfExecutions[mode.ordinal()].increment();
+    }
+
+    public static void recordSolverCall(long nanos) {
+        solverLatency.record(nanos);
+    }
+
+    public static void recordExport() {
+        exports.increment();
+    }
+
+    public static void recordBestCost(Double cost) {
+        if (cost != null) {
+            bestCost = cost;
+        }
+    }
+
+    public static void setSolutionQueue(IntSupplier depth) {
+        solutionQueueDepth = depth;
+    }
+
+    /**
+     * Takes the node counts of the trie and the queue length of the analyzer. Must be called by the thread that
+     * modifies the trie.
+     */
+    public static void updateTrie(Trie trie) {
+        long[] counts = new long[TrieNodeType.values().length];
+        for (TrieNodeType type : TrieNodeType.values()) {
+            counts[type.ordinal()] = trie.getCounters().getNumberOfNodes(type);
+        }
+        trieNodeCounts = counts;
+        trieMaximumDepth = trie.getCounters().getMaximumDepth();
+        trieEstimatedBytes = trie.getCounters().getEstimatedBytes();
+        analyzerQueueLength = trie.getAnalyzer().getQueueLength();
+    }
+
+    public static RateCounter getJPFExecutions(ExecutionMode mode) {
+        return jpfExecutions[mode.ordinal()];
+    }
+
+    public static LatencyHistogram getSolverLatency() {
+        return solverLatency;
+    }
+
+    public static RateCounter getExports() {
+        return exports;
+    }
+
+    public static long getTrieNodeCount(TrieNodeType type) {
+        return trieNodeCounts[type.ordinal()];
+    }
+
+    public static int getTrieMaximumDepth() {
+        return trieMaximumDepth;
+    }
+
+    public static long getTrieEstimatedBytes() {
+        return trieEstimatedBytes;
+    }
+
+    public static int getAnalyzerQueueLength() {
+        return analyzerQueueLength;
+    }
+
+    public static int getSolutionQueueDepth() {
+        return solutionQueueDepth.getAsInt();
+    }
+
+    /**
+     * @return cost of the last new highscore, or null if there was none yet
+     */
+    public static Double getBestCost() {
+        return bestCost;
+    }
+
+}
@@ -0,0 +1,81 @@
+package edu.cmu.sv.badger.monitor;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * JDK Flight Recorder event for one timed phase, only used by the PhaseProfiler if the JDK supports JFR. The event type
+ * is created with jdk.jfr.EventFactory by reflection, so that Badger compiles and runs on a JDK 8 without the jdk.jfr
+ * API. It has the name edu.cmu.sv.badger.Phase and the fields phase and phaseDuration (nanoseconds).
+ */
+final class PhaseEvent {
+
+    private final Object eventFactory;
+    private final Method newEvent;
+    private final Method isEnabled;
+    private final Method set;
+    private final Method commit;
+
+    private PhaseEvent(Object eventFactory, Method newEvent, Method isEnabled, Method set, Method commit) {
+        this.eventFactory = eventFactory;
+        this.newEvent = newEvent;
+        this.isEnabled = isEnabled;
+        this.set = set;
+        this.commit = commit;
+    }
+
+    /**
+     * @return event type, or null if the JDK does not support JFR
+     */
+    static PhaseEvent create() {
+        try {
+            Class<?> annotationElementClass = Class.forName("jdk.jfr.AnnotationElement");
+            Constructor<?> annotationElement = annotationElementClass.getConstructor(Class.class, Object.class);
+            Class<?> valueDescriptorClass = Class.forName("jdk.jfr.ValueDescriptor");
+            Constructor<?> valueDescriptor = valueDescriptorClass.getConstructor(Class.class, String.class,
+                    List.class);
+
+            List<Object> eventAnnotations = Arrays.asList(
+                    annotationElement.newInstance(Class.forName("jdk.jfr.Name"), "edu.cmu.sv.badger.Phase"),
+                    annotationElement.newInstance(Class.forName("jdk.jfr.Label"), "Badger Phase"),
+                    annotationElement.newInstance(Class.forName("jdk.jfr.Category"), new String[] { "Badger" }),
+                    annotationElement.newInstance(Class.forName("jdk.jfr.Description"),
+                            "Duration of one phase of a SymExe iteration"),
+                    annotationElement.newInstance(Class.forName("jdk.jfr.StackTrace"), false));
+            List<Object> fields = Arrays.asList(
+                    valueDescriptor.newInstance(String.class, "phase", Collections
+                            .singletonList(annotationElement.newInstance(Class.forName("jdk.jfr.Label"), "Phase"))),
+                    valueDescriptor.newInstance(long.class, "phaseDuration",
+                            Arrays.asList(
+                                    annotationElement.newInstance(Class.forName("jdk.jfr.Label"), "Phase Duration"),
+                                    annotationElement.newInstance(Class.forName("jdk.jfr.Timespan"), "NANOSECONDS"))));
+
+            Class<?> eventFactoryClass = Class.forName("jdk.jfr.EventFactory");
+            Object eventFactory = eventFactoryClass.getMethod("create", List.class, List.class).invoke(null,
+                    eventAnnotations, fields);
+            Class<?> eventClass = Class.forName("jdk.jfr.Event");
+            return new PhaseEvent(eventFactory, eventFactoryClass.getMethod("newEvent"),
+                    eventClass.getMethod("isEnabled"), eventClass.getMethod("set", int.class, Object.class),
+                    eventClass.getMethod("commit"));
+        } catch (ReflectiveOperationException | LinkageError | RuntimeException e) {
+            return null;
+        }
+    }
+
+    void emit(PhaseProfiler.Phase phase, long nanos) {
+        try {
+            Object event = newEvent.invoke(eventFactory);
+            if ((Boolean) isEnabled.invoke(event)) {
+                set.invoke(event, 0, phase.name());
+                set.invoke(event, 1, nanos);
+                commit.invoke(event);
+            }
+        } catch (ReflectiveOperationException e) {
+            System.out.println("[WARNING] Unable to emit JFR event: " + e);
+        }
+    }
+
+}
@@ -0,0 +1,87 @@
+package edu.cmu.sv.badger.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Always-on timers for the phases of a SymExe iteration. Each measured phase is recorded in a logarithmic histogram
+ * over the whole run, summed up for the current iteration and, if the JDK supports it, emitted as JDK Flight Recorder
+ * event (only recorded if a recording is active).
+ *
+ * The phases may overlap: in the streaming mode the inputs are generated while JPF is still running.
+ */
+public class PhaseProfiler {
+
+    public static enum Phase {
+        ANALYZE, // pick the next nodes in the trie
+        REPLAY, // JPF run on the trie paths, without BSE and solver
+        BSE, // JPF run beyond the trie, without solver
+        SOLVE, // solving one path condition
+        GENERATE, // generating one input
+        PROCESS, // processing inputs with the IOUtils
+        SYMCRETE, // one symcrete JPF run for an imported or generated input
+        EXPORT; // moving one input to the export directory
+    }
+
+    private static final int NUMBER_OF_PHASES = Phase.values().length;
+
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[NUMBER_OF_PHASES];
+    static {
+        for (int i = 0; i < NUMBER_OF_PHASES; i++) {
+            // 1 microsecond up to 1 hour with a relative error of 9%
+            histograms[i] = LatencyHistogram.logarithmic(1e-6, 3600, 8);
+        }
+    }
+    private static final AtomicLongArray iterationNanos = new AtomicLongArray(NUMBER_OF_PHASES);
+    private static volatile long iterationStartTime = System.nanoTime();
+
+    /* null if the JDK does not support JFR */
+    private static final PhaseEvent jfrEvent = PhaseEvent.create();
+
+    /**
+     * @return start time for {@link #stop(Phase, long)}
+     */
+    public static long start() {
+        return System.nanoTime();
+    }
+
+    /**
+     * Records the time since the given start time for the phase.
+     */
+    public static void stop(Phase phase, long startTime) {
+        record(phase, System.nanoTime() - startTime);
+    }
+
+    public static void record(Phase phase, long nanos) {
+        histograms[phase.ordinal()].record(nanos);
+        iterationNanos.addAndGet(phase.ordinal(), nanos);
+        if (jfrEvent != null) {
+            jfrEvent.emit(phase, nanos);
+        }
+    }
+
+    /**
+     * Starts a new iteration, the phase times that were recorded since the last summary are counted for it.
+     */
+    public static void beginIteration() {
+        iterationStartTime = System.nanoTime();
+    }
+
+    /**
+     * Returns the wall-clock time of the iteration and the summed times of each phase, and resets the sums.
+     *
+     * @return nanoseconds, index 0 is the total time and index i + 1 the time of the phase with ordinal i
+     */
+    public static long[] endIteration() {
+        long[] res = new long[NUMBER_OF_PHASES + 1];
+        res[0] = System.nanoTime() - iterationStartTime;
+        for (int i = 0; i < NUMBER_OF_PHASES; i++) {
+            res[i + 1] = iterationNanos.getAndSet(i, 0);
+        }
+        return res;
+    }
+
+    public static LatencyHistogram getHistogram(Phase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+}
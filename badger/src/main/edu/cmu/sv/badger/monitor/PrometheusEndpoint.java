@@ -0,0 +1,155 @@
+package edu.cmu.sv.badger.monitor;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.cmu.sv.badger.monitor.Metrics.ExecutionMode;
+import edu.cmu.sv.badger.monitor.PhaseProfiler.Phase;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+
+/**
+ * Serves the Metrics at http://localhost:port/metrics in the Prometheus text format. The server is only bound to the
+ * loopback address and is read-only, the control operations are only available via JMX.
+ */
+public class PrometheusEndpoint {
+
+    public static final String PATH = "/metrics";
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    private static final double[] QUANTILES = { 0.5, 0.9, 0.99 };
+
+    private final CampaignControl control;
+    private final HttpServer server;
+
+    public PrometheusEndpoint(int port, CampaignControl control) {
+        this.control = control;
+        try {
+            this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to start metrics endpoint on port: " + port, e);
+        }
+        this.server.createContext(PATH, this::handle);
+    }
+
+    public void start() {
+        server.start();
+        System.out.println("[SPF] metrics available at http://localhost:" + server.getAddress().getPort() + PATH);
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!exchange.getRequestMethod().equals("GET")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream os = exchange.getResponseBody()) {
+                os.write(body);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    String render() {
+        StringBuilder sb = new StringBuilder();
+
+        header(sb, "badger_trie_nodes", "gauge", "Number of trie nodes by type.");
+        for (TrieNodeType type : TrieNodeType.values()) {
+            String label = type.name().replace("_NODE", "").toLowerCase(Locale.ROOT);
+            sample(sb, "badger_trie_nodes{type=\"" + label + "\"}", Metrics.getTrieNodeCount(type));
+        }
+        header(sb, "badger_trie_max_depth", "gauge", "Maximum depth of the trie.");
+        sample(sb, "badger_trie_max_depth", Metrics.getTrieMaximumDepth());
+        header(sb, "badger_trie_estimated_bytes", "gauge", "Estimated memory of the trie nodes in bytes.");
+        sample(sb, "badger_trie_estimated_bytes", Metrics.getTrieEstimatedBytes());
+        header(sb, "badger_analyzer_queue_length", "gauge", "Number of nodes in the priority queue of the analyzer.");
+        sample(sb, "badger_analyzer_queue_length", Metrics.getAnalyzerQueueLength());
+        header(sb, "badger_solution_queue_depth", "gauge", "Number of solved path conditions waiting for generation.");
+        sample(sb, "badger_solution_queue_depth", Metrics.getSolutionQueueDepth());
+
+        header(sb, "badger_jpf_executions_total", "counter", "Number of JPF executions by mode.");
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            sample(sb, "badger_jpf_executions_total{mode=\"" + mode.name().toLowerCase(Locale.ROOT) + "\"}",
+                    Metrics.getJPFExecutions(mode).getTotal());
+        }
+        header(sb, "badger_jpf_executions_per_second", "gauge",
+                "JPF executions per second by mode, averaged over the last minute.");
+        for (ExecutionMode mode : ExecutionMode.values()) {
+            sample(sb, "badger_jpf_executions_per_second{mode=\"" + mode.name().toLowerCase(Locale.ROOT) + "\"}",
+                    Metrics.getJPFExecutions(mode).getRatePerSecond());
+        }
+
+        LatencyHistogram solverLatency = Metrics.getSolverLatency();
+        header(sb, "badger_solver_call_seconds", "histogram", "Latency of solver calls for new path conditions.");
+        double[] bounds = solverLatency.getBounds();
+        long[] counts = solverLatency.getCumulativeCounts();
+        for (int i = 0; i < bounds.length; i++) {
+            sample(sb, "badger_solver_call_seconds_bucket{le=\"" + bounds[i] + "\"}", counts[i]);
+        }
+        sample(sb, "badger_solver_call_seconds_bucket{le=\"+Inf\"}", counts[bounds.length]);
+        sample(sb, "badger_solver_call_seconds_sum", solverLatency.getSumSeconds());
+        sample(sb, "badger_solver_call_seconds_count", counts[bounds.length]);
+
+        header(sb, "badger_phase_seconds", "summary", "Duration of the phases of SymExe iterations.");
+        for (Phase phase : Phase.values()) {
+            LatencyHistogram histogram = PhaseProfiler.getHistogram(phase);
+            String label = "phase=\"" + phase.name().toLowerCase(Locale.ROOT) + "\"";
+            for (double quantile : QUANTILES) {
+                sample(sb, "badger_phase_seconds{" + label + ",quantile=\"" + quantile + "\"}",
+                        histogram.getPercentileSeconds(quantile));
+            }
+            sample(sb, "badger_phase_seconds_sum{" + label + "}", histogram.getSumSeconds());
+            sample(sb, "badger_phase_seconds_count{" + label + "}", histogram.getCount());
+        }
+
+        Double bestCost = Metrics.getBestCost();
+        header(sb, "badger_best_cost", "gauge", "Cost of the last new highscore, NaN if there is none yet.");
+        sample(sb, "badger_best_cost", bestCost != null ? bestCost : Double.NaN);
+        header(sb, "badger_exports_total", "counter", "Number of exported inputs.");
+        sample(sb, "badger_exports_total", Metrics.getExports().getTotal());
+        header(sb, "badger_exports_per_second", "gauge", "Exported inputs per second, averaged over the last minute.");
+        sample(sb, "badger_exports_per_second", Metrics.getExports().getRatePerSecond());
+
+        header(sb, "badger_paused", "gauge", "1 if SymExe is paused.");
+        sample(sb, "badger_paused", control.isPaused() ? 1 : 0);
+        header(sb, "badger_iterations", "gauge", "Number of SymExe iterations per step.");
+        sample(sb, "badger_iterations", control.getIterations());
+        return sb.toString();
+    }
+
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, long value) {
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, double value) {
+        sb.append(name).append(' ');
+        if (Double.isNaN(value)) {
+            sb.append("NaN");
+        } else if (Double.isInfinite(value)) {
+            sb.append(value > 0 ? "+Inf" : "-Inf");
+        } else {
+            sb.append(value);
+        }
+        sb.append('\n');
+    }
+
+}
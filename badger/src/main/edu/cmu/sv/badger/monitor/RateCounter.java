@@ -0,0 +1,48 @@
+package edu.cmu.sv.badger.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter that also keeps the counts of the last seconds in a ring buffer, to report the current rate instead of the
+ * average since the start.
+ */
+public class RateCounter {
+
+    /* Window for the rate in seconds. */
+    public static final int WINDOW_SEC = 60;
+
+    private final AtomicLong total = new AtomicLong();
+    private final AtomicLongArray counts = new AtomicLongArray(WINDOW_SEC);
+    private final AtomicLongArray seconds = new AtomicLongArray(WINDOW_SEC);
+
+    public void increment() {
+        total.incrementAndGet();
+        long second = System.currentTimeMillis() / 1000L;
+        int i = (int) (second % WINDOW_SEC);
+        long bucketSecond = seconds.get(i);
+        if (bucketSecond != second && seconds.compareAndSet(i, bucketSecond, second)) {
+            counts.set(i, 0);
+        }
+        counts.incrementAndGet(i);
+    }
+
+    public long getTotal() {
+        return total.get();
+    }
+
+    /**
+     * @return average number of increments per second within the last WINDOW_SEC seconds
+     */
+    public double getRatePerSecond() {
+        long now = System.currentTimeMillis() / 1000L;
+        long sum = 0;
+        for (int i = 0; i < WINDOW_SEC; i++) {
+            if (now - seconds.get(i) < WINDOW_SEC) {
+                sum += counts.get(i);
+            }
+        }
+        return (double) sum / WINDOW_SEC;
+    }
+
+}
@@ -0,0 +1,153 @@
+package edu.cmu.sv.badger.peer;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.cmu.sv.badger.io.InMemoryInputs;
+import gov.nasa.jpf.Config;
+import gov.nasa.jpf.annotation.MJI;
+import gov.nasa.jpf.vm.MJIEnv;
+
+/**
+ * Native peer for java.io.FileDescriptor that serves the virtual paths of InMemoryInputs from memory. All other files
+ * are handled by the default peer of jpf-core. It is only used if edu.cmu.sv.badger.peer is added to the
+ * peer_packages, see SymExe.
+ *
+ * Each native method is declared here (and not only inherited), because JPF only looks up the declared methods of a
+ * peer class.
+ */
+public class JPF_java_io_FileDescriptor extends gov.nasa.jpf.vm.JPF_java_io_FileDescriptor {
+
+    /* File descriptors of the default peer are indices in its content array, so they never reach this offset. */
+    private static final int VIRTUAL_FD_OFFSET = 1 << 24;
+
+    private static class VirtualFile {
+        final byte[] content;
+        int position = 0;
+
+        VirtualFile(byte[] content) {
+            this.content = content;
+        }
+    }
+
+    private final Map<Integer, VirtualFile> virtualFiles = new HashMap<>();
+    private int lastVirtualFd = VIRTUAL_FD_OFFSET - 1;
+
+    public JPF_java_io_FileDescriptor(Config conf) {
+        super(conf);
+    }
+
+    private VirtualFile getVirtualFile(MJIEnv env, int objref) {
+        int fd = env.getIntField(objref, "fd");
+        return fd >= VIRTUAL_FD_OFFSET ? virtualFiles.get(fd) : null;
+    }
+
+    @Override
+    @MJI
+    public int open__Ljava_lang_String_2I__I(MJIEnv env, int objref, int fnameRef, int mode) {
+        String fileName = env.getStringObject(fnameRef);
+        if (!InMemoryInputs.isVirtualPath(fileName)) {
+            return super.open__Ljava_lang_String_2I__I(env, objref, fnameRef, mode);
+        }
+        byte[] content = InMemoryInputs.get(fileName);
+        if (content == null) {
+            return -1; // results in FileNotFoundException
+        }
+        int fd = ++lastVirtualFd;
+        virtualFiles.put(fd, new VirtualFile(content));
+        return fd;
+    }
+
+    @Override
+    @MJI
+    public int read____I(MJIEnv env, int objref) {
+        VirtualFile file = getVirtualFile(env, objref);
+        if (file == null) {
+            return super.read____I(env, objref);
+        }
+        if (file.position >= file.content.length) {
+            return -1;
+        }
+        return file.content[file.position++] & 0xff;
+    }
+
+    @Override
+    @MJI
+    public int read___3BII__I(MJIEnv env, int objref, int bufref, int off, int len) {
+        VirtualFile file = getVirtualFile(env, objref);
+        if (file == null) {
+            return super.read___3BII__I(env, objref, bufref, off, len);
+        }
+        if (len == 0) {
+            return 0;
+        }
+        int n = Math.min(len, file.content.length - file.position);
+        if (n <= 0) {
+            return -1;
+        }
+        for (int i = 0; i < n; i++) {
+            env.setByteArrayElement(bufref, off + i, file.content[file.position++]);
+        }
+        return n;
+    }
+
+    @Override
+    @MJI
+    public long skip__J__J(MJIEnv env, int objref, long nBytes) {
+        VirtualFile file = getVirtualFile(env, objref);
+        if (file == null) {
+            return super.skip__J__J(env, objref, nBytes);
+        }
+        int n = (int) Math.max(0, Math.min(nBytes, file.content.length - file.position));
+        file.position += n;
+        return n;
+    }
+
+    @Override
+    @MJI
+    public int available____I(MJIEnv env, int objref) {
+        VirtualFile file = getVirtualFile(env, objref);
+        if (file == null) {
+            return super.available____I(env, objref);
+        }
+        return file.content.length - file.position;
+    }
+
+    @Override
+    @MJI
+    public void close0____V(MJIEnv env, int objref) {
+        int fd = env.getIntField(objref, "fd");
+        if (virtualFiles.remove(fd) == null) {
+            super.close0____V(env, objref);
+        }
+    }
+
+    @Override
+    @MJI
+    public void write__I__V(MJIEnv env, int objref, int b) {
+        if (getVirtualFile(env, objref) != null) {
+            env.throwException("java.io.IOException", "virtual input is read-only");
+            return;
+        }
+        super.write__I__V(env, objref, b);
+    }
+
+    @Override
+    @MJI
+    public void write___3BII__V(MJIEnv env, int objref, int bref, int off, int len) {
+        if (getVirtualFile(env, objref) != null) {
+            env.throwException("java.io.IOException", "virtual input is read-only");
+            return;
+        }
+        super.write___3BII__V(env, objref, bref, off, len);
+    }
+
+    @Override
+    @MJI
+    public void sync____V(MJIEnv env, int objref) {
+        if (getVirtualFile(env, objref) == null) {
+            super.sync____V(env, objref);
+        }
+    }
+
+}
@@ -0,0 +1,291 @@
+package edu.cmu.sv.badger.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import gov.nasa.jpf.symbc.numeric.Expression;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+import gov.nasa.jpf.symbc.numeric.SymbolicInteger;
+import gov.nasa.jpf.symbc.numeric.SymbolicReal;
+
+/**
+ * Pure Java search-based solver for numeric path conditions, in particular for floating-point and mixed integer/real
+ * constraints, for which SMT solvers are often slow or return unknown. The path condition is evaluated directly on
+ * concrete values and the alternating variable method (exploratory and pattern moves per variable, with random
+ * restarts) minimizes the sum of the branch distances. A returned model always satisfies the path condition, but the
+ * solver cannot prove unsatisfiability, so a failed search is UNKNOWN.
+ *
+ * The solver can be used as the only decision procedure (symbolic.dp=localsearch), then SPF itself runs without solver,
+ * or as fallback if the configured decision procedure returns unknown.
+ */
+public class LocalSearchSolver {
+
+    public static final String ID = "localsearch";
+
+    /* Values for the random restarts are taken from this window around 0 with a probability of 50%. */
+    private static final double SMALL_VALUES_WINDOW = 256.0;
+
+    private final boolean replacesDecisionProcedure;
+    private final int maximumNumberOfEvaluations;
+    private final long minInt;
+    private final long maxInt;
+    private final double minDouble;
+    private final double maxDouble;
+    private final Random random;
+
+    private int numberOfEvaluations;
+
+    /**
+     * @param replacesDecisionProcedure
+     *            - true if this solver is the only decision procedure, false if it is only used as fallback
+     * @param maximumNumberOfEvaluations
+     *            - search budget per path condition
+     * @param minInt
+     *            - lower bound for integer variables
+     * @param maxInt
+     *            - upper bound for integer variables
+     * @param minDouble
+     *            - lower bound for real variables
+     * @param maxDouble
+     *            - upper bound for real variables
+     * @param random
+     *            - source of the random restarts and mutations, seeded for reproducible runs
+     */
+    public LocalSearchSolver(boolean replacesDecisionProcedure, int maximumNumberOfEvaluations, long minInt,
+            long maxInt, double minDouble, double maxDouble, Random random) {
+        this.replacesDecisionProcedure = replacesDecisionProcedure;
+        this.maximumNumberOfEvaluations = maximumNumberOfEvaluations;
+        this.minInt = minInt;
+        this.maxInt = maxInt;
+        this.minDouble = minDouble;
+        this.maxDouble = maxDouble;
+        this.random = random;
+    }
+
+    public boolean replacesDecisionProcedure() {
+        return replacesDecisionProcedure;
+    }
+
+    /**
+     * Solves the path condition with the decision procedure of SPF and uses the local search only if its result is
+     * unknown, or only with the local search if it replaces the decision procedure. The replay flag of PathCondition
+     * needs to be disabled by the caller.
+     *
+     * @param pc
+     *            - PathCondition
+     * @return SAT with the model, UNSAT only if the decision procedure proved it, otherwise UNKNOWN
+     */
+    public SolverResult solveWithValuation(PathCondition pc) {
+        if (!replacesDecisionProcedure) {
+            SolverResult result = SolverResult.solveWithDecisionProcedure(pc);
+            if (result.getStatus() != SolverResult.Status.UNKNOWN) {
+                // The search cannot find a model for a proven unsat path condition, so its budget is not spent.
+                return result;
+            }
+        }
+        Map<String, Object> model = solve(pc);
+        return model != null ? SolverResult.sat(model) : SolverResult.unknown();
+    }
+
+    /**
+     * Searches for a model of the given path condition.
+     *
+     * @param pc
+     *            - PathCondition
+     * @return model that maps variable names to Long or Double values, or null if no model was found within the budget
+     *         or if the path condition contains unsupported constraints
+     */
+    public Map<String, Object> solve(PathCondition pc) {
+        if (pc == null || pc.header == null || !PathConditionEvaluator.isSupported(pc)) {
+            return null;
+        }
+
+        List<Variable> variables = new ArrayList<>();
+        for (Expression expression : SymbolicVariableCollector.collectVariables(pc)) {
+            variables.add(new Variable(expression));
+        }
+
+        Map<String, Number> assignment = new HashMap<>();
+        for (Variable variable : variables) {
+            assignment.put(variable.name, variable.clamp(0.0));
+        }
+
+        numberOfEvaluations = 0;
+        double fitness = evaluate(pc, assignment);
+        while (fitness > 0.0 && numberOfEvaluations < maximumNumberOfEvaluations) {
+            boolean improved = false;
+            for (Variable variable : variables) {
+                double newFitness = searchVariable(pc, assignment, variable, fitness);
+                if (newFitness < fitness) {
+                    fitness = newFitness;
+                    improved = true;
+                }
+                if (fitness == 0.0 || numberOfEvaluations >= maximumNumberOfEvaluations) {
+                    break;
+                }
+            }
+            if (!improved && fitness > 0.0) {
+                // Local optimum, restart with random values.
+                for (Variable variable : variables) {
+                    assignment.put(variable.name, variable.getRandomValue());
+                }
+                fitness = evaluate(pc, assignment);
+            }
+        }
+
+        if (fitness > 0.0) {
+            return null;
+        }
+        Map<String, Object> solution = new HashMap<>();
+        for (Variable variable : variables) {
+            solution.put(variable.name, assignment.get(variable.name));
+        }
+        return solution;
+    }
+
+    /**
+     * Alternating variable method for one variable: exploratory moves in both directions, followed by pattern moves
+     * with increasing step size as long as the fitness improves. For real variables the step size is refined until it
+     * is smaller than the precision of the current value.
+     *
+     * @return new fitness
+     */
+    private double searchVariable(PathCondition pc, Map<String, Number> assignment, Variable variable, double fitness) {
+        double step = variable.getInitialStep();
+        while (fitness > 0.0 && numberOfEvaluations < maximumNumberOfEvaluations) {
+            double current = assignment.get(variable.name).doubleValue();
+            int direction = 0;
+            double newFitness = tryMove(pc, assignment, variable, current + step, fitness);
+            if (newFitness < fitness) {
+                direction = 1;
+            } else {
+                newFitness = tryMove(pc, assignment, variable, current - step, fitness);
+                if (newFitness < fitness) {
+                    direction = -1;
+                }
+            }
+
+            if (direction != 0) {
+                fitness = newFitness;
+                double patternStep = 2 * step;
+                while (fitness > 0.0 && numberOfEvaluations < maximumNumberOfEvaluations) {
+                    current = assignment.get(variable.name).doubleValue();
+                    newFitness = tryMove(pc, assignment, variable, current + direction * patternStep, fitness);
+                    if (newFitness >= fitness) {
+                        break;
+                    }
+                    fitness = newFitness;
+                    patternStep *= 2;
+                }
+            } else {
+                if (variable.isInteger) {
+                    break;
+                }
+                step /= 10.0;
+                if (step < Math.ulp(current) || step < Double.MIN_NORMAL) {
+                    break;
+                }
+            }
+        }
+        return fitness;
+    }
+
+    /**
+     * Assigns the new value to the variable if this improves the fitness.
+     *
+     * @return new fitness if the value was kept, the old fitness otherwise
+     */
+    private double tryMove(PathCondition pc, Map<String, Number> assignment, Variable variable, double value,
+            double fitness) {
+        Number oldValue = assignment.get(variable.name);
+        Number newValue = variable.clamp(value);
+        if (newValue.equals(oldValue)) {
+            return fitness;
+        }
+        assignment.put(variable.name, newValue);
+        double newFitness = evaluate(pc, assignment);
+        if (newFitness < fitness) {
+            return newFitness;
+        }
+        assignment.put(variable.name, oldValue);
+        return fitness;
+    }
+
+    private double evaluate(PathCondition pc, Map<String, Number> assignment) {
+        numberOfEvaluations++;
+        return PathConditionEvaluator.getDistance(pc, assignment);
+    }
+
+    /**
+     * Symbolic variable with its search bounds, i.e. the bounds of SPF intersected with the configured bounds.
+     */
+    private class Variable {
+        final String name;
+        final boolean isInteger;
+        final double min;
+        final double max;
+
+        Variable(Expression expression) {
+            if (expression instanceof SymbolicInteger) {
+                SymbolicInteger symbolicInteger = (SymbolicInteger) expression;
+                this.name = symbolicInteger.getName();
+                this.isInteger = true;
+                if (symbolicInteger._min < symbolicInteger._max) {
+                    this.min = Math.max(minInt, symbolicInteger._min);
+                    this.max = Math.min(maxInt, symbolicInteger._max);
+                } else {
+                    this.min = minInt;
+                    this.max = maxInt;
+                }
+            } else {
+                SymbolicReal symbolicReal = (SymbolicReal) expression;
+                this.name = symbolicReal.getName();
+                this.isInteger = false;
+                if (symbolicReal._min < symbolicReal._max) {
+                    this.min = Math.max(minDouble, symbolicReal._min);
+                    this.max = Math.min(maxDouble, symbolicReal._max);
+                } else {
+                    this.min = minDouble;
+                    this.max = maxDouble;
+                }
+            }
+        }
+
+        Number clamp(double value) {
+            double clamped = Math.max(min, Math.min(max, value));
+            if (isInteger) {
+                return Math.round(clamped);
+            }
+            return clamped;
+        }
+
+        double getInitialStep() {
+            if (isInteger) {
+                return 1.0;
+            }
+            // Half the width of the search space, calculated without overflow.
+            double width = max / 2 - min / 2;
+            return Math.max(Math.min(width, SMALL_VALUES_WINDOW), Double.MIN_NORMAL);
+        }
+
+        Number getRandomValue() {
+            double lower = min;
+            double upper = max;
+            if (random.nextBoolean()) {
+                lower = Math.max(min, -SMALL_VALUES_WINDOW);
+                upper = Math.min(max, SMALL_VALUES_WINDOW);
+                if (lower > upper) {
+                    lower = min;
+                    upper = max;
+                }
+            }
+            // Calculated without overflow for large bounds.
+            double r = random.nextDouble();
+            return clamp(lower * (1 - r) + upper * r);
+        }
+    }
+
+}
@@ -0,0 +1,259 @@
+package edu.cmu.sv.badger.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import gov.nasa.jpf.symbc.numeric.Comparator;
+import gov.nasa.jpf.symbc.numeric.Expression;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+import gov.nasa.jpf.symbc.numeric.SymbolicInteger;
+import gov.nasa.jpf.symbc.numeric.SymbolicReal;
+
+/**
+ * Enumerates additional, diverse models for an already solved path condition. Each model leads to a separate input
+ * file for the same path, which gives the fuzzer more seeds from one expensive replay.
+ */
+public class ModelEnumerator {
+
+    public static enum Strategy {
+
+        /*
+         * Adds blocking constraints: the value of one variable (in round robin order) of the previous model is
+         * excluded and the extended path condition is solved again.
+         */
+        BLOCKING("blocking"),
+
+        /*
+         * Keeps the model of the solver and assigns random values to all sym_* variables that are not constrained by
+         * the path condition, i.e. no additional solver calls are necessary. The value type of a variable is taken from
+         * its symbolic expression in any path condition seen so far.
+         */
+        RANDOM("random");
+
+        public final String ID;
+
+        private Strategy(String id) {
+            this.ID = id;
+        }
+
+        /**
+         * @param id
+         *            - String ID
+         * @return strategy with the given ID, or null if there is no such strategy
+         */
+        public static Strategy fromID(String id) {
+            for (Strategy strategy : Strategy.values()) {
+                if (strategy.ID.equals(id)) {
+                    return strategy;
+                }
+            }
+            return null;
+        }
+    }
+
+    private final int modelsPerPC;
+    private final Strategy strategy;
+    private final long minInt;
+    private final long maxInt;
+    private final double minDouble;
+    private final double maxDouble;
+    private final Random random;
+    private final LocalSearchSolver localSearchSolver;
+
+    /* Whether a variable is a SymbolicReal, for all variables of the path conditions seen so far. */
+    private final Map<String, Boolean> isRealVariable = new ConcurrentHashMap<>();
+
+    /**
+     * @param modelsPerPC
+     *            - maximum number of models per path condition including the first one
+     * @param strategy
+     *            - diversity strategy
+     * @param minInt
+     *            - minimum value for random integer values
+     * @param maxInt
+     *            - maximum value for random integer values
+     * @param minDouble
+     *            - minimum value for random double values
+     * @param maxDouble
+     *            - maximum value for random double values
+     * @param localSearchSolver
+     *            - used for solving if present, otherwise only the decision procedure of SPF is used
+     * @param random
+     *            - source of the random models, seeded for reproducible runs
+     */
+    public ModelEnumerator(int modelsPerPC, Strategy strategy, long minInt, long maxInt, double minDouble,
+            double maxDouble, LocalSearchSolver localSearchSolver, Random random) {
+        this.modelsPerPC = modelsPerPC;
+        this.strategy = strategy;
+        this.minInt = minInt;
+        this.maxInt = maxInt;
+        this.minDouble = minDouble;
+        this.maxDouble = maxDouble;
+        this.random = random;
+        this.localSearchSolver = localSearchSolver;
+    }
+
+    public int getModelsPerPC() {
+        return modelsPerPC;
+    }
+
+    /**
+     * Generates up to modelsPerPC - 1 additional models for the given path condition. The returned models can contain
+     * duplicates with respect to the generated input, e.g. if they only differ in variables that are not used by the
+     * IOUtils, so the caller should deduplicate the generated files.
+     *
+     * @param pc
+     *            - satisfiable PathCondition
+     * @param firstModel
+     *            - model that was already found for pc
+     * @return list of additional models, might be empty
+     */
+    public List<Map<String, Object>> enumerateAdditionalModels(PathCondition pc, Map<String, Object> firstModel) {
+        if (modelsPerPC <= 1 || firstModel == null || firstModel.isEmpty()) {
+            return new ArrayList<>();
+        }
+        for (Expression variable : SymbolicVariableCollector.collectVariables(pc)) {
+            if (variable instanceof SymbolicReal) {
+                isRealVariable.put(((SymbolicReal) variable).getName(), true);
+            } else if (variable instanceof SymbolicInteger) {
+                isRealVariable.put(((SymbolicInteger) variable).getName(), false);
+            }
+        }
+        switch (strategy) {
+        case BLOCKING:
+            return enumerateWithBlockingConstraints(pc, firstModel);
+        case RANDOM:
+            return enumerateWithRandomValues(firstModel);
+        default:
+            throw new RuntimeException("[ERROR] Unknown model enumeration strategy: " + strategy);
+        }
+    }
+
+    private List<Map<String, Object>> enumerateWithBlockingConstraints(PathCondition pc,
+            Map<String, Object> firstModel) {
+        List<Map<String, Object>> models = new ArrayList<>();
+        List<Expression> variables = SymbolicVariableCollector.collectVariables(pc);
+        if (variables.isEmpty()) {
+            return models;
+        }
+
+        // Reset isReplay to false during solving, otherwise the PathCondition will always return true.
+        boolean isReplay = PathCondition.isReplay;
+        PathCondition.setReplay(false);
+        try {
+            PathCondition blockingPC = pc.make_copy();
+            Map<String, Object> previousModel = firstModel;
+            int nextVariable = 0;
+            int failedAttempts = 0;
+            while (models.size() < modelsPerPC - 1 && failedAttempts < variables.size()) {
+                Expression variable = variables.get(nextVariable);
+                nextVariable = (nextVariable + 1) % variables.size();
+
+                // Work on a copy, so that an unsatisfiable blocking constraint can be dropped again.
+                PathCondition candidatePC = blockingPC.make_copy();
+                if (!addBlockingConstraint(candidatePC, variable, previousModel)) {
+                    failedAttempts++;
+                    continue;
+                }
+                SolverResult result = localSearchSolver != null ? localSearchSolver.solveWithValuation(candidatePC)
+                        : SolverResult.solveWithDecisionProcedure(candidatePC);
+                if (!result.isSat()) {
+                    // The variable cannot take another value (or the solver gave up), try the next one.
+                    failedAttempts++;
+                    continue;
+                }
+                Map<String, Object> model = result.getModel();
+                failedAttempts = 0;
+                models.add(model);
+                previousModel = model;
+                blockingPC = candidatePC;
+            }
+        } finally {
+            PathCondition.setReplay(isReplay);
+        }
+        return models;
+    }
+
+    private boolean addBlockingConstraint(PathCondition pc, Expression variable, Map<String, Object> model) {
+        if (variable instanceof SymbolicInteger) {
+            Object value = model.get(((SymbolicInteger) variable).getName());
+            if (!(value instanceof Number)) {
+                return false;
+            }
+            pc._addDet(Comparator.NE, (SymbolicInteger) variable, ((Number) value).longValue());
+            return true;
+        } else if (variable instanceof SymbolicReal) {
+            Object value = model.get(((SymbolicReal) variable).getName());
+            if (!(value instanceof Number)) {
+                return false;
+            }
+            pc._addDet(Comparator.NE, (SymbolicReal) variable, ((Number) value).doubleValue());
+            return true;
+        }
+        return false;
+    }
+
+    private List<Map<String, Object>> enumerateWithRandomValues(Map<String, Object> firstModel) {
+        List<Map<String, Object>> models = new ArrayList<>();
+        for (int i = 0; i < modelsPerPC - 1; i++) {
+            models.add(new RandomizedModel(firstModel));
+        }
+        return models;
+    }
+
+    /**
+     * The IOUtils cast the values, so a variable needs a Double if it is a SymbolicReal and a Long otherwise. A variable
+     * that was not part of any path condition yet gets the type of the known variables if they all have the same type.
+     *
+     * @return true for a real variable, false for an integer variable, null if the type is unknown
+     */
+    private Boolean isReal(String variableName) {
+        Boolean isReal = isRealVariable.get(variableName);
+        if (isReal != null) {
+            return isReal;
+        }
+        boolean hasRealVariables = isRealVariable.containsValue(true);
+        boolean hasIntegerVariables = isRealVariable.containsValue(false);
+        if (hasRealVariables == hasIntegerVariables) {
+            return null;
+        }
+        return hasRealVariables;
+    }
+
+    /**
+     * Model that returns the solved values for constrained variables and lazily chooses (and remembers) a random value
+     * for every other sym_* variable whose type is known.
+     */
+    private class RandomizedModel extends HashMap<String, Object> {
+
+        private static final long serialVersionUID = -2424011232874120466L;
+
+        RandomizedModel(Map<String, Object> solvedModel) {
+            super(solvedModel);
+        }
+
+        @Override
+        public Object get(Object key) {
+            Object value = super.get(key);
+            if (value == null && key instanceof String && ((String) key).startsWith("sym_")) {
+                Boolean isReal = isReal((String) key);
+                if (isReal == null) {
+                    // Without a value the IOUtils use their default, a value of the wrong type would break the cast.
+                    return null;
+                }
+                if (isReal) {
+                    value = minDouble + random.nextDouble() * (maxDouble - minDouble);
+                } else {
+                    value = Math.min(maxInt, minInt + (long) (random.nextDouble() * (maxInt - minInt + 1.0)));
+                }
+                put((String) key, value);
+            }
+            return value;
+        }
+    }
+
+}
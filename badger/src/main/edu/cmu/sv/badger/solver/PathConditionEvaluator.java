@@ -0,0 +1,301 @@
+package edu.cmu.sv.badger.solver;
+
+import java.util.Map;
+
+import gov.nasa.jpf.symbc.numeric.BinaryLinearIntegerExpression;
+import gov.nasa.jpf.symbc.numeric.BinaryNonLinearIntegerExpression;
+import gov.nasa.jpf.symbc.numeric.BinaryRealExpression;
+import gov.nasa.jpf.symbc.numeric.Comparator;
+import gov.nasa.jpf.symbc.numeric.Constraint;
+import gov.nasa.jpf.symbc.numeric.Expression;
+import gov.nasa.jpf.symbc.numeric.IntegerConstant;
+import gov.nasa.jpf.symbc.numeric.MathRealExpression;
+import gov.nasa.jpf.symbc.numeric.Operator;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+import gov.nasa.jpf.symbc.numeric.RealConstant;
+import gov.nasa.jpf.symbc.numeric.SymbolicInteger;
+import gov.nasa.jpf.symbc.numeric.SymbolicReal;
+
+/**
+ * Evaluates the numeric constraints of a path condition for a concrete assignment of the symbolic variables. Instead of
+ * only returning true or false, it calculates a branch distance, which is 0 if the constraint is satisfied and grows the
+ * further the assignment is away from satisfying it.
+ */
+public class PathConditionEvaluator {
+
+    /* Distance for constraints that cannot be evaluated, e.g. because of a division by zero. */
+    public static final double MAX_DISTANCE = 1.0;
+
+    /**
+     * Thrown if the path condition contains constraints or expressions that are not supported.
+     */
+    public static class UnsupportedConstraintException extends RuntimeException {
+        private static final long serialVersionUID = 2387129381283918231L;
+
+        public UnsupportedConstraintException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * Checks whether all constraints of the path condition are supported by the evaluator.
+     *
+     * @param pc
+     *            - PathCondition
+     * @return true if supported, false otherwise
+     */
+    public static boolean isSupported(PathCondition pc) {
+        for (Constraint constraint = pc.header; constraint != null; constraint = constraint.and) {
+            if (!isSupported(constraint.getComparator()) || !isSupported(constraint.getLeft())
+                    || !isSupported(constraint.getRight())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSupported(Comparator comparator) {
+        if (comparator == null) {
+            return false;
+        }
+        switch (comparator) {
+        case EQ:
+        case NE:
+        case LT:
+        case LE:
+        case GT:
+        case GE:
+            return true;
+        default:
+            return false;
+        }
+    }
+
+    private static boolean isSupported(Expression expression) {
+        if (expression instanceof SymbolicInteger || expression instanceof SymbolicReal
+                || expression instanceof IntegerConstant || expression instanceof RealConstant) {
+            return true;
+        } else if (expression instanceof BinaryLinearIntegerExpression) {
+            return isSupported(((BinaryLinearIntegerExpression) expression).getLeft())
+                    && isSupported(((BinaryLinearIntegerExpression) expression).getRight());
+        } else if (expression instanceof BinaryNonLinearIntegerExpression) {
+            return isSupported(((BinaryNonLinearIntegerExpression) expression).left)
+                    && isSupported(((BinaryNonLinearIntegerExpression) expression).right);
+        } else if (expression instanceof BinaryRealExpression) {
+            return isSupported(((BinaryRealExpression) expression).getLeft())
+                    && isSupported(((BinaryRealExpression) expression).getRight());
+        } else if (expression instanceof MathRealExpression) {
+            MathRealExpression mathExpression = (MathRealExpression) expression;
+            return isSupported(mathExpression.getArg1())
+                    && (mathExpression.getArg2() == null || isSupported(mathExpression.getArg2()));
+        }
+        return false;
+    }
+
+    /**
+     * Calculates the sum of the normalized branch distances of all constraints.
+     *
+     * @param pc
+     *            - PathCondition
+     * @param assignment
+     *            - maps variable names to Long (integer variables) or Double (real variables) values
+     * @return 0 if all constraints are satisfied, positive value otherwise
+     */
+    public static double getDistance(PathCondition pc, Map<String, Number> assignment) {
+        double distance = 0.0;
+        for (Constraint constraint = pc.header; constraint != null; constraint = constraint.and) {
+            distance += getDistance(constraint, assignment);
+        }
+        return distance;
+    }
+
+    /**
+     * @return normalized branch distance in [0, MAX_DISTANCE], 0 means the constraint is satisfied
+     */
+    public static double getDistance(Constraint constraint, Map<String, Number> assignment) {
+        Number left;
+        Number right;
+        try {
+            left = evaluate(constraint.getLeft(), assignment);
+            right = evaluate(constraint.getRight(), assignment);
+        } catch (ArithmeticException e) {
+            return MAX_DISTANCE;
+        }
+
+        double distance;
+        if (left instanceof Long && right instanceof Long) {
+            // Compare exactly, the difference as double might lose precision for large values.
+            int comparison = Long.compare(left.longValue(), right.longValue());
+            if (comparison == 0) {
+                distance = getComparisonDistance(constraint.getComparator(), 0.0, true);
+            } else {
+                double difference = (double) left.longValue() - (double) right.longValue();
+                distance = getComparisonDistance(constraint.getComparator(),
+                        comparison * Math.max(Math.abs(difference), 1.0), true);
+            }
+        } else {
+            double difference = left.doubleValue() - right.doubleValue();
+            if (Double.isNaN(difference)) {
+                return MAX_DISTANCE;
+            }
+            distance = getComparisonDistance(constraint.getComparator(), difference, false);
+        }
+        if (distance == 0.0) {
+            return 0.0;
+        }
+        if (Double.isInfinite(distance)) {
+            return MAX_DISTANCE;
+        }
+        // Normalize, but keep violated constraints strictly positive.
+        return Math.max(distance / (distance + 1.0), Double.MIN_VALUE);
+    }
+
+    /**
+     * @return distance for left - right = difference
+     */
+    private static double getComparisonDistance(Comparator comparator, double difference, boolean isInteger) {
+        // Smallest positive step that is necessary to satisfy a strict comparison.
+        double epsilon = isInteger ? 1.0 : Math.max(Math.ulp(difference), Double.MIN_VALUE);
+        switch (comparator) {
+        case EQ:
+            return Math.abs(difference);
+        case NE:
+            return difference != 0.0 ? 0.0 : epsilon;
+        case LT:
+            return difference < 0.0 ? 0.0 : difference + epsilon;
+        case LE:
+            return difference <= 0.0 ? 0.0 : difference;
+        case GT:
+            return difference > 0.0 ? 0.0 : -difference + epsilon;
+        case GE:
+            return difference >= 0.0 ? 0.0 : -difference;
+        default:
+            throw new UnsupportedConstraintException("Unsupported comparator: " + comparator);
+        }
+    }
+
+    /**
+     * Evaluates the expression with Java semantics for long and double values.
+     *
+     * @return Long for integer expressions, Double for real expressions
+     * @throws ArithmeticException
+     *             for integer division by zero
+     */
+    public static Number evaluate(Expression expression, Map<String, Number> assignment) {
+        if (expression instanceof SymbolicInteger) {
+            return getValue(((SymbolicInteger) expression).getName(), assignment).longValue();
+        } else if (expression instanceof SymbolicReal) {
+            return getValue(((SymbolicReal) expression).getName(), assignment).doubleValue();
+        } else if (expression instanceof IntegerConstant) {
+            return ((IntegerConstant) expression).value();
+        } else if (expression instanceof RealConstant) {
+            return ((RealConstant) expression).value();
+        } else if (expression instanceof BinaryLinearIntegerExpression) {
+            BinaryLinearIntegerExpression binaryExpression = (BinaryLinearIntegerExpression) expression;
+            return evaluate(binaryExpression.getOp(), evaluate(binaryExpression.getLeft(), assignment),
+                    evaluate(binaryExpression.getRight(), assignment));
+        } else if (expression instanceof BinaryNonLinearIntegerExpression) {
+            BinaryNonLinearIntegerExpression binaryExpression = (BinaryNonLinearIntegerExpression) expression;
+            return evaluate(binaryExpression.op, evaluate(binaryExpression.left, assignment),
+                    evaluate(binaryExpression.right, assignment));
+        } else if (expression instanceof BinaryRealExpression) {
+            BinaryRealExpression binaryExpression = (BinaryRealExpression) expression;
+            return evaluate(binaryExpression.getOp(), evaluate(binaryExpression.getLeft(), assignment),
+                    evaluate(binaryExpression.getRight(), assignment));
+        } else if (expression instanceof MathRealExpression) {
+            MathRealExpression mathExpression = (MathRealExpression) expression;
+            double arg1 = evaluate(mathExpression.getArg1(), assignment).doubleValue();
+            double arg2 = mathExpression.getArg2() != null
+                    ? evaluate(mathExpression.getArg2(), assignment).doubleValue()
+                    : 0.0;
+            switch (mathExpression.getOp()) {
+            case SIN:
+                return Math.sin(arg1);
+            case COS:
+                return Math.cos(arg1);
+            case TAN:
+                return Math.tan(arg1);
+            case ASIN:
+                return Math.asin(arg1);
+            case ACOS:
+                return Math.acos(arg1);
+            case ATAN:
+                return Math.atan(arg1);
+            case ATAN2:
+                return Math.atan2(arg1, arg2);
+            case EXP:
+                return Math.exp(arg1);
+            case LOG:
+                return Math.log(arg1);
+            case SQRT:
+                return Math.sqrt(arg1);
+            case POW:
+                return Math.pow(arg1, arg2);
+            case ROUND:
+                return (double) Math.round(arg1);
+            default:
+                throw new UnsupportedConstraintException("Unsupported math function: " + mathExpression.getOp());
+            }
+        }
+        throw new UnsupportedConstraintException(
+                "Unsupported expression: " + (expression == null ? "null" : expression.getClass().getName()));
+    }
+
+    private static Number getValue(String name, Map<String, Number> assignment) {
+        Number value = assignment.get(name);
+        if (value == null) {
+            throw new UnsupportedConstraintException("No value for variable: " + name);
+        }
+        return value;
+    }
+
+    private static Number evaluate(Operator op, Number left, Number right) {
+        if (left instanceof Long && right instanceof Long) {
+            long l = left.longValue();
+            long r = right.longValue();
+            switch (op) {
+            case PLUS:
+                return l + r;
+            case MINUS:
+                return l - r;
+            case MUL:
+                return l * r;
+            case DIV:
+                return l / r;
+            case REM:
+                return l % r;
+            case AND:
+                return l & r;
+            case OR:
+                return l | r;
+            case XOR:
+                return l ^ r;
+            case SHIFTL:
+                return l << r;
+            case SHIFTR:
+                return l >> r;
+            case SHIFTUR:
+                return l >>> r;
+            default:
+                throw new UnsupportedConstraintException("Unsupported integer operator: " + op);
+            }
+        }
+        double l = left.doubleValue();
+        double r = right.doubleValue();
+        switch (op) {
+        case PLUS:
+            return l + r;
+        case MINUS:
+            return l - r;
+        case MUL:
+            return l * r;
+        case DIV:
+            return l / r;
+        case REM:
+            return l % r;
+        default:
+            throw new UnsupportedConstraintException("Unsupported real operator: " + op);
+        }
+    }
+
+}
@@ -0,0 +1,83 @@
+package edu.cmu.sv.badger.solver;
+
+import java.util.Map;
+
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+
+/**
+ * Result of solving a path condition. Only a decision procedure that proved the path condition unsatisfiable gives
+ * UNSAT; a timeout, an unsupported constraint or an incomplete solver that did not find a model give UNKNOWN, and the
+ * path must not be pruned then.
+ */
+public class SolverResult {
+
+    public static enum Status {
+        SAT, UNSAT, UNKNOWN;
+    }
+
+    private static final SolverResult UNSAT = new SolverResult(Status.UNSAT, null);
+    private static final SolverResult UNKNOWN = new SolverResult(Status.UNKNOWN, null);
+
+    private final Status status;
+    private final Map<String, Object> model;
+
+    private SolverResult(Status status, Map<String, Object> model) {
+        this.status = status;
+        this.model = model;
+    }
+
+    public static SolverResult sat(Map<String, Object> model) {
+        return new SolverResult(Status.SAT, model);
+    }
+
+    public static SolverResult unsat() {
+        return UNSAT;
+    }
+
+    public static SolverResult unknown() {
+        return UNKNOWN;
+    }
+
+    /**
+     * Solves the path condition with the decision procedure of SPF. SPF returns an empty valuation if the decision
+     * procedure did not find a model, and null or an exception if it could not handle the path condition. The replay
+     * flag of PathCondition needs to be disabled by the caller.
+     *
+     * @param pc
+     *            - PathCondition
+     * @return SAT with the model, UNSAT for an empty valuation, otherwise UNKNOWN
+     */
+    public static SolverResult solveWithDecisionProcedure(PathCondition pc) {
+        Map<String, Object> model;
+        try {
+            model = pc.solveWithValuation();
+        } catch (RuntimeException e) {
+            System.out.println("[WARNING] Decision procedure failed, path condition is unknown: " + e.getMessage());
+            return UNKNOWN;
+        }
+        if (model == null) {
+            return UNKNOWN;
+        }
+        return model.isEmpty() ? UNSAT : sat(model);
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public boolean isSat() {
+        return status == Status.SAT;
+    }
+
+    public boolean isUnsat() {
+        return status == Status.UNSAT;
+    }
+
+    /**
+     * @return model that maps variable names to values, or null if the result is not SAT
+     */
+    public Map<String, Object> getModel() {
+        return model;
+    }
+
+}
@@ -0,0 +1,61 @@
+package edu.cmu.sv.badger.solver;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import gov.nasa.jpf.symbc.numeric.BinaryLinearIntegerExpression;
+import gov.nasa.jpf.symbc.numeric.BinaryNonLinearIntegerExpression;
+import gov.nasa.jpf.symbc.numeric.BinaryRealExpression;
+import gov.nasa.jpf.symbc.numeric.Constraint;
+import gov.nasa.jpf.symbc.numeric.Expression;
+import gov.nasa.jpf.symbc.numeric.MathRealExpression;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+import gov.nasa.jpf.symbc.numeric.SymbolicInteger;
+import gov.nasa.jpf.symbc.numeric.SymbolicReal;
+
+/**
+ * Collects the numeric symbolic variables (SymbolicInteger and SymbolicReal) of a path condition. Other expression
+ * types, e.g. string or array expressions, are ignored.
+ */
+public class SymbolicVariableCollector {
+
+    /**
+     * @param pc
+     *            - PathCondition
+     * @return list of SymbolicInteger and SymbolicReal objects in the order of their first occurrence, unique by name
+     */
+    public static List<Expression> collectVariables(PathCondition pc) {
+        Map<String, Expression> variables = new LinkedHashMap<>();
+        for (Constraint constraint = pc.header; constraint != null; constraint = constraint.and) {
+            collectVariables(constraint.getLeft(), variables);
+            collectVariables(constraint.getRight(), variables);
+        }
+        return new ArrayList<>(variables.values());
+    }
+
+    private static void collectVariables(Expression expression, Map<String, Expression> variables) {
+        if (expression == null) {
+            return;
+        }
+        if (expression instanceof SymbolicInteger) {
+            variables.putIfAbsent(((SymbolicInteger) expression).getName(), expression);
+        } else if (expression instanceof SymbolicReal) {
+            variables.putIfAbsent(((SymbolicReal) expression).getName(), expression);
+        } else if (expression instanceof BinaryLinearIntegerExpression) {
+            collectVariables(((BinaryLinearIntegerExpression) expression).getLeft(), variables);
+            collectVariables(((BinaryLinearIntegerExpression) expression).getRight(), variables);
+        } else if (expression instanceof BinaryNonLinearIntegerExpression) {
+            collectVariables(((BinaryNonLinearIntegerExpression) expression).left, variables);
+            collectVariables(((BinaryNonLinearIntegerExpression) expression).right, variables);
+        } else if (expression instanceof BinaryRealExpression) {
+            collectVariables(((BinaryRealExpression) expression).getLeft(), variables);
+            collectVariables(((BinaryRealExpression) expression).getRight(), variables);
+        } else if (expression instanceof MathRealExpression) {
+            collectVariables(((MathRealExpression) expression).getArg1(), variables);
+            collectVariables(((MathRealExpression) expression).getArg2(), variables);
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package edu.cmu.sv.badger.solver;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import gov.nasa.jpf.symbc.numeric.Constraint;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+
+/**
+ * Extracts an unsat core from an unsatisfiable path condition. The constraints of the path condition are grouped by the
+ * steps (decisions) that added them, and the core is computed on these groups: first all groups are removed that do
+ * not share any variable (transitively) with the last step, and afterwards a deletion-based minimization removes every
+ * group that is not necessary for unsatisfiability.
+ */
+public class UnsatCoreExtractor {
+
+    /* Limits the number of solver calls for the minimization of one core. */
+    public static int MAX_SOLVER_CALLS = 32;
+
+    /**
+     * Splits the given path condition into groups of constraints, one group for each step. The first group contains the
+     * newest constraints, i.e. the constraints of the last step.
+     *
+     * @param pc
+     *            - PathCondition
+     * @param numberOfConstraintsPerStep
+     *            - number of constraints added by each step, starting with the last step
+     * @return groups of constraints, or null if the numbers do not match the path condition
+     */
+    public static List<List<Constraint>> groupConstraintsBySteps(PathCondition pc,
+            List<Integer> numberOfConstraintsPerStep) {
+        List<List<Constraint>> groups = new ArrayList<>();
+        Constraint current = pc.header;
+        for (int numberOfConstraints : numberOfConstraintsPerStep) {
+            if (numberOfConstraints < 0) {
+                return null;
+            }
+            List<Constraint> group = new ArrayList<>();
+            for (int i = 0; i < numberOfConstraints; i++) {
+                if (current == null) {
+                    return null;
+                }
+                group.add(current);
+                current = current.and;
+            }
+            groups.add(group);
+        }
+        if (current != null) {
+            return null;
+        }
+        return groups;
+    }
+
+    /**
+     * Computes a minimal subset of the given constraint groups, which is still unsatisfiable. The first group is always
+     * part of the core because it is the step that made the path unsatisfiable.
+     *
+     * @param groups
+     *            - constraint groups, the first one belongs to the last step
+     * @return indices of the groups in the core, or null if the groups are not proven unsatisfiable
+     */
+    public static List<Integer> extractCore(List<List<Constraint>> groups) {
+        if (groups == null || groups.isEmpty() || groups.get(0).isEmpty()) {
+            return null;
+        }
+
+        boolean isReplay = PathCondition.isReplay;
+        PathCondition.setReplay(false);
+        try {
+            List<Integer> core = sliceByVariables(groups);
+            if (!isUnsat(groups, core)) {
+                // Probably the solver could not find a valuation, but the path is not really unsatisfiable.
+                return null;
+            }
+
+            int solverCalls = 1;
+            for (int index : new ArrayList<>(core)) {
+                if (index == 0) {
+                    continue;
+                }
+                if (solverCalls >= MAX_SOLVER_CALLS) {
+                    break;
+                }
+                List<Integer> candidate = new ArrayList<>(core);
+                candidate.remove(Integer.valueOf(index));
+                solverCalls++;
+                // A group is only dropped if the rest is proven unsatisfiable, unknown keeps the group.
+                if (isUnsat(groups, candidate)) {
+                    core = candidate;
+                }
+            }
+            return core;
+        } finally {
+            PathCondition.setReplay(isReplay);
+        }
+    }
+
+    /**
+     * Returns the indices of all groups that share variables, directly or indirectly, with the first group. All other
+     * groups are independent and cannot contribute to the unsatisfiability.
+     */
+    private static List<Integer> sliceByVariables(List<List<Constraint>> groups) {
+        List<Set<String>> variablesPerGroup = new ArrayList<>();
+        for (List<Constraint> group : groups) {
+            Map<String, Object> variables = new HashMap<>();
+            for (Constraint constraint : group) {
+                constraint.getLeft().getVarsVals(variables);
+                constraint.getRight().getVarsVals(variables);
+            }
+            variablesPerGroup.add(variables.keySet());
+        }
+
+        Set<String> relevantVariables = new HashSet<>(variablesPerGroup.get(0));
+        boolean[] selected = new boolean[groups.size()];
+        selected[0] = true;
+        boolean changed = true;
+        while (changed) {
+            changed = false;
+            for (int i = 1; i < groups.size(); i++) {
+                if (selected[i] || groups.get(i).isEmpty()) {
+                    continue;
+                }
+                for (String variable : variablesPerGroup.get(i)) {
+                    if (relevantVariables.contains(variable)) {
+                        selected[i] = true;
+                        relevantVariables.addAll(variablesPerGroup.get(i));
+                        changed = true;
+                        break;
+                    }
+                }
+            }
+        }
+
+        List<Integer> slice = new ArrayList<>();
+        for (int i = 0; i < selected.length; i++) {
+            if (selected[i]) {
+                slice.add(i);
+            }
+        }
+        return slice;
+    }
+
+    private static boolean isUnsat(List<List<Constraint>> groups, List<Integer> selectedGroups) {
+        PathCondition pc = new PathCondition();
+        for (int index : selectedGroups) {
+            for (Constraint constraint : groups.get(index)) {
+                // Copy the constraint, otherwise the linked list of the original path condition would be modified.
+                pc.prependUnlessRepeated(constraint.makeCopy());
+            }
+        }
+        return SolverResult.solveWithDecisionProcedure(pc).isUnsat();
+    }
+
+}
@@ -0,0 +1,159 @@
+package edu.cmu.sv.badger.solver;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import edu.cmu.sv.badger.trie.TrieNode;
+import gov.nasa.jpf.symbc.numeric.Constraint;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
+
+/**
+ * Stores learned unsat cores. A core is a set of constraints that together are unsatisfiable, together with the steps,
+ * i.e. pairs of instruction and choice, that added them. The steps only select the cores that need to be checked for a
+ * new node: in a loop the same step adds a different constraint in each iteration, so a path is only known to be
+ * infeasible if its path condition contains all constraints of a core.
+ */
+public class UnsatCoreIndex implements Serializable {
+
+    private static final long serialVersionUID = -3630471716541962211L;
+
+    /* Maps each step to all cores that contain this step. */
+    private Map<Long, List<Core>> step2Cores;
+
+    private Set<Core> cores;
+
+    public UnsatCoreIndex() {
+        this.step2Cores = new HashMap<>();
+        this.cores = new HashSet<>();
+    }
+
+    public static long getStep(int instructionHashCode, int choice) {
+        return ((long) instructionHashCode << 32) | (choice & 0xFFFFFFFFL);
+    }
+
+    public static int getInstructionHashCode(long step) {
+        return (int) (step >> 32);
+    }
+
+    /**
+     * Returns the step that leads to the given node, i.e. the instruction and choice of this node.
+     *
+     * @param node
+     *            - TrieNode
+     * @return step
+     */
+    public static long getStep(TrieNode node) {
+        return getStep(node.getInstruction(), node.getChoice());
+    }
+
+    /**
+     * Returns the key of a constraint, which is equal for the same constraint in different runs, since SPF names the
+     * symbolic variables in the order of their creation.
+     *
+     * @param constraint
+     *            - Constraint
+     * @return constraint text
+     */
+    public static String getConstraintKey(Constraint constraint) {
+        return constraint.getLeft().toString() + " " + constraint.getComparator().toString() + " "
+                + constraint.getRight().toString();
+    }
+
+    /**
+     * Adds a new core.
+     *
+     * @param steps
+     *            - steps that added the constraints of the core
+     * @param constraints
+     *            - keys of the unsatisfiable constraints, see {@link #getConstraintKey(Constraint)}
+     * @return true if the core was not known before, false otherwise.
+     */
+    public boolean addCore(Set<Long> steps, Set<String> constraints) {
+        if (steps == null || steps.isEmpty() || constraints == null || constraints.isEmpty()) {
+            return false;
+        }
+        Core core = new Core(steps, constraints);
+        if (!cores.add(core)) {
+            return false;
+        }
+        for (Long step : steps) {
+            List<Core> coresForStep = step2Cores.get(step);
+            if (coresForStep == null) {
+                coresForStep = new ArrayList<>();
+                step2Cores.put(step, coresForStep);
+            }
+            coresForStep.add(core);
+        }
+        return true;
+    }
+
+    /**
+     * Checks whether the path condition of a new node contains all constraints of a known core. The path to the parent
+     * node is assumed to be feasible, hence, only cores that contain the step of the new node need to be checked.
+     *
+     * @param pc
+     *            - path condition of the new node
+     * @param instructionHashCode
+     *            - int hashcode of the branching instruction
+     * @param choice
+     *            - choice integer value
+     * @return true if the path condition is known to be unsatisfiable, false otherwise.
+     */
+    public boolean isInfeasible(PathCondition pc, int instructionHashCode, int choice) {
+        List<Core> candidateCores = step2Cores.get(getStep(instructionHashCode, choice));
+        if (candidateCores == null || pc == null) {
+            return false;
+        }
+        Set<String> pcConstraints = new HashSet<>();
+        for (Constraint constraint = pc.header; constraint != null; constraint = constraint.and) {
+            pcConstraints.add(getConstraintKey(constraint));
+        }
+        for (Core core : candidateCores) {
+            if (pcConstraints.containsAll(core.constraints)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public boolean isEmpty() {
+        return cores.isEmpty();
+    }
+
+    public int size() {
+        return cores.size();
+    }
+
+    private static class Core implements Serializable {
+
+        private static final long serialVersionUID = 5163917301664725617L;
+
+        final Set<Long> steps;
+        final Set<String> constraints;
+
+        Core(Set<Long> steps, Set<String> constraints) {
+            this.steps = steps;
+            this.constraints = constraints;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Core)) {
+                return false;
+            }
+            Core other = (Core) obj;
+            return steps.equals(other.steps) && constraints.equals(other.constraints);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * steps.hashCode() + constraints.hashCode();
+        }
+    }
+
+}
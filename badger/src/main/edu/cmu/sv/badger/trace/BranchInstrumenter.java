@@ -0,0 +1,356 @@
+package edu.cmu.sv.badger.trace;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.objectweb.asm.ClassReader;
+import org.objectweb.asm.ClassVisitor;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Handle;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+import org.objectweb.asm.Type;
+
+/**
+ * Instruments the classes of the target application with calls to the BranchTracer: before each conditional jump and
+ * switch, after each compare instruction, and at the end of each basic block for the instruction and jump counts.
+ * Additionally, calls to gov.nasa.jpf.symbc.Debug are redirected to NativeDebug and System.exit() to the BranchTracer.
+ */
+public class BranchInstrumenter {
+
+    private static final String TRACER = Type.getInternalName(BranchTracer.class);
+    private static final String NATIVE_DEBUG = Type.getInternalName(NativeDebug.class);
+    private static final String SPF_DEBUG = "gov/nasa/jpf/symbc/Debug";
+
+    private static final Set<String> NATIVE_DEBUG_METHODS = new HashSet<>();
+    static {
+        for (Method method : NativeDebug.class.getDeclaredMethods()) {
+            NATIVE_DEBUG_METHODS.add(method.getName() + Type.getMethodDescriptor(method));
+        }
+    }
+
+    private final List<BranchSite> sites;
+
+    /**
+     * @param sites
+     *            - list to which the sites of instrumented branches are added, the index of a site is its id
+     */
+    public BranchInstrumenter(List<BranchSite> sites) {
+        this.sites = sites;
+    }
+
+    /**
+     * @param classBytes
+     *            - original class file
+     * @return instrumented class file
+     */
+    public byte[] instrument(byte[] classBytes) {
+        ClassReader reader = new ClassReader(classBytes);
+        final Map<String, List<Integer>> branchOffsets = computeBranchOffsets(reader);
+        ClassWriter writer = new ClassWriter(reader, ClassWriter.COMPUTE_MAXS);
+        reader.accept(new ClassVisitor(Opcodes.ASM5, writer) {
+            private String className;
+
+            @Override
+            public void visit(int version, int access, String name, String signature, String superName,
+                    String[] interfaces) {
+                className = name.replace('/', '.');
+                super.visit(version, access, name, signature, superName, interfaces);
+            }
+
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+                    String[] exceptions) {
+                MethodVisitor mv = super.visitMethod(access, name, desc, signature, exceptions);
+                return new TracingMethodVisitor(mv, className + "." + name + desc,
+                        branchOffsets.get(name + desc), isJumpCounted(name));
+            }
+        }, 0);
+        return writer.toByteArray();
+    }
+
+    /* Same exclusions as in the jumps cost model. */
+    private static boolean isJumpCounted(String methodName) {
+        return !methodName.equals("<clinit>") && !methodName.equals("<init>") && !methodName.contains("main");
+    }
+
+    private static boolean isConditionalJump(int opcode) {
+        return opcode >= Opcodes.IFEQ && opcode <= Opcodes.IF_ACMPNE;
+    }
+
+    private static boolean isCompare(int opcode) {
+        return opcode >= Opcodes.LCMP && opcode <= Opcodes.DCMPG;
+    }
+
+    /**
+     * ASM does not expose bytecode offsets while reading, so the class is written once without changes, with a label
+     * before each branch instruction. Since the constant pool is copied from the reader, the offsets of the written
+     * code are the offsets of the original code, which SPF uses in its choice generators.
+     *
+     * @return bytecode offsets of the branch instructions per method name and descriptor, in the order of the code
+     */
+    private static Map<String, List<Integer>> computeBranchOffsets(ClassReader reader) {
+        final Map<String, List<Label>> branchLabels = new HashMap<>();
+        ClassWriter writer = new ClassWriter(reader, 0);
+        reader.accept(new ClassVisitor(Opcodes.ASM5, writer) {
+            @Override
+            public MethodVisitor visitMethod(int access, String name, String desc, String signature,
+                    String[] exceptions) {
+                final List<Label> labelsOfMethod = new ArrayList<>();
+                branchLabels.put(name + desc, labelsOfMethod);
+                return new MethodVisitor(Opcodes.ASM5, super.visitMethod(access, name, desc, signature, exceptions)) {
+                    private void markBranch() {
+                        Label label = new Label();
+                        super.visitLabel(label);
+                        labelsOfMethod.add(label);
+                    }
+
+                    @Override
+                    public void visitInsn(int opcode) {
+                        if (isCompare(opcode)) {
+                            markBranch();
+                        }
+                        super.visitInsn(opcode);
+                    }
+
+                    @Override
+                    public void visitJumpInsn(int opcode, Label label) {
+                        if (isConditionalJump(opcode)) {
+                            markBranch();
+                        }
+                        super.visitJumpInsn(opcode, label);
+                    }
+
+                    @Override
+                    public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+                        markBranch();
+                        super.visitTableSwitchInsn(min, max, dflt, labels);
+                    }
+
+                    @Override
+                    public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+                        markBranch();
+                        super.visitLookupSwitchInsn(dflt, keys, labels);
+                    }
+                };
+            }
+        }, 0);
+        writer.toByteArray();
+
+        Map<String, List<Integer>> branchOffsets = new HashMap<>();
+        for (Map.Entry<String, List<Label>> entry : branchLabels.entrySet()) {
+            List<Integer> offsets = new ArrayList<>();
+            for (Label label : entry.getValue()) {
+                offsets.add(label.getOffset());
+            }
+            branchOffsets.put(entry.getKey(), offsets);
+        }
+        return branchOffsets;
+    }
+
+    private class TracingMethodVisitor extends MethodVisitor {
+
+        private final String methodName;
+        private final List<Integer> branchOffsets;
+        private final boolean countJumps;
+
+        private int nextBranch = 0;
+        private int instructionsInBlock = 0;
+        private int jumpsInBlock = 0;
+
+        TracingMethodVisitor(MethodVisitor mv, String methodName, List<Integer> branchOffsets, boolean countJumps) {
+            super(Opcodes.ASM5, mv);
+            this.methodName = methodName;
+            this.branchOffsets = branchOffsets;
+            this.countJumps = countJumps;
+        }
+
+        private int registerSite(int opcode, int[] switchKeys) {
+            int offset = branchOffsets.get(nextBranch++);
+            int id = sites.size();
+            sites.add(new BranchSite(id, methodName, offset, opcode, switchKeys));
+            return id;
+        }
+
+        private void pushInt(int value) {
+            if (value >= -1 && value <= 5) {
+                super.visitInsn(Opcodes.ICONST_0 + value);
+            } else if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                super.visitIntInsn(Opcodes.BIPUSH, value);
+            } else if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                super.visitIntInsn(Opcodes.SIPUSH, value);
+            } else {
+                super.visitLdcInsn(value);
+            }
+        }
+
+        private void callTracer(String name, String desc) {
+            super.visitMethodInsn(Opcodes.INVOKESTATIC, TRACER, name, desc, false);
+        }
+
+        private void countInstruction(boolean isJump) {
+            instructionsInBlock++;
+            if (isJump && countJumps) {
+                jumpsInBlock++;
+            }
+        }
+
+        /* Reports the counts of the current basic block, must only be called at reachable code positions. */
+        private void flushCounts() {
+            if (instructionsInBlock > 0) {
+                pushInt(instructionsInBlock);
+                pushInt(jumpsInBlock);
+                callTracer("count", "(II)V");
+                instructionsInBlock = 0;
+                jumpsInBlock = 0;
+            }
+        }
+
+        @Override
+        public void visitLabel(Label label) {
+            /*
+             * Either the block falls through to this label, then its counts are reported here, or it ended with an
+             * unconditional instruction, which already reported the counts.
+             */
+            flushCounts();
+            super.visitLabel(label);
+        }
+
+        @Override
+        public void visitInsn(int opcode) {
+            boolean isCompare = isCompare(opcode);
+            countInstruction(isCompare);
+            if ((opcode >= Opcodes.IRETURN && opcode <= Opcodes.RETURN) || opcode == Opcodes.ATHROW) {
+                flushCounts();
+            }
+            super.visitInsn(opcode);
+            if (isCompare) {
+                int siteId = registerSite(opcode, null);
+                super.visitInsn(Opcodes.DUP);
+                pushInt(siteId);
+                callTracer("compare", "(II)V");
+            }
+        }
+
+        @Override
+        public void visitJumpInsn(int opcode, Label label) {
+            countInstruction(true);
+            flushCounts();
+            if (isConditionalJump(opcode)) {
+                int siteId = registerSite(opcode, null);
+                if (opcode <= Opcodes.IFLE) {
+                    super.visitInsn(Opcodes.DUP);
+                    pushInt(opcode);
+                    pushInt(siteId);
+                    callTracer("ifInt", "(III)V");
+                } else if (opcode <= Opcodes.IF_ICMPLE) {
+                    super.visitInsn(Opcodes.DUP2);
+                    pushInt(opcode);
+                    pushInt(siteId);
+                    callTracer("ifIntCompare", "(IIII)V");
+                } else {
+                    super.visitInsn(Opcodes.DUP2);
+                    pushInt(opcode);
+                    pushInt(siteId);
+                    callTracer("ifReferenceCompare", "(Ljava/lang/Object;Ljava/lang/Object;II)V");
+                }
+            }
+            super.visitJumpInsn(opcode, label);
+        }
+
+        @Override
+        public void visitTableSwitchInsn(int min, int max, Label dflt, Label... labels) {
+            int[] keys = new int[max - min + 1];
+            for (int i = 0; i < keys.length; i++) {
+                keys[i] = min + i;
+            }
+            visitSwitch(Opcodes.TABLESWITCH, keys);
+            super.visitTableSwitchInsn(min, max, dflt, labels);
+        }
+
+        @Override
+        public void visitLookupSwitchInsn(Label dflt, int[] keys, Label[] labels) {
+            visitSwitch(Opcodes.LOOKUPSWITCH, keys);
+            super.visitLookupSwitchInsn(dflt, keys, labels);
+        }
+
+        private void visitSwitch(int opcode, int[] keys) {
+            countInstruction(true);
+            flushCounts();
+            int siteId = registerSite(opcode, keys.clone());
+            super.visitInsn(Opcodes.DUP);
+            pushInt(siteId);
+            callTracer("switchValue", "(II)V");
+        }
+
+        @Override
+        public void visitMethodInsn(int opcode, String owner, String name, String desc, boolean itf) {
+            countInstruction(false);
+            if (opcode == Opcodes.INVOKESTATIC && owner.equals(SPF_DEBUG)
+                    && NATIVE_DEBUG_METHODS.contains(name + desc)) {
+                super.visitMethodInsn(opcode, NATIVE_DEBUG, name, desc, false);
+            } else if (opcode == Opcodes.INVOKESTATIC && owner.equals("java/lang/System") && name.equals("exit")
+                    && desc.equals("(I)V")) {
+                flushCounts();
+                callTracer("exit", "(I)V");
+            } else {
+                super.visitMethodInsn(opcode, owner, name, desc, itf);
+            }
+        }
+
+        @Override
+        public void visitIntInsn(int opcode, int operand) {
+            countInstruction(false);
+            super.visitIntInsn(opcode, operand);
+        }
+
+        @Override
+        public void visitVarInsn(int opcode, int var) {
+            countInstruction(false);
+            super.visitVarInsn(opcode, var);
+        }
+
+        @Override
+        public void visitTypeInsn(int opcode, String type) {
+            countInstruction(false);
+            super.visitTypeInsn(opcode, type);
+        }
+
+        @Override
+        public void visitFieldInsn(int opcode, String owner, String name, String desc) {
+            countInstruction(false);
+            super.visitFieldInsn(opcode, owner, name, desc);
+        }
+
+        @Override
+        public void visitInvokeDynamicInsn(String name, String desc, Handle bsm, Object... bsmArgs) {
+            countInstruction(false);
+            super.visitInvokeDynamicInsn(name, desc, bsm, bsmArgs);
+        }
+
+        @Override
+        public void visitLdcInsn(Object cst) {
+            countInstruction(false);
+            super.visitLdcInsn(cst);
+        }
+
+        @Override
+        public void visitIincInsn(int var, int increment) {
+            countInstruction(false);
+            super.visitIincInsn(var, increment);
+        }
+
+        @Override
+        public void visitMultiANewArrayInsn(String desc, int dims) {
+            countInstruction(false);
+            super.visitMultiANewArrayInsn(desc, dims);
+        }
+    }
+
+}
@@ -0,0 +1,80 @@
+package edu.cmu.sv.badger.trace;
+
+import java.util.Arrays;
+
+import edu.cmu.sv.badger.util.BytecodeUtils;
+
+/**
+ * Branch instruction in the target application. The method name and the bytecode offset are in the same format as in
+ * the PCChoiceGenerator of SPF, i.e. as in the TrieNode, so that a native branch can be matched with a trie node.
+ */
+public class BranchSite {
+
+    private final int id;
+    private final String methodName;
+    private final int offset;
+    private final int opcode;
+    private final int[] switchKeys;
+
+    /**
+     * @param id
+     *            - unique id of this site
+     * @param methodName
+     *            - full method name, e.g. pkg.Class.method(I)V
+     * @param offset
+     *            - bytecode offset of the branch instruction
+     * @param opcode
+     *            - opcode of the branch instruction
+     * @param switchKeys
+     *            - keys of a switch instruction in the order of the SPF choices, null for other instructions
+     */
+    public BranchSite(int id, String methodName, int offset, int opcode, int[] switchKeys) {
+        this.id = id;
+        this.methodName = methodName;
+        this.offset = offset;
+        this.opcode = opcode;
+        this.switchKeys = switchKeys;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getMethodName() {
+        return methodName;
+    }
+
+    public int getOffset() {
+        return offset;
+    }
+
+    public int getOpcode() {
+        return opcode;
+    }
+
+    /**
+     * @return key of the branch instruction, the same as {@link BytecodeUtils#getInstructionKey} in JPF
+     */
+    public int getInstructionKey() {
+        return BytecodeUtils.getInstructionKey(methodName, offset);
+    }
+
+    /**
+     * Maps the switch value to the choice of SPF: the index of the matching key, or the number of keys for the default
+     * target.
+     */
+    public int getSwitchChoice(int value) {
+        for (int i = 0; i < switchKeys.length; i++) {
+            if (switchKeys[i] == value) {
+                return i;
+            }
+        }
+        return switchKeys.length;
+    }
+
+    @Override
+    public String toString() {
+        return methodName + "@" + offset + (switchKeys != null ? Arrays.toString(switchKeys) : "");
+    }
+
+}
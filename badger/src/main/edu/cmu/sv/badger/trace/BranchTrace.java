@@ -0,0 +1,122 @@
+package edu.cmu.sv.badger.trace;
+
+import java.util.Arrays;
+import java.util.List;
+
+import edu.cmu.sv.badger.trace.BranchTracer.BudgetExceededError;
+
+/**
+ * Sequence of branch decisions of one native execution, together with the number of executed instructions and jumps
+ * in the instrumented classes and the user-defined cost.
+ */
+public class BranchTrace {
+
+    /* Maximum number of recorded branch decisions, i.e. 32 MB for the arrays. */
+    public static final int MAXIMUM_LENGTH = 1 << 22;
+
+    private final List<BranchSite> sites;
+
+    private int[] siteIds = new int[256];
+    private int[] choices = new int[256];
+    private int size = 0;
+
+    /* 64-bit FNV-1a hash over the (site id, choice) pairs, updated with each branch. */
+    private long pathHash = 0xcbf29ce484222325L;
+
+    private long numberOfInstructions = 0;
+    private long numberOfJumps = 0;
+    private double userDefinedCost = 0.0;
+    private String budgetExceededReason = null;
+
+    BranchTrace(List<BranchSite> sites) {
+        this.sites = sites;
+    }
+
+    void addChoice(int siteId, int choice) {
+        if (size == MAXIMUM_LENGTH) {
+            throw exceedBudget("more than " + MAXIMUM_LENGTH + " branch decisions");
+        }
+        if (size == siteIds.length) {
+            siteIds = Arrays.copyOf(siteIds, size * 2);
+            choices = Arrays.copyOf(choices, size * 2);
+        }
+        siteIds[size] = siteId;
+        choices[size] = choice;
+        size++;
+        pathHash = (pathHash ^ siteId) * 0x100000001b3L;
+        pathHash = (pathHash ^ choice) * 0x100000001b3L;
+    }
+
+    void addSwitchValue(int siteId, int value) {
+        addChoice(siteId, sites.get(siteId).getSwitchChoice(value));
+    }
+
+    void addCounts(int instructions, int jumps) {
+        numberOfInstructions += instructions;
+        numberOfJumps += jumps;
+    }
+
+    void addUserDefinedCost(double cost) {
+        userDefinedCost += cost;
+    }
+
+    BudgetExceededError exceedBudget(String reason) {
+        if (budgetExceededReason == null) {
+            budgetExceededReason = reason;
+        }
+        return new BudgetExceededError(budgetExceededReason);
+    }
+
+    /**
+     * @return true if the execution was stopped because it exceeded its budget, then the trace is incomplete
+     */
+    public boolean hasExceededBudget() {
+        return budgetExceededReason != null;
+    }
+
+    /**
+     * @return why the execution exceeded its budget, or null
+     */
+    public String getBudgetExceededReason() {
+        return budgetExceededReason;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public BranchSite getSite(int index) {
+        return sites.get(siteIds[index]);
+    }
+
+    public int getChoice(int index) {
+        return choices[index];
+    }
+
+    /**
+     * @return hash of the complete branch sequence, only comparable between traces of the same NativeTracer
+     */
+    public long getPathHash() {
+        return pathHash;
+    }
+
+    public long getNumberOfInstructions() {
+        return numberOfInstructions;
+    }
+
+    /**
+     * @return number of executed jump instructions, counted like the jumps cost model, i.e. without constructors,
+     *         static initializers and main methods
+     */
+    public long getNumberOfJumps() {
+        return numberOfJumps;
+    }
+
+    /**
+     * @return sum of the costs reported with Debug.addCost()
+     */
+    public double getUserDefinedCost() {
+        return userDefinedCost;
+    }
+
+}
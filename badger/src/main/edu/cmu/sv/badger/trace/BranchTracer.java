@@ -0,0 +1,161 @@
+package edu.cmu.sv.badger.trace;
+
+import org.objectweb.asm.Opcodes;
+
+/**
+ * Runtime of the native branch tracer. The instrumented target classes call these methods before each branch
+ * instruction and at the end of each basic block. Only the thread that started the recording is traced.
+ *
+ * Each execution has a budget of instructions and a deadline, which are checked at the end of each basic block, so
+ * that an input that lets the target loop for a long time cannot block the tracer.
+ */
+public class BranchTracer {
+
+    /* Number of basic blocks between two checks of the deadline, because System.nanoTime() is not free. */
+    private static final int DEADLINE_CHECK_INTERVAL = 1 << 12;
+
+    private static BranchTrace trace;
+    private static Thread tracedThread;
+    private static long maximumInstructions;
+    private static long deadline;
+    private static int blocksUntilDeadlineCheck;
+
+    /**
+     * Thrown instead of terminating the JVM if the target application calls System.exit().
+     */
+    public static class TargetExitError extends Error {
+        private static final long serialVersionUID = -4305893725893017742L;
+
+        public TargetExitError(int status) {
+            super("System.exit(" + status + ")");
+        }
+    }
+
+    /**
+     * Thrown if the execution exceeds its budget. It is thrown again at the end of each basic block, so the execution
+     * also stops if the target catches it.
+     */
+    public static class BudgetExceededError extends Error {
+        private static final long serialVersionUID = 2718496316457140873L;
+
+        public BudgetExceededError(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * @param maximumInstructions
+     *            - maximum number of instructions in the instrumented classes
+     * @param timeoutMillis
+     *            - maximum wall-clock time of the execution
+     */
+    static void startRecording(BranchTrace newTrace, long maximumInstructions, long timeoutMillis) {
+        trace = newTrace;
+        tracedThread = Thread.currentThread();
+        BranchTracer.maximumInstructions = maximumInstructions;
+        BranchTracer.deadline = System.nanoTime() + timeoutMillis * 1000000L;
+        BranchTracer.blocksUntilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+    }
+
+    static BranchTrace stopRecording() {
+        BranchTrace recordedTrace = trace;
+        trace = null;
+        tracedThread = null;
+        return recordedTrace;
+    }
+
+    private static boolean isRecording() {
+        return trace != null && Thread.currentThread() == tracedThread;
+    }
+
+    /* Called before IFEQ, IFNE, IFLT, IFGE, IFGT and IFLE. Choice 1 means the jump is taken, like in SPF. */
+    public static void ifInt(int value, int opcode, int siteId) {
+        if (isRecording()) {
+            trace.addChoice(siteId, isConditionTrue(value, 0, opcode - Opcodes.IFEQ) ? 1 : 0);
+        }
+    }
+
+    /* Called before IF_ICMPEQ, IF_ICMPNE, IF_ICMPLT, IF_ICMPGE, IF_ICMPGT and IF_ICMPLE. */
+    public static void ifIntCompare(int value1, int value2, int opcode, int siteId) {
+        if (isRecording()) {
+            trace.addChoice(siteId, isConditionTrue(value1, value2, opcode - Opcodes.IF_ICMPEQ) ? 1 : 0);
+        }
+    }
+
+    /* Called before IF_ACMPEQ and IF_ACMPNE. */
+    public static void ifReferenceCompare(Object value1, Object value2, int opcode, int siteId) {
+        if (isRecording()) {
+            boolean isEqual = value1 == value2;
+            trace.addChoice(siteId, (opcode == Opcodes.IF_ACMPEQ) == isEqual ? 1 : 0);
+        }
+    }
+
+    /* Called after LCMP, FCMPL, FCMPG, DCMPL and DCMPG with their result -1, 0 or 1, which is choice 0, 1 or 2. */
+    public static void compare(int result, int siteId) {
+        if (isRecording()) {
+            trace.addChoice(siteId, result + 1);
+        }
+    }
+
+    /* Called before TABLESWITCH and LOOKUPSWITCH. */
+    public static void switchValue(int value, int siteId) {
+        if (isRecording()) {
+            trace.addSwitchValue(siteId, value);
+        }
+    }
+
+    /* Called at the end of each basic block. */
+    public static void count(int instructions, int jumps) {
+        if (isRecording()) {
+            trace.addCounts(instructions, jumps);
+            if (trace.hasExceededBudget()) {
+                throw trace.exceedBudget(null);
+            }
+            if (trace.getNumberOfInstructions() > maximumInstructions) {
+                throw trace.exceedBudget("more than " + maximumInstructions + " instructions");
+            }
+            if (--blocksUntilDeadlineCheck <= 0) {
+                blocksUntilDeadlineCheck = DEADLINE_CHECK_INTERVAL;
+                if (System.nanoTime() - deadline > 0) {
+                    throw trace.exceedBudget("deadline exceeded");
+                }
+            }
+        }
+    }
+
+    /* Called by NativeDebug for the user-defined cost. */
+    static void addCost(double cost) {
+        if (isRecording()) {
+            trace.addUserDefinedCost(cost);
+        }
+    }
+
+    /* Replaces System.exit(int) in the target classes. */
+    public static void exit(int status) {
+        throw new TargetExitError(status);
+    }
+
+    /**
+     * @param kind
+     *            - 0 EQ, 1 NE, 2 LT, 3 GE, 4 GT, 5 LE, i.e. the order of the if opcodes
+     */
+    private static boolean isConditionTrue(int value1, int value2, int kind) {
+        switch (kind) {
+        case 0:
+            return value1 == value2;
+        case 1:
+            return value1 != value2;
+        case 2:
+            return value1 < value2;
+        case 3:
+            return value1 >= value2;
+        case 4:
+            return value1 > value2;
+        case 5:
+            return value1 <= value2;
+        default:
+            throw new RuntimeException("[ERROR] Unknown branch condition: " + kind);
+        }
+    }
+
+}
@@ -0,0 +1,61 @@
+package edu.cmu.sv.badger.trace;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Child-first class loader for the classpath of the target application, which defines the instrumented version of
+ * each class. A new loader is used for each execution, so that the static state of the target application is fresh,
+ * like in a new JPF run, but the instrumented bytecode is cached by the NativeTracer.
+ */
+public class BranchTracingClassLoader extends URLClassLoader {
+
+    private final NativeTracer tracer;
+
+    public BranchTracingClassLoader(URL[] classpath, ClassLoader parent, NativeTracer tracer) {
+        super(classpath, parent);
+        this.tracer = tracer;
+    }
+
+    @Override
+    protected Class<?> loadClass(String name, boolean resolve) throws ClassNotFoundException {
+        synchronized (getClassLoadingLock(name)) {
+            Class<?> c = findLoadedClass(name);
+            if (c == null && !name.startsWith("java.") && !name.startsWith(getClass().getPackage().getName())) {
+                try {
+                    c = findClass(name);
+                } catch (ClassNotFoundException e) {
+                    // not part of the target application
+                }
+            }
+            if (c == null) {
+                return super.loadClass(name, resolve);
+            }
+            if (resolve) {
+                resolveClass(c);
+            }
+            return c;
+        }
+    }
+
+    @Override
+    protected Class<?> findClass(String name) throws ClassNotFoundException {
+        URL resource = findResource(name.replace('.', '/') + ".class");
+        if (resource == null) {
+            throw new ClassNotFoundException(name);
+        }
+        byte[] classBytes;
+        try (InputStream is = resource.openStream()) {
+            classBytes = IOUtils.toByteArray(is);
+        } catch (IOException e) {
+            throw new ClassNotFoundException(name, e);
+        }
+        byte[] instrumentedClassBytes = tracer.getInstrumentedClass(name, classBytes);
+        return defineClass(name, instrumentedClassBytes, 0, instrumentedClassBytes.length);
+    }
+
+}
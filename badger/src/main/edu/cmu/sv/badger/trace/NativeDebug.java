@@ -0,0 +1,66 @@
+package edu.cmu.sv.badger.trace;
+
+/**
+ * Replacement for gov.nasa.jpf.symbc.Debug in natively executed target classes, whose methods are only implemented as
+ * native peers in JPF. Calls are redirected to this class if it declares a method with the same name and descriptor.
+ * The symbolic variables of symcrete execution are just their concrete values here.
+ */
+public class NativeDebug {
+
+    public static int addSymbolicInt(int value, String name) {
+        return value;
+    }
+
+    public static long addSymbolicLong(long value, String name) {
+        return value;
+    }
+
+    public static short addSymbolicShort(short value, String name) {
+        return value;
+    }
+
+    public static byte addSymbolicByte(byte value, String name) {
+        return value;
+    }
+
+    public static char addSymbolicChar(char value, String name) {
+        return value;
+    }
+
+    public static boolean addSymbolicBoolean(boolean value, String name) {
+        return value;
+    }
+
+    public static float addSymbolicFloat(float value, String name) {
+        return value;
+    }
+
+    public static double addSymbolicDouble(double value, String name) {
+        return value;
+    }
+
+    public static void addCost(int cost) {
+        BranchTracer.addCost(cost);
+    }
+
+    public static void addCost(long cost) {
+        BranchTracer.addCost(cost);
+    }
+
+    public static void addCost(double cost) {
+        BranchTracer.addCost(cost);
+    }
+
+    public static void addCost(Object cost) {
+        if (cost instanceof Number) {
+            BranchTracer.addCost(((Number) cost).doubleValue());
+        }
+    }
+
+    public static void printSymbolicRef(Object value, String message) {
+    }
+
+    public static void printPC(String message) {
+    }
+
+}
@@ -0,0 +1,157 @@
+package edu.cmu.sv.badger.trace;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.cmu.sv.badger.trace.BranchTracer.TargetExitError;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieNode;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+
+/**
+ * Executes the target application natively on the JVM instead of JPF and records its branch decisions. This is orders
+ * of magnitude faster than symcrete execution, but it does not know which branches depend on symbolic values, so it
+ * cannot create trie nodes. Instead it is used to detect imported inputs that follow an already existing trie path,
+ * for which symcrete execution would not change the trie.
+ *
+ * The executions run in the thread of the caller, so each execution has a budget of instructions and wall-clock time,
+ * after which it is stopped, see BranchTracer.
+ */
+public class NativeTracer {
+
+    private final URL[] classpath;
+    private final String targetClass;
+    private final long maximumInstructions;
+    private final long timeoutMillis;
+
+    private final List<BranchSite> sites = new ArrayList<>();
+    private final BranchInstrumenter instrumenter = new BranchInstrumenter(sites);
+    private final Map<String, byte[]> instrumentedClasses = new HashMap<>();
+
+    /**
+     * @param classpath
+     *            - classpath entries of the target application
+     * @param targetClass
+     *            - main class of the target application
+     * @param maximumInstructions
+     *            - maximum number of instructions of one execution in the instrumented classes
+     * @param timeoutMillis
+     *            - maximum wall-clock time of one execution
+     */
+    public NativeTracer(String[] classpath, String targetClass, long maximumInstructions, long timeoutMillis) {
+        this.classpath = new URL[classpath.length];
+        for (int i = 0; i < classpath.length; i++) {
+            try {
+                this.classpath[i] = new File(classpath[i].trim()).toURI().toURL();
+            } catch (MalformedURLException e) {
+                throw new RuntimeException("[ERROR] Invalid classpath entry: " + classpath[i], e);
+            }
+        }
+        this.targetClass = targetClass;
+        this.maximumInstructions = maximumInstructions;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    /**
+     * Executes the main method of the target class natively.
+     *
+     * @param args
+     *            - arguments for the main method
+     * @return recorded trace, or null if the execution failed, e.g. because of an uncaught exception. If the execution
+     *         exceeded its budget, the incomplete trace is returned, see {@link BranchTrace#hasExceededBudget()}.
+     */
+    public synchronized BranchTrace trace(String[] args) {
+        BranchTracingClassLoader loader = new BranchTracingClassLoader(classpath, getClass().getClassLoader(), this);
+        BranchTrace trace = new BranchTrace(sites);
+        BranchTracer.startRecording(trace, maximumInstructions, timeoutMillis);
+        try {
+            Method main = loader.loadClass(targetClass).getMethod("main", String[].class);
+            main.invoke(null, (Object) args);
+        } catch (InvocationTargetException e) {
+            // The target may also have wrapped the BudgetExceededError, e.g. in a static initializer.
+            if (!(e.getCause() instanceof TargetExitError) && !trace.hasExceededBudget()) {
+                System.out.println("Native execution failed: " + e.getCause());
+                return null;
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            if (!trace.hasExceededBudget()) {
+                System.out.println("Native execution failed: " + e);
+                return null;
+            }
+        } finally {
+            BranchTracer.stopRecording();
+            try {
+                loader.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return trace;
+    }
+
+    /**
+     * Called by the BranchTracingClassLoader, instruments each class only once.
+     */
+    synchronized byte[] getInstrumentedClass(String name, byte[] classBytes) {
+        byte[] instrumentedClassBytes = instrumentedClasses.get(name);
+        if (instrumentedClassBytes == null) {
+            try {
+                instrumentedClassBytes = instrumenter.instrument(classBytes);
+            } catch (RuntimeException e) {
+                // e.g. the instrumented method is too large, then this class is not traced
+                System.out.println("Could not instrument class " + name + ": " + e);
+                instrumentedClassBytes = classBytes;
+            }
+            instrumentedClasses.put(name, instrumentedClassBytes);
+        }
+        return instrumentedClassBytes;
+    }
+
+    /**
+     * Follows the trace in the trie. At each node, the branches of the trace are skipped until the branch of the
+     * node's children is reached, because the trace also contains all branches on concrete values.
+     *
+     * @param trie
+     *            - Trie
+     * @param trace
+     *            - BranchTrace
+     * @return leaf node at the end of the matching path, or null if the trace leaves the trie, i.e. if symcrete
+     *         execution is necessary to extend the trie
+     */
+    public static TrieNode findLeafNode(Trie trie, BranchTrace trace) {
+        TrieNode cur = trie.getRoot();
+        if (cur == null) {
+            return null;
+        }
+        int index = 0;
+        while (!cur.getChildren().isEmpty()) {
+            TrieNode anyChild = cur.getChildren().get(0);
+            while (index < trace.size() && !isSameSite(trace.getSite(index), anyChild)) {
+                index++;
+            }
+            if (index == trace.size()) {
+                return null;
+            }
+            TrieNode child = cur.getChild(trace.getChoice(index));
+            if (child == null || child.getType().equals(TrieNodeType.UNSAT_NODE)) {
+                return null;
+            }
+            cur = child;
+            index++;
+        }
+        return cur.getType().equals(TrieNodeType.LEAF_NODE) ? cur : null;
+    }
+
+    private static boolean isSameSite(BranchSite site, TrieNode node) {
+        return site.getOffset() == node.getOffset() && site.getMethodName().equals(node.getMethodName());
+    }
+
+}
@@ -0,0 +1,77 @@
+package edu.cmu.sv.badger.trace;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index of the path hashes of native traces whose inputs are already represented in the trie, together with the best
+ * native cost observed for each path. An input with a known path hash can only be interesting if it has a better
+ * cost, because the same native path implies the same trie path.
+ */
+public class PathHashIndex {
+
+    private final boolean maximize;
+    private final Map<Long, Double> bestCostPerPath = new HashMap<>();
+    private final Map<Long, Double> trieCostPerPath = new HashMap<>();
+
+    /**
+     * @param maximize
+     *            - true if higher costs are better, false if lower costs are better
+     */
+    public PathHashIndex(boolean maximize) {
+        this.maximize = maximize;
+    }
+
+    public boolean contains(long pathHash) {
+        return bestCostPerPath.containsKey(pathHash);
+    }
+
+    /**
+     * @param pathHash
+     *            - path hash of the native trace
+     * @param cost
+     *            - native cost of the trace, or null if there is no cost metric
+     * @return true if the path is known and the cost is not better than the best cost for this path
+     */
+    public boolean isCovered(long pathHash, Double cost) {
+        if (!bestCostPerPath.containsKey(pathHash)) {
+            return false;
+        }
+        Double bestCost = bestCostPerPath.get(pathHash);
+        if (cost == null || bestCost == null) {
+            return true;
+        }
+        return maximize ? cost <= bestCost : cost >= bestCost;
+    }
+
+    /**
+     * Adds the path or updates its best cost.
+     *
+     * @param pathHash
+     *            - path hash of the native trace
+     * @param cost
+     *            - native cost of the trace, or null if there is no cost metric
+     * @param trieCost
+     *            - cost of the corresponding leaf in the trie, used for the statistics
+     */
+    public void add(long pathHash, Double cost, Double trieCost) {
+        if (!isCovered(pathHash, cost)) {
+            bestCostPerPath.put(pathHash, cost);
+        }
+        if (trieCost != null) {
+            trieCostPerPath.put(pathHash, trieCost);
+        }
+    }
+
+    /**
+     * @return cost of the corresponding leaf in the trie, or null if unknown
+     */
+    public Double getTrieCost(long pathHash) {
+        return trieCostPerPath.get(pathHash);
+    }
+
+    public int size() {
+        return bestCostPerPath.size();
+    }
+
+}
@@ -0,0 +1,81 @@
+package edu.cmu.sv.badger.trie;
+
+import java.io.IOException;
+import java.io.Writer;
+
+/**
+ * Immutable copy of the printed attributes of one trie node, taken by the thread that modifies the trie, so that the
+ * dot output can be written by another thread. The format is the same as in TriePrintToDot, but the nodes are
+ * identified by their id.
+ */
+class DotNodeSnapshot {
+
+    private final int id;
+    private final int parentId; // -1 for the root
+    private final String methodName;
+    private final int lineNumber;
+    private final int offset;
+    private final int choice;
+    private final int bytecode;
+    private final int maximumNumberOfChildren;
+    private final Double metricValue;
+    private final boolean canExposeNewBranches;
+    private final boolean isEnabled;
+    private final boolean needsExploration;
+    private final TrieNodeType type;
+
+    DotNodeSnapshot(TrieNode node) {
+        this.id = node.getId();
+        this.parentId = node.getParent() != null ? node.getParent().getId() : -1;
+        this.methodName = node.getMethodName();
+        this.lineNumber = node.getLineNumber();
+        this.offset = node.getOffset();
+        this.choice = node.getChoice();
+        this.bytecode = node.getBytcode();
+        this.maximumNumberOfChildren = node.getMaximumNumberOfChildren();
+        this.metricValue = node.getMetricValue();
+        this.canExposeNewBranches = node.canExposeNewBranches();
+        this.isEnabled = node.isEnabled();
+        this.needsExploration = node.needsExploration();
+        this.type = node.getType();
+    }
+
+    int getId() {
+        return id;
+    }
+
+    /**
+     * Writes the node and the edge from its parent.
+     */
+    void write(Writer output) throws IOException {
+        boolean isRoot = offset == -1;
+        output.write(Integer.toString(id));
+        if (isRoot) {
+            output.write(needsExploration ? "[ color=\"lightblue\" style=\"filled\" fillcolor=\"green\" label=\"id="
+                    : "[ color=\"lightblue\" style=\"filled\" label=\"id=");
+            output.write(id + ", Root");
+        } else {
+            if (needsExploration) {
+                output.write("[ color=\"green\" style=\"filled\" label=\"");
+            } else if (isEnabled) {
+                output.write("[ color=\"red\" label=\"");
+            } else if (type.equals(TrieNodeType.UNSAT_NODE)) {
+                output.write("[ color=\"yellow\" style=\"filled\" label=\"");
+            } else if (type.equals(TrieNodeType.FRONTIER_NODE)) {
+                output.write("[ color=\"pink\" style=\"filled\" label=\"");
+            } else if (type.equals(TrieNodeType.LEAF_NODE)) {
+                output.write("[ color=\"gray\" style=\"filled\" label=\"");
+            } else {
+                output.write("[ label=\"");
+            }
+            output.write("id=" + id + ", " + methodName + ":" + lineNumber + ", \n offset=" + offset + ", choice="
+                    + choice + ", \nbc=" + bytecode);
+        }
+        output.write(", #choices=" + (maximumNumberOfChildren == -1 ? "?" : maximumNumberOfChildren) + ", \n score="
+                + (metricValue == null ? "?" : metricValue) + ", \n newBranches=" + canExposeNewBranches + "\"];\n");
+        if (parentId != -1) {
+            output.write(parentId + "->" + id + (isEnabled ? "[ color=\"red\"];\n" : ";\n"));
+        }
+    }
+
+}
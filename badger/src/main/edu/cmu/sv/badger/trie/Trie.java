@@ -9,6 +9,7 @@ import java.io.Serializable;
 import java.util.HashSet;
 import java.util.Set;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 import edu.cmu.sv.badger.analysis.TrieAnalyzer;
 
@@ -34,7 +35,11 @@ public class Trie implements Serializable {
 
     private Set<TrieNode> enabledNodes;
 
-    private TrieAnalyzer trieAnalyzer;
+    private transient TrieAnalyzer trieAnalyzer; // a stored trie contains only the nodes
+
+    private TrieCounters counters = new TrieCounters();
+
+    private transient Consumer<TrieNode> nodeCreationListener;
 
     public Trie(TrieAnalyzer trieAnalyzer) {
         this.enabledNodes = new HashSet<>();
@@ -115,23 +120,44 @@ public class Trie implements Serializable {
         return idGenerator.get() + "," + trieAnalyzer.getStatistics();
     }
 
-    public int getNumberOfPaths() {
-        return countNumberOfPaths(root);
+    /**
+     * @return number of complete execution paths, i.e. leaf nodes
+     */
+    public long getNumberOfPaths() {
+        return counters.getNumberOfNodes(TrieNodeType.LEAF_NODE);
+    }
 
+    public TrieCounters getCounters() {
+        return counters;
     }
 
-    private int countNumberOfPaths(TrieNode node) {
-        if (node.getType().equals(TrieNodeType.LEAF_NODE)) {
-            return 1;
-        } else {
-            int numberOfPaths = 0;
-            for (TrieNode child : node.getChildren()) {
-                numberOfPaths += countNumberOfPaths(child);
-            }
-            return numberOfPaths;
+    /**
+     * Sets the listener that is notified about every created node, e.g. for incremental exports.
+     */
+    public void setNodeCreationListener(Consumer<TrieNode> nodeCreationListener) {
+        this.nodeCreationListener = nodeCreationListener;
+    }
+
+    void nodeCreated(TrieNode node, boolean isFirstChild) {
+        counters.nodeAdded(node, isFirstChild);
+        if (nodeCreationListener != null) {
+            nodeCreationListener.accept(node);
         }
     }
 
+    /**
+     * Attaches the analyzer to a loaded trie, which contains only the nodes, and rebuilds the frontier of the analyzer
+     * from them, see {@link TrieAnalyzer#rebuild(Trie)}.
+     * 
+     * @param trieAnalyzer
+     *            - new analyzer without nodes
+     */
+    public void setAnalyzer(TrieAnalyzer trieAnalyzer) {
+        this.trieAnalyzer = trieAnalyzer;
+        resetAnnotation();
+        trieAnalyzer.rebuild(this);
+    }
+
     public TrieAnalyzer getAnalyzer() {
         return this.trieAnalyzer;
     }
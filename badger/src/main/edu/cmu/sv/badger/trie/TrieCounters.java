@@ -0,0 +1,78 @@
+package edu.cmu.sv.badger.trie;
+
+import java.io.Serializable;
+
+/**
+ * Counters of a trie, which are updated when nodes are created or change their type, so that the statistics can be
+ * read without traversing the trie.
+ */
+public class TrieCounters implements Serializable {
+
+    private static final long serialVersionUID = -2319408473315620841L;
+
+    /*
+     * Estimated sizes on a 64-bit JVM with compressed references: a node with its boxed metric value and empty children
+     * map, the table of a children map, and one entry of it. Path conditions and shared strings are not included.
+     */
+    static final long NODE_BYTES = 152;
+    static final long CHILDREN_TABLE_BYTES = 80;
+    static final long CHILD_ENTRY_BYTES = 32;
+
+    private final long[] nodesPerType = new long[TrieNodeType.values().length];
+    private long leaves = 0;
+    private int maximumDepth = 0;
+    private long estimatedBytes = 0;
+
+    /**
+     * @param node
+     *            - new node with its initial type, already added to its parent
+     * @param isFirstChild
+     *            - true if the parent had no children before, i.e. it was a leaf
+     */
+    void nodeAdded(TrieNode node, boolean isFirstChild) {
+        nodesPerType[node.getType().ordinal()]++;
+        estimatedBytes += NODE_BYTES;
+        if (node.getParent() != null) {
+            estimatedBytes += CHILD_ENTRY_BYTES;
+            if (isFirstChild) {
+                estimatedBytes += CHILDREN_TABLE_BYTES;
+                leaves--;
+            }
+        }
+        leaves++;
+        maximumDepth = Math.max(maximumDepth, node.getDepth());
+    }
+
+    void typeChanged(TrieNodeType oldType, TrieNodeType newType) {
+        nodesPerType[oldType.ordinal()]--;
+        nodesPerType[newType.ordinal()]++;
+    }
+
+    public long getNumberOfNodes(TrieNodeType type) {
+        return nodesPerType[type.ordinal()];
+    }
+
+    public long getNumberOfNodes() {
+        long sum = 0;
+        for (long n : nodesPerType) {
+            sum += n;
+        }
+        return sum;
+    }
+
+    /**
+     * @return number of nodes without children, regardless of their type
+     */
+    public long getNumberOfLeaves() {
+        return leaves;
+    }
+
+    public int getMaximumDepth() {
+        return maximumDepth;
+    }
+
+    public long getEstimatedBytes() {
+        return estimatedBytes;
+    }
+
+}
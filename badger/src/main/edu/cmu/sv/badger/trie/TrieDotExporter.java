@@ -0,0 +1,221 @@
+package edu.cmu.sv.badger.trie;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Exports views of a trie as dot files without stalling the exploration: the SymExe thread only takes a snapshot of
+ * the nodes in the view, and a background thread writes them line by line to the file. If the background thread is
+ * behind, an older pending snapshot for the same file is replaced by the newer one.
+ *
+ * The views are:
+ * <ul>
+ * <li>depth: all nodes up to the maximum depth (or the whole trie), like TriePrintToDot.</li>
+ * <li>topk: the paths to the k leaves with the highest cost, maintained incrementally from the created nodes.</li>
+ * <li>diff: only the nodes that were created since the last export, the files are numbered.</li>
+ * </ul>
+ */
+public class TrieDotExporter {
+
+    public static final String VIEW_DEPTH = "depth";
+    public static final String VIEW_TOP_K = "topk";
+    public static final String VIEW_DIFF = "diff";
+
+    private final Trie trie;
+    private final String view;
+    private final Integer maxDepth;
+    private final int k;
+
+    /* Nodes created since the last export, only used for the topk and diff views. */
+    private final List<TrieNode> createdNodes = new ArrayList<>();
+    /* Leaves with the highest cost, the lowest one first. */
+    private final PriorityQueue<TrieNode> topLeaves = new PriorityQueue<>(
+            Comparator.comparingDouble(TrieNode::getMetricValue));
+    private int numberOfExports = 0;
+
+    private final Map<String, List<DotNodeSnapshot>> pendingSnapshots = new LinkedHashMap<>();
+    private final Thread thread;
+    private boolean isClosed = false;
+
+    /**
+     * @param trie
+     *            - trie to export, must not be modified by other threads than the one calling export
+     * @param view
+     *            - VIEW_DEPTH, VIEW_TOP_K or VIEW_DIFF
+     * @param maxDepth
+     *            - maximum depth for VIEW_DEPTH, null for no limit
+     * @param k
+     *            - number of paths for VIEW_TOP_K
+     */
+    public TrieDotExporter(Trie trie, String view, Integer maxDepth, int k) {
+        this.trie = trie;
+        this.view = view;
+        this.maxDepth = maxDepth;
+        this.k = k;
+        if (!view.equals(VIEW_DEPTH)) {
+            trie.setNodeCreationListener(createdNodes::add);
+        }
+        this.thread = new Thread(this::run, "badger-dot-export");
+        this.thread.setDaemon(true);
+        this.thread.start();
+    }
+
+    /**
+     * Takes the snapshot of the view and writes it to the file in the background.
+     */
+    public void export(String fileName) {
+        List<DotNodeSnapshot> snapshot;
+        if (view.equals(VIEW_TOP_K)) {
+            snapshot = takeTopKSnapshot();
+        } else if (view.equals(VIEW_DIFF)) {
+            snapshot = takeDiffSnapshot();
+            fileName = numberFileName(fileName, numberOfExports);
+        } else {
+            snapshot = takeDepthSnapshot();
+        }
+        numberOfExports++;
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            pendingSnapshots.remove(fileName); // keep the order of the exports
+            pendingSnapshots.put(fileName, snapshot);
+            notifyAll();
+        }
+    }
+
+    /**
+     * Writes the pending snapshots and stops the background thread.
+     */
+    public void close() {
+        synchronized (this) {
+            isClosed = true;
+            notifyAll();
+        }
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private List<DotNodeSnapshot> takeDepthSnapshot() {
+        List<DotNodeSnapshot> snapshot = new ArrayList<>();
+        if (trie.getRoot() == null) {
+            return snapshot;
+        }
+        Deque<TrieNode> nodesToVisit = new ArrayDeque<>();
+        nodesToVisit.add(trie.getRoot());
+        while (!nodesToVisit.isEmpty()) {
+            TrieNode node = nodesToVisit.poll();
+            snapshot.add(new DotNodeSnapshot(node));
+            if (maxDepth == null || node.getDepth() < maxDepth) {
+                nodesToVisit.addAll(node.getChildren());
+            }
+        }
+        return snapshot;
+    }
+
+    private List<DotNodeSnapshot> takeDiffSnapshot() {
+        List<DotNodeSnapshot> snapshot = new ArrayList<>(createdNodes.size());
+        for (TrieNode node : createdNodes) {
+            snapshot.add(new DotNodeSnapshot(node));
+        }
+        createdNodes.clear();
+        return snapshot;
+    }
+
+    private List<DotNodeSnapshot> takeTopKSnapshot() {
+        for (TrieNode node : createdNodes) {
+            if (node.getType().equals(TrieNodeType.LEAF_NODE) && node.getMetricValue() != null) {
+                topLeaves.add(node);
+                if (topLeaves.size() > k) {
+                    topLeaves.poll();
+                }
+            }
+        }
+        createdNodes.clear();
+
+        List<DotNodeSnapshot> snapshot = new ArrayList<>();
+        Set<Integer> addedIds = new HashSet<>();
+        for (TrieNode leaf : topLeaves) {
+            for (TrieNode node = leaf; node != null && addedIds.add(node.getId()); node = node.getParent()) {
+                snapshot.add(new DotNodeSnapshot(node));
+            }
+        }
+        return snapshot;
+    }
+
+    static String numberFileName(String fileName, int number) {
+        String suffix = String.format("-%06d", number);
+        int extension = fileName.lastIndexOf('.');
+        if (extension <= fileName.lastIndexOf('/')) {
+            return fileName + suffix;
+        }
+        return fileName.substring(0, extension) + suffix + fileName.substring(extension);
+    }
+
+    private void run() {
+        while (true) {
+            String fileName;
+            List<DotNodeSnapshot> snapshot;
+            synchronized (this) {
+                while (pendingSnapshots.isEmpty() && !isClosed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                }
+                if (pendingSnapshots.isEmpty()) {
+                    return;
+                }
+                fileName = pendingSnapshots.keySet().iterator().next();
+                snapshot = pendingSnapshots.remove(fileName);
+            }
+            write(fileName, snapshot);
+        }
+    }
+
+    /**
+     * Streams the snapshot into a temporary file, which then replaces the file, so that a viewer never reads a partial
+     * file.
+     */
+    private static void write(String fileName, List<DotNodeSnapshot> snapshot) {
+        Path file = Paths.get(fileName);
+        Path tmpFile = Paths.get(fileName + ".tmp");
+        try (Writer output = Files.newBufferedWriter(tmpFile, StandardCharsets.UTF_8)) {
+            output.write("digraph \"\" { \n");
+            for (DotNodeSnapshot node : snapshot) {
+                node.write(output);
+            }
+            output.write("}");
+        } catch (IOException e) {
+            System.err.println("error while writing the dot file: " + fileName);
+            e.printStackTrace();
+            return;
+        }
+        try {
+            Files.move(tmpFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            System.err.println("error while writing the dot file: " + fileName);
+            e.printStackTrace();
+        }
+    }
+
+}
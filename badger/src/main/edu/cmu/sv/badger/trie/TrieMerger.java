@@ -0,0 +1,185 @@
+package edu.cmu.sv.badger.trie;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Merges stored tries, e.g. the checkpoints of several parallel or repeated campaigns, into one trie. Nodes are matched
+ * by their paths from the root, i.e. by the method name, bytecode offset and choice of each decision, and not by the
+ * instruction keys, which can collide. The merged trie contains the union of all paths, so its observed choices are the
+ * union of the observed choices of all campaigns. It can seed a new campaign with symexe.trie.seed, which then only
+ * explores what no previous campaign covered.
+ *
+ * Usage: TrieMerger max|min|average output-file trie-file...
+ */
+public class TrieMerger {
+
+    public static enum MetricMerge {
+        MAX, MIN, AVERAGE;
+    }
+
+    private final MetricMerge metricMerge;
+    private final Trie mergedTrie;
+
+    /* Number of merged metric values of each node, only used for the average. */
+    private final Map<TrieNode, Integer> numberOfMetricValues = new HashMap<>();
+
+    private int numberOfTries = 0;
+    private long numberOfConflicts = 0;
+
+    public TrieMerger(MetricMerge metricMerge) {
+        this.metricMerge = metricMerge;
+        this.mergedTrie = new Trie(null); // a stored trie contains only the nodes
+    }
+
+    /**
+     * Adds the nodes of the given trie to the merged trie. A subtree whose method name or offset differs from the
+     * merged node with the same choices, e.g. because the tries were built for different versions of the program, is
+     * skipped.
+     *
+     * @param trie
+     *            - loaded trie
+     */
+    public void add(Trie trie) {
+        TrieNode root = trie.getRoot();
+        if (root == null) {
+            return;
+        }
+        numberOfTries++;
+
+        TrieNode mergedRoot = mergedTrie.getRoot();
+        if (mergedRoot == null) {
+            mergedRoot = copyNode(null, root);
+            mergedTrie.setRoot(mergedRoot);
+        } else {
+            mergeNode(mergedRoot, root);
+        }
+
+        Deque<TrieNode[]> stack = new ArrayDeque<>();
+        stack.push(new TrieNode[] { mergedRoot, root });
+        while (!stack.isEmpty()) {
+            TrieNode[] pair = stack.pop();
+            TrieNode mergedNode = pair[0];
+            for (TrieNode child : pair[1].getChildren()) {
+                TrieNode mergedChild = mergedNode.getChild(child.getChoice());
+                if (mergedChild == null) {
+                    mergedChild = copyNode(mergedNode, child);
+                } else if (!mergedChild.hasSameInstruction(child)) {
+                    numberOfConflicts++;
+                    continue;
+                } else {
+                    mergeNode(mergedChild, child);
+                }
+                stack.push(new TrieNode[] { mergedChild, child });
+            }
+        }
+    }
+
+    private TrieNode copyNode(TrieNode mergedParent, TrieNode node) {
+        TrieNode copy = new TrieNode(mergedTrie, mergedParent, node);
+        if (copy.getMetricValue() != null) {
+            numberOfMetricValues.put(copy, 1);
+        }
+        return copy;
+    }
+
+    private void mergeNode(TrieNode mergedNode, TrieNode node) {
+        mergedNode.mergeInstructionAttributes(node);
+        if (getPrecedence(node.getType()) > getPrecedence(mergedNode.getType())) {
+            mergedNode.setType(node.getType());
+        }
+
+        Double value = node.getMetricValue();
+        Double mergedValue = mergedNode.getMetricValue();
+        if (value == null) {
+            return;
+        }
+        if (mergedValue == null) {
+            mergedNode.setMetricValue(value);
+            numberOfMetricValues.put(mergedNode, 1);
+            return;
+        }
+        switch (metricMerge) {
+        case MAX:
+            mergedNode.setMetricValue(Math.max(mergedValue, value));
+            break;
+        case MIN:
+            mergedNode.setMetricValue(Math.min(mergedValue, value));
+            break;
+        case AVERAGE:
+            int n = numberOfMetricValues.getOrDefault(mergedNode, 1) + 1;
+            mergedNode.setMetricValue(mergedValue + (value - mergedValue) / n);
+            numberOfMetricValues.put(mergedNode, n);
+            break;
+        }
+    }
+
+    /**
+     * A leaf or unsatisfiable node in one trie stays one in the merged trie. A frontier node, i.e. one where a campaign
+     * hit its search limit, is a regular node if another campaign explored it further.
+     */
+    private static int getPrecedence(TrieNodeType type) {
+        switch (type) {
+        case LEAF_NODE:
+            return 3;
+        case UNSAT_NODE:
+            return 2;
+        case REGULAR_NODE:
+            return 1;
+        default:
+            return 0;
+        }
+    }
+
+    public Trie getMergedTrie() {
+        return mergedTrie;
+    }
+
+    public int getNumberOfTries() {
+        return numberOfTries;
+    }
+
+    /**
+     * @return number of skipped subtrees, whose nodes did not match
+     */
+    public long getNumberOfConflicts() {
+        return numberOfConflicts;
+    }
+
+    public static void main(String[] args) {
+        if (args.length < 3) {
+            System.out.println("Usage: TrieMerger max|min|average output-file trie-file...");
+            return;
+        }
+
+        MetricMerge metricMerge;
+        try {
+            metricMerge = MetricMerge.valueOf(args[0].toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("[ERROR] Unknown metric merge: " + args[0]);
+        }
+        TrieMerger merger = new TrieMerger(metricMerge);
+
+        // Load one trie after the other, so that only the merged trie stays in memory.
+        for (int i = 2; i < args.length; i++) {
+            Trie trie = Trie.loadTrie(args[i]);
+            if (trie == null) {
+                throw new RuntimeException("[ERROR] Unable to load trie: " + args[i]);
+            }
+            merger.add(trie);
+            System.out.println("[TrieMerger] merged " + args[i] + ": " + trie.getCounters().getNumberOfNodes()
+                    + " nodes, " + trie.getNumberOfPaths() + " paths");
+        }
+
+        Trie mergedTrie = merger.getMergedTrie();
+        if (!Trie.storeTrie(mergedTrie, args[1])) {
+            throw new RuntimeException("[ERROR] Unable to store trie: " + args[1]);
+        }
+        System.out.println("[TrieMerger] stored " + args[1] + ": " + mergedTrie.getCounters().getNumberOfNodes()
+                + " nodes, " + mergedTrie.getNumberOfPaths() + " paths from " + merger.getNumberOfTries()
+                + " tries, " + merger.getNumberOfConflicts() + " conflicting subtrees skipped");
+    }
+
+}
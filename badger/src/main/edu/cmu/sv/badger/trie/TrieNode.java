@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 
 import edu.cmu.sv.badger.util.BytecodeUtils;
 import gov.nasa.jpf.symbc.numeric.PathCondition;
@@ -29,8 +30,8 @@ public class TrieNode implements Serializable {
 
     
     private TrieNodeType type;
-    private int instructionHashCode = -1;
-    private int nextInstructionHashCode = -1;
+    private int instructionHashCode = BytecodeUtils.NO_INSTRUCTION;
+    private int nextInstructionHashCode = BytecodeUtils.NO_INSTRUCTION;
     private int bytecode;
     private int maximumNumberOfChildren = -1;
 
@@ -74,27 +75,51 @@ public class TrieNode implements Serializable {
         this.parent = parent;
         this.type = TrieNodeType.REGULAR_NODE; // default node type
         children = new HashMap<>();
+        boolean isFirstChild = false;
         if (parent != null) {
             this.parent.addChild(this);
             this.depth = parent.depth + 1;
+            isFirstChild = parent.children.size() == 1;
         } else {
             this.depth = 0;
         }
         this.id = trie.getNextId();
         this.inputSize = -1;
+        trie.nodeCreated(this, isFirstChild);
     }
 
     public TrieNode(Trie trie, int choice, int offset, String methodName, int lineNumber, TrieNode parent, Instruction instruction,
             PathCondition pathCondition, Double metricValue, int inputSize) {
+        this(trie, choice, offset, methodName, lineNumber, parent,
+                instruction != null ? BytecodeUtils.getInstructionKey(instruction) : BytecodeUtils.NO_INSTRUCTION,
+                instruction != null ? instruction.getByteCode() : -1, BytecodeUtils.getNumberOfChoices(instruction),
+                pathCondition != null, metricValue, inputSize);
+    }
+
+    /**
+     * Creates a node from the recorded attributes of a decision, e.g. one that was made in another JVM.
+     * 
+     * @param instructionKey
+     *            - see {@link BytecodeUtils#getInstructionKey(Instruction)}
+     * @param bytecode
+     *            - opcode of the instruction, or -1 if there is no instruction
+     * @param numberOfChoices
+     *            - number of choices of the instruction
+     * @param isSatisfiable
+     *            - false for an unsatisfiable path condition
+     */
+    public TrieNode(Trie trie, int choice, int offset, String methodName, int lineNumber, TrieNode parent,
+            int instructionKey, int bytecode, int numberOfChoices, boolean isSatisfiable, Double metricValue,
+            int inputSize) {
         this(trie, choice, offset, methodName, lineNumber, parent);
-        if (instruction != null) {
-            this.instructionHashCode = instruction.hashCode();
-            this.bytecode = instruction.getByteCode();
+        if (bytecode >= 0) {
+            this.instructionHashCode = instructionKey;
+            this.bytecode = bytecode;
             if (this.parent != null) {
                 if (this.parent.children.size() == 1) {
-                    this.parent.maximumNumberOfChildren = BytecodeUtils.getNumberOfChoices(instruction);
+                    this.parent.maximumNumberOfChildren = numberOfChoices;
                 }
-                if (this.parent.nextInstructionHashCode == -1) {
+                if (this.parent.nextInstructionHashCode == BytecodeUtils.NO_INSTRUCTION) {
                     this.parent.nextInstructionHashCode = this.instructionHashCode;
                 }
             }
@@ -102,13 +127,56 @@ public class TrieNode implements Serializable {
             this.bytecode = -1;
             this.parent.maximumNumberOfChildren = 0;
         }
-        if (pathCondition == null) {
-            this.type = TrieNodeType.UNSAT_NODE;
+        if (!isSatisfiable) {
+            setType(TrieNodeType.UNSAT_NODE);
         }
         this.metricValue = metricValue;
         this.inputSize = inputSize; 
     }
 
+    /**
+     * Creates a copy of the given node without its children, e.g. in a merged trie.
+     * 
+     * @param original
+     *            - node of another trie, which has the same path as the new node
+     */
+    TrieNode(Trie trie, TrieNode parent, TrieNode original) {
+        this(trie, original.choice, original.offset, original.methodName, original.lineNumber, parent);
+        this.instructionHashCode = original.instructionHashCode;
+        this.nextInstructionHashCode = original.nextInstructionHashCode;
+        this.bytecode = original.bytecode;
+        this.maximumNumberOfChildren = original.maximumNumberOfChildren;
+        this.isCompleted = original.isCompleted;
+        this.metricValue = original.metricValue;
+        this.inputSize = original.inputSize;
+        setType(original.type);
+    }
+
+    /**
+     * Checks whether the node belongs to the same branch instruction as a node of another trie. The full method name
+     * and offset are compared, because the instruction keys can collide, see
+     * {@link BytecodeUtils#getInstructionKey(Instruction)}.
+     */
+    public boolean hasSameInstruction(TrieNode other) {
+        return this.offset == other.offset && Objects.equals(this.methodName, other.methodName);
+    }
+
+    /**
+     * Takes over the instruction attributes of a node with the same path in another trie, which are missing here.
+     */
+    void mergeInstructionAttributes(TrieNode other) {
+        if (this.nextInstructionHashCode == BytecodeUtils.NO_INSTRUCTION) {
+            this.nextInstructionHashCode = other.nextInstructionHashCode;
+        }
+        this.maximumNumberOfChildren = Math.max(this.maximumNumberOfChildren, other.maximumNumberOfChildren);
+        if (this.inputSize == -1) {
+            this.inputSize = other.inputSize;
+        }
+        if (other.isCompleted) {
+            this.isCompleted = true;
+        }
+    }
+
     public TrieNode getParent() {
         return parent;
     }
@@ -154,7 +222,10 @@ public class TrieNode implements Serializable {
     }
 
     public void setType(TrieNodeType type) {
-        this.type = type;
+        if (type != this.type) {
+            trie.getCounters().typeChanged(this.type, type);
+            this.type = type;
+        }
     }
 
     public String getMethodName() {
@@ -240,6 +311,13 @@ public class TrieNode implements Serializable {
         trie.updateNode(this);
     }
 
+    /**
+     * Sets the metric value without updating the priority queue, e.g. for a trie without analyzer.
+     */
+    void setMetricValue(Double metricValue) {
+        this.metricValue = metricValue;
+    }
+
     public Double getMetricValue() {
         return this.metricValue;
     }
@@ -261,7 +339,7 @@ public class TrieNode implements Serializable {
 
         // Check branch coverage for the instruction associated to this node.
         if (!this.getChildren().isEmpty()) {
-            if (this.trie.getAnalyzer().getObservedChoices(nextInstructionHashCode).size() >= this.getMaximumNumberOfChildren()) {
+            if (this.trie.getAnalyzer().areAllChoicesCovered(nextInstructionHashCode, this.getMaximumNumberOfChildren())) {
                 return false;
             }
         } else {
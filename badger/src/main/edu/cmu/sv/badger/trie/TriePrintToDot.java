@@ -7,7 +7,8 @@ import java.io.FileWriter;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.Writer;
-import java.util.ArrayList;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
 
 /**
@@ -160,10 +161,10 @@ public class TriePrintToDot {
     }
 
     public void printTrieNodesAndEdges(TrieNode node, Writer output, Integer maxDepth) throws IOException {
-        List<TrieNode> nodesToPrint = new ArrayList<>();
+        Deque<TrieNode> nodesToPrint = new ArrayDeque<>();
         nodesToPrint.add(node);
         while (!nodesToPrint.isEmpty()) {
-            TrieNode currentNode = nodesToPrint.remove(0);
+            TrieNode currentNode = nodesToPrint.poll();
             
             /* Print current node. */
             output.write(generateNodeStringRepresentation(currentNode));
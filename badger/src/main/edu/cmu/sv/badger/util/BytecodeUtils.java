@@ -21,6 +21,7 @@ import gov.nasa.jpf.symbc.bytecode.SASTORE;
 import gov.nasa.jpf.symbc.bytecode.SwitchInstruction;
 import gov.nasa.jpf.vm.ElementInfo;
 import gov.nasa.jpf.vm.Instruction;
+import gov.nasa.jpf.vm.MethodInfo;
 import gov.nasa.jpf.vm.ThreadInfo;
 
 /**
@@ -28,6 +29,35 @@ import gov.nasa.jpf.vm.ThreadInfo;
  */
 public class BytecodeUtils {
 
+    /* Key of a node without instruction, e.g. the root. No instruction gets this key. */
+    public static final int NO_INSTRUCTION = -1;
+
+    /**
+     * Returns a key for the instruction, which is the same in every JPF run and JVM, unlike the identity hash code of
+     * the Instruction object. Tries and unsat cores refer to instructions by this key.
+     *
+     * The key is a hash of the full method name and the bytecode position, so two instructions can have the same key.
+     * Their observed choices are then shared, i.e. a choice of one instruction looks covered if the other one took it.
+     * Nodes of different tries are therefore matched by their method name and offset, see
+     * {@link edu.cmu.sv.badger.trie.TrieNode#hasSameInstruction}, not by this key.
+     */
+    public static int getInstructionKey(Instruction instruction) {
+        MethodInfo methodInfo = instruction.getMethodInfo();
+        return getInstructionKey(methodInfo != null ? methodInfo.getFullName() : "", instruction.getPosition());
+    }
+
+    /**
+     * @param methodName
+     *            - full name of the method, including class and signature
+     * @param position
+     *            - bytecode position of the instruction
+     * @return key of the instruction, see {@link #getInstructionKey(Instruction)}, never {@link #NO_INSTRUCTION}
+     */
+    public static int getInstructionKey(String methodName, int position) {
+        int key = 31 * methodName.hashCode() + position;
+        return key != NO_INSTRUCTION ? key : NO_INSTRUCTION - 1;
+    }
+
     public static int getNumberOfChoices(Instruction instruction) {
 
         if (instruction == null) {
@@ -0,0 +1,64 @@
+package edu.cmu.sv.badger.util;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Content-addressed cache of symcrete execution results. Since the trie only grows, an input with the same processed
+ * content as an already executed input follows the same path and cannot expose new behavior, so its execution can be
+ * skipped.
+ */
+public class ExecutionResultCache {
+
+    public static class Entry {
+        public final int leafNodeId;
+        public final Double cost;
+        public final boolean exposedNewBranch;
+        public final boolean observedBetterScore;
+
+        public Entry(int leafNodeId, Double cost, boolean exposedNewBranch, boolean observedBetterScore) {
+            this.leafNodeId = leafNodeId;
+            this.cost = cost;
+            this.exposedNewBranch = exposedNewBranch;
+            this.observedBetterScore = observedBetterScore;
+        }
+    }
+
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private int numberOfHits = 0;
+
+    /**
+     * @return 64-bit FNV-1a hash of the content, combined with its length
+     */
+    public static long hash(byte[] content) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : content) {
+            hash = (hash ^ (b & 0xff)) * 0x100000001b3L;
+        }
+        return hash ^ ((long) content.length * 0x9e3779b97f4a7c15L);
+    }
+
+    /**
+     * @return cached result for the content, or null if it was not executed yet
+     */
+    public Entry get(byte[] content) {
+        Entry entry = entries.get(hash(content));
+        if (entry != null) {
+            numberOfHits++;
+        }
+        return entry;
+    }
+
+    public void put(byte[] content, Entry entry) {
+        entries.put(hash(content), entry);
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    public int getNumberOfHits() {
+        return numberOfHits;
+    }
+
+}
@@ -2,132 +2,175 @@ package edu.cmu.sv.badger.util;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.MemoryUsage;
 import java.nio.file.Files;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
 
+import org.apache.commons.lang3.math.NumberUtils;
+
 import edu.cmu.sv.badger.app.BadgerInput;
+import edu.cmu.sv.badger.monitor.PhaseProfiler.Phase;
+import edu.cmu.sv.badger.trie.Trie;
+import edu.cmu.sv.badger.trie.TrieCounters;
+import edu.cmu.sv.badger.trie.TrieNodeType;
+import gov.nasa.jpf.symbc.numeric.PathCondition;
 
 /**
- * Utility to write statistic files.
- * 
+ * Utility to write statistic files. The lines are written asynchronously by a StatisticsWriter, either in the original
+ * CSV format or as JSON lines.
+ *
  * @author Yannic Noller <nolleryc@gmail.com> - YN
  */
 public class Statistics {
 
-    public static void initFiles(BadgerInput input) {
-        if (input.printStatistics) {
+    public static final String FORMAT_CSV = "csv";
+    public static final String FORMAT_JSONL = "jsonl";
 
-            File f1 = new File(input.importStatisticsFile);
-            f1.delete();
-            try {
-                f1.createNewFile();
-                Files.write(Paths.get(input.importStatisticsFile), ("# time, file, cost \n").getBytes(),
-                        StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to initialize: " + input.importStatisticsFile, e);
-            }
+    private static final String[] TRIE_STATISTICS_NAMES = { "numberOfNodes", "lengthPrioQueue",
+            "instructionMapping" };
 
-            File f2 = new File(input.pcMappingFile);
-            f2.delete();
-            try {
-                f2.createNewFile();
-                Files.write(Paths.get(input.pcMappingFile), ("# time, file, pc \n").getBytes(),
-                        StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to initialize: " + input.pcMappingFile, e);
-            }
+    private static final MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
 
-            File f3 = new File(input.generationStatisticsFile);
-            f3.delete();
-            try {
-                f3.createNewFile();
-                Files.write(Paths.get(input.generationStatisticsFile), ("# time, file \n").getBytes(),
-                        StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to initialize: " + input.generationStatisticsFile, e);
-            }
+    private static StatisticsWriter writer;
+    private static boolean useJSONL = false;
 
-            File f4 = new File(input.exportStatisticsFile);
-            f4.delete();
-            try {
-                f4.createNewFile();
-                Files.write(Paths.get(input.exportStatisticsFile),
-                        ("# time, tmpFile, file, branch, highscore \n").getBytes(), StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to initialize: " + input.exportStatisticsFile, e);
-            }
+    public static void initFiles(BadgerInput input) {
+        useJSONL = input.statisticsFormat.equals(FORMAT_JSONL);
+        if (input.printStatistics) {
+            initFile(input.importStatisticsFile, "# time, file, cost \n");
+            initFile(input.generationStatisticsFile, "# time, file, pc \n");
+            initFile(input.exportStatisticsFile, "# time, tmpFile, file, branch, highscore, pc \n");
+            initFile(input.trieStatisticsFile,
+                    "# time, numberOfNodes, lengthPrioQueue, instructionMapping, sizeSolutionQueue , alreadyReadInputFiles"
+                            + ", regularNodes, unsatNodes, frontierNodes, leafNodes, leaves, maxDepth, estimatedBytes"
+                            + ", heapUsed, heapCommitted \n");
+            initFile(input.phaseStatisticsFile, "# time, kind, total, analyze, replay, bse, solve, generate, process, "
+                    + "symcrete, export (milliseconds) \n");
+        }
+        if (input.printStatistics || input.printPC) {
+            initFile(input.pcMappingFile, "# time, file, pc \n");
+            writer = new StatisticsWriter(input.statisticsFlushMillis);
+        }
+    }
 
-            File f5 = new File(input.trieStatisticsFile);
-            f5.delete();
-            try {
-                f5.createNewFile();
-                Files.write(Paths.get(input.trieStatisticsFile),
-                        ("# time, numberOfNodes, lengthPrioQueue, instructionMapping, sizeSolutionQueue , alreadyReadInputFiles \n")
-                                .getBytes(),
-                        StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to initialize: " + input.trieStatisticsFile, e);
+    private static void initFile(String file, String csvHeader) {
+        File f = new File(file);
+        f.delete();
+        try {
+            f.createNewFile();
+            if (!useJSONL) {
+                Files.write(Paths.get(file), csvHeader.getBytes(), StandardOpenOption.APPEND);
             }
+        } catch (IOException e) {
+            throw new RuntimeException("[ERROR] Unable to initialize: " + file, e);
+        }
+    }
 
+    /**
+     * Flushes the lines that were written so far, e.g. for a checkpoint.
+     */
+    public static void flush() {
+        if (writer != null) {
+            writer.flush();
         }
     }
 
-    public static void appendTrieStatistics(BadgerInput input, String trieStatistics, int pcAndSolutionQueueSize,
+    /**
+     * Writes all pending lines to the files, e.g. before the application exits.
+     */
+    public static void close() {
+        if (writer != null) {
+            writer.close();
+        }
+    }
+
+    private static void write(String file, StatisticsRecord record) {
+        if (writer == null) {
+            throw new RuntimeException("[ERROR] Statistics files are not initialized: " + file);
+        }
+        writer.write(file, useJSONL ? record.toJSON() : record.toCSV());
+    }
+
+    /**
+     * Writes the trie statistics, which are maintained incrementally by the trie and the analyzer, together with a
+     * sample of the heap usage.
+     */
+    public static void appendTrieStatistics(BadgerInput input, Trie trie, int pcAndSolutionQueueSize,
             int numberOfAlreadyReadInputFiles) {
         if (input.printStatistics) {
-            String statistics = String.valueOf((System.currentTimeMillis() / 1000L)) + "," + trieStatistics + ","
-                    + pcAndSolutionQueueSize + "," + numberOfAlreadyReadInputFiles + "\n";
-            try {
-                Files.write(Paths.get(input.trieStatisticsFile), (statistics).getBytes(), StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to write trie statistics file", e);
+            StatisticsRecord record = new StatisticsRecord();
+            String[] values = trie.getStatistics().split(",");
+            for (int i = 0; i < values.length; i++) {
+                // The values of the analyzer are numbers, so that they are also numbers in the JSON lines.
+                String value = values[i].trim();
+                record.column(i < TRIE_STATISTICS_NAMES.length ? TRIE_STATISTICS_NAMES[i] : "value" + i,
+                        NumberUtils.isCreatable(value) ? NumberUtils.createNumber(value) : value);
             }
+            record.column("sizeSolutionQueue", pcAndSolutionQueueSize).column("alreadyReadInputFiles",
+                    numberOfAlreadyReadInputFiles);
+            TrieCounters counters = trie.getCounters();
+            record.column("regularNodes", counters.getNumberOfNodes(TrieNodeType.REGULAR_NODE))
+                    .column("unsatNodes", counters.getNumberOfNodes(TrieNodeType.UNSAT_NODE))
+                    .column("frontierNodes", counters.getNumberOfNodes(TrieNodeType.FRONTIER_NODE))
+                    .column("leafNodes", counters.getNumberOfNodes(TrieNodeType.LEAF_NODE))
+                    .column("leaves", counters.getNumberOfLeaves()).column("maxDepth", counters.getMaximumDepth())
+                    .column("estimatedBytes", counters.getEstimatedBytes());
+            MemoryUsage heap = memory.getHeapMemoryUsage();
+            record.column("heapUsed", heap.getUsed()).column("heapCommitted", heap.getCommitted());
+            write(input.trieStatisticsFile, record);
         }
     }
 
-    public static void appendImportStatistics(BadgerInput input, String statistics) {
+    /**
+     * @param kind
+     *            - "import" or "iteration"
+     * @param nanos
+     *            - total time followed by the phase times, see PhaseProfiler.endIteration
+     */
+    public static void appendPhaseStatistics(BadgerInput input, String kind, long[] nanos) {
         if (input.printStatistics) {
-            try {
-                Files.write(Paths.get(input.importStatisticsFile), (statistics).getBytes(), StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to write import statistics file", e);
+            StatisticsRecord record = new StatisticsRecord().column("kind", kind).column("total", toMillis(nanos[0]));
+            for (Phase phase : Phase.values()) {
+                record.column(phase.name().toLowerCase(), toMillis(nanos[phase.ordinal() + 1]));
             }
+            write(input.phaseStatisticsFile, record);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return Math.round(nanos / 1000.0) / 1000.0;
+    }
+
+    public static void appendImportStatistics(BadgerInput input, StatisticsRecord record) {
+        if (input.printStatistics) {
+            write(input.importStatisticsFile, record);
         }
     }
 
-    public static void appendExportStatistics(BadgerInput input, String statistics) {
+    public static void appendExportStatistics(BadgerInput input, StatisticsRecord record) {
         if (input.printStatistics) {
-            try {
-                Files.write(Paths.get(input.exportStatisticsFile), (statistics).getBytes(), StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to write export statistics file", e);
-            }
+            write(input.exportStatisticsFile, record);
         }
     }
 
-    public static void appendGenerationStatistics(BadgerInput input, String generatedFile) {
+    public static void appendGenerationStatistics(BadgerInput input, String generatedFile, int pcId) {
         if (input.printStatistics) {
-            try {
-                Files.write(Paths.get(input.generationStatisticsFile),
-                        ((System.currentTimeMillis() / 1000L) + "," + generatedFile + "\n").getBytes(),
-                        StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to write generation statistics file", e);
-            }
+            write(input.generationStatisticsFile,
+                    new StatisticsRecord().column("file", generatedFile).column("pc", pcId));
         }
     }
 
-    public static void appendPCMapping(BadgerInput input, String generatedFile, String pcSolution) {
+    /**
+     * Renders the path condition only if the pc mapping is enabled, because this is expensive for long path
+     * conditions.
+     */
+    public static void appendPCMapping(BadgerInput input, String generatedFile, PathCondition pc) {
         if (input.printPC) {
-            try {
-                Files.write(Paths.get(input.pcMappingFile),
-                        ((System.currentTimeMillis() / 1000L) + "," + generatedFile + "," + pcSolution + "\n")
-                                .getBytes(),
-                        StandardOpenOption.APPEND);
-            } catch (IOException e) {
-                throw new RuntimeException("[ERROR] Unable to write pc mapping file", e);
-            }
+            write(input.pcMappingFile,
+                    new StatisticsRecord().column("file", generatedFile).column("pc", pc.toString()));
         }
     }
 
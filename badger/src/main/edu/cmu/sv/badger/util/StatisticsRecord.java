@@ -0,0 +1,128 @@
+package edu.cmu.sv.badger.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * One line of a statistics file. The values are kept structured until the line is written, so that the same record
+ * can be written as CSV (the original format, which is read by the evaluation scripts) or as JSON line.
+ *
+ * There are three kinds of values: columns are written as value in CSV, flags only as their name, and tags as name
+ * followed by value. For example, the record column("file", "f").flag("branch").tag("pc", 3) is written as
+ * "time,f,branch,pc,3" and as {"time":...,"file":"f","branch":true,"pc":3}.
+ */
+public class StatisticsRecord {
+
+    private static enum Kind {
+        COLUMN, FLAG, TAG
+    }
+
+    private final long time;
+    private final List<Kind> kinds = new ArrayList<>();
+    private final List<String> names = new ArrayList<>();
+    private final List<Object> values = new ArrayList<>();
+
+    public StatisticsRecord() {
+        this.time = System.currentTimeMillis() / 1000L;
+    }
+
+    private StatisticsRecord add(Kind kind, String name, Object value) {
+        kinds.add(kind);
+        names.add(name);
+        values.add(value);
+        return this;
+    }
+
+    public StatisticsRecord column(String name, Object value) {
+        return add(Kind.COLUMN, name, value);
+    }
+
+    public StatisticsRecord flag(String name) {
+        return add(Kind.FLAG, name, Boolean.TRUE);
+    }
+
+    public StatisticsRecord tag(String name, Object value) {
+        return add(Kind.TAG, name, value);
+    }
+
+    public String toCSV() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(time);
+        for (int i = 0; i < kinds.size(); i++) {
+            sb.append(',');
+            switch (kinds.get(i)) {
+            case COLUMN:
+                sb.append(values.get(i));
+                break;
+            case FLAG:
+                sb.append(names.get(i));
+                break;
+            case TAG:
+                sb.append(names.get(i)).append(',').append(values.get(i));
+                break;
+            }
+        }
+        return sb.append('\n').toString();
+    }
+
+    public String toJSON() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"time\":").append(time);
+        for (int i = 0; i < kinds.size(); i++) {
+            sb.append(',');
+            appendJSONString(sb, names.get(i));
+            sb.append(':');
+            appendJSONValue(sb, values.get(i));
+        }
+        return sb.append("}\n").toString();
+    }
+
+    private static void appendJSONValue(StringBuilder sb, Object value) {
+        if (value == null) {
+            sb.append("null");
+        } else if (value instanceof Boolean) {
+            sb.append(value);
+        } else if (value instanceof Number) {
+            double d = ((Number) value).doubleValue();
+            if (Double.isNaN(d) || Double.isInfinite(d)) {
+                appendJSONString(sb, value.toString());
+            } else {
+                sb.append(value);
+            }
+        } else {
+            appendJSONString(sb, value.toString());
+        }
+    }
+
+    private static void appendJSONString(StringBuilder sb, String s) {
+        sb.append('"');
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            switch (c) {
+            case '"':
+                sb.append("\\\"");
+                break;
+            case '\\':
+                sb.append("\\\\");
+                break;
+            case '\n':
+                sb.append("\\n");
+                break;
+            case '\r':
+                sb.append("\\r");
+                break;
+            case '\t':
+                sb.append("\\t");
+                break;
+            default:
+                if (c < 0x20) {
+                    sb.append(String.format("\\u%04x", (int) c));
+                } else {
+                    sb.append(c);
+                }
+            }
+        }
+        sb.append('"');
+    }
+
+}
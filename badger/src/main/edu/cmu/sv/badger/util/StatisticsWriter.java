@@ -0,0 +1,146 @@
+package edu.cmu.sv.badger.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the lines of all statistics files in one background thread. Each file is opened once and written through a
+ * buffer, which is flushed periodically and when the writer is closed, so the caller never waits for the file system.
+ */
+public class StatisticsWriter {
+
+    private static class Line {
+        final String file;
+        final String content;
+
+        Line(String file, String content) {
+            this.file = file;
+            this.content = content;
+        }
+    }
+
+    /* Marks the end of the queue. */
+    private static final Line CLOSE = new Line(null, null);
+    /* Requests to flush all files. */
+    private static final Line FLUSH = new Line(null, null);
+
+    private final BlockingQueue<Line> queue = new LinkedBlockingQueue<>();
+    private final Map<String, Writer> writers = new HashMap<>();
+    private final long flushIntervalMillis;
+    private final Thread thread;
+    private volatile boolean isClosed = false;
+
+    /**
+     * @param flushIntervalMillis
+     *            - maximum time in milliseconds before written lines are flushed to the files
+     */
+    public StatisticsWriter(long flushIntervalMillis) {
+        this.flushIntervalMillis = flushIntervalMillis;
+        this.thread = new Thread(this::run, "badger-statistics");
+        this.thread.setDaemon(true);
+        this.thread.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(this::close));
+    }
+
+    /**
+     * Appends the line to the file asynchronously.
+     */
+    public void write(String file, String line) {
+        if (!isClosed) {
+            queue.add(new Line(file, line));
+        }
+    }
+
+    /**
+     * Flushes all files after the lines that were written before, without waiting for it.
+     */
+    public void flush() {
+        if (!isClosed) {
+            queue.add(FLUSH);
+        }
+    }
+
+    /**
+     * Writes all pending lines, flushes and closes the files.
+     */
+    public void close() {
+        if (isClosed) {
+            return;
+        }
+        isClosed = true;
+        queue.add(CLOSE);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long lastFlush = System.currentTimeMillis();
+        boolean isDirty = false;
+        while (true) {
+            Line line;
+            try {
+                line = queue.poll(flushIntervalMillis, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                line = CLOSE;
+            }
+            if (line == CLOSE) {
+                break;
+            }
+            if (line != null && line != FLUSH) {
+                append(line);
+                isDirty = true;
+            }
+            if (isDirty && (line == FLUSH || System.currentTimeMillis() - lastFlush >= flushIntervalMillis)) {
+                flushAll();
+                lastFlush = System.currentTimeMillis();
+                isDirty = false;
+            }
+        }
+        for (Writer writer : writers.values()) {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void append(Line line) {
+        try {
+            Writer writer = writers.get(line.file);
+            if (writer == null) {
+                writer = Files.newBufferedWriter(Paths.get(line.file), StandardCharsets.UTF_8,
+                        StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+                writers.put(line.file, writer);
+            }
+            writer.write(line.content);
+        } catch (IOException e) {
+            System.out.println("[ERROR] Unable to write statistics file: " + line.file);
+            e.printStackTrace();
+        }
+    }
+
+    private void flushAll() {
+        for (Map.Entry<String, Writer> entry : writers.entrySet()) {
+            try {
+                entry.getValue().flush();
+            } catch (IOException e) {
+                System.out.println("[ERROR] Unable to flush statistics file: " + entry.getKey());
+                e.printStackTrace();
+            }
+        }
+    }
+
+}
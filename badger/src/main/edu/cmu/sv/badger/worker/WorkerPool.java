@@ -0,0 +1,304 @@
+package edu.cmu.sv.badger.worker;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.cmu.sv.badger.listener.SymcretePath;
+
+/**
+ * Pool of BadgerWorker processes, which run the symcrete executions for SymExe, so that a crash or an out of memory
+ * error of JPF or the target only takes down one worker. Each worker is a separate JVM that connects to its own
+ * loopback server socket. A worker that crashes or exceeds the timeout is killed and restarted, and its task is
+ * retried; a task that fails in every attempt is quarantined.
+ */
+public class WorkerPool {
+
+    public static final String WORKER_CLASS = "edu.cmu.sv.badger.app.BadgerWorker";
+
+    private static final int CONNECT_TIMEOUT_MILLIS = 60000;
+    private static final int SHUTDOWN_TIMEOUT_SEC = 5;
+
+    /**
+     * Result of one task.
+     */
+    public static class Result {
+        private final SymcretePath path;
+        private final long nanos;
+        private final String error;
+        private final boolean isQuarantined;
+
+        Result(SymcretePath path, long nanos, String error, boolean isQuarantined) {
+            this.path = path;
+            this.nanos = nanos;
+            this.error = error;
+            this.isQuarantined = isQuarantined;
+        }
+
+        /**
+         * @return recorded path, or null if the execution failed
+         */
+        public SymcretePath getPath() {
+            return path;
+        }
+
+        /**
+         * @return execution time in the worker, summed over all attempts
+         */
+        public long getNanos() {
+            return nanos;
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * @return true if the worker crashed or timed out in every attempt
+         */
+        public boolean isQuarantined() {
+            return isQuarantined;
+        }
+    }
+
+    private static class PendingTask {
+        final int index;
+        final WorkerProtocol.Task task;
+        int numberOfAttempts = 0;
+        long nanos = 0;
+
+        PendingTask(int index, WorkerProtocol.Task task) {
+            this.index = index;
+            this.task = task;
+        }
+    }
+
+    private final String configFile;
+    private final List<String> jvmArguments;
+    private final int timeoutMillis;
+    private final int maximumNumberOfRetries;
+    private final String logDir;
+
+    private final Worker[] workers;
+    private final ExecutorService executor;
+    private final AtomicLong lastTaskId = new AtomicLong(-1);
+
+    /**
+     * @param numberOfWorkers
+     *            - number of worker processes
+     * @param configFile
+     *            - Badger configuration, which the workers load for the JPF settings
+     * @param jvmArguments
+     *            - additional arguments for the worker JVMs, separated by spaces, e.g. "-Xmx2g"
+     * @param timeoutSec
+     *            - maximum time of one task, 0 for no limit
+     * @param maximumNumberOfRetries
+     *            - number of retries of a task, whose worker crashed or timed out
+     * @param logDir
+     *            - directory for the output of the workers
+     */
+    public WorkerPool(int numberOfWorkers, String configFile, String jvmArguments, int timeoutSec,
+            int maximumNumberOfRetries, String logDir) {
+        this.configFile = configFile;
+        this.jvmArguments = new ArrayList<>();
+        for (String argument : jvmArguments.trim().split("\\s+")) {
+            if (!argument.isEmpty()) {
+                this.jvmArguments.add(argument);
+            }
+        }
+        this.timeoutMillis = timeoutSec * 1000;
+        this.maximumNumberOfRetries = maximumNumberOfRetries;
+        this.logDir = logDir;
+        this.workers = new Worker[numberOfWorkers];
+        for (int i = 0; i < numberOfWorkers; i++) {
+            workers[i] = new Worker(i);
+        }
+        this.executor = Executors.newFixedThreadPool(numberOfWorkers, runnable -> {
+            Thread thread = new Thread(runnable, "badger-worker-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getNumberOfWorkers() {
+        return workers.length;
+    }
+
+    /**
+     * Runs the symcrete executions of the given inputs in parallel.
+     *
+     * @param targetArguments
+     *            - processed input files
+     * @return results in the order of the inputs
+     */
+    public List<Result> execute(List<String> targetArguments) {
+        Result[] results = new Result[targetArguments.size()];
+        Deque<PendingTask> pendingTasks = new ConcurrentLinkedDeque<>();
+        for (int i = 0; i < targetArguments.size(); i++) {
+            pendingTasks.add(
+                    new PendingTask(i, new WorkerProtocol.Task(lastTaskId.incrementAndGet(), targetArguments.get(i))));
+        }
+
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < Math.min(workers.length, targetArguments.size()); i++) {
+            Worker worker = workers[i];
+            futures.add(executor.submit(() -> runTasks(worker, pendingTasks, results)));
+        }
+        for (Future<?> future : futures) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (ExecutionException e) {
+                e.printStackTrace();
+            }
+        }
+        return Arrays.asList(results);
+    }
+
+    private void runTasks(Worker worker, Deque<PendingTask> pendingTasks, Result[] results) {
+        PendingTask pendingTask;
+        while ((pendingTask = pendingTasks.poll()) != null) {
+            pendingTask.numberOfAttempts++;
+            long startTime = System.nanoTime();
+            try {
+                worker.ensureRunning();
+                Result result = worker.execute(pendingTask.task);
+                results[pendingTask.index] = new Result(result.getPath(), pendingTask.nanos + result.getNanos(),
+                        result.getError(), false);
+            } catch (IOException e) {
+                // Crash, out of memory or timeout of the worker.
+                pendingTask.nanos += System.nanoTime() - startTime;
+                worker.kill();
+                String error = "worker " + worker.index + " failed: " + e;
+                System.out.println("[WARNING] " + error + ", task: " + pendingTask.task.targetArgument + " (attempt "
+                        + pendingTask.numberOfAttempts + ")");
+                if (pendingTask.numberOfAttempts > maximumNumberOfRetries) {
+                    results[pendingTask.index] = new Result(null, pendingTask.nanos, error, true);
+                } else {
+                    pendingTasks.addFirst(pendingTask);
+                }
+            }
+        }
+    }
+
+    /**
+     * Shuts down all worker processes.
+     */
+    public void close() {
+        for (Worker worker : workers) {
+            worker.shutdown();
+        }
+        executor.shutdownNow();
+    }
+
+    private class Worker {
+        final int index;
+        private ServerSocket serverSocket;
+        private Process process;
+        private Socket socket;
+        private DataInputStream in;
+        private DataOutputStream out;
+
+        Worker(int index) {
+            this.index = index;
+        }
+
+        void ensureRunning() throws IOException {
+            if (process != null && process.isAlive() && socket != null) {
+                return;
+            }
+            kill();
+            if (serverSocket == null) {
+                serverSocket = new ServerSocket(0, 1, InetAddress.getLoopbackAddress());
+            }
+
+            List<String> command = new ArrayList<>();
+            command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+            command.addAll(jvmArguments);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(WORKER_CLASS);
+            command.add(configFile);
+            command.add(String.valueOf(serverSocket.getLocalPort()));
+            ProcessBuilder processBuilder = new ProcessBuilder(command);
+            processBuilder.redirectErrorStream(true);
+            File logFile = new File(logDir, "worker-" + index + ".log");
+            processBuilder.redirectOutput(ProcessBuilder.Redirect.appendTo(logFile));
+            process = processBuilder.start();
+
+            serverSocket.setSoTimeout(CONNECT_TIMEOUT_MILLIS);
+            socket = serverSocket.accept();
+            socket.setTcpNoDelay(true);
+            in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            WorkerProtocol.readHello(in);
+        }
+
+        /**
+         * @throws IOException
+         *             if the worker crashed or timed out
+         */
+        Result execute(WorkerProtocol.Task task) throws IOException {
+            socket.setSoTimeout(timeoutMillis);
+            WorkerProtocol.writeTask(out, task);
+            return WorkerProtocol.readResult(in, task.id);
+        }
+
+        void kill() {
+            if (socket != null) {
+                try {
+                    socket.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                socket = null;
+            }
+            if (process != null) {
+                process.destroyForcibly();
+                process = null;
+            }
+        }
+
+        void shutdown() {
+            if (socket != null) {
+                try {
+                    WorkerProtocol.writeShutdown(out);
+                    process.waitFor(SHUTDOWN_TIMEOUT_SEC, TimeUnit.SECONDS);
+                } catch (IOException e) {
+                    // The worker is already gone.
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            kill();
+            if (serverSocket != null) {
+                try {
+                    serverSocket.close();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,121 @@
+package edu.cmu.sv.badger.worker;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import edu.cmu.sv.badger.listener.SymcretePath;
+
+/**
+ * Binary protocol between the WorkerPool of SymExe and a BadgerWorker process over a loopback socket. After the worker
+ * connected, it sends a hello message, and then answers each task message with exactly one result message:
+ *
+ * <pre>
+ * hello:    int magic, int version
+ * task:     byte TASK_SYMCRETE, long taskId, UTF targetArgument
+ *           byte TASK_SHUTDOWN
+ * result:   byte RESULT_PATH, long taskId, long nanos, SymcretePath
+ *           byte RESULT_FAILED, long taskId, long nanos, UTF error
+ * </pre>
+ */
+public class WorkerProtocol {
+
+    public static final int MAGIC = 0x42444752; // "BDGR"
+    public static final int VERSION = 1;
+
+    public static final byte TASK_SHUTDOWN = 0;
+    public static final byte TASK_SYMCRETE = 1;
+
+    public static final byte RESULT_PATH = 1;
+    public static final byte RESULT_FAILED = 2;
+
+    /**
+     * Task for a worker, i.e. the symcrete execution of one input.
+     */
+    public static class Task {
+        public final long id;
+        public final String targetArgument;
+
+        public Task(long id, String targetArgument) {
+            this.id = id;
+            this.targetArgument = targetArgument;
+        }
+    }
+
+    public static void writeHello(DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.flush();
+    }
+
+    public static void readHello(DataInputStream in) throws IOException {
+        int magic = in.readInt();
+        int version = in.readInt();
+        if (magic != MAGIC || version != VERSION) {
+            throw new IOException("Unknown worker protocol: " + Integer.toHexString(magic) + " version " + version);
+        }
+    }
+
+    public static void writeTask(DataOutputStream out, Task task) throws IOException {
+        out.writeByte(TASK_SYMCRETE);
+        out.writeLong(task.id);
+        out.writeUTF(task.targetArgument);
+        out.flush();
+    }
+
+    public static void writeShutdown(DataOutputStream out) throws IOException {
+        out.writeByte(TASK_SHUTDOWN);
+        out.flush();
+    }
+
+    /**
+     * @return next task, or null if the worker should shut down
+     */
+    public static Task readTask(DataInputStream in) throws IOException {
+        byte type = in.readByte();
+        if (type == TASK_SHUTDOWN) {
+            return null;
+        }
+        if (type != TASK_SYMCRETE) {
+            throw new IOException("Unknown task type: " + type);
+        }
+        return new Task(in.readLong(), in.readUTF());
+    }
+
+    /**
+     * @param path
+     *            - recorded path, or null if JPF failed
+     */
+    public static void writeResult(DataOutputStream out, long taskId, long nanos, SymcretePath path, String error)
+            throws IOException {
+        if (path != null) {
+            out.writeByte(RESULT_PATH);
+            out.writeLong(taskId);
+            out.writeLong(nanos);
+            path.write(out);
+        } else {
+            out.writeByte(RESULT_FAILED);
+            out.writeLong(taskId);
+            out.writeLong(nanos);
+            out.writeUTF(error != null ? error : "");
+        }
+        out.flush();
+    }
+
+    public static WorkerPool.Result readResult(DataInputStream in, long expectedTaskId) throws IOException {
+        byte type = in.readByte();
+        long taskId = in.readLong();
+        if (taskId != expectedTaskId) {
+            throw new IOException("Unexpected result for task " + taskId + ", expected " + expectedTaskId);
+        }
+        long nanos = in.readLong();
+        if (type == RESULT_PATH) {
+            return new WorkerPool.Result(SymcretePath.read(in), nanos, null, false);
+        }
+        if (type == RESULT_FAILED) {
+            return new WorkerPool.Result(null, nanos, in.readUTF(), false);
+        }
+        throw new IOException("Unknown result type: " + type);
+    }
+
+}
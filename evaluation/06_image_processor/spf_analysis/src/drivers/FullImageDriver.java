@@ -22,12 +22,24 @@ public class FullImageDriver {
             // Read input file.
             System.out.println("Loading image: " + fileName);
 
-            // input file format: id:width:height:imageType
+            // input file format: id:width:height:imageType[:roiX:roiY:roiWidth:roiHeight]
             String[] splittedFileName = fileName.split(":");
             int width = Integer.valueOf(splittedFileName[1]);
             int height = Integer.valueOf(splittedFileName[2]);
             int imageType = Integer.valueOf(splittedFileName[3]);
 
+            // only the pixels in the region of interest are symbolic
+            int roiX = 0;
+            int roiY = 0;
+            int roiWidth = width;
+            int roiHeight = height;
+            if (splittedFileName.length >= 8) {
+                roiX = Integer.valueOf(splittedFileName[4]);
+                roiY = Integer.valueOf(splittedFileName[5]);
+                roiWidth = Integer.valueOf(splittedFileName[6]);
+                roiHeight = Integer.valueOf(splittedFileName[7]);
+            }
+
             bi = new BufferedImage(width, height, imageType);
             try (FileInputStream fis = new FileInputStream(fileName.replace("#", ","))) {
 
@@ -37,7 +49,7 @@ public class FullImageDriver {
                 while ((fis.read(bytes) != -1) && (pixels_read < width * height)) {
                     int pixel = ByteBuffer.wrap(bytes).getInt();
                     int x = pixels_read % width;
-                    int y = pixels_read / height;
+                    int y = pixels_read / width;
                     System.out.println("pixel[" + x + "][" + y + "] = " + pixel);
                     bi.setRGB(x, y, pixel);
                     pixels_read++;
@@ -49,8 +61,8 @@ public class FullImageDriver {
 
             // Introduce symbolic variables.
             System.out.println("Inserting symbolic variables in image...");
-            for (int x = 0; x < width; x++) {
-                for (int y = 0; y < height; y++) {
+            for (int x = Math.max(0, roiX); x < Math.min(width, roiX + roiWidth); x++) {
+                for (int y = Math.max(0, roiY); y < Math.min(height, roiY + roiHeight); y++) {
                     bi.setRGB(x, y, Debug.addSymbolicInt(bi.getRGB(x, y), "sym_" + x + "_" + y));
                 }
             }
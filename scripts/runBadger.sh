@@ -20,6 +20,10 @@ subject=01-insertionsort
 bin=../example
 # bin=../evaluation/07_smart_contract
 
+# merge the tries of all runs into one trie, which can seed a new run with symexe.trie.seed (0=no, 1=yes)
+# requires monitor.checkpoint.sec in the config
+merge_tries=0
+
 # badger=1, kelinciwca=2, symexe=3
 execution_mode=1
 
@@ -74,6 +78,7 @@ echo "server_param=$server_param"
 echo ""
 
 mkdir -p ./experiment-results
+results_dir="$(pwd)/experiment-results"
 
 for i in `seq 1 $number_of_runs`
 do
@@ -153,4 +158,10 @@ do
 
 done
 
+if [ $merge_tries -eq 1 ] && [ $execution_mode -ne 2 ]
+then
+  echo "Merging tries.."
+  java -cp "$pathToBadger/build/*:$pathToBadger/lib/*:$pathToJPF/build/*:$pathToSPF/build/*:$pathToSPF/lib/*" edu.cmu.sv.badger.trie.TrieMerger max "$results_dir/$(basename $target)-merged.trie" "$results_dir/$(basename $target)"-*/badger-checkpoint.trie
+fi
+
 echo "Done."